@@ -25,7 +25,46 @@ check_java() {
   fi
 }
 
+# Packaged launch (./mvnw -P dist[,jlink] -DskipTests package): the jlink runtime when present,
+# with the AppCDS archive from the build's training run. The JVM rejects an archive once the jar
+# changes without rebuilding it, so a stale one is removed here and AutoCreateSharedArchive writes
+# a fresh one when the app exits; a rebuild without the training run costs one slow start.
+# TT_CDS_TRAINING=true is the build's training run; TT_JAVA_OPTS adds JVM options.
+run_packaged() {
+  root=$(pwd)
+  java_cmd=java
+  modules="--module-path $root/target/lib/javafx --add-modules javafx.controls,javafx.fxml"
+  if [ -x "$root/target/runtime/bin/java" ]; then
+    java_cmd="$root/target/runtime/bin/java"
+    modules=""
+  else
+    check_java
+  fi
+
+  archive="$root/target/timetracker.jsa"
+  if [ "$TT_CDS_TRAINING" = "true" ]; then
+    rm -f "$archive"
+    cds="-XX:ArchiveClassesAtExit=$archive"
+  else
+    if [ "$root/target/timetracker.jar" -nt "$archive" ]; then
+      rm -f "$archive"
+    elif [ -z "$modules" ] && [ "$root/target/runtime/lib/modules" -nt "$archive" ]; then
+      rm -f "$archive"
+    fi
+    cds="-XX:SharedArchiveFile=$archive -XX:+AutoCreateSharedArchive"
+  fi
+
+  # shellcheck disable=SC2086
+  exec "$java_cmd" $cds $TT_JAVA_OPTS $modules \
+    -classpath "$root/target/timetracker.jar:$root/target/lib/*" com.timetracker.TimeTrackerApp
+}
+
 cd "$(dirname "$0")"
+
+if [ -f target/timetracker.jar ] && [ "$TT_LAUNCH" != "maven" ]; then
+  run_packaged
+fi
+
 check_java
 
 echo "Starting TimeTracker+ with Maven Wrapper..."
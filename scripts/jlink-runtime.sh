@@ -0,0 +1,36 @@
+#!/bin/sh
+# Builds target/runtime: a trimmed Java runtime with JavaFX linked in and a CDS archive of its own
+# JDK classes. The module list comes from jdeps over the compiled classes and the runtime jars, so
+# it follows the code. Called by the Maven 'jlink' profile after the dependencies are copied;
+# run.sh prefers the image when it exists.
+#
+# Usage: scripts/jlink-runtime.sh
+# Expects target/classes, target/lib and target/lib/javafx (./mvnw -P dist,jlink package).
+
+set -e
+
+cd "$(dirname "$0")/.."
+
+bin=""
+if [ -n "$JAVA_HOME" ]; then
+  bin="$JAVA_HOME/bin/"
+fi
+
+if [ ! -d target/classes ] || [ ! -d target/lib/javafx ]; then
+  echo "target/classes and target/lib/javafx are missing; run ./mvnw -P dist,jlink -DskipTests package" >&2
+  exit 1
+fi
+
+modules=$("${bin}jdeps" --print-module-deps --ignore-missing-deps --multi-release 21 \
+  --module-path target/lib/javafx target/classes target/lib/*.jar)
+echo "Linking runtime with $modules"
+
+rm -rf target/runtime
+"${bin}jlink" \
+  --module-path target/lib/javafx \
+  --add-modules "$modules" \
+  --output target/runtime \
+  --strip-debug \
+  --no-header-files \
+  --no-man-pages \
+  --generate-cds-archive
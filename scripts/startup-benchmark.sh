@@ -0,0 +1,54 @@
+#!/bin/sh
+# Cold-start benchmark: launches the desktop app repeatedly with TT_STARTUP_PROBE=true, which
+# prints the JVM uptime at the first rendered frame and after the initial data load, then exits.
+# Also reports the wall-clock time of each launch, which includes JVM boot and any launcher
+# overhead (Maven) that the JVM uptime does not see.
+#
+# Usage: scripts/startup-benchmark.sh [runs] [launch command...]
+#   runs            number of launches (default 5)
+#   launch command  defaults to the Maven launch (what run.sh does without a packaged build)
+# scripts/startup-compare.sh runs this for the Maven and the packaged (AppCDS/jlink) launch.
+# Needs a display (use xvfb-run on headless machines).
+
+set -e
+
+cd "$(dirname "$0")/.."
+
+runs=${1:-5}
+if [ $# -gt 0 ]; then
+  shift
+fi
+if [ $# -eq 0 ]; then
+  ./mvnw -q -DskipTests compile
+  set -- ./mvnw -q -DskipTests javafx:run
+fi
+
+now_ms() {
+  echo $(($(date +%s%N) / 1000000))
+}
+
+summarize() {
+  sort -n | awk -v label="$1" '
+    { v[NR] = $1 }
+    END { printf "%s over %d runs: median=%d min=%d max=%d\n", label, NR, v[int((NR + 1) / 2)], v[1], v[NR] }'
+}
+
+frames=""
+walls=""
+i=1
+while [ "$i" -le "$runs" ]; do
+  started=$(now_ms)
+  line=$(TT_STARTUP_PROBE=true "$@" 2>/dev/null | grep '^startup ' | tail -n 1 || true)
+  wall=$(($(now_ms) - started))
+  if [ -z "$line" ]; then
+    echo "Run $i printed no startup line; is a display available?" >&2
+    exit 1
+  fi
+  echo "run $i: ${line#startup } wall-ms=$wall"
+  frames="$frames $(printf '%s\n' "$line" | sed 's/.*first-frame-ms=\([0-9]*\).*/\1/')"
+  walls="$walls $wall"
+  i=$((i + 1))
+done
+
+printf '%s\n' $frames | summarize first-frame-ms
+printf '%s\n' $walls | summarize wall-ms
@@ -0,0 +1,38 @@
+#!/bin/sh
+# Compares cold starts of the current Maven launch with the packaged launch run.sh uses after
+# ./mvnw -P dist[,jlink] -DskipTests package (jlink runtime if built, AppCDS archive).
+#
+# Usage: scripts/startup-compare.sh [runs]
+# Needs a display (use xvfb-run on headless machines).
+
+set -e
+
+cd "$(dirname "$0")/.."
+
+runs=${1:-5}
+
+if [ ! -f target/timetracker.jar ]; then
+  echo "No packaged build; run ./mvnw -P dist -DskipTests package first" >&2
+  exit 1
+fi
+if [ -f target/timetracker.jsa ]; then
+  archive="AppCDS archive"
+else
+  archive="no AppCDS archive yet"
+fi
+if [ -x target/runtime/bin/java ]; then
+  packaged="packaged (jlink runtime, $archive)"
+else
+  packaged="packaged ($archive)"
+fi
+
+./mvnw -q -DskipTests compile
+
+echo "== maven (javafx:run)"
+maven=$(scripts/startup-benchmark.sh "$runs" env TT_LAUNCH=maven ./run.sh | tee /dev/stderr | tail -n 2)
+echo "== $packaged"
+fast=$(scripts/startup-benchmark.sh "$runs" ./run.sh | tee /dev/stderr | tail -n 2)
+
+echo
+echo "maven:    $(printf '%s\n' "$maven" | tr '\n' ' ')"
+echo "packaged: $(printf '%s\n' "$fast" | tr '\n' ' ')"
@@ -0,0 +1,86 @@
+package com.timetracker.bench;
+
+import com.timetracker.tracking.ActivityEvent;
+import com.timetracker.tracking.ActivityEventDao;
+import com.timetracker.tracking.ActivityEventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ActivityEventDao} against a database holding {@code days} days of 1 s polls. Pass
+ * {@code -p days=1825} for the five-year case; it takes a while to build the first time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ActivityEventDaoBenchmark {
+
+    @Param({"1", "30", "365"})
+    public int days;
+
+    /**
+     * Query window in seconds, ending at the last recorded event.
+     */
+    @Param({"300", "86400"})
+    public int windowSeconds;
+
+    private final ActivityEventDao dao = new ActivityEventDao();
+    private Instant from;
+    private Instant to;
+    private List<ActivityEvent> batch;
+    private long insertCursor;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabases.use(days);
+        to = BenchmarkDatabases.endOfData();
+        from = to.minusSeconds(windowSeconds);
+        batch = BenchmarkDatabases.lastEvents(100).stream()
+                .map(event -> new ActivityEvent(event.timestamp().plusSeconds(86_400), event.type(),
+                        event.appId(), event.windowTitle(), event.url(), event.payloadJson()))
+                .toList();
+        // Inserts land after the seeded range so they never show up in findBetween windows, and
+        // are deleted again after the trial.
+        insertCursor = to.plusSeconds(86_400 * 2L).getEpochSecond();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInserted() {
+        BenchmarkDatabases.deleteEventsAfterData();
+    }
+
+    @Benchmark
+    public List<ActivityEvent> findBetween() {
+        return dao.findBetween(from, to);
+    }
+
+    @Benchmark
+    public void insert() {
+        dao.insert(new ActivityEvent(Instant.ofEpochSecond(insertCursor++), ActivityEventType.FOCUS,
+                "code", "TimeTracker - ActivityEventDao.java", null, null));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void insertAll100() {
+        dao.insertAll(batch);
+    }
+}
@@ -0,0 +1,76 @@
+package com.timetracker.bench;
+
+import com.timetracker.tracking.ActivityUrlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URL parsing done once per captured event (redaction) and once per session (domain extraction).
+ * {@code extractDomain}/{@code redactQuery} repeat a few URLs and so measure cache hits;
+ * {@code redactQueryDistinct} cycles through more distinct URLs than the cache holds, so every
+ * call scans.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ActivityUrlUtilsBenchmark {
+
+    private final String[] urls = {
+            "https://github.com/Blitz00X/TimeTracker/pulls?q=is%3Aopen+is%3Apr",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ&t=42s#comments",
+            "https://docs.oracle.com/en/java/javase/21/docs/api/java.base/java/net/URI.html",
+            "http://localhost:8080/api/v1/sessions?from=2024-01-01&to=2024-01-31",
+            "https://mail.google.com/mail/u/0/#inbox",
+            "file:///home/user/Downloads/report.pdf",
+            "https://example.com/search?q=a b c",
+            "chrome://settings/privacy",
+    };
+
+    private final String[] distinct = new String[8192];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < distinct.length; i++) {
+            distinct[i] = "https://host" + (i % 97) + ".example.com/docs/page-" + i + "?ref=nav&utm_source=" + i + "#top";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void extractDomain(Blackhole blackhole) {
+        for (String url : urls) {
+            blackhole.consume(ActivityUrlUtils.extractDomain(url));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public void redactQuery(Blackhole blackhole) {
+        for (String url : urls) {
+            blackhole.consume(ActivityUrlUtils.redactQuery(url, true));
+        }
+    }
+
+    @Benchmark
+    public Object redactQueryDistinct() {
+        String url = distinct[next];
+        next = (next + 1) % distinct.length;
+        return ActivityUrlUtils.redactQuery(url, true);
+    }
+}
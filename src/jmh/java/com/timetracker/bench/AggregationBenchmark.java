@@ -0,0 +1,61 @@
+package com.timetracker.bench;
+
+import com.timetracker.tracking.ActivityAggregator;
+import com.timetracker.tracking.ActivityDailyTotal;
+import com.timetracker.tracking.ActivityEvent;
+import com.timetracker.tracking.ActivitySession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cost of {@link ActivityAggregator} for one aggregation window of 1 s polls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AggregationBenchmark {
+
+    /**
+     * Window length in seconds: the 5-minute scheduled run, an hour, and a full day.
+     */
+    @Param({"300", "3600", "86400"})
+    public int windowSeconds;
+
+    private final ActivityAggregator aggregator = new ActivityAggregator();
+    private List<ActivityEvent> events;
+    private List<ActivitySession> sessions;
+    private Instant closingBoundary;
+
+    @Setup
+    public void setUp() {
+        events = BenchmarkDatabases.lastEvents(windowSeconds);
+        closingBoundary = BenchmarkDatabases.endOfData();
+        sessions = aggregator.buildSessions(events, closingBoundary);
+    }
+
+    @Benchmark
+    public List<ActivitySession> buildSessions() {
+        return aggregator.buildSessions(events, closingBoundary);
+    }
+
+    @Benchmark
+    public List<ActivityDailyTotal> summarize() {
+        return aggregator.summarize(sessions);
+    }
+}
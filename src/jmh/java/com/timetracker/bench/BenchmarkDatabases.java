@@ -0,0 +1,92 @@
+package com.timetracker.bench;
+
+import com.timetracker.db.DatabaseManager;
+import com.timetracker.tools.WorkloadGenerator;
+import com.timetracker.tracking.ActivityEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Synthetic SQLite databases for the benchmarks, built with {@link WorkloadGenerator}: one poll
+ * per second around the clock (the collector at {@code TT_POLL_SECONDS=1}) plus eight manual
+ * sessions a day, ending at {@link #LAST_DAY}. Each size is built once under
+ * {@code target/jmh-db} and reused by later forks and runs.
+ */
+final class BenchmarkDatabases {
+
+    static final LocalDate LAST_DAY = LocalDate.of(2024, 6, 30);
+    static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private BenchmarkDatabases() {
+    }
+
+    static WorkloadGenerator.Spec spec(int days) {
+        return new WorkloadGenerator.Spec(42L, LAST_DAY, days, 1, 24, 4, 8, false, ZONE);
+    }
+
+    /**
+     * Points {@link DatabaseManager} at a database holding {@code days} days of data, building it
+     * first if needed.
+     */
+    static Path use(int days) {
+        Path target = Path.of("target", "jmh-db", "workload-" + days + "d.db").toAbsolutePath();
+        if (!Files.exists(target)) {
+            build(days, target);
+        }
+        System.setProperty(DatabaseManager.DATABASE_PATH_PROPERTY, target.toString());
+        return target;
+    }
+
+    static Instant endOfData() {
+        return LAST_DAY.plusDays(1).atStartOfDay(ZONE).toInstant();
+    }
+
+    /**
+     * Deletes every activity event at or after {@link #endOfData()}, i.e. whatever a write
+     * benchmark added, so the shared database looks the same to the next trial and run.
+     */
+    static void deleteEventsAfterData() {
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement("DELETE FROM activity_events WHERE ts >= ?")) {
+            statement.setString(1, DateTimeFormatter.ISO_INSTANT.format(endOfData()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to delete benchmark events", e);
+        }
+    }
+
+    /**
+     * The last {@code seconds} of the generated event stream, without touching the database.
+     */
+    static List<ActivityEvent> lastEvents(int seconds) {
+        Instant from = endOfData().minusSeconds(seconds);
+        return new WorkloadGenerator(spec(1)).eventsForDay(LAST_DAY).stream()
+                .filter(event -> !event.timestamp().isBefore(from))
+                .toList();
+    }
+
+    private static void build(int days, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path building = target.resolveSibling(target.getFileName() + ".building");
+            Files.deleteIfExists(building);
+            System.setProperty(DatabaseManager.DATABASE_PATH_PROPERTY, building.toString());
+            new WorkloadGenerator(spec(days)).generate();
+            Files.move(building, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to build benchmark database " + target, e);
+        }
+    }
+}
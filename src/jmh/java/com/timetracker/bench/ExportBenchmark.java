@@ -0,0 +1,53 @@
+package com.timetracker.bench;
+
+import com.timetracker.service.SessionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV/ICS export of a history range, including the range query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ExportBenchmark {
+
+    @Param({"30", "365"})
+    public int rangeDays;
+
+    private final SessionService service = new SessionService();
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabases.use(365);
+        end = BenchmarkDatabases.LAST_DAY;
+        start = end.minusDays(rangeDays - 1L);
+    }
+
+    @Benchmark
+    public String generateCsv() {
+        return service.generateCsvForDateRange(start, end);
+    }
+
+    @Benchmark
+    public String generateIcs() {
+        return service.generateIcsForDateRange(start, end);
+    }
+}
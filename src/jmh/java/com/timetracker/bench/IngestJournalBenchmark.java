@@ -0,0 +1,122 @@
+package com.timetracker.bench;
+
+import com.timetracker.db.DatabaseInitializer;
+import com.timetracker.tracking.ActivityEvent;
+import com.timetracker.tracking.ActivityEventDao;
+import com.timetracker.tracking.ActivityEventType;
+import com.timetracker.tracking.IngestJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ingest cost per event: appending to {@link IngestJournal}, appending plus draining it into
+ * SQLite, and writing straight through {@link ActivityEventDao} one row or one batch at a time.
+ * Every invocation handles {@link #EVENTS} events; what {@code journalAppend} leaves behind is
+ * drained outside the measurement. Everything written is deleted after the trial, so the shared
+ * database does not grow from run to run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IngestJournalBenchmark {
+
+    static final int EVENTS = 1_000;
+
+    private final ActivityEventDao dao = new ActivityEventDao();
+    private IngestJournal journal;
+    private long cursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path database = BenchmarkDatabases.use(1);
+        DatabaseInitializer.initialize();
+        Path directory = database.resolveSibling("ingest-journal");
+        deleteRecursively(directory);
+        journal = new IngestJournal(directory, dao);
+        journal.open();
+        // Rows land after the seeded range, like ActivityEventDaoBenchmark's inserts.
+        cursor = BenchmarkDatabases.endOfData().plusSeconds(86_400 * 2L).getEpochSecond();
+    }
+
+    @TearDown(Level.Invocation)
+    public void drainLeftovers() {
+        journal.drain();
+    }
+
+    @TearDown
+    public void tearDown() {
+        journal.close();
+        BenchmarkDatabases.deleteEventsAfterData();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void journalAppend() {
+        for (int i = 0; i < EVENTS; i++) {
+            journal.append(Instant.ofEpochSecond(cursor++), ActivityEventType.FOCUS,
+                    "code", "TimeTracker - IngestJournal.java", null, null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int journalAppendAndDrain() {
+        journalAppend();
+        return journal.drain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void daoInsert() {
+        for (int i = 0; i < EVENTS; i++) {
+            dao.insert(new ActivityEvent(Instant.ofEpochSecond(cursor++), ActivityEventType.FOCUS,
+                    "code", "TimeTracker - IngestJournal.java", null, null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void daoInsertAll() {
+        List<ActivityEvent> events = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(new ActivityEvent(Instant.ofEpochSecond(cursor++), ActivityEventType.FOCUS,
+                    "code", "TimeTracker - IngestJournal.java", null, null));
+        }
+        dao.insertAll(events);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.timetracker.bench;
+
+import com.timetracker.db.DatabaseInitializer;
+import com.timetracker.db.DatabaseManager;
+import com.timetracker.tracking.ActivityAggregationJob;
+import com.timetracker.tracking.ActivityAggregator;
+import com.timetracker.tracking.ActivityEvent;
+import com.timetracker.tracking.ActivityEventDao;
+import com.timetracker.tracking.ActivityEventType;
+import com.timetracker.tracking.ActivityRangeTotal;
+import com.timetracker.tracking.ActivityReportingService;
+import com.timetracker.tracking.ActivitySessionDao;
+import com.timetracker.tracking.MinuteIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-app totals for a range ending at an arbitrary minute, answered by the {@link MinuteIndex}
+ * (two reads per app) and by the SQL rollup path it replaces (hourly rows plus the minute
+ * occupancy of the edge days). The database holds a year of ten hours a day across a dozen
+ * apps, built once under {@code target/jmh-db}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RangeTotalsBenchmark {
+
+    static final int DAYS = 366;
+    static final LocalDate LAST_DAY = LocalDate.of(2024, 6, 30);
+    private static final String[] APPS = {"code", "firefox", "slack", "terminal", "idea", "chromium",
+            "thunderbird", "zoom", "obsidian", "spotify", "gimp", "libreoffice"};
+
+    /**
+     * Range length in seconds: an hour, a day and a year.
+     */
+    @Param({"3600", "86400", "31536000"})
+    public long rangeSeconds;
+
+    private ActivityReportingService indexed;
+    private ActivityReportingService rollups;
+    private Instant start;
+    private Instant end;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path database = Path.of("target", "jmh-db", "rollups-" + DAYS + "d.db").toAbsolutePath();
+        if (!Files.exists(database)) {
+            build(database);
+        }
+        System.setProperty(DatabaseManager.DATABASE_PATH_PROPERTY, database.toString());
+        ActivitySessionDao sessionDao = new ActivitySessionDao();
+        MinuteIndex index = new MinuteIndex(database.resolveSibling(database.getFileName() + ".minutes"));
+        // Full rebuild on this thread, as the tracker does at start; unchanged days are kept.
+        index.scheduleRefresh(LocalDate.EPOCH, sessionDao);
+        indexed = new ActivityReportingService(sessionDao, index);
+        rollups = new ActivityReportingService(sessionDao);
+        // Mid-afternoon on the last day, off the hour, so both edges are partial hours.
+        end = endOfData().minusSeconds(8 * 3600 + 17 * 60);
+        start = end.minusSeconds(rangeSeconds);
+    }
+
+    @Benchmark
+    public List<ActivityRangeTotal> minuteIndex() {
+        return indexed.getAppTotalsBetween(start, end);
+    }
+
+    @Benchmark
+    public long minuteIndexOneApp() {
+        return indexed.getAppTotalBetween("code", start, end);
+    }
+
+    @Benchmark
+    public List<ActivityRangeTotal> rollupTables() {
+        return rollups.getAppTotalsBetween(start, end);
+    }
+
+    private static Instant endOfData() {
+        return LAST_DAY.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    private static void build(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path building = target.resolveSibling(target.getFileName() + ".building");
+        Files.deleteIfExists(building);
+        System.setProperty(DatabaseManager.DATABASE_PATH_PROPERTY, building.toString());
+        DatabaseInitializer.initialize();
+        ActivityEventDao eventDao = new ActivityEventDao();
+        ActivityAggregationJob job = new ActivityAggregationJob(eventDao, new ActivitySessionDao(), new ActivityAggregator());
+        Random random = new Random(42);
+        for (LocalDate day = LAST_DAY.minusDays(DAYS - 1); !day.isAfter(LAST_DAY); day = day.plusDays(1)) {
+            Instant dayStart = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+            List<ActivityEvent> events = new ArrayList<>();
+            for (long offset = 8 * 3600L; offset < 18 * 3600L; offset += 60 + random.nextInt(1800)) {
+                events.add(new ActivityEvent(dayStart.plusSeconds(offset), ActivityEventType.FOCUS,
+                        APPS[random.nextInt(APPS.length)], "window", null, null));
+            }
+            events.add(new ActivityEvent(dayStart.plusSeconds(18 * 3600L), ActivityEventType.IDLE_ON, null, null, null, null));
+            eventDao.insertAll(events);
+            job.aggregate(dayStart, dayStart.plusSeconds(86_400), true);
+        }
+        Files.move(building, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,68 @@
+package com.timetracker.bench;
+
+import com.timetracker.dao.SessionDao;
+import com.timetracker.model.SessionDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History-tab range queries on {@link SessionDao} for a range ending at the last seeded day.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SessionDaoBenchmark {
+
+    @Param({"30", "365"})
+    public int days;
+
+    @Param({"7", "30"})
+    public int rangeDays;
+
+    private final SessionDao dao = new SessionDao();
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup
+    public void setUp() {
+        BenchmarkDatabases.use(days);
+        end = BenchmarkDatabases.LAST_DAY;
+        start = end.minusDays(rangeDays - 1L);
+    }
+
+    @Benchmark
+    public List<SessionDto> findSessionsForDateRange() {
+        return dao.findSessionsForDateRange(start, end);
+    }
+
+    @Benchmark
+    public List<SessionDto> findSessionsFirstPage() {
+        return dao.findSessionsPage(start, end, null, 200);
+    }
+
+    @Benchmark
+    public long countSessionsForDateRange() {
+        return dao.countSessionsForDateRange(start, end);
+    }
+
+    @Benchmark
+    public List<SessionDao.CategoryTotal> findCategoryTotalsForDateRange() {
+        return dao.findCategoryTotalsForDateRange(start, end);
+    }
+}
@@ -1,18 +1,9 @@
 package com.timetracker;
 
 import com.timetracker.db.DatabaseInitializer;
-import com.timetracker.tracking.ActivityAggregationJob;
-import com.timetracker.tracking.ActivityAggregator;
-import com.timetracker.tracking.ActivityEventDao;
-import com.timetracker.tracking.ActivitySessionDao;
-import com.timetracker.tracking.ActivityTrackingService;
-import com.timetracker.tracking.IdleDetectionService;
-import com.timetracker.tracking.ActiveAppCollector;
-import com.timetracker.tracking.LinuxActiveAppCollector;
-import com.timetracker.tracking.NoOpActiveAppCollector;
-import com.timetracker.tracking.ActivityTrackingConfig;
-import com.timetracker.tracking.BrowserUrlResolver;
-import com.timetracker.tracking.ChromiumDebugUrlResolver;
+import com.timetracker.db.DatabaseManager;
+import com.timetracker.db.TrackerLock;
+import com.timetracker.metrics.MetricsRegistry;
 import com.timetracker.tracking.ActivityReportingService;
 import com.timetracker.controller.CompactWindow;
 import com.timetracker.controller.MainController;
@@ -23,25 +14,24 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 import javafx.application.Platform;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.ZoneId;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TimeTrackerApp extends Application {
 
-    private ActivityTrackingService activityTrackingService;
-    private IdleDetectionService idleDetectionService;
-    private ActivityAggregationJob aggregationJob;
-    private ScheduledExecutorService aggregationExecutor;
+    private final AtomicLong firstFrameMillis = new AtomicLong(-1);
+    private final AtomicLong dataLoadedMillis = new AtomicLong(-1);
+    private TrackingRuntime trackingRuntime;
+    private TrackerLock trackerLock;
     private CompactWindow compactWindow;
+    private MainController mainController;
 
     @Override
     public void init() {
         DatabaseInitializer.initialize();
+        MetricsRegistry.global().gauge("startup.first_frame_ms", firstFrameMillis::get);
+        MetricsRegistry.global().gauge("startup.data_loaded_ms", dataLoadedMillis::get);
     }
 
     @Override
@@ -49,11 +39,14 @@ public class TimeTrackerApp extends Application {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/timetracker/view/main-view.fxml"));
         Parent root = loader.load();
         MainController controller = loader.getController();
+        mainController = controller;
         primaryStage.setTitle("TimeTracker+");
         primaryStage.setScene(new Scene(root));
         primaryStage.setMinWidth(900);
         primaryStage.setMinHeight(600);
+        runAfterFirstFrame(primaryStage.getScene(), () -> onFirstFrame(primaryStage, controller));
         primaryStage.show();
+        controller.getUiClock().watch(primaryStage);
         compactWindow = new CompactWindow(primaryStage, controller);
         primaryStage.iconifiedProperty().addListener((obs, oldVal, iconified) -> {
             if (iconified) {
@@ -62,19 +55,6 @@ public class TimeTrackerApp extends Application {
                 compactWindow.hide();
             }
         });
-
-        ActivityEventDao eventDao = new ActivityEventDao();
-        ActivityTrackingConfig config = trackingConfig();
-        ActiveAppCollector collector = detectCollector(config);
-        activityTrackingService = new ActivityTrackingService(collector, eventDao, config);
-        idleDetectionService = createIdleDetection(eventDao, config);
-
-        ActivitySessionDao sessionDao = new ActivitySessionDao();
-        aggregationJob = new ActivityAggregationJob(eventDao, sessionDao, new ActivityAggregator());
-
-        activityTrackingService.start();
-        scheduleAggregation();
-        controller.setTrackingDependencies(activityTrackingService, aggregationJob, new ActivityReportingService(sessionDao), config);
     }
 
     public static void main(String[] args) {
@@ -83,84 +63,73 @@ public class TimeTrackerApp extends Application {
 
     @Override
     public void stop() {
-        if (aggregationExecutor != null) {
-            aggregationExecutor.shutdownNow();
+        if (trackingRuntime != null) {
+            trackingRuntime.close();
         }
-        if (aggregationJob != null) {
-            runDailyAggregation();
+        if (trackerLock != null) {
+            trackerLock.close();
         }
-        if (activityTrackingService != null) {
-            activityTrackingService.close();
-        }
-        if (idleDetectionService != null) {
-            idleDetectionService.close();
+        if (mainController != null) {
+            mainController.shutdown();
         }
     }
 
-    private void scheduleAggregation() {
-        aggregationExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "activity-aggregation");
-            t.setDaemon(true);
-            return t;
-        });
-        aggregationExecutor.scheduleAtFixedRate(this::runDailyAggregation, 1, 5, TimeUnit.MINUTES);
-    }
-
-    private void runDailyAggregation() {
-        try {
-            Instant startOfDay = LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant();
-            Instant now = Instant.now();
-            aggregationJob.aggregate(startOfDay, now, true);
-        } catch (Exception e) {
-            System.err.println("Aggregation failed: " + e.getMessage());
+    /**
+     * Everything not needed to draw the window: data queries, then tracking. Starting tracking
+     * (jnativehook registration in particular) happens off the FX thread.
+     */
+    private void onFirstFrame(Stage primaryStage, MainController controller) {
+        firstFrameMillis.set(ManagementFactory.getRuntimeMXBean().getUptime());
+        controller.loadInitialData();
+        dataLoadedMillis.set(ManagementFactory.getRuntimeMXBean().getUptime());
+        if (TrackingRuntime.parseBooleanEnv("TT_STARTUP_PROBE", false)) {
+            // Used by scripts/startup-benchmark.sh: report and quit without starting tracking.
+            System.out.println("startup first-frame-ms=" + firstFrameMillis.get() + " data-loaded-ms=" + dataLoadedMillis.get());
+            Platform.exit();
+            return;
         }
-    }
 
-    private ActiveAppCollector detectCollector(ActivityTrackingConfig config) {
-        String os = System.getProperty("os.name", "").toLowerCase();
-        if (os.contains("linux")) {
-            BrowserUrlResolver resolver = config.captureUrls() ? new ChromiumDebugUrlResolver() : null;
-            return new LinuxActiveAppCollector(config.captureUrls(), resolver);
-        }
-        return new NoOpActiveAppCollector();
-    }
-
-    private ActivityTrackingConfig trackingConfig() {
-        Duration polling = Duration.ofSeconds(parseLongEnv("TT_POLL_SECONDS", 10));
-        Duration idle = Duration.ofMinutes(parseLongEnv("TT_IDLE_MINUTES", 5));
-        boolean captureUrls = parseBooleanEnv("TT_CAPTURE_URLS", true);
-        boolean redact = parseBooleanEnv("TT_REDACT_QUERY", true);
-        return new ActivityTrackingConfig(polling, idle, captureUrls, redact);
-    }
-
-    private IdleDetectionService createIdleDetection(ActivityEventDao eventDao, ActivityTrackingConfig config) {
-        try {
-            IdleDetectionService service = new IdleDetectionService(eventDao, config.idleThreshold());
-            service.start();
-            return service;
-        } catch (Throwable t) {
-            System.err.println("Idle detection disabled: " + t.getMessage());
-            return null;
-        }
-    }
-
-    private long parseLongEnv(String key, long defaultValue) {
-        String value = System.getenv(key);
-        if (value == null || value.isBlank()) {
-            return defaultValue;
-        }
-        try {
-            return Long.parseLong(value.trim());
-        } catch (NumberFormatException e) {
-            return defaultValue;
+        trackingRuntime = new TrackingRuntime(TrackingRuntime.configFromEnvironment(), controller.getEventBus());
+        Optional<TrackerLock> lock = TrackerLock.tryAcquire(DatabaseManager.getDatabasePath());
+        if (lock.isEmpty()) {
+            // A daemon (or another window) is already capturing into this database: only read its totals.
+            // Its minute index is rewritten by that process, so ranges are read from SQLite here.
+            primaryStage.setTitle("TimeTracker+ (attached to background tracker)");
+            controller.setTrackingDependencies(null, null,
+                    new ActivityReportingService(trackingRuntime.sessionDao()), trackingRuntime.config());
+            return;
         }
+        trackerLock = lock.get();
+        TrackingRuntime runtime = trackingRuntime;
+        Thread.ofPlatform().daemon().name("tracking-startup").start(() -> {
+            runtime.start();
+            ActivityReportingService reportingService =
+                    new ActivityReportingService(runtime.sessionDao(), runtime.minuteIndex());
+            Platform.runLater(() -> controller.setTrackingDependencies(runtime.trackingService(),
+                    runtime::requestAggregation, reportingService, runtime.config()));
+        });
     }
 
-    private boolean parseBooleanEnv(String key, boolean defaultValue) {
-        String value = System.getenv(key);
-        if (value == null || value.isBlank()) {
-            return defaultValue;
-        }
-        return "true".equalsIgnoreCase(value.trim()) || "1".equals(value.trim());
+    /**
+     * Runs {@code action} once, on the FX turn after the scene's first pulse has been laid out and
+     * handed to the renderer.
+     */
+    private static void runAfterFirstFrame(Scene scene, Runnable action) {
+        scene.addPostLayoutPulseListener(new Runnable() {
+            private boolean fired;
+
+            @Override
+            public void run() {
+                if (fired) {
+                    return;
+                }
+                fired = true;
+                Runnable listener = this;
+                Platform.runLater(() -> {
+                    scene.removePostLayoutPulseListener(listener);
+                    action.run();
+                });
+            }
+        });
     }
 }
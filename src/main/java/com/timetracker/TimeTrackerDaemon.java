@@ -0,0 +1,44 @@
+package com.timetracker;
+
+import com.timetracker.db.DatabaseInitializer;
+import com.timetracker.db.DatabaseManager;
+import com.timetracker.db.TrackerLock;
+import com.timetracker.event.DomainEventBus;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Headless entry point: runs capture, idle detection and the aggregation schedule without
+ * JavaFX. Stop it with SIGINT/SIGTERM; the shutdown hook runs a final aggregation and releases
+ * the tracker lock. A desktop app started against the same database attaches to it instead of
+ * tracking on its own.
+ */
+public final class TimeTrackerDaemon {
+
+    private TimeTrackerDaemon() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        DatabaseInitializer.initialize();
+        Path database = DatabaseManager.getDatabasePath();
+        Optional<TrackerLock> lock = TrackerLock.tryAcquire(database);
+        if (lock.isEmpty()) {
+            System.err.println("Another TimeTracker instance is already tracking " + database);
+            System.exit(1);
+            return;
+        }
+
+        TrackingRuntime runtime = new TrackingRuntime(TrackingRuntime.configFromEnvironment(), new DomainEventBus());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            runtime.close();
+            lock.get().close();
+        }, "timetracker-shutdown"));
+        runtime.start();
+        System.out.println("TimeTracker daemon tracking " + database + " (pid " + ProcessHandle.current().pid() + ")");
+
+        // Every worker thread is a daemon thread; park here until a signal runs the shutdown hook.
+        new CountDownLatch(1).await();
+    }
+}
@@ -0,0 +1,467 @@
+package com.timetracker;
+
+import com.timetracker.dao.CategoryRuleDao;
+import com.timetracker.db.DatabaseManager;
+import com.timetracker.event.DomainEventBus;
+import com.timetracker.metrics.MetricsFileReporter;
+import com.timetracker.metrics.MetricsHttpServer;
+import com.timetracker.metrics.MetricsRegistry;
+import com.timetracker.tracking.ActiveAppCollector;
+import com.timetracker.tracking.ActivityAggregationJob;
+import com.timetracker.tracking.ActivityAggregator;
+import com.timetracker.tracking.ActivityCategorizer;
+import com.timetracker.tracking.ActivityEventDao;
+import com.timetracker.tracking.ActivityEventSink;
+import com.timetracker.tracking.ActivitySessionDao;
+import com.timetracker.tracking.ActivityTrackingConfig;
+import com.timetracker.tracking.ActivityTrackingService;
+import com.timetracker.tracking.ChromiumDebugUrlResolver;
+import com.timetracker.tracking.DBusLockStateSource;
+import com.timetracker.tracking.IdleDetectionService;
+import com.timetracker.tracking.IdleSource;
+import com.timetracker.tracking.IngestJournal;
+import com.timetracker.tracking.MinuteIndex;
+import com.timetracker.tracking.LinuxActiveAppCollector;
+import com.timetracker.tracking.NativeHookIdleSource;
+import com.timetracker.tracking.NoOpActiveAppCollector;
+import com.timetracker.tracking.Parkable;
+import com.timetracker.tracking.PrivacyFilter;
+import com.timetracker.tracking.ResolverChain;
+import com.timetracker.tracking.ScreenLockService;
+import com.timetracker.tracking.WindowTitleUrlResolver;
+import com.timetracker.tracking.X11ScreenSaverIdleSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The background tracking pipeline – capture, idle detection, the aggregation schedule and the
+ * optional metrics outputs – shared by {@link TimeTrackerApp} and {@link TimeTrackerDaemon}.
+ * It references no JavaFX types, so the daemon runs without loading the UI toolkit.
+ */
+public final class TrackingRuntime implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrackingRuntime.class);
+    private static final Duration AGGREGATION_SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ActivityTrackingConfig config;
+    private final DomainEventBus eventBus;
+    private final MetricsRegistry metrics;
+    private final ActivitySessionDao sessionDao = new ActivitySessionDao();
+    private ActivityTrackingService trackingService;
+    private IdleDetectionService idleDetectionService;
+    private IngestJournal ingestJournal;
+    private MinuteIndex minuteIndex;
+    private ActivityAggregationJob aggregationJob;
+    private ChromiumDebugUrlResolver urlResolver;
+    private ScheduledExecutorService aggregationExecutor;
+    private ScheduledFuture<?> aggregationSchedule;
+    private final List<DBusLockStateSource> lockSources = new ArrayList<>();
+    private MetricsFileReporter metricsReporter;
+    private MetricsHttpServer metricsServer;
+    private boolean closed;
+
+    public TrackingRuntime(ActivityTrackingConfig config, DomainEventBus eventBus) {
+        this(config, eventBus, MetricsRegistry.global());
+    }
+
+    /**
+     * @param metrics receives the pipeline's gauges and backs the optional metrics outputs
+     */
+    public TrackingRuntime(ActivityTrackingConfig config, DomainEventBus eventBus, MetricsRegistry metrics) {
+        this.config = Objects.requireNonNull(config, "config");
+        this.eventBus = Objects.requireNonNull(eventBus, "eventBus");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    public static ActivityTrackingConfig configFromEnvironment() {
+        Duration polling = Duration.ofSeconds(parseLongEnv("TT_POLL_SECONDS", 10));
+        Duration idle = Duration.ofMinutes(parseLongEnv("TT_IDLE_MINUTES", 5));
+        boolean captureUrls = parseBooleanEnv("TT_CAPTURE_URLS", true);
+        boolean redact = parseBooleanEnv("TT_REDACT_QUERY", true);
+        return new ActivityTrackingConfig(polling, idle, captureUrls, redact);
+    }
+
+    /**
+     * Starts every component; does nothing if the runtime was closed first (e.g. the window
+     * closed while a deferred start was still queued).
+     */
+    public synchronized void start() {
+        if (closed) {
+            return;
+        }
+        if (trackingService != null) {
+            throw new IllegalStateException("Tracking runtime already started");
+        }
+        startMetricsReporter();
+        startMetricsServer();
+
+        ActivityEventDao eventDao = new ActivityEventDao();
+        ActivityEventSink events = openIngestJournal(eventDao);
+        trackingService = new ActivityTrackingService(detectCollector(), events, config, loadPrivacyFilter());
+        idleDetectionService = createIdleDetection(events);
+        aggregationExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "activity-aggregation");
+            t.setDaemon(true);
+            return t;
+        });
+        minuteIndex = createMinuteIndex(aggregationExecutor);
+        aggregationJob = new ActivityAggregationJob(eventDao, sessionDao, new ActivityAggregator(),
+                new ActivityCategorizer(new CategoryRuleDao()), minuteIndex, eventBus);
+        trackingService.registerGauges(metrics);
+        if (ingestJournal != null) {
+            ingestJournal.registerGauges(metrics);
+            aggregationJob.registerGauges(metrics, ingestJournal::pendingRecords);
+        } else {
+            aggregationJob.registerGauges(metrics, () -> 0);
+        }
+
+        trackingService.start();
+        aggregationSchedule = aggregationExecutor.scheduleAtFixedRate(this::runDailyAggregation, 1, 5, TimeUnit.MINUTES);
+        if (minuteIndex != null) {
+            minuteIndex.scheduleRefresh(LocalDate.EPOCH, sessionDao);
+        }
+        startLockDetection(events);
+    }
+
+    public ActivityTrackingConfig config() {
+        return config;
+    }
+
+    public ActivitySessionDao sessionDao() {
+        return sessionDao;
+    }
+
+    public ActivityTrackingService trackingService() {
+        return trackingService;
+    }
+
+    /**
+     * Queues an aggregation of the local {@code date} on the aggregation thread, so callers such
+     * as the FX thread never run one themselves; the totals arrive as an
+     * {@link com.timetracker.event.AggregationCompleted} event. Ignored before {@link #start()}
+     * and after {@link #close()}.
+     */
+    public synchronized void requestAggregation(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+        if (aggregationExecutor == null || closed) {
+            return;
+        }
+        aggregationExecutor.execute(() -> aggregateDay(date));
+    }
+
+    /**
+     * The prefix-sum index the aggregation maintains, or null before {@link #start()} or when
+     * disabled.
+     */
+    public MinuteIndex minuteIndex() {
+        return minuteIndex;
+    }
+
+    /**
+     * Stops capture and the schedule, drains the ingest journal, runs a final aggregation for
+     * today and closes the metrics outputs. Safe to call more than once, e.g. from both {@code Application.stop} and a shutdown hook.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        lockSources.forEach(DBusLockStateSource::close);
+        if (aggregationExecutor != null) {
+            aggregationExecutor.shutdownNow();
+            awaitAggregationExecutor();
+        }
+        if (trackingService != null) {
+            trackingService.close();
+        }
+        if (idleDetectionService != null) {
+            idleDetectionService.close();
+        }
+        if (ingestJournal != null) {
+            ingestJournal.close();
+        }
+        if (aggregationJob != null) {
+            runDailyAggregation();
+        }
+        if (urlResolver != null) {
+            urlResolver.close();
+        }
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+        if (metricsReporter != null) {
+            metricsReporter.close();
+        }
+    }
+
+    /**
+     * Waits for an aggregation already in flight so it does not race the final one below; a job
+     * stuck past the timeout is left to finish on its daemon thread.
+     */
+    private void awaitAggregationExecutor() {
+        try {
+            if (!aggregationExecutor.awaitTermination(AGGREGATION_SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Aggregation still running after {}s, continuing shutdown", AGGREGATION_SHUTDOWN_TIMEOUT.toSeconds());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * TT_INGEST_JOURNAL (default true): events are appended to a memory-mapped journal next to the
+     * database and drained into SQLite every TT_INGEST_DRAIN_SECONDS (default 5) and before each
+     * aggregation. When disabled, or if the journal cannot be opened, events go straight to SQLite.
+     */
+    private ActivityEventSink openIngestJournal(ActivityEventDao eventDao) {
+        if (!parseBooleanEnv("TT_INGEST_JOURNAL", true)) {
+            return eventDao;
+        }
+        Path database = DatabaseManager.getDatabasePath();
+        IngestJournal journal = new IngestJournal(database.resolveSibling(database.getFileName() + ".journal"), eventDao);
+        try {
+            journal.open();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ingest journal disabled, events go straight to SQLite", e);
+            journal.close();
+            return eventDao;
+        }
+        journal.startCompactor(Duration.ofSeconds(Math.max(1, parseLongEnv("TT_INGEST_DRAIN_SECONDS", 5))));
+        ingestJournal = journal;
+        return journal;
+    }
+
+    /**
+     * TT_MINUTE_INDEX (default true): keep per-app running minute totals in memory-mapped files
+     * next to the database for constant-time range totals. Refreshes run on the aggregation thread;
+     * at start a full rebuild there reconciles the files of the previous run with the rollup
+     * tables, rewriting only the days that differ. Without usable files, and when disabled, range
+     * totals come from SQLite.
+     */
+    private static MinuteIndex createMinuteIndex(Executor executor) {
+        if (!parseBooleanEnv("TT_MINUTE_INDEX", true)) {
+            return null;
+        }
+        Path database = DatabaseManager.getDatabasePath();
+        return new MinuteIndex(database.resolveSibling(database.getFileName() + ".minutes"), executor);
+    }
+
+    /**
+     * TT_PRIVACY_RULES: a file of privacy rules (see {@link com.timetracker.tracking.PrivacyRule}).
+     * Hashes are keyed with a secret kept next to the database ({@code timetracker.db.privacy-key}).
+     * If the rules or the key cannot be read or parsed, every snapshot is dropped rather than
+     * recorded unfiltered.
+     */
+    private static PrivacyFilter loadPrivacyFilter() {
+        String file = System.getenv("TT_PRIVACY_RULES");
+        if (file == null || file.isBlank()) {
+            return PrivacyFilter.none();
+        }
+        try {
+            Path database = DatabaseManager.getDatabasePath();
+            byte[] hashKey = PrivacyFilter.loadOrCreateKey(database.resolveSibling(database.getFileName() + ".privacy-key"));
+            return PrivacyFilter.load(Path.of(file.trim()), hashKey);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Privacy rules in {} unusable, capture records nothing until they are fixed", file, e);
+            return PrivacyFilter.dropAll();
+        }
+    }
+
+    /**
+     * TT_LOCK_DETECTION (default true): while the screen is locked, capture, idle checks, the
+     * journal compactor and the aggregation schedule are parked. Locks come from the session bus
+     * screensaver and from logind.
+     */
+    private void startLockDetection(ActivityEventSink events) {
+        if (!parseBooleanEnv("TT_LOCK_DETECTION", true)) {
+            return;
+        }
+        List<Parkable> parkables = new ArrayList<>();
+        parkables.add(trackingService);
+        if (idleDetectionService != null) {
+            parkables.add(idleDetectionService);
+        }
+        if (ingestJournal != null) {
+            parkables.add(ingestJournal);
+        }
+        parkables.add(new AggregationSchedule());
+        ScreenLockService lockService = new ScreenLockService(events, parkables);
+        lockService.registerGauges(metrics);
+        for (DBusLockStateSource source : List.of(DBusLockStateSource.sessionBus(lockService),
+                DBusLockStateSource.systemBus(lockService))) {
+            if (source.start()) {
+                lockSources.add(source);
+            }
+        }
+        if (lockSources.isEmpty()) {
+            LOGGER.warn("Lock detection disabled: no D-Bus connection");
+        }
+    }
+
+    /**
+     * Parks the periodic aggregation; the lock itself is aggregated once before parking so the
+     * totals are current while the screen is locked.
+     */
+    private final class AggregationSchedule implements Parkable {
+
+        @Override
+        public void park() {
+            synchronized (TrackingRuntime.this) {
+                if (aggregationSchedule != null) {
+                    aggregationSchedule.cancel(false);
+                    aggregationSchedule = null;
+                    aggregationExecutor.execute(TrackingRuntime.this::runDailyAggregation);
+                }
+            }
+        }
+
+        @Override
+        public void unpark() {
+            synchronized (TrackingRuntime.this) {
+                if (aggregationSchedule == null && !closed) {
+                    aggregationSchedule = aggregationExecutor.scheduleAtFixedRate(
+                            TrackingRuntime.this::runDailyAggregation, 1, 5, TimeUnit.MINUTES);
+                }
+            }
+        }
+    }
+
+    private void runDailyAggregation() {
+        aggregateDay(LocalDate.now());
+    }
+
+    /**
+     * Aggregates the local {@code date} up to now, after draining the journal so the window sees
+     * every captured event.
+     */
+    private void aggregateDay(LocalDate date) {
+        try {
+            ZoneId zone = ZoneId.systemDefault();
+            Instant startOfDay = date.atStartOfDay(zone).toInstant();
+            Instant end = date.plusDays(1).atStartOfDay(zone).toInstant();
+            Instant now = Instant.now();
+            if (!now.isAfter(startOfDay)) {
+                return;
+            }
+            if (ingestJournal != null) {
+                ingestJournal.drain();
+            }
+            aggregationJob.aggregate(startOfDay, end.isBefore(now) ? end : now, true);
+        } catch (Exception e) {
+            LOGGER.warn("Aggregation failed", e);
+        }
+    }
+
+    private ActiveAppCollector detectCollector() {
+        String os = System.getProperty("os.name", "").toLowerCase();
+        if (os.contains("linux")) {
+            Duration deadline = Duration.ofMillis(Math.max(50, parseLongEnv("TT_CAPTURE_DEADLINE_MS", 1000)));
+            if (!config.captureUrls()) {
+                return new LinuxActiveAppCollector(false, null, deadline);
+            }
+            urlResolver = new ChromiumDebugUrlResolver();
+            urlResolver.start();
+            ResolverChain resolvers = ResolverChain.builder()
+                    .add("devtools", urlResolver, Duration.ofMillis(20))
+                    .add("window_title", new WindowTitleUrlResolver(), Duration.ofMillis(20))
+                    .build();
+            return new LinuxActiveAppCollector(true, resolvers, deadline);
+        }
+        return new NoOpActiveAppCollector();
+    }
+
+    private IdleDetectionService createIdleDetection(ActivityEventSink events) {
+        try {
+            IdleSource source = openIdleSource();
+            if (source == null) {
+                LOGGER.warn("Idle detection disabled: no idle source available (TT_IDLE_SOURCE)");
+                return null;
+            }
+            IdleDetectionService service = new IdleDetectionService(events, config.idleThreshold(), source);
+            service.start();
+            return service;
+        } catch (Throwable t) {
+            LOGGER.warn("Idle detection disabled", t);
+            return null;
+        }
+    }
+
+    /**
+     * TT_IDLE_SOURCE: {@code x11} (default) asks the X server; {@code jnativehook} uses global
+     * input hooks; {@code auto} tries X11 first and falls back to the hooks.
+     */
+    private static IdleSource openIdleSource() {
+        String mode = System.getenv("TT_IDLE_SOURCE");
+        mode = mode == null || mode.isBlank() ? "x11" : mode.trim().toLowerCase(Locale.ROOT);
+        if (!mode.equals("jnativehook")) {
+            IdleSource x11 = new X11ScreenSaverIdleSource();
+            if (x11.start()) {
+                return x11;
+            }
+            if (!mode.equals("auto")) {
+                return null;
+            }
+        }
+        IdleSource hook = new NativeHookIdleSource();
+        return hook.start() ? hook : null;
+    }
+
+    private void startMetricsReporter() {
+        String file = System.getenv("TT_METRICS_FILE");
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        metricsReporter = new MetricsFileReporter(metrics, Path.of(file.trim()));
+        metricsReporter.start(Duration.ofSeconds(Math.max(1, parseLongEnv("TT_METRICS_INTERVAL_SECONDS", 60))));
+    }
+
+    private void startMetricsServer() {
+        long port = parseLongEnv("TT_METRICS_PORT", 0);
+        if (port <= 0 || port > 65535) {
+            return;
+        }
+        try {
+            metricsServer = new MetricsHttpServer(metrics, (int) port);
+            metricsServer.start();
+        } catch (IOException e) {
+            LOGGER.warn("Metrics endpoint disabled", e);
+        }
+    }
+
+    static long parseLongEnv(String key, long defaultValue) {
+        String value = System.getenv(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static boolean parseBooleanEnv(String key, boolean defaultValue) {
+        String value = System.getenv(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return "true".equalsIgnoreCase(value.trim()) || "1".equals(value.trim());
+    }
+}
@@ -7,12 +7,12 @@ import javafx.scene.control.ContextMenu;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.MenuItem;
 import javafx.scene.layout.HBox;
-import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Text;
 
 /**
  * ListCell implementation for displaying categories with contextual actions.
+ * Like {@link SessionListCell}, the graphic is created once and updated in place.
  */
 class CategoryListCell extends ListCell<Category> {
 
@@ -22,6 +22,9 @@ class CategoryListCell extends ListCell<Category> {
     private final MenuItem resetUsageItem;
     private final MenuItem deleteItem;
     private final ContextMenu contextMenu;
+    private final Circle dot;
+    private final Text name;
+    private final HBox graphic;
 
     CategoryListCell(MainController controller) {
         this.controller = controller;
@@ -30,6 +33,10 @@ class CategoryListCell extends ListCell<Category> {
         this.resetUsageItem = new MenuItem("Reset Today's Usage");
         this.deleteItem = new MenuItem("Delete Category");
         this.contextMenu = new ContextMenu(setLimitItem, adjustRemainingItem, resetUsageItem, deleteItem);
+        this.dot = new Circle(5);
+        this.name = new Text();
+        this.graphic = new HBox(8, dot, name);
+        this.graphic.setPadding(new Insets(2, 0, 2, 0));
         wireActions();
     }
 
@@ -68,17 +75,12 @@ class CategoryListCell extends ListCell<Category> {
     protected void updateItem(Category item, boolean empty) {
         super.updateItem(item, empty);
         if (empty || item == null) {
-            setText(null);
             setContextMenu(null);
             setGraphic(null);
         } else {
-            String colorHex = CategoryColorUtil.colorFor(item.getName());
-            Circle dot = new Circle(5, Color.web(colorHex));
-            Text name = new Text(controller.formatCategoryDisplay(item));
-            HBox box = new HBox(8, dot, name);
-            box.setPadding(new Insets(2, 0, 2, 0));
-            setGraphic(box);
-            setText(null);
+            dot.setFill(CategoryColorUtil.paintFor(item.getName()));
+            name.setText(controller.formatCategoryDisplay(item));
+            setGraphic(graphic);
             resetUsageItem.setDisable(item.getDailyLimitMinutes() == null);
             setContextMenu(contextMenu);
         }
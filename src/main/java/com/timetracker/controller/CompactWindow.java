@@ -3,8 +3,6 @@ package com.timetracker.controller;
 import com.timetracker.model.Category;
 import com.timetracker.service.SessionService;
 import com.timetracker.util.TimeUtils;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -18,8 +16,6 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -37,11 +33,12 @@ public class CompactWindow {
     private final Label statusLabel;
     private final Label timerLabel;
     private final Button startStopButton;
-    private Timeline ticker;
+    private final UiClock clock;
 
     public CompactWindow(Stage owner, MainController controller) {
         this.owner = owner;
         this.mainController = controller;
+        this.clock = controller.getUiClock();
         this.categoryCombo = new ComboBox<>();
         this.statusLabel = new Label("Select a category");
         this.timerLabel = new Label("00:00:00");
@@ -67,6 +64,7 @@ public class CompactWindow {
 
         wireCategoryCombo();
         wireActions();
+        wireClock();
     }
 
     public void showInCorner() {
@@ -74,11 +72,9 @@ public class CompactWindow {
         positionBottomRight();
         stage.show();
         stage.toFront();
-        startTicker();
     }
 
     public void hide() {
-        stopTicker();
         stage.hide();
     }
 
@@ -93,6 +89,16 @@ public class CompactWindow {
         });
     }
 
+    private void wireClock() {
+        clock.watch(stage);
+        clock.runningProperty().addListener((obs, oldVal, newVal) -> refreshState());
+        clock.elapsedSecondsProperty().addListener((obs, oldVal, newVal) -> {
+            if (clock.isRunning() && stage.isShowing()) {
+                timerLabel.setText(formatRunningTimer());
+            }
+        });
+    }
+
     private void wireCategoryCombo() {
         ObservableList<Category> categories = mainController.getCategoryItems();
         categoryCombo.setItems(categories);
@@ -137,7 +143,7 @@ public class CompactWindow {
                 categoryCombo.getSelectionModel().select(running);
             }
             statusLabel.setText("Running: " + running.getName());
-            timerLabel.setText(formatRunningTimer(active.get()));
+            timerLabel.setText(formatRunningTimer());
             startStopButton.setText("Stop");
             startStopButton.setDisable(false);
         } else {
@@ -154,14 +160,11 @@ public class CompactWindow {
         }
     }
 
-    private String formatRunningTimer(SessionService.ActiveSession active) {
-        long elapsedSeconds = Duration.between(active.startTime(), LocalDateTime.now()).getSeconds();
-        Long allowed = active.allowedSeconds();
-        if (allowed != null) {
-            long remaining = Math.max(0, allowed - elapsedSeconds);
-            return "Remaining: " + TimeUtils.formatHHmmss(remaining);
+    private String formatRunningTimer() {
+        if (clock.limitedProperty().get()) {
+            return "Remaining: " + TimeUtils.formatHHmmss(clock.remainingSecondsProperty().get());
         }
-        return "Elapsed: " + TimeUtils.formatHHmmss(elapsedSeconds);
+        return "Elapsed: " + TimeUtils.formatHHmmss(clock.elapsedSecondsProperty().get());
     }
 
     private String formatRemaining(Category selection) {
@@ -189,20 +192,6 @@ public class CompactWindow {
         stage.setY(y);
     }
 
-    private void startTicker() {
-        stopTicker();
-        ticker = new Timeline(new KeyFrame(javafx.util.Duration.seconds(1), event -> refreshState()));
-        ticker.setCycleCount(Timeline.INDEFINITE);
-        ticker.playFromStart();
-    }
-
-    private void stopTicker() {
-        if (ticker != null) {
-            ticker.stop();
-            ticker = null;
-        }
-    }
-
     private void restoreMain() {
         hide();
         if (!owner.isShowing()) {
@@ -1,5 +1,19 @@
 package com.timetracker.controller;
 
+import com.timetracker.dao.CategoryDao;
+import com.timetracker.dao.SessionDao;
+import com.timetracker.diagnostics.FlightRecording;
+import com.timetracker.diagnostics.UiRefreshEvent;
+import com.timetracker.event.AggregationCompleted;
+import com.timetracker.event.CategoryChanged;
+import com.timetracker.event.DomainEvent;
+import com.timetracker.event.DomainEventBus;
+import com.timetracker.event.SessionDeleted;
+import com.timetracker.event.SessionEdited;
+import com.timetracker.event.SessionStarted;
+import com.timetracker.event.SessionStopped;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
 import com.timetracker.model.Category;
 import com.timetracker.model.CategorySummaryViewModel;
 import com.timetracker.model.Session;
@@ -7,7 +21,6 @@ import com.timetracker.model.SessionDto;
 import com.timetracker.model.SessionViewModel;
 import com.timetracker.service.CategoryService;
 import com.timetracker.service.SessionService;
-import com.timetracker.tracking.ActivityAggregationJob;
 import com.timetracker.tracking.ActivityDailyTotal;
 import com.timetracker.tracking.ActivityEvent;
 import com.timetracker.tracking.ActivityEventDao;
@@ -17,8 +30,7 @@ import com.timetracker.tracking.ActivityTrackingConfig;
 import com.timetracker.tracking.ActivityTrackingService;
 import com.timetracker.tracking.ActivityTotalViewModel;
 import com.timetracker.util.TimeUtils;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
@@ -38,21 +50,33 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Instant;
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 public class MainController {
 
     private static final DateTimeFormatter TIME_INPUT_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private static final Comparator<SessionViewModel> SESSION_ORDER =
+            Comparator.comparing(SessionViewModel::startDateTime).thenComparingInt(SessionViewModel::id);
+    private static final int HISTORY_PAGE_SIZE = 200;
+    private static final Comparator<Category> CATEGORY_ORDER =
+            Comparator.comparing(Category::getName, String.CASE_INSENSITIVE_ORDER);
+    private static final LatencyHistogram CATEGORIES_REFRESH = MetricsRegistry.global().histogram("ui.refresh.categories");
+    private static final LatencyHistogram TIMELINE_REFRESH = MetricsRegistry.global().histogram("ui.refresh.timeline");
+    private static final LatencyHistogram HISTORY_REFRESH = MetricsRegistry.global().histogram("ui.refresh.history");
+    private static final LatencyHistogram CATEGORY_STATE_REFRESH = MetricsRegistry.global().histogram("ui.refresh.category_state");
+    private static final LatencyHistogram AUTO_USAGE_REFRESH = MetricsRegistry.global().histogram("ui.refresh.auto_usage");
 
     @FXML
     private ListView<Category> categoryListView;
@@ -93,6 +117,9 @@ public class MainController {
     @FXML
     private CheckBox trackingPauseToggle;
 
+    @FXML
+    private CheckBox recordingToggle;
+
     @FXML
     private Button autoExportButton;
 
@@ -132,31 +159,39 @@ public class MainController {
     @FXML
     private Button addCategoryButton;
 
-    private final CategoryService categoryService = new CategoryService();
-    private final SessionService sessionService = new SessionService();
+    private final DomainEventBus eventBus = new DomainEventBus();
+    private final CategoryService categoryService = new CategoryService(new CategoryDao(), eventBus);
+    private final SessionService sessionService = new SessionService(new SessionDao(), eventBus);
     private final ActivityEventDao activityEventDao = new ActivityEventDao();
-    private ActivityAggregationJob aggregationJob;
+    private Consumer<LocalDate> aggregationRequests;
+    private UiRefreshEvent pendingAutoRefresh;
+    private long pendingAutoRefreshStarted;
     private ActivityReportingService reportingService;
     private ActivityTrackingService trackingService;
     private ActivityTrackingConfig trackingConfig;
 
     private final ObservableList<Category> categoryItems = FXCollections.observableArrayList();
     private final ObservableList<SessionViewModel> timelineItems = FXCollections.observableArrayList();
-    private final ObservableList<SessionViewModel> historyItems = FXCollections.observableArrayList();
+    private final FlightRecording flightRecording = new FlightRecording();
+    private final ExecutorService historyLoader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "history-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private PagedSessionList historyItems = PagedSessionList.empty();
+    private int historyGeneration;
     private final ObservableList<CategorySummaryViewModel> summaryItems = FXCollections.observableArrayList();
     private final ObservableList<ActivityTotalViewModel> autoTotals = FXCollections.observableArrayList();
 
-    private Timeline tickingTimeline;
+    private final UiClock uiClock = new UiClock();
 
     @FXML
     private void initialize() {
         categoryListView.setItems(categoryItems);
         categoryListView.setPlaceholder(new Label("No categories yet"));
         categoryListView.setCellFactory(listView -> new CategoryListCell(this));
-        categoryListView.getSelectionModel().selectedItemProperty().addListener((obs, oldValue, newValue) -> {
-            updateSelectedCategoryLabel(newValue);
-            updateControlAvailability();
-        });
+        categoryListView.getSelectionModel().selectedItemProperty().addListener((obs, oldValue, newValue) ->
+                refreshCategoryState());
 
         timelineListView.setItems(timelineItems);
         timelineListView.setPlaceholder(new Label("No sessions recorded today"));
@@ -205,17 +240,28 @@ public class MainController {
         startStopButton.setText("Start");
         startStopButton.setDisable(true);
         resetButton.setDisable(true);
-        timerLabel.setText("00:00:00");
+        timerLabel.setText(uiClock.formatCountdown());
+        uiClock.elapsedSecondsProperty().addListener((obs, oldVal, newVal) -> timerLabel.setText(uiClock.formatCountdown()));
+        uiClock.runningProperty().addListener((obs, oldVal, newVal) -> timerLabel.setText(uiClock.formatCountdown()));
+        uiClock.setOnLimitReached(this::handleSessionExpiredByLimit);
         selectedCategoryLabel.setText("Selected Category: -");
         remainingTimeLabel.setText("Remaining Today: -");
         startTimeLabel.setText("Start Time: -");
         statusLabel.setText("Status: Idle");
 
+        subscribeToDomainEvents();
+        updateTrackingToggle();
+    }
+
+    /**
+     * Fills categories, today's timeline, history and auto usage. Kept out of {@link #initialize()}
+     * so the window can paint its first frame before any query runs.
+     */
+    public void loadInitialData() {
         loadCategories();
         refreshTimeline();
         refreshHistoryRange();
         refreshAutoUsage();
-        updateTrackingToggle();
     }
 
     @FXML
@@ -325,15 +371,7 @@ public class MainController {
 
     @FXML
     private void onReset() {
-        stopTimer();
         sessionService.cancelActiveSession();
-        timerLabel.setText("00:00:00");
-        startTimeLabel.setText("Start Time: -");
-        statusLabel.setText("Status: Idle");
-        startStopButton.setText("Start");
-        resetButton.setDisable(true);
-        updateControlAvailability();
-        updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
     }
 
     private void handleStart() {
@@ -355,36 +393,19 @@ public class MainController {
             }
             sessionService.startSession(selected, allowedSeconds);
             emitManualEvent(ActivityEventType.MANUAL_START, selected);
-            updateSelectedCategoryLabel(selected);
-            sessionService.getActiveSession()
-                    .ifPresent(active -> startTimeLabel.setText("Start Time: " + TimeUtils.formatHHmm(active.startTime())));
-            statusLabel.setText("Status: Running");
-            startStopButton.setText("Stop");
-            resetButton.setDisable(false);
-            startTimer();
-            updateControlAvailability();
         } catch (IllegalStateException | IllegalArgumentException e) {
             showError("Cannot start session", e.getMessage());
         }
     }
 
     private void handleStop() {
-        stopTimer();
         sessionService.stopSession();
         emitManualEvent(ActivityEventType.MANUAL_STOP, categoryListView.getSelectionModel().getSelectedItem());
-        timerLabel.setText("00:00:00");
-        startTimeLabel.setText("Start Time: -");
-        statusLabel.setText("Status: Idle");
-        startStopButton.setText("Start");
-        resetButton.setDisable(true);
-        updateControlAvailability();
-        refreshTimeline();
-        refreshHistoryRange();
-        refreshAutoUsage();
-        updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
     }
 
     private void loadCategories() {
+        UiRefreshEvent refreshEvent = UiRefreshEvent.begin("categories");
+        long start = System.nanoTime();
         Category previouslySelected = categoryListView.getSelectionModel().getSelectedItem();
         Integer selectedId = previouslySelected != null ? previouslySelected.getId() : null;
         categoryItems.setAll(categoryService.getAllCategories());
@@ -395,14 +416,17 @@ public class MainController {
                 categoryListView.getSelectionModel().selectFirst();
             }
         }
-        updateControlAvailability();
-        updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
+        refreshCategoryState();
+        CATEGORIES_REFRESH.recordSince(start);
+        refreshEvent.finish(categoryItems.size());
     }
 
     private void refreshTimeline() {
+        UiRefreshEvent refreshEvent = UiRefreshEvent.begin("timeline");
+        long start = System.nanoTime();
         timelineItems.setAll(sessionService.getTodaySessions());
-        updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
-        updateControlAvailability();
+        TIMELINE_REFRESH.recordSince(start);
+        refreshEvent.finish(timelineItems.size());
     }
 
     private void refreshHistoryRange() {
@@ -413,28 +437,57 @@ public class MainController {
         LocalDate end = rangeEndDatePicker.getValue();
         if (start == null || end == null) {
             rangeErrorLabel.setText("Select both start and end dates.");
-            historyItems.clear();
-            summaryItems.clear();
-            exportRangeIcsButton.setDisable(true);
-            exportRangeCsvButton.setDisable(true);
+            clearHistory();
             return;
         }
         if (end.isBefore(start)) {
             rangeErrorLabel.setText("End date must be on or after start date.");
-            historyItems.clear();
-            summaryItems.clear();
-            exportRangeIcsButton.setDisable(true);
-            exportRangeCsvButton.setDisable(true);
+            clearHistory();
             return;
         }
         rangeErrorLabel.setText("");
-        historyItems.setAll(sessionService.getSessionsForDateRange(start, end));
-        summaryItems.setAll(sessionService.getCategorySummaryForDateRange(start, end).entrySet().stream()
-                .map(entry -> new CategorySummaryViewModel(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList()));
-        boolean hasData = !historyItems.isEmpty();
-        exportRangeIcsButton.setDisable(!hasData);
-        exportRangeCsvButton.setDisable(!hasData);
+        int generation = ++historyGeneration;
+        historyLoader.execute(() -> {
+            UiRefreshEvent refreshEvent = UiRefreshEvent.begin("history");
+            long started = System.nanoTime();
+            try {
+                long total = sessionService.countSessionsForDateRange(start, end);
+                List<CategorySummaryViewModel> summary = sessionService.getCategorySummaryForDateRange(start, end);
+                List<SessionViewModel> firstPage = sessionService.getSessionsPage(start, end, null, HISTORY_PAGE_SIZE);
+                Platform.runLater(() -> {
+                    if (generation != historyGeneration) {
+                        return;
+                    }
+                    setHistoryItems(new PagedSessionList((int) total, firstPage,
+                            (after, limit) -> sessionService.getSessionsPage(start, end, after, limit),
+                            historyLoader, HISTORY_PAGE_SIZE, SESSION_ORDER));
+                    summaryItems.setAll(summary);
+                    updateRangeExportAvailability();
+                    // Measures load plus the hop back onto the FX thread, i.e. what the user waits for.
+                    HISTORY_REFRESH.recordSince(started);
+                    refreshEvent.finish(total);
+                });
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> {
+                    if (generation == historyGeneration) {
+                        rangeErrorLabel.setText("Unable to load sessions: " + e.getMessage());
+                        clearHistory();
+                    }
+                });
+            }
+        });
+    }
+
+    private void clearHistory() {
+        historyGeneration++;
+        setHistoryItems(PagedSessionList.empty());
+        summaryItems.clear();
+        updateRangeExportAvailability();
+    }
+
+    private void setHistoryItems(PagedSessionList items) {
+        historyItems = items;
+        historyListView.setItems(items);
     }
 
     void selectCategory(Category category) {
@@ -445,12 +498,11 @@ public class MainController {
         }
     }
 
-    private boolean updateRemainingTimeLabel(Category category) {
+    private boolean updateRemainingTimeLabel(Category category, OptionalLong remaining) {
         if (category == null) {
             remainingTimeLabel.setText("Remaining Today: -");
             return false;
         }
-        OptionalLong remaining = sessionService.getRemainingSecondsForCategoryToday(category);
         if (remaining.isEmpty()) {
             remainingTimeLabel.setText("Remaining Today: Unlimited");
             return false;
@@ -473,10 +525,7 @@ public class MainController {
     private void createCategory(String name, Integer dailyLimitMinutes) {
         try {
             Category category = categoryService.createCategory(name, dailyLimitMinutes);
-            categoryItems.add(category);
             selectCategoryById(category.getId());
-            updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
-            updateControlAvailability();
         } catch (IllegalArgumentException | IllegalStateException e) {
             showError("Unable to create category", e.getMessage());
         }
@@ -496,9 +545,7 @@ public class MainController {
         }
         try {
             Category updated = categoryService.updateCategoryLimit(category.getId(), result.limitMinutes());
-            replaceCategoryInList(updated);
-            updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
-            updateControlAvailability();
+            categoryListView.getSelectionModel().select(updated);
         } catch (IllegalArgumentException | IllegalStateException e) {
             showError("Unable to update category", e.getMessage());
         }
@@ -507,13 +554,23 @@ public class MainController {
     private void replaceCategoryInList(Category updatedCategory) {
         for (int i = 0; i < categoryItems.size(); i++) {
             if (categoryItems.get(i).getId() == updatedCategory.getId()) {
+                boolean wasSelected = categoryListView.getSelectionModel().getSelectedIndex() == i;
                 categoryItems.set(i, updatedCategory);
-                categoryListView.getSelectionModel().select(i);
+                if (wasSelected) {
+                    categoryListView.getSelectionModel().select(i);
+                }
                 return;
             }
         }
-        categoryItems.add(updatedCategory);
-        categoryListView.getSelectionModel().select(updatedCategory);
+        insertCategorySorted(updatedCategory);
+    }
+
+    private void insertCategorySorted(Category category) {
+        int index = 0;
+        while (index < categoryItems.size() && CATEGORY_ORDER.compare(categoryItems.get(index), category) <= 0) {
+            index++;
+        }
+        categoryItems.add(index, category);
     }
 
     private LimitDialogResult promptForDailyLimit(Integer existingLimit) {
@@ -543,14 +600,9 @@ public class MainController {
     }
 
     private void handleSessionExpiredByLimit() {
-        stopTimer();
-        sessionService.stopSession();
-        timerLabel.setText("00:00:00");
-        startTimeLabel.setText("Start Time: -");
-        statusLabel.setText("Status: Limit reached");
-        startStopButton.setText("Start");
-        resetButton.setDisable(true);
-        refreshTimeline();
+        if (sessionService.isSessionRunning()) {
+            sessionService.stopSession();
+        }
     }
 
     private void emitManualEvent(ActivityEventType type, Category category) {
@@ -577,7 +629,20 @@ public class MainController {
         }
     }
 
-    private void updateSelectedCategoryLabel(Category category) {
+    private void refreshCategoryState() {
+        UiRefreshEvent refreshEvent = UiRefreshEvent.begin("category_state");
+        long start = System.nanoTime();
+        Category selected = categoryListView.getSelectionModel().getSelectedItem();
+        OptionalLong remaining = selected == null
+                ? OptionalLong.empty()
+                : sessionService.getRemainingSecondsForCategoryToday(selected);
+        updateSelectedCategoryLabel(selected, remaining);
+        updateControlAvailability(selected, remaining);
+        CATEGORY_STATE_REFRESH.recordSince(start);
+        refreshEvent.finish(selected == null ? 0 : 1);
+    }
+
+    private void updateSelectedCategoryLabel(Category category, OptionalLong remaining) {
         if (category == null) {
             selectedCategoryLabel.setText("Selected Category: -");
             remainingTimeLabel.setText("Remaining Today: -");
@@ -590,22 +655,18 @@ public class MainController {
                 builder.append(" (").append(category.getDailyLimitMinutes()).append(" dk/day limit)");
             }
             selectedCategoryLabel.setText(builder.toString());
-            boolean limitReached = updateRemainingTimeLabel(category);
+            boolean limitReached = updateRemainingTimeLabel(category, remaining);
             if (!sessionService.isSessionRunning()) {
                 statusLabel.setText(limitReached ? "Status: Limit reached" : "Status: Idle");
             }
         }
     }
 
-    private void updateControlAvailability() {
-        Category selected = categoryListView.getSelectionModel().getSelectedItem();
+    private void updateControlAvailability(Category selected, OptionalLong remaining) {
         boolean running = sessionService.isSessionRunning();
         boolean hasSelection = selected != null;
-        boolean limitReached = false;
-        if (hasSelection && !running) {
-            OptionalLong remaining = sessionService.getRemainingSecondsForCategoryToday(selected);
-            limitReached = remaining.isPresent() && remaining.getAsLong() <= 0;
-        }
+        boolean limitReached = hasSelection && !running
+                && remaining.isPresent() && remaining.getAsLong() <= 0;
         startStopButton.setDisable(!running && (!hasSelection || limitReached));
         addCategoryButton.setDisable(running);
         categoryListView.setDisable(running);
@@ -614,48 +675,6 @@ public class MainController {
         }
     }
 
-    private void startTimer() {
-        if (tickingTimeline != null) {
-            tickingTimeline.stop();
-        }
-        timerLabel.setText(sessionService.getActiveSession()
-                .map(active -> {
-                    Long allowedSeconds = active.allowedSeconds();
-                    if (allowedSeconds != null) {
-                        return TimeUtils.formatHHmmss(allowedSeconds);
-                    }
-                    return "00:00:00";
-                })
-                .orElse("00:00:00"));
-        tickingTimeline = new Timeline(new KeyFrame(javafx.util.Duration.seconds(1), event -> updateTimerDisplay()));
-        tickingTimeline.setCycleCount(Timeline.INDEFINITE);
-        tickingTimeline.playFromStart();
-    }
-
-    private void stopTimer() {
-        if (tickingTimeline != null) {
-            tickingTimeline.stop();
-            tickingTimeline = null;
-        }
-    }
-
-    private void updateTimerDisplay() {
-        sessionService.getActiveSession().ifPresent(active -> {
-            long elapsedSeconds = Math.max(0, Duration.between(active.startTime(), LocalDateTime.now()).getSeconds());
-            Long allowedSeconds = active.allowedSeconds();
-            if (allowedSeconds != null) {
-                long remaining = Math.max(0, allowedSeconds - elapsedSeconds);
-                if (remaining <= 0) {
-                    handleSessionExpiredByLimit();
-                    return;
-                }
-                timerLabel.setText(TimeUtils.formatHHmmss(remaining));
-            } else {
-                timerLabel.setText(TimeUtils.formatHHmmss(elapsedSeconds));
-            }
-        });
-    }
-
     private void showError(String header, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Error");
@@ -679,21 +698,9 @@ public class MainController {
         confirmation.setContentText("This will restore the full daily limit for the rest of today. Existing entries remain in the timeline.");
         Optional<ButtonType> response = confirmation.showAndWait();
         if (response.isPresent() && response.get() == ButtonType.OK) {
-            boolean wasRunning = sessionService.getActiveSession()
-                    .map(active -> active.category().getId() == category.getId())
-                    .orElse(false);
-            if (wasRunning) {
-                stopTimer();
-                timerLabel.setText("00:00:00");
-                startTimeLabel.setText("Start Time: -");
-                statusLabel.setText("Status: Idle");
-                startStopButton.setText("Start");
-                resetButton.setDisable(true);
-            }
             try {
                 sessionService.resetUsageForToday(category);
-                updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
-                updateControlAvailability();
+                refreshCategoryState();
             } catch (IllegalStateException | IllegalArgumentException e) {
                 showError("Unable to reset usage", e.getMessage());
             }
@@ -720,8 +727,7 @@ public class MainController {
                 }
                 sessionService.setRemainingSecondsForToday(category, minutes * 60L);
             }
-            updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
-            updateControlAvailability();
+            refreshCategoryState();
         } catch (NumberFormatException e) {
             showError("Invalid input", "Please enter a positive number of minutes or leave blank for unlimited.");
         } catch (IllegalStateException | IllegalArgumentException e) {
@@ -745,9 +751,6 @@ public class MainController {
             try {
                 sessionService.deleteSessionsForCategory(category.getId());
                 categoryService.deleteCategory(category.getId());
-                removeCategoryFromList(category.getId());
-                refreshTimeline();
-                refreshHistoryRange();
             } catch (IllegalStateException e) {
                 showError("Unable to delete category", e.getMessage());
             }
@@ -770,8 +773,7 @@ public class MainController {
         } else if (currentIndex >= 0) {
             categoryListView.getSelectionModel().select(currentIndex);
         }
-        updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
-        updateControlAvailability();
+        refreshCategoryState();
     }
 
     void promptEditSession(SessionViewModel session) {
@@ -830,8 +832,6 @@ public class MainController {
                 LocalDateTime newEnd = LocalDateTime.of(endDate, endTime);
                 sessionService.updateSession(session.id(), newStart, newEnd);
                 validationLabel.setText("");
-                refreshTimeline();
-                refreshHistoryRange();
             } catch (DateTimeParseException ex) {
                 validationLabel.setText("Enter time in HH:mm format.");
                 event.consume();
@@ -854,11 +854,8 @@ public class MainController {
             try {
                 boolean deleted = sessionService.deleteSession(session.id());
                 if (deleted) {
-                    refreshTimeline();
-                    refreshHistoryRange();
                     timelineListView.getSelectionModel().clearSelection();
                     historyListView.getSelectionModel().clearSelection();
-                    updateSelectedCategoryLabel(categoryListView.getSelectionModel().getSelectedItem());
                 } else {
                     showError("Unable to delete session", "The session could not be found. It may have already been deleted.");
                 }
@@ -949,6 +946,33 @@ public class MainController {
         trackingService.setPaused(pause);
     }
 
+    @FXML
+    private void onToggleRecording() {
+        if (recordingToggle.isSelected()) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Save Flight Recording");
+            fileChooser.setInitialFileName("TimeTracker-" + LocalDate.now() + ".jfr");
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JFR Recordings", "*.jfr"));
+            File target = fileChooser.showSaveDialog(timerLabel.getScene().getWindow());
+            if (target == null) {
+                recordingToggle.setSelected(false);
+                return;
+            }
+            try {
+                flightRecording.start(target.toPath());
+            } catch (RuntimeException e) {
+                recordingToggle.setSelected(false);
+                showError("Recording failed", e.getMessage());
+            }
+        } else if (flightRecording.isRecording()) {
+            try {
+                showInfo("Recording saved", "Saved flight recording to:\n" + flightRecording.stop().toAbsolutePath());
+            } catch (RuntimeException e) {
+                showError("Recording failed", e.getMessage());
+            }
+        }
+    }
+
     @FXML
     private void onExportAutoCsv() {
         if (autoTotals.isEmpty()) {
@@ -982,35 +1006,212 @@ public class MainController {
         }
     }
 
+    /**
+     * @param aggregationRequests queues an aggregation of a local date off the FX thread, whose
+     *                            totals come back as {@link AggregationCompleted}; null when
+     *                            another process owns aggregation
+     */
     public void setTrackingDependencies(ActivityTrackingService trackingService,
-                                        ActivityAggregationJob aggregationJob,
+                                        Consumer<LocalDate> aggregationRequests,
                                         ActivityReportingService reportingService,
                                         ActivityTrackingConfig config) {
         this.trackingService = trackingService;
-        this.aggregationJob = aggregationJob;
+        this.aggregationRequests = aggregationRequests;
         this.reportingService = reportingService;
         this.trackingConfig = config;
         updateTrackingToggle();
+        loadPersistedAutoTotals();
+    }
+
+    public DomainEventBus getEventBus() {
+        return eventBus;
+    }
+
+    public void shutdown() {
+        historyLoader.shutdownNow();
+        if (flightRecording.isRecording()) {
+            flightRecording.stop();
+        }
     }
 
     private void refreshAutoUsage() {
-        if (aggregationJob == null || reportingService == null) {
+        if (aggregationRequests == null) {
+            // Attached to a background tracker: it owns aggregation, so show what it has persisted.
+            loadPersistedAutoTotals();
+            return;
+        }
+        LocalDate date = selectedAutoDate();
+        if (date.isAfter(LocalDate.now())) {
+            autoTotals.clear();
+            return;
+        }
+        // Aggregation runs on the tracking runtime's thread; the totals reach the table through
+        // onAggregationCompleted, which also closes this refresh.
+        pendingAutoRefresh = UiRefreshEvent.begin("auto_usage");
+        pendingAutoRefreshStarted = System.nanoTime();
+        aggregationRequests.accept(date);
+    }
+
+    private void loadPersistedAutoTotals() {
+        if (reportingService == null) {
             return;
         }
         try {
-            LocalDate date = autoDatePicker != null && autoDatePicker.getValue() != null
-                    ? autoDatePicker.getValue()
-                    : LocalDate.now();
-            Instant startOfDay = date.atStartOfDay().atZone(java.time.ZoneId.systemDefault()).toInstant();
-            Instant endOfDay = date.plusDays(1).atStartOfDay().atZone(java.time.ZoneId.systemDefault()).toInstant();
-            aggregationJob.aggregate(startOfDay, endOfDay, true);
-            List<ActivityDailyTotal> totals = reportingService.getTotalsForDate(date);
-            autoTotals.setAll(toAutoViewModels(totals));
+            autoTotals.setAll(toAutoViewModels(reportingService.getTotalsForDate(selectedAutoDate())));
         } catch (Exception e) {
             autoTotals.clear();
         }
     }
 
+    private LocalDate selectedAutoDate() {
+        return autoDatePicker != null && autoDatePicker.getValue() != null
+                ? autoDatePicker.getValue()
+                : LocalDate.now();
+    }
+
+    private void subscribeToDomainEvents() {
+        subscribeOnFxThread(SessionStarted.class, this::onSessionStarted);
+        subscribeOnFxThread(SessionStopped.class, this::onSessionStopped);
+        subscribeOnFxThread(SessionEdited.class, this::onSessionEdited);
+        subscribeOnFxThread(SessionDeleted.class, this::onSessionDeleted);
+        subscribeOnFxThread(CategoryChanged.class, this::onCategoryChanged);
+        subscribeOnFxThread(AggregationCompleted.class, this::onAggregationCompleted);
+    }
+
+    private <E extends DomainEvent> void subscribeOnFxThread(Class<E> type, Consumer<E> handler) {
+        eventBus.subscribe(type, event -> {
+            if (Platform.isFxApplicationThread()) {
+                handler.accept(event);
+            } else {
+                Platform.runLater(() -> handler.accept(event));
+            }
+        });
+    }
+
+    private void onSessionStarted(SessionStarted event) {
+        startTimeLabel.setText("Start Time: " + TimeUtils.formatHHmm(event.startTime()));
+        statusLabel.setText("Status: Running");
+        startStopButton.setText("Stop");
+        resetButton.setDisable(false);
+        uiClock.start(event.startTime(), event.allowedSeconds());
+        refreshCategoryState();
+    }
+
+    private void onSessionStopped(SessionStopped event) {
+        uiClock.stop();
+        startTimeLabel.setText("Start Time: -");
+        statusLabel.setText("Status: Idle");
+        startStopButton.setText("Start");
+        resetButton.setDisable(true);
+        if (!event.discarded()) {
+            addSession(sessionService.toViewModel(event.session()));
+        }
+        refreshCategoryState();
+    }
+
+    private void onSessionEdited(SessionEdited event) {
+        removeSession(event.previous());
+        addSession(sessionService.toViewModel(event.updated()));
+        refreshCategoryState();
+    }
+
+    private void onSessionDeleted(SessionDeleted event) {
+        removeSession(event.session());
+        refreshCategoryState();
+    }
+
+    private void onCategoryChanged(CategoryChanged event) {
+        switch (event.kind()) {
+            case CREATED -> insertCategorySorted(event.category());
+            case UPDATED -> replaceCategoryInList(event.category());
+            case DELETED -> {
+                timelineItems.removeIf(item -> item.categoryId() == event.categoryId());
+                refreshHistoryRange();
+                removeCategoryFromList(event.categoryId());
+            }
+        }
+    }
+
+    private void onAggregationCompleted(AggregationCompleted event) {
+        if (!event.persisted()) {
+            return;
+        }
+        Instant selectedStart = selectedAutoDate().atStartOfDay(java.time.ZoneId.systemDefault()).toInstant();
+        if (!event.fromInclusive().equals(selectedStart)) {
+            return;
+        }
+        List<ActivityDailyTotal> sorted = new ArrayList<>(event.dailyTotals());
+        sorted.sort(Comparator.comparingLong(ActivityDailyTotal::totalSeconds).reversed());
+        autoTotals.setAll(toAutoViewModels(sorted));
+        if (pendingAutoRefresh != null) {
+            // Measures the request, the aggregation and the hop back, i.e. what the user waits for.
+            AUTO_USAGE_REFRESH.recordSince(pendingAutoRefreshStarted);
+            pendingAutoRefresh.finish(autoTotals.size());
+            pendingAutoRefresh = null;
+        }
+    }
+
+    private void addSession(SessionViewModel session) {
+        LocalDate date = session.startDateTime().toLocalDate();
+        if (date.equals(LocalDate.now())) {
+            insertSorted(timelineItems, session);
+        }
+        if (isInHistoryRange(date)) {
+            historyItems.insert(session);
+            adjustSummary(session.categoryId(), session.categoryName(), session.durationMinutes(), 1);
+            updateRangeExportAvailability();
+        }
+    }
+
+    private void removeSession(SessionDto session) {
+        timelineItems.removeIf(item -> item.id() == session.getId());
+        if (isInHistoryRange(session.getStartTime().toLocalDate())) {
+            historyItems.removeSession(session.getId());
+            adjustSummary(session.getCategoryId(), session.getCategoryName(), -session.getDurationMinutes(), -1);
+            updateRangeExportAvailability();
+        }
+    }
+
+    private boolean isInHistoryRange(LocalDate date) {
+        LocalDate start = rangeStartDatePicker.getValue();
+        LocalDate end = rangeEndDatePicker.getValue();
+        return start != null && end != null && !end.isBefore(start)
+                && !date.isBefore(start) && !date.isAfter(end);
+    }
+
+    private static void insertSorted(ObservableList<SessionViewModel> items, SessionViewModel session) {
+        int index = items.size();
+        while (index > 0 && SESSION_ORDER.compare(items.get(index - 1), session) > 0) {
+            index--;
+        }
+        items.add(index, session);
+    }
+
+    private void adjustSummary(int categoryId, String categoryName, long deltaMinutes, int deltaSessions) {
+        for (int i = 0; i < summaryItems.size(); i++) {
+            CategorySummaryViewModel row = summaryItems.get(i);
+            if (row.categoryId() == categoryId) {
+                long sessions = row.sessionCount() + deltaSessions;
+                if (sessions <= 0) {
+                    summaryItems.remove(i);
+                } else {
+                    summaryItems.set(i, new CategorySummaryViewModel(categoryId, categoryName,
+                            Math.max(0, row.totalMinutes() + deltaMinutes), sessions));
+                }
+                return;
+            }
+        }
+        if (deltaSessions > 0) {
+            summaryItems.add(new CategorySummaryViewModel(categoryId, categoryName, deltaMinutes, deltaSessions));
+        }
+    }
+
+    private void updateRangeExportAvailability() {
+        boolean hasData = !historyItems.isEmpty();
+        exportRangeIcsButton.setDisable(!hasData);
+        exportRangeCsvButton.setDisable(!hasData);
+    }
+
     private List<ActivityTotalViewModel> toAutoViewModels(List<ActivityDailyTotal> totals) {
         List<ActivityTotalViewModel> viewModels = new ArrayList<>();
         for (ActivityDailyTotal total : totals) {
@@ -1040,7 +1241,12 @@ public class MainController {
     }
 
     private void updateTrackingToggle() {
-        if (trackingPauseToggle == null || trackingService == null) {
+        if (trackingPauseToggle == null) {
+            return;
+        }
+        trackingPauseToggle.setDisable(trackingService == null);
+        if (trackingService == null) {
+            trackingPauseToggle.setTooltip(new Tooltip("Auto tracking runs in a background tracker for this database"));
             return;
         }
         trackingPauseToggle.setSelected(trackingService.isPaused());
@@ -1059,6 +1265,10 @@ public class MainController {
         return categoryListView.getSelectionModel().getSelectedItem();
     }
 
+    public UiClock getUiClock() {
+        return uiClock;
+    }
+
     Optional<SessionService.ActiveSession> getActiveSession() {
         return sessionService.getActiveSession();
     }
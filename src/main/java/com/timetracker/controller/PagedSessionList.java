@@ -0,0 +1,169 @@
+package com.timetracker.controller;
+
+import com.timetracker.model.SessionViewModel;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Read-only list for the history view whose size is the range's total session
+ * count but whose rows are fetched page by page as the ListView asks for them.
+ * Rows that are not loaded yet read as {@code null} and are replaced in place
+ * once their page arrives. All state is confined to the JavaFX thread; only
+ * the page query runs on {@code executor}.
+ */
+final class PagedSessionList extends ObservableListBase<SessionViewModel> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PagedSessionList.class);
+
+    @FunctionalInterface
+    interface PageLoader {
+        List<SessionViewModel> load(SessionViewModel after, int pageSize);
+    }
+
+    private final PageLoader loader;
+    private final Executor executor;
+    private final int pageSize;
+    private final Comparator<SessionViewModel> order;
+    private final List<SessionViewModel> loaded;
+    private int size;
+    private int requestedUpTo;
+    private int revision;
+    private boolean loading;
+
+    PagedSessionList(int totalSize,
+                     List<SessionViewModel> firstPage,
+                     PageLoader loader,
+                     Executor executor,
+                     int pageSize,
+                     Comparator<SessionViewModel> order) {
+        this.loader = loader;
+        this.executor = executor;
+        this.pageSize = pageSize;
+        this.order = order;
+        this.loaded = new ArrayList<>(firstPage);
+        this.size = Math.max(totalSize, firstPage.size());
+    }
+
+    static PagedSessionList empty() {
+        return new PagedSessionList(0, List.of(), (after, limit) -> List.of(), Runnable::run, 1,
+                Comparator.comparingInt(SessionViewModel::id));
+    }
+
+    @Override
+    public SessionViewModel get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (index < loaded.size()) {
+            return loaded.get(index);
+        }
+        requestUpTo(index + 1);
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds a session that was just persisted. Sessions sorting inside the loaded prefix are placed
+     * directly; later ones only grow the size and arrive with their page.
+     */
+    void insert(SessionViewModel session) {
+        revision++;
+        int index = loaded.size();
+        boolean complete = loaded.size() == size;
+        if (complete || (!loaded.isEmpty() && order.compare(session, loaded.get(loaded.size() - 1)) < 0)) {
+            while (index > 0 && order.compare(loaded.get(index - 1), session) > 0) {
+                index--;
+            }
+            loaded.add(index, session);
+        }
+        size++;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    /**
+     * Removes a session known to belong to this range, whether or not its page has been loaded.
+     */
+    void removeSession(int sessionId) {
+        revision++;
+        int index = loaded.size();
+        SessionViewModel removed = null;
+        for (int i = 0; i < loaded.size(); i++) {
+            if (loaded.get(i).id() == sessionId) {
+                index = i;
+                removed = loaded.remove(i);
+                break;
+            }
+        }
+        if (size == 0) {
+            return;
+        }
+        size--;
+        beginChange();
+        nextRemove(index, removed);
+        endChange();
+    }
+
+    private void requestUpTo(int count) {
+        requestedUpTo = Math.max(requestedUpTo, Math.min(size, count + pageSize / 2));
+        if (!loading && loaded.size() < requestedUpTo) {
+            fetchNextPage();
+        }
+    }
+
+    private void fetchNextPage() {
+        loading = true;
+        int expectedRevision = revision;
+        SessionViewModel after = loaded.isEmpty() ? null : loaded.get(loaded.size() - 1);
+        executor.execute(() -> {
+            try {
+                List<SessionViewModel> page = loader.load(after, pageSize);
+                Platform.runLater(() -> onPageLoaded(expectedRevision, page));
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to load history page", e);
+                Platform.runLater(() -> loading = false);
+            }
+        });
+    }
+
+    private void onPageLoaded(int expectedRevision, List<SessionViewModel> page) {
+        loading = false;
+        if (expectedRevision != revision) {
+            // The list changed while the page was in flight; re-read from the current cursor.
+            requestUpTo(requestedUpTo);
+            return;
+        }
+        int from = loaded.size();
+        int accepted = Math.min(page.size(), size - from);
+        loaded.addAll(page.subList(0, accepted));
+        beginChange();
+        for (int i = from; i < loaded.size(); i++) {
+            nextSet(i, null);
+        }
+        if (page.size() < pageSize && loaded.size() < size) {
+            // Fewer rows than counted; drop the placeholders that will never fill.
+            List<SessionViewModel> placeholders = new ArrayList<>();
+            for (int i = loaded.size(); i < size; i++) {
+                placeholders.add(null);
+            }
+            nextRemove(loaded.size(), placeholders);
+            size = loaded.size();
+        }
+        endChange();
+        if (loaded.size() < requestedUpTo) {
+            fetchNextPage();
+        }
+    }
+}
@@ -5,13 +5,14 @@ import javafx.scene.control.ContextMenu;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.MenuItem;
 import javafx.scene.layout.HBox;
-import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.text.Text;
 import com.timetracker.util.CategoryColorUtil;
 
 /**
  * ListCell implementation for displaying sessions with contextual actions.
+ * The graphic is built once per cell and only its properties change when the
+ * cell is reused for another item.
  */
 class SessionListCell extends ListCell<SessionViewModel> {
 
@@ -19,12 +20,18 @@ class SessionListCell extends ListCell<SessionViewModel> {
     private final MenuItem editItem;
     private final MenuItem deleteItem;
     private final ContextMenu contextMenu;
+    private final Circle dot;
+    private final Text text;
+    private final HBox graphic;
 
     SessionListCell(MainController controller) {
         this.controller = controller;
         this.editItem = new MenuItem("Edit Session...");
         this.deleteItem = new MenuItem("Delete Session");
         this.contextMenu = new ContextMenu(editItem, deleteItem);
+        this.dot = new Circle(5);
+        this.text = new Text();
+        this.graphic = new HBox(8, dot, text);
         wireActions();
     }
 
@@ -47,16 +54,12 @@ class SessionListCell extends ListCell<SessionViewModel> {
     protected void updateItem(SessionViewModel item, boolean empty) {
         super.updateItem(item, empty);
         if (empty || item == null) {
-            setText(null);
             setGraphic(null);
             setContextMenu(null);
         } else {
-            String colorHex = CategoryColorUtil.colorFor(item.categoryName());
-            Circle dot = new Circle(5, Color.web(colorHex));
-            Text text = new Text(item.asDisplayString());
-            HBox box = new HBox(8, dot, text);
-            setGraphic(box);
-            setText(null);
+            dot.setFill(CategoryColorUtil.paintFor(item.categoryName()));
+            text.setText(item.asDisplayString());
+            setGraphic(graphic);
             setContextMenu(contextMenu);
         }
     }
@@ -0,0 +1,168 @@
+package com.timetracker.controller;
+
+import com.timetracker.util.TimeUtils;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.value.ChangeListener;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application-wide one-second clock for the running session. The running
+ * session's start time and allowance are captured once when it starts, so each
+ * tick is a single subtraction that every window observes through the
+ * properties below instead of polling {@code SessionService} on its own timer.
+ * <p>
+ * The clock only ticks while a session is running and either a watched window
+ * is visible or the session has a limit that still has to be enforced. All
+ * methods must be called on the JavaFX application thread.
+ */
+public final class UiClock {
+
+    private final Clock clock;
+    private final Timeline timeline;
+    private final List<Window> windows = new ArrayList<>();
+    private final ReadOnlyBooleanWrapper running = new ReadOnlyBooleanWrapper(this, "running", false);
+    private final ReadOnlyBooleanWrapper limited = new ReadOnlyBooleanWrapper(this, "limited", false);
+    private final ReadOnlyLongWrapper elapsedSeconds = new ReadOnlyLongWrapper(this, "elapsedSeconds", 0);
+    private final ReadOnlyLongWrapper remainingSeconds = new ReadOnlyLongWrapper(this, "remainingSeconds", 0);
+    private LocalDateTime startTime;
+    private Long allowedSeconds;
+    private Runnable onLimitReached = () -> {
+    };
+
+    public UiClock() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public UiClock(Clock clock) {
+        this.clock = clock;
+        this.timeline = new Timeline(new KeyFrame(javafx.util.Duration.seconds(1), event -> tick()));
+        this.timeline.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    /**
+     * Starts counting for a session that began at {@code startTime}. A non-null
+     * {@code allowedSeconds} makes the clock count down and fire the limit handler at zero.
+     */
+    public void start(LocalDateTime startTime, Long allowedSeconds) {
+        this.startTime = startTime;
+        this.allowedSeconds = allowedSeconds;
+        limited.set(allowedSeconds != null);
+        update();
+        running.set(true);
+        updateTicking();
+    }
+
+    public void stop() {
+        startTime = null;
+        allowedSeconds = null;
+        timeline.stop();
+        running.set(false);
+        limited.set(false);
+        elapsedSeconds.set(0);
+        remainingSeconds.set(0);
+    }
+
+    /**
+     * Registers a window whose visibility keeps the clock ticking. Stages count as hidden while
+     * iconified.
+     */
+    public void watch(Window window) {
+        if (windows.contains(window)) {
+            return;
+        }
+        windows.add(window);
+        ChangeListener<Boolean> listener = (obs, oldVal, newVal) -> updateTicking();
+        window.showingProperty().addListener(listener);
+        if (window instanceof Stage stage) {
+            stage.iconifiedProperty().addListener(listener);
+        }
+        updateTicking();
+    }
+
+    public void setOnLimitReached(Runnable handler) {
+        this.onLimitReached = handler == null ? () -> {
+        } : handler;
+    }
+
+    public ReadOnlyBooleanProperty runningProperty() {
+        return running.getReadOnlyProperty();
+    }
+
+    public ReadOnlyBooleanProperty limitedProperty() {
+        return limited.getReadOnlyProperty();
+    }
+
+    public ReadOnlyLongProperty elapsedSecondsProperty() {
+        return elapsedSeconds.getReadOnlyProperty();
+    }
+
+    /**
+     * Seconds left before the running session hits its limit; only meaningful while
+     * {@link #limitedProperty()} is true.
+     */
+    public ReadOnlyLongProperty remainingSecondsProperty() {
+        return remainingSeconds.getReadOnlyProperty();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * The value the main timer shows: remaining time for limited sessions, elapsed time otherwise.
+     */
+    public String formatCountdown() {
+        if (!running.get()) {
+            return "00:00:00";
+        }
+        return TimeUtils.formatHHmmss(limited.get() ? remainingSeconds.get() : elapsedSeconds.get());
+    }
+
+    private void tick() {
+        update();
+        if (limited.get() && remainingSeconds.get() <= 0) {
+            timeline.stop();
+            onLimitReached.run();
+        }
+    }
+
+    private void update() {
+        long elapsed = Math.max(0, Duration.between(startTime, LocalDateTime.now(clock)).getSeconds());
+        if (allowedSeconds != null) {
+            remainingSeconds.set(Math.max(0, allowedSeconds - elapsed));
+        }
+        elapsedSeconds.set(elapsed);
+    }
+
+    private void updateTicking() {
+        boolean shouldTick = startTime != null && (limited.get() || anyWindowVisible());
+        if (shouldTick && timeline.getStatus() != Timeline.Status.RUNNING) {
+            // Catch up immediately when a window comes back rather than showing a stale value for a second.
+            update();
+            timeline.playFromStart();
+        } else if (!shouldTick) {
+            timeline.stop();
+        }
+    }
+
+    private boolean anyWindowVisible() {
+        for (Window window : windows) {
+            if (window.isShowing() && !(window instanceof Stage stage && stage.isIconified())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,6 +1,7 @@
 package com.timetracker.dao;
 
 import com.timetracker.db.DatabaseManager;
+import com.timetracker.diagnostics.DaoQueryEvent;
 import com.timetracker.model.Category;
 
 import java.sql.*;
@@ -17,6 +18,7 @@ public class CategoryDao {
 
     public List<Category> findAll() {
         List<Category> categories = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("categories", "find_all");
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_ALL_SQL);
              ResultSet resultSet = statement.executeQuery()) {
@@ -26,6 +28,8 @@ public class CategoryDao {
             }
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to load categories", e);
+        } finally {
+            queryEvent.finish(categories.size());
         }
         return categories;
     }
@@ -0,0 +1,91 @@
+package com.timetracker.dao;
+
+import com.timetracker.db.DatabaseManager;
+import com.timetracker.diagnostics.DaoQueryEvent;
+import com.timetracker.model.CategoryRule;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CategoryRuleDao {
+
+    private static final String SELECT_ALL_SQL =
+            "SELECT id, category_id, field, pattern, priority FROM category_rules ORDER BY id";
+    private static final String INSERT_SQL =
+            "INSERT INTO category_rules(category_id, field, pattern, priority) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM category_rules WHERE id = ?";
+    private static final String DELETE_FOR_CATEGORY_SQL = "DELETE FROM category_rules WHERE category_id = ?";
+
+    public List<CategoryRule> findAll() {
+        List<CategoryRule> rules = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("category_rules", "find_all");
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ALL_SQL);
+             ResultSet resultSet = statement.executeQuery()) {
+
+            while (resultSet.next()) {
+                rules.add(new CategoryRule(
+                        resultSet.getInt("id"),
+                        resultSet.getInt("category_id"),
+                        CategoryRule.Field.valueOf(resultSet.getString("field")),
+                        resultSet.getString("pattern"),
+                        resultSet.getInt("priority")));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load category rules", e);
+        } finally {
+            queryEvent.finish(rules.size());
+        }
+        return rules;
+    }
+
+    public CategoryRule insert(int categoryId, CategoryRule.Field field, String pattern, int priority) {
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setInt(1, categoryId);
+            statement.setString(2, field.name());
+            statement.setString(3, pattern);
+            statement.setInt(4, priority);
+            int affectedRows = statement.executeUpdate();
+            if (affectedRows == 0) {
+                throw new SQLException("Inserting category rule failed, no rows affected.");
+            }
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (keys.next()) {
+                    return new CategoryRule(keys.getInt(1), categoryId, field, pattern, priority);
+                }
+                throw new SQLException("Inserting category rule failed, no ID obtained.");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to insert category rule", e);
+        }
+    }
+
+    public void delete(int ruleId) {
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+            statement.setInt(1, ruleId);
+            int affected = statement.executeUpdate();
+            if (affected == 0) {
+                throw new SQLException("Deleting category rule failed, no rows affected.");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to delete category rule with id " + ruleId, e);
+        }
+    }
+
+    /**
+     * Removes the rules of a deleted category; foreign keys are not enforced on these connections,
+     * so the cascade in the schema does not fire.
+     */
+    public void deleteForCategory(int categoryId) {
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_FOR_CATEGORY_SQL)) {
+            statement.setInt(1, categoryId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to delete rules of category " + categoryId, e);
+        }
+    }
+}
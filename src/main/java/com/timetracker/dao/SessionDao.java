@@ -1,6 +1,9 @@
 package com.timetracker.dao;
 
 import com.timetracker.db.DatabaseManager;
+import com.timetracker.diagnostics.DaoQueryEvent;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
 import com.timetracker.model.Session;
 import com.timetracker.model.SessionDto;
 
@@ -14,6 +17,16 @@ import java.util.Optional;
 
 public class SessionDao {
 
+    private static final LatencyHistogram INSERT_LATENCY = MetricsRegistry.global().histogram("db.sessions.insert");
+    private static final LatencyHistogram FIND_DATE_LATENCY = MetricsRegistry.global().histogram("db.sessions.find_date");
+    private static final LatencyHistogram FIND_RANGE_LATENCY = MetricsRegistry.global().histogram("db.sessions.find_range");
+    private static final LatencyHistogram FIND_PAGE_LATENCY = MetricsRegistry.global().histogram("db.sessions.find_page");
+    private static final LatencyHistogram COUNT_RANGE_LATENCY = MetricsRegistry.global().histogram("db.sessions.count_range");
+    private static final LatencyHistogram CATEGORY_TOTALS_LATENCY = MetricsRegistry.global().histogram("db.sessions.category_totals");
+    private static final LatencyHistogram TOTAL_MINUTES_LATENCY = MetricsRegistry.global().histogram("db.sessions.total_minutes");
+    private static final LatencyHistogram TOTAL_SECONDS_LATENCY = MetricsRegistry.global().histogram("db.sessions.total_seconds");
+    private static final LatencyHistogram USAGE_ADJUSTMENT_LATENCY = MetricsRegistry.global().histogram("db.sessions.usage_adjustment");
+
     private static final String INSERT_SQL = """
             INSERT INTO sessions (category_id, start_time, end_time, duration_minutes)
             VALUES (?, ?, ?, ?)
@@ -45,6 +58,42 @@ public class SessionDao {
             ORDER BY s.start_time ASC
             """;
 
+    // Keyset pagination on (start_time, id); range bounds are compared as ISO strings so the
+    // idx_sessions_start index applies, unlike DATE(start_time).
+    private static final String SELECT_PAGE_SQL = """
+            SELECT s.id,
+                   s.category_id,
+                   s.start_time,
+                   s.end_time,
+                   s.duration_minutes,
+                   c.name AS category_name
+            FROM sessions s
+            INNER JOIN categories c ON c.id = s.category_id
+            WHERE s.start_time >= ? AND s.start_time < ?
+              AND (s.start_time > ? OR (s.start_time = ? AND s.id > ?))
+            ORDER BY s.start_time ASC, s.id ASC
+            LIMIT ?
+            """;
+
+    private static final String COUNT_RANGE_SQL = """
+            SELECT COUNT(*) AS session_count
+            FROM sessions s
+            INNER JOIN categories c ON c.id = s.category_id
+            WHERE s.start_time >= ? AND s.start_time < ?
+            """;
+
+    private static final String SELECT_CATEGORY_TOTALS_RANGE_SQL = """
+            SELECT c.id AS category_id,
+                   c.name AS category_name,
+                   COALESCE(SUM(s.duration_minutes), 0) AS total_minutes,
+                   COUNT(*) AS session_count
+            FROM sessions s
+            INNER JOIN categories c ON c.id = s.category_id
+            WHERE s.start_time >= ? AND s.start_time < ?
+            GROUP BY c.id, c.name
+            ORDER BY MIN(s.start_time) ASC, c.id ASC
+            """;
+
     private static final String SELECT_BY_ID_SQL = """
             SELECT s.id,
                    s.category_id,
@@ -108,6 +157,8 @@ public class SessionDao {
             """;
 
     public Session insert(Session session) {
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "insert");
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
             statement.setInt(1, session.getCategoryId());
@@ -129,6 +180,37 @@ public class SessionDao {
             throw new SQLException("Inserting session failed, no ID obtained.");
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to insert session", e);
+        } finally {
+            INSERT_LATENCY.recordSince(startNanos);
+            queryEvent.finish(1);
+        }
+    }
+
+    /**
+     * Batch insert in a single transaction for imports and bulk loads; generated ids are not returned.
+     */
+    public void insertAll(List<Session> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        try (Connection connection = DatabaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (Session session : sessions) {
+                    statement.setInt(1, session.getCategoryId());
+                    statement.setString(2, session.getStartTime().toString());
+                    statement.setString(3, session.getEndTime().toString());
+                    statement.setInt(4, session.getDurationMinutes());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to insert sessions", e);
         }
     }
 
@@ -154,6 +236,8 @@ public class SessionDao {
 
     public List<SessionDto> findSessionsForDate(LocalDate date) {
         List<SessionDto> sessions = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "find_date");
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_FOR_DATE_SQL)) {
             statement.setString(1, date.toString());
@@ -164,6 +248,9 @@ public class SessionDao {
             }
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to fetch sessions for date " + date, e);
+        } finally {
+            FIND_DATE_LATENCY.recordSince(startNanos);
+            queryEvent.finish(sessions.size());
         }
         return sessions;
     }
@@ -185,6 +272,8 @@ public class SessionDao {
 
     public List<SessionDto> findSessionsForDateRange(LocalDate startDate, LocalDate endDate) {
         List<SessionDto> sessions = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "find_range");
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_FOR_DATE_RANGE_SQL)) {
             statement.setString(1, startDate.toString());
@@ -197,11 +286,99 @@ public class SessionDao {
         } catch (SQLException e) {
             throw new IllegalStateException(
                     "Failed to fetch sessions for range %s - %s".formatted(startDate, endDate), e);
+        } finally {
+            FIND_RANGE_LATENCY.recordSince(startNanos);
+            queryEvent.finish(sessions.size());
+        }
+        return sessions;
+    }
+
+    /**
+     * Returns up to {@code limit} sessions starting within the date range that sort strictly after
+     * {@code after} by (start_time, id). Pass {@code null} for the first page.
+     */
+    public List<SessionDto> findSessionsPage(LocalDate startDate, LocalDate endDate, PageCursor after, int limit) {
+        String lower = rangeLowerBound(startDate);
+        String cursorStart = after == null ? lower : after.startTime().toString();
+        int cursorId = after == null ? 0 : after.id();
+        List<SessionDto> sessions = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "find_page");
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_PAGE_SQL)) {
+            statement.setString(1, lower);
+            statement.setString(2, rangeUpperBound(endDate));
+            statement.setString(3, cursorStart);
+            statement.setString(4, cursorStart);
+            statement.setInt(5, cursorId);
+            statement.setInt(6, limit);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    sessions.add(mapRow(resultSet));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(
+                    "Failed to fetch session page for range %s - %s".formatted(startDate, endDate), e);
+        } finally {
+            FIND_PAGE_LATENCY.recordSince(startNanos);
+            queryEvent.finish(sessions.size());
         }
         return sessions;
     }
 
+    public long countSessionsForDateRange(LocalDate startDate, LocalDate endDate) {
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "count_range");
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(COUNT_RANGE_SQL)) {
+            statement.setString(1, rangeLowerBound(startDate));
+            statement.setString(2, rangeUpperBound(endDate));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getLong("session_count");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(
+                    "Failed to count sessions for range %s - %s".formatted(startDate, endDate), e);
+        } finally {
+            COUNT_RANGE_LATENCY.recordSince(startNanos);
+            queryEvent.finish(1);
+        }
+        return 0;
+    }
+
+    public List<CategoryTotal> findCategoryTotalsForDateRange(LocalDate startDate, LocalDate endDate) {
+        List<CategoryTotal> totals = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "category_totals");
+        long startNanos = System.nanoTime();
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_CATEGORY_TOTALS_RANGE_SQL)) {
+            statement.setString(1, rangeLowerBound(startDate));
+            statement.setString(2, rangeUpperBound(endDate));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    totals.add(new CategoryTotal(
+                            resultSet.getInt("category_id"),
+                            resultSet.getString("category_name"),
+                            resultSet.getLong("total_minutes"),
+                            resultSet.getLong("session_count")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(
+                    "Failed to fetch category totals for range %s - %s".formatted(startDate, endDate), e);
+        } finally {
+            CATEGORY_TOTALS_LATENCY.recordSince(startNanos);
+            queryEvent.finish(totals.size());
+        }
+        return totals;
+    }
+
     public long findTotalDurationMinutesForDateRange(LocalDate startDate, LocalDate endDate, int categoryId) {
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "total_minutes");
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_TOTAL_MINUTES_RANGE_SQL)) {
             statement.setInt(1, categoryId);
@@ -216,12 +393,17 @@ public class SessionDao {
             throw new IllegalStateException(
                     "Failed to fetch total duration for category %d between %s and %s"
                             .formatted(categoryId, startDate, endDate), e);
+        } finally {
+            TOTAL_MINUTES_LATENCY.recordSince(startNanos);
+            queryEvent.finish(1);
         }
         return 0;
     }
 
     public long findTotalDurationSecondsForDateAndCategory(LocalDate date, int categoryId) {
         long totalSeconds = 0;
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "total_seconds");
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_FOR_TOTAL_SECONDS_SQL)) {
             statement.setInt(1, categoryId);
@@ -238,6 +420,9 @@ public class SessionDao {
             }
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to fetch total duration for category " + categoryId, e);
+        } finally {
+            TOTAL_SECONDS_LATENCY.recordSince(startNanos);
+            queryEvent.finish(1);
         }
         return totalSeconds;
     }
@@ -260,6 +445,8 @@ public class SessionDao {
     }
 
     public UsageAdjustment findUsageAdjustment(LocalDate date, int categoryId) {
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("sessions", "usage_adjustment");
+        long startNanos = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_USAGE_RESET_SQL)) {
             statement.setInt(1, categoryId);
@@ -281,6 +468,9 @@ public class SessionDao {
             }
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to fetch usage offset for category " + categoryId, e);
+        } finally {
+            USAGE_ADJUSTMENT_LATENCY.recordSince(startNanos);
+            queryEvent.finish(1);
         }
         return new UsageAdjustment(0, null);
     }
@@ -315,6 +505,20 @@ public class SessionDao {
     public record UsageAdjustment(long offsetSeconds, Long overrideLimitSeconds) {
     }
 
+    public record PageCursor(LocalDateTime startTime, int id) {
+    }
+
+    public record CategoryTotal(int categoryId, String categoryName, long totalMinutes, long sessionCount) {
+    }
+
+    private static String rangeLowerBound(LocalDate startDate) {
+        return startDate.atStartOfDay().toString();
+    }
+
+    private static String rangeUpperBound(LocalDate endDate) {
+        return endDate.plusDays(1).atStartOfDay().toString();
+    }
+
     private SessionDto mapRow(ResultSet rs) throws SQLException {
         LocalDateTime start = LocalDateTime.parse(rs.getString("start_time"));
         LocalDateTime end = LocalDateTime.parse(rs.getString("end_time"));
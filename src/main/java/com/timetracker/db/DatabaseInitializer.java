@@ -1,8 +1,10 @@
 package com.timetracker.db;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 public final class DatabaseInitializer {
 
@@ -25,6 +27,10 @@ public final class DatabaseInitializer {
             );
             """;
 
+    private static final String CREATE_SESSIONS_START_INDEX_SQL = """
+            CREATE INDEX IF NOT EXISTS idx_sessions_start ON sessions(start_time)
+            """;
+
     private static final String CREATE_USAGE_RESETS_SQL = """
             CREATE TABLE IF NOT EXISTS category_usage_resets (
                 category_id INTEGER NOT NULL,
@@ -54,7 +60,11 @@ public final class DatabaseInitializer {
                 url TEXT,
                 payload_json TEXT
             );
-            CREATE INDEX IF NOT EXISTS idx_activity_events_ts ON activity_events(ts);
+            """;
+
+    // Kept separate from the CREATE TABLE: Statement.execute only runs the first statement in a string.
+    private static final String CREATE_ACTIVITY_EVENTS_TS_INDEX_SQL = """
+            CREATE INDEX IF NOT EXISTS idx_activity_events_ts ON activity_events(ts)
             """;
 
     private static final String CREATE_ACTIVITY_SESSIONS_SQL = """
@@ -69,7 +79,10 @@ public final class DatabaseInitializer {
                 is_idle INTEGER NOT NULL DEFAULT 0,
                 UNIQUE (start_ts, app_id, url, source, is_idle)
             );
-            CREATE INDEX IF NOT EXISTS idx_activity_sessions_start ON activity_sessions(start_ts);
+            """;
+
+    private static final String CREATE_ACTIVITY_SESSIONS_START_INDEX_SQL = """
+            CREATE INDEX IF NOT EXISTS idx_activity_sessions_start ON activity_sessions(start_ts)
             """;
 
     private static final String CREATE_ACTIVITY_DAILY_TOTALS_SQL = """
@@ -84,25 +97,171 @@ public final class DatabaseInitializer {
             );
             """;
 
+    private static final String CREATE_INGEST_CHECKPOINTS_SQL = """
+            CREATE TABLE IF NOT EXISTS ingest_checkpoints (
+                journal TEXT PRIMARY KEY,
+                segment INTEGER NOT NULL,
+                slot INTEGER NOT NULL
+            );
+            """;
+
+    private static final String CREATE_CATEGORY_RULES_SQL = """
+            CREATE TABLE IF NOT EXISTS category_rules (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                category_id INTEGER NOT NULL,
+                field TEXT NOT NULL,
+                pattern TEXT NOT NULL,
+                priority INTEGER NOT NULL DEFAULT 0,
+                FOREIGN KEY(category_id) REFERENCES categories(id) ON DELETE CASCADE
+            );
+            """;
+
+    private static final String CREATE_ACTIVITY_CATEGORY_TOTALS_SQL = """
+            CREATE TABLE IF NOT EXISTS activity_category_totals (
+                usage_date TEXT NOT NULL,
+                category_id INTEGER NOT NULL,
+                total_seconds INTEGER NOT NULL,
+                PRIMARY KEY (usage_date, category_id)
+            );
+            """;
+
+    private static final String CREATE_ACTIVITY_HOURLY_TOTALS_SQL = """
+            CREATE TABLE IF NOT EXISTS activity_hourly_totals (
+                hour_start TEXT NOT NULL,
+                app_id TEXT NOT NULL,
+                total_seconds INTEGER NOT NULL,
+                PRIMARY KEY (hour_start, app_id)
+            );
+            """;
+
+    private static final String CREATE_ACTIVITY_MINUTE_OCCUPANCY_SQL = """
+            CREATE TABLE IF NOT EXISTS activity_minute_occupancy (
+                utc_date TEXT NOT NULL,
+                app_id TEXT NOT NULL,
+                seconds BLOB NOT NULL,
+                PRIMARY KEY (utc_date, app_id)
+            );
+            """;
+
+    /**
+     * Schema migrations in order; entry {@code i} upgrades a database from {@code user_version i}
+     * to {@code i + 1}. Append new steps at the end and never edit released ones.
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            DatabaseInitializer::createBaselineSchema,
+            DatabaseInitializer::createIngestCheckpoints,
+            DatabaseInitializer::createCategoryRules,
+            DatabaseInitializer::createActivityRollups
+    );
+
+    /**
+     * The {@code PRAGMA user_version} a fully migrated database carries.
+     */
+    public static final int SCHEMA_VERSION = MIGRATIONS.size();
+
     private DatabaseInitializer() {
     }
 
+    /**
+     * Brings the schema up to {@link #SCHEMA_VERSION}. A current database costs one
+     * {@code PRAGMA user_version} read; otherwise the pending migrations run in a single
+     * {@code BEGIN IMMEDIATE} transaction, so a second process starting at the same time waits
+     * and then finds nothing left to do.
+     */
     public static void initialize() {
         try (Connection connection = DatabaseManager.getConnection();
              Statement statement = connection.createStatement()) {
-            statement.execute(CREATE_CATEGORIES_SQL);
-            statement.execute(CREATE_SESSIONS_SQL);
-            ensureDailyLimitColumn(statement);
-            statement.execute(CREATE_USAGE_RESETS_SQL);
-            ensureUsageResetsOverrideColumn(statement);
-            statement.execute(CREATE_ACTIVITY_EVENTS_SQL);
-            statement.execute(CREATE_ACTIVITY_SESSIONS_SQL);
-            statement.execute(CREATE_ACTIVITY_DAILY_TOTALS_SQL);
+            if (userVersion(statement) >= SCHEMA_VERSION) {
+                return;
+            }
+            statement.execute("BEGIN IMMEDIATE");
+            try {
+                for (int version = userVersion(statement); version < SCHEMA_VERSION; version++) {
+                    MIGRATIONS.get(version).apply(statement);
+                }
+                statement.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+                statement.execute("COMMIT");
+            } catch (SQLException | RuntimeException e) {
+                statement.execute("ROLLBACK");
+                throw e;
+            }
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to initialize database", e);
         }
     }
 
+    /**
+     * Drops secondary indexes on {@code activity_events} ahead of a bulk load so rows append
+     * without index maintenance. {@link #createActivityEventIndexes()} rebuilds them afterwards.
+     */
+    public static void dropActivityEventIndexes() {
+        try (Connection connection = DatabaseManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX IF EXISTS idx_activity_events_ts");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to drop activity event indexes", e);
+        }
+    }
+
+    public static void createActivityEventIndexes() {
+        try (Connection connection = DatabaseManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_ACTIVITY_EVENTS_TS_INDEX_SQL);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create activity event indexes", e);
+        }
+    }
+
+    private static int userVersion(Statement statement) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Version 1: the schema as it stood before versioning. Every statement is idempotent so that
+     * databases created by older builds (all at {@code user_version 0}) upgrade in place.
+     */
+    private static void createBaselineSchema(Statement statement) throws SQLException {
+        statement.execute(CREATE_CATEGORIES_SQL);
+        statement.execute(CREATE_SESSIONS_SQL);
+        statement.execute(CREATE_SESSIONS_START_INDEX_SQL);
+        ensureDailyLimitColumn(statement);
+        statement.execute(CREATE_USAGE_RESETS_SQL);
+        ensureUsageResetsOverrideColumn(statement);
+        statement.execute(CREATE_ACTIVITY_EVENTS_SQL);
+        statement.execute(CREATE_ACTIVITY_EVENTS_TS_INDEX_SQL);
+        statement.execute(CREATE_ACTIVITY_SESSIONS_SQL);
+        statement.execute(CREATE_ACTIVITY_SESSIONS_START_INDEX_SQL);
+        statement.execute(CREATE_ACTIVITY_DAILY_TOTALS_SQL);
+    }
+
+    /**
+     * Version 2: the position up to which each ingest journal has been drained into
+     * {@code activity_events}.
+     */
+    private static void createIngestCheckpoints(Statement statement) throws SQLException {
+        statement.execute(CREATE_INGEST_CHECKPOINTS_SQL);
+    }
+
+    /**
+     * Version 3: rules mapping auto-tracked activity to categories, and the per-day category
+     * totals the aggregation derives from them.
+     */
+    private static void createCategoryRules(Statement statement) throws SQLException {
+        statement.execute(CREATE_CATEGORY_RULES_SQL);
+        statement.execute(CREATE_ACTIVITY_CATEGORY_TOTALS_SQL);
+    }
+
+    /**
+     * Version 4: per-hour totals and per-minute occupancy of auto-tracked activity, keyed by UTC
+     * hour and day. Days aggregated before the upgrade stay empty until they are aggregated again.
+     */
+    private static void createActivityRollups(Statement statement) throws SQLException {
+        statement.execute(CREATE_ACTIVITY_HOURLY_TOTALS_SQL);
+        statement.execute(CREATE_ACTIVITY_MINUTE_OCCUPANCY_SQL);
+    }
+
     private static void ensureDailyLimitColumn(Statement statement) throws SQLException {
         try {
             statement.execute(ALTER_CATEGORIES_ADD_LIMIT_SQL);
@@ -124,4 +283,9 @@ public final class DatabaseInitializer {
             }
         }
     }
+
+    @FunctionalInterface
+    private interface Migration {
+        void apply(Statement statement) throws SQLException;
+    }
 }
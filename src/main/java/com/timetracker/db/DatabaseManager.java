@@ -1,5 +1,9 @@
 package com.timetracker.db;
 
+import com.timetracker.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
@@ -8,8 +12,17 @@ import java.sql.SQLException;
 public final class DatabaseManager {
 
     private static final String DATABASE_NAME = "timetracker.db";
+    /**
+     * System property that points the app (or a benchmark/tool run) at another database file.
+     */
+    public static final String DATABASE_PATH_PROPERTY = "timetracker.db.path";
     private static final String JDBC_PREFIX = "jdbc:sqlite:";
 
+    static {
+        MetricsRegistry.global().gauge("db.size_bytes", () -> sizeOf(getDatabasePath()));
+        MetricsRegistry.global().gauge("db.wal_size_bytes", () -> sizeOf(Path.of(getDatabasePath() + "-wal")));
+    }
+
     private DatabaseManager() {
     }
 
@@ -26,8 +39,22 @@ public final class DatabaseManager {
         }
     }
 
-    private static String getDatabasePath() {
-        Path dbPath = Path.of(System.getProperty("user.dir"), DATABASE_NAME);
-        return dbPath.toAbsolutePath().toString();
+    /**
+     * The database file connections are opened against, honouring {@link #DATABASE_PATH_PROPERTY}.
+     */
+    public static Path getDatabasePath() {
+        String override = System.getProperty(DATABASE_PATH_PROPERTY);
+        Path dbPath = override != null && !override.isBlank()
+                ? Path.of(override)
+                : Path.of(System.getProperty("user.dir"), DATABASE_NAME);
+        return dbPath.toAbsolutePath();
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.exists(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+            return -1;
+        }
     }
 }
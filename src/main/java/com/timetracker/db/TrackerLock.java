@@ -0,0 +1,82 @@
+package com.timetracker.db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Exclusive OS file lock next to the database ({@code timetracker.db.tracker.lock}) held by
+ * whichever process runs auto tracking, so the daemon and the desktop app never capture into the
+ * same database twice. The lock is released by the OS if the holder dies; the file itself is left
+ * in place and records the holder's PID.
+ */
+public final class TrackerLock implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private TrackerLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    public static Path lockFileFor(Path database) {
+        return database.resolveSibling(database.getFileName() + ".tracker.lock");
+    }
+
+    /**
+     * Takes the lock for {@code database}, or returns empty if another tracker holds it.
+     */
+    public static Optional<TrackerLock> tryAcquire(Path database) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFileFor(database), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = tryLock(channel);
+            if (lock == null) {
+                channel.close();
+                return Optional.empty();
+            }
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap((ProcessHandle.current().pid() + "\n").getBytes(StandardCharsets.US_ASCII)));
+            return Optional.of(new TrackerLock(channel, lock));
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new IllegalStateException("Failed to lock " + lockFileFor(database), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            lock.release();
+        } catch (IOException ignored) {
+            // Closing the channel below releases it as well.
+        }
+        closeQuietly(channel);
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing left to release.
+        }
+    }
+}
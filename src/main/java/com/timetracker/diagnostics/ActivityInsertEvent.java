@@ -0,0 +1,27 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One write of captured activity events, single or batched.
+ */
+@Name("com.timetracker.ActivityInsert")
+@Label("Activity Event Insert")
+@Category({"TimeTracker", "Persistence"})
+@Description("One write of captured activity events")
+@StackTrace(false)
+public final class ActivityInsertEvent extends jdk.jfr.Event {
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Payload Size")
+    @Description("Characters of app id, title and URL written")
+    @DataAmount(DataAmount.BYTES)
+    public long payloadBytes;
+}
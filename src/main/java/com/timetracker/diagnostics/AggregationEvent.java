@@ -0,0 +1,39 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+
+/**
+ * One {@code ActivityAggregationJob} run, with the size of each stage.
+ */
+@Name("com.timetracker.Aggregation")
+@Label("Activity Aggregation")
+@Category({"TimeTracker", "Tracking"})
+@Description("Events read, sessions built and totals written by one aggregation run")
+@StackTrace(false)
+public final class AggregationEvent extends jdk.jfr.Event {
+
+    @Label("From")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long fromInclusive;
+
+    @Label("To")
+    @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+    public long toExclusive;
+
+    @Label("Events Read")
+    public int eventsRead;
+
+    @Label("Sessions Built")
+    public int sessionsBuilt;
+
+    @Label("Daily Totals")
+    public int dailyTotals;
+
+    @Label("Persisted")
+    public boolean persisted;
+}
@@ -0,0 +1,36 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One poll of the active-app collector, including any resolver calls it made.
+ */
+@Name("com.timetracker.Capture")
+@Label("Active App Capture")
+@Category({"TimeTracker", "Tracking"})
+@Description("One poll of the active-app collector")
+@StackTrace(false)
+public final class CaptureEvent extends jdk.jfr.Event {
+
+    @Label("App Id")
+    public String appId;
+
+    @Label("Title Length")
+    @Description("Characters in the captured window title")
+    public int titleLength;
+
+    @Label("URL Captured")
+    public boolean urlCaptured;
+
+    @Label("Failed")
+    @Description("The collector threw instead of returning")
+    public boolean failed;
+
+    @Label("Empty")
+    @Description("The collector returned no snapshot")
+    public boolean empty;
+}
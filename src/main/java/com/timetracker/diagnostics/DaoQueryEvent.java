@@ -0,0 +1,44 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One DAO call against SQLite, named the same way as its {@code db.*} latency histogram.
+ */
+@Name("com.timetracker.DaoQuery")
+@Label("DAO Query")
+@Category({"TimeTracker", "Persistence"})
+@Description("One DAO call against the SQLite database")
+@StackTrace(false)
+public final class DaoQueryEvent extends jdk.jfr.Event {
+
+    @Label("Table")
+    public String table;
+
+    @Label("Query")
+    public String query;
+
+    @Label("Rows")
+    @Description("Rows read or written; 1 for scalar lookups")
+    public long rows;
+
+    public static DaoQueryEvent begin(String table, String query) {
+        DaoQueryEvent event = new DaoQueryEvent();
+        event.table = table;
+        event.query = query;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Objects;
+
+/**
+ * Starts and stops a JDK Flight Recorder recording with the bundled {@code timetracker.jfc}
+ * profile, which enables the app's own events plus low-overhead JDK events (GC, CPU load, socket
+ * and file I/O above a threshold, 20 ms execution samples). The file is written when the
+ * recording stops.
+ */
+public final class FlightRecording {
+
+    public static final String CONFIGURATION_RESOURCE = "/com/timetracker/diagnostics/timetracker.jfc";
+
+    private Recording recording;
+    private Path destination;
+
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    public synchronized void start(Path destination) {
+        Objects.requireNonNull(destination, "destination");
+        if (recording != null) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        Recording started = new Recording(loadConfiguration());
+        try {
+            started.setName("TimeTracker");
+            started.setToDisk(true);
+            started.setDestination(destination);
+            started.start();
+        } catch (IOException | RuntimeException e) {
+            started.close();
+            throw new IllegalStateException("Failed to start flight recording to " + destination, e);
+        }
+        this.recording = started;
+        this.destination = destination;
+    }
+
+    /**
+     * Stops the running recording and returns the file it was written to.
+     */
+    public synchronized Path stop() {
+        if (recording == null) {
+            throw new IllegalStateException("No recording is running");
+        }
+        Path written = destination;
+        try {
+            recording.stop();
+        } finally {
+            recording.close();
+            recording = null;
+            destination = null;
+        }
+        return written;
+    }
+
+    public static Configuration loadConfiguration() {
+        InputStream stream = FlightRecording.class.getResourceAsStream(CONFIGURATION_RESOURCE);
+        if (stream == null) {
+            throw new IllegalStateException("Missing " + CONFIGURATION_RESOURCE);
+        }
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Failed to read " + CONFIGURATION_RESOURCE, e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single call out of process (or into a heuristic) to learn about the active window:
+ * {@code xprop} invocations, Chromium DevTools requests and window-title parsing.
+ */
+@Name("com.timetracker.Resolver")
+@Label("Window/URL Resolver Call")
+@Category({"TimeTracker", "Tracking"})
+@Description("An xprop, Chromium DevTools or window-title lookup")
+@StackTrace(false)
+public final class ResolverEvent extends jdk.jfr.Event {
+
+    @Label("Resolver")
+    public String resolver;
+
+    @Label("Request")
+    @Description("Command or endpoint queried")
+    public String request;
+
+    @Label("Payload Size")
+    @DataAmount(DataAmount.BYTES)
+    public long payloadBytes;
+
+    @Label("Resolved")
+    public boolean resolved;
+
+    public static ResolverEvent begin(String resolver, String request) {
+        ResolverEvent event = new ResolverEvent();
+        event.resolver = resolver;
+        event.request = request;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it if the recording wants it; {@code payload} may be null.
+     */
+    public void finish(String payload, boolean resolved) {
+        end();
+        if (shouldCommit()) {
+            this.payloadBytes = payload == null ? 0 : payload.length();
+            this.resolved = resolved;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One refresh of a JavaFX view, named the same way as its {@code ui.refresh.*} histogram.
+ */
+@Name("com.timetracker.UiRefresh")
+@Label("UI Refresh")
+@Category({"TimeTracker", "UI"})
+@Description("One refresh of a JavaFX view")
+@StackTrace(false)
+public final class UiRefreshEvent extends jdk.jfr.Event {
+
+    @Label("View")
+    public String view;
+
+    @Label("Rows")
+    @Description("Items shown after the refresh")
+    public long rows;
+
+    public static UiRefreshEvent begin(String view) {
+        UiRefreshEvent event = new UiRefreshEvent();
+        event.view = view;
+        event.begin();
+        return event;
+    }
+
+    public void finish(long rows) {
+        end();
+        if (shouldCommit()) {
+            this.rows = rows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.timetracker.event;
+
+import com.timetracker.tracking.ActivityDailyTotal;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published by the activity aggregation after each run, with the daily totals it computed.
+ */
+public record AggregationCompleted(Instant fromInclusive,
+                                   Instant toExclusive,
+                                   boolean persisted,
+                                   List<ActivityDailyTotal> dailyTotals) implements DomainEvent {
+}
@@ -0,0 +1,28 @@
+package com.timetracker.event;
+
+import com.timetracker.model.Category;
+
+/**
+ * Published after a category is created, updated or deleted. {@code category}
+ * is {@code null} for deletions.
+ */
+public record CategoryChanged(Kind kind, int categoryId, Category category) implements DomainEvent {
+
+    public static CategoryChanged created(Category category) {
+        return new CategoryChanged(Kind.CREATED, category.getId(), category);
+    }
+
+    public static CategoryChanged updated(Category category) {
+        return new CategoryChanged(Kind.UPDATED, category.getId(), category);
+    }
+
+    public static CategoryChanged deleted(int categoryId) {
+        return new CategoryChanged(Kind.DELETED, categoryId, null);
+    }
+
+    public enum Kind {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,7 @@
+package com.timetracker.event;
+
+/**
+ * Marker for state changes published on the {@link DomainEventBus}.
+ */
+public interface DomainEvent {
+}
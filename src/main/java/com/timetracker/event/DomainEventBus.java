@@ -0,0 +1,54 @@
+package com.timetracker.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe hub between services and the UI. Listeners run
+ * synchronously on the publishing thread, so UI subscribers must hop onto the
+ * JavaFX thread themselves when events come from background jobs.
+ */
+public class DomainEventBus {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private final List<Registration<?>> registrations = new CopyOnWriteArrayList<>();
+
+    public <E extends DomainEvent> Subscription subscribe(Class<E> type, Consumer<? super E> listener) {
+        Registration<E> registration = new Registration<>(
+                Objects.requireNonNull(type, "type"),
+                Objects.requireNonNull(listener, "listener"));
+        registrations.add(registration);
+        return () -> registrations.remove(registration);
+    }
+
+    public void publish(DomainEvent event) {
+        Objects.requireNonNull(event, "event");
+        for (Registration<?> registration : registrations) {
+            try {
+                registration.deliver(event);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Listener failed for {}", event.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record Registration<E extends DomainEvent>(Class<E> type, Consumer<? super E> listener) {
+        void deliver(DomainEvent event) {
+            if (type.isInstance(event)) {
+                listener.accept(type.cast(event));
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.timetracker.event;
+
+import com.timetracker.model.SessionDto;
+
+public record SessionDeleted(SessionDto session) implements DomainEvent {
+}
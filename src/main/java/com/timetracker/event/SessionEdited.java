@@ -0,0 +1,6 @@
+package com.timetracker.event;
+
+import com.timetracker.model.SessionDto;
+
+public record SessionEdited(SessionDto previous, SessionDto updated) implements DomainEvent {
+}
@@ -0,0 +1,8 @@
+package com.timetracker.event;
+
+import com.timetracker.model.Category;
+
+import java.time.LocalDateTime;
+
+public record SessionStarted(Category category, LocalDateTime startTime, Long allowedSeconds) implements DomainEvent {
+}
@@ -0,0 +1,16 @@
+package com.timetracker.event;
+
+import com.timetracker.model.Category;
+import com.timetracker.model.SessionDto;
+
+/**
+ * Published whenever the active session ends. {@code session} is the persisted
+ * row, or {@code null} when the session was discarded (reset, usage reset or
+ * category removal).
+ */
+public record SessionStopped(Category category, SessionDto session) implements DomainEvent {
+
+    public boolean discarded() {
+        return session == null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.timetracker.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic count of occurrences (captures, inserts, failures). Increments never allocate.
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    public long value() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,58 @@
+package com.timetracker.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends a JSON line with the registry's snapshot to a local file at a fixed interval, and once
+ * more on close.
+ */
+public final class MetricsFileReporter implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsFileReporter.class);
+
+    private final MetricsRegistry registry;
+    private final Path file;
+    private final ScheduledExecutorService executor;
+
+    public MetricsFileReporter(MetricsRegistry registry, Path file) {
+        this.registry = Objects.requireNonNull(registry, "registry");
+        this.file = Objects.requireNonNull(file, "file");
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(Duration interval) {
+        long millis = interval.toMillis();
+        executor.scheduleAtFixedRate(this::dump, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    void dump() {
+        try {
+            Files.writeString(file, registry.snapshot().toJson() + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to write metrics to {}", file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        dump();
+    }
+}
@@ -0,0 +1,144 @@
+package com.timetracker.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Read-only HTTP view of a {@link MetricsRegistry}, bound to the loopback interface only:
+ * <ul>
+ *     <li>{@code GET /metrics} – Prometheus text exposition format; histograms become summaries in seconds.</li>
+ *     <li>{@code GET /metrics.json} – the full {@link MetricsSnapshot} as JSON.</li>
+ *     <li>{@code GET /health} – the tracker health gauges as a small JSON object.</li>
+ * </ul>
+ * Each request is handled on its own virtual thread.
+ */
+public final class MetricsHttpServer implements AutoCloseable {
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final String PREFIX = "timetracker_";
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    /**
+     * Gauges reported by {@code /health}, keyed by the JSON field they appear under.
+     */
+    private static final Map<String, String> HEALTH_GAUGES = Map.of(
+            "lastCaptureEpochMs", "capture.last_success_epoch_ms",
+            "eventQueueDepth", "aggregation.pending_events",
+            "aggregationLagMs", "aggregation.lag_ms",
+            "dbSizeBytes", "db.size_bytes",
+            "walSizeBytes", "db.wal_size_bytes");
+
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Binds to {@code 127.0.0.1:port}; pass 0 to pick a free port (see {@link #port()}).
+     */
+    public MetricsHttpServer(MetricsRegistry registry, int port) throws IOException {
+        this.registry = Objects.requireNonNull(registry, "registry");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/metrics", exchange -> respond(exchange, PROMETHEUS_CONTENT_TYPE, MetricsHttpServer::toPrometheus));
+        server.createContext("/metrics.json", exchange -> respond(exchange, JSON_CONTENT_TYPE, MetricsSnapshot::toJson));
+        server.createContext("/health", exchange -> respond(exchange, JSON_CONTENT_TYPE, MetricsHttpServer::toHealthJson));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange, String contentType, Function<MetricsSnapshot, String> renderer)
+            throws IOException {
+        try (exchange) {
+            // Contexts match by prefix; only serve the exact paths.
+            if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = renderer.apply(registry.snapshot()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    static String toPrometheus(MetricsSnapshot snapshot) {
+        StringBuilder builder = new StringBuilder(4096);
+        snapshot.counters().forEach((name, value) -> {
+            String metric = metricName(name) + "_total";
+            builder.append("# TYPE ").append(metric).append(" counter\n")
+                    .append(metric).append(' ').append(value).append('\n');
+        });
+        snapshot.gauges().forEach((name, value) -> {
+            String metric = metricName(name);
+            builder.append("# TYPE ").append(metric).append(" gauge\n")
+                    .append(metric).append(' ').append(value).append('\n');
+        });
+        snapshot.histograms().forEach((name, value) -> {
+            String metric = metricName(name) + "_seconds";
+            builder.append("# TYPE ").append(metric).append(" summary\n");
+            appendQuantile(builder, metric, "0.5", value.p50Nanos());
+            appendQuantile(builder, metric, "0.9", value.p90Nanos());
+            appendQuantile(builder, metric, "0.99", value.p99Nanos());
+            appendQuantile(builder, metric, "0.999", value.p999Nanos());
+            builder.append(metric).append("_sum ").append(seconds(value.sumNanos())).append('\n')
+                    .append(metric).append("_count ").append(value.count()).append('\n');
+        });
+        return builder.toString();
+    }
+
+    static String toHealthJson(MetricsSnapshot snapshot) {
+        StringBuilder builder = new StringBuilder(256);
+        builder.append("{\"takenAt\":\"").append(snapshot.takenAt()).append('"');
+        HEALTH_GAUGES.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> builder.append(",\"").append(entry.getKey()).append("\":")
+                        .append(snapshot.gauges().getOrDefault(entry.getValue(), -1L)));
+        return builder.append('}').toString();
+    }
+
+    private static void appendQuantile(StringBuilder builder, String metric, String quantile, long nanos) {
+        builder.append(metric).append("{quantile=\"").append(quantile).append("\"} ").append(seconds(nanos)).append('\n');
+    }
+
+    private static String metricName(String name) {
+        return PREFIX + name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / NANOS_PER_SECOND);
+    }
+}
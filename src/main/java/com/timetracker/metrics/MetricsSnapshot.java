@@ -0,0 +1,57 @@
+package com.timetracker.metrics;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of every metric at {@code takenAt}, with names in sorted order.
+ */
+public record MetricsSnapshot(Instant takenAt,
+                              Map<String, Long> counters,
+                              Map<String, Long> gauges,
+                              Map<String, LatencyHistogram.Snapshot> histograms) {
+
+    public MetricsSnapshot {
+        counters = Collections.unmodifiableSortedMap(new TreeMap<>(counters));
+        gauges = Collections.unmodifiableSortedMap(new TreeMap<>(gauges));
+        histograms = Collections.unmodifiableSortedMap(new TreeMap<>(histograms));
+    }
+
+    /**
+     * Single-line JSON object, used for the periodic dump file.
+     */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder(512);
+        builder.append("{\"takenAt\":\"").append(takenAt).append('"');
+        appendValues(builder, "counters", counters);
+        appendValues(builder, "gauges", gauges);
+        builder.append(",\"histograms\":{");
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : histograms.entrySet()) {
+            LatencyHistogram.Snapshot value = entry.getValue();
+            builder.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(value.count())
+                    .append(",\"sumNanos\":").append(value.sumNanos())
+                    .append(",\"maxNanos\":").append(value.maxNanos())
+                    .append(",\"p50Nanos\":").append(value.p50Nanos())
+                    .append(",\"p90Nanos\":").append(value.p90Nanos())
+                    .append(",\"p99Nanos\":").append(value.p99Nanos())
+                    .append(",\"p999Nanos\":").append(value.p999Nanos())
+                    .append('}');
+            first = false;
+        }
+        return builder.append("}}").toString();
+    }
+
+    private static void appendValues(StringBuilder builder, String field, Map<String, Long> values) {
+        builder.append(",\"").append(field).append("\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            builder.append(first ? "" : ",").append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            first = false;
+        }
+        builder.append('}');
+    }
+}
@@ -0,0 +1,26 @@
+package com.timetracker.model;
+
+import java.util.Objects;
+
+/**
+ * Assigns auto-tracked activity to a category when {@code pattern} matches {@code field}.
+ * {@code APP}, {@code TITLE} and {@code URL} match case-insensitive substrings; {@code DOMAIN}
+ * matches the domain itself and its subdomains ({@code github.com} matches
+ * {@code gist.github.com}). When several rules match, the highest priority wins, then the oldest rule.
+ */
+public record CategoryRule(int id, int categoryId, Field field, String pattern, int priority) {
+
+    public CategoryRule {
+        Objects.requireNonNull(field, "field");
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("Rule pattern cannot be empty");
+        }
+    }
+
+    public enum Field {
+        APP,
+        TITLE,
+        URL,
+        DOMAIN
+    }
+}
@@ -1,4 +1,4 @@
 package com.timetracker.model;
 
-public record CategorySummaryViewModel(String categoryName, long totalMinutes) {
+public record CategorySummaryViewModel(int categoryId, String categoryName, long totalMinutes, long sessionCount) {
 }
@@ -2,16 +2,24 @@ package com.timetracker.model;
 
 import com.timetracker.util.TimeUtils;
 
+import java.time.LocalDateTime;
+
 public class SessionViewModel {
 
     private final int id;
+    private final int categoryId;
+    private final LocalDateTime startDateTime;
     private final String startTime;
     private final String endTime;
     private final String categoryName;
     private final int durationMinutes;
+    private String displayString;
 
-    public SessionViewModel(int id, String startTime, String endTime, String categoryName, int durationMinutes) {
+    public SessionViewModel(int id, int categoryId, LocalDateTime startDateTime,
+                            String startTime, String endTime, String categoryName, int durationMinutes) {
         this.id = id;
+        this.categoryId = categoryId;
+        this.startDateTime = startDateTime;
         this.startTime = startTime;
         this.endTime = endTime;
         this.categoryName = categoryName;
@@ -22,6 +30,14 @@ public class SessionViewModel {
         return id;
     }
 
+    public int categoryId() {
+        return categoryId;
+    }
+
+    public LocalDateTime startDateTime() {
+        return startDateTime;
+    }
+
     public String startTime() {
         return startTime;
     }
@@ -39,8 +55,12 @@ public class SessionViewModel {
     }
 
     public String asDisplayString() {
-        String durationText = TimeUtils.formatDuration(durationMinutes);
-        return String.format("%s - %s %s (%s)", startTime, endTime, categoryName, durationText);
+        // Cached because list cells ask for it on every reuse while scrolling.
+        if (displayString == null) {
+            String durationText = TimeUtils.formatDuration(durationMinutes);
+            displayString = String.format("%s - %s %s (%s)", startTime, endTime, categoryName, durationText);
+        }
+        return displayString;
     }
 
     @Override
@@ -1,7 +1,11 @@
 package com.timetracker.service;
 
 import com.timetracker.dao.CategoryDao;
+import com.timetracker.dao.CategoryRuleDao;
+import com.timetracker.event.CategoryChanged;
+import com.timetracker.event.DomainEventBus;
 import com.timetracker.model.Category;
+import com.timetracker.model.CategoryRule;
 
 import java.util.List;
 import java.util.Objects;
@@ -9,13 +13,25 @@ import java.util.Objects;
 public class CategoryService {
 
     private final CategoryDao categoryDao;
+    private final CategoryRuleDao ruleDao;
+    private final DomainEventBus eventBus;
 
     public CategoryService() {
         this(new CategoryDao());
     }
 
     public CategoryService(CategoryDao categoryDao) {
+        this(categoryDao, new DomainEventBus());
+    }
+
+    public CategoryService(CategoryDao categoryDao, DomainEventBus eventBus) {
+        this(categoryDao, new CategoryRuleDao(), eventBus);
+    }
+
+    public CategoryService(CategoryDao categoryDao, CategoryRuleDao ruleDao, DomainEventBus eventBus) {
         this.categoryDao = Objects.requireNonNull(categoryDao, "categoryDao");
+        this.ruleDao = Objects.requireNonNull(ruleDao, "ruleDao");
+        this.eventBus = Objects.requireNonNull(eventBus, "eventBus");
     }
 
     public List<Category> getAllCategories() {
@@ -29,17 +45,46 @@ public class CategoryService {
         if (dailyLimitMinutes != null && dailyLimitMinutes <= 0) {
             throw new IllegalArgumentException("Daily limit must be positive");
         }
-        return categoryDao.insert(name.trim(), dailyLimitMinutes);
+        Category created = categoryDao.insert(name.trim(), dailyLimitMinutes);
+        eventBus.publish(CategoryChanged.created(created));
+        return created;
     }
 
     public Category updateCategoryLimit(int categoryId, Integer dailyLimitMinutes) {
         if (dailyLimitMinutes != null && dailyLimitMinutes <= 0) {
             throw new IllegalArgumentException("Daily limit must be positive");
         }
-        return categoryDao.updateDailyLimit(categoryId, dailyLimitMinutes);
+        Category updated = categoryDao.updateDailyLimit(categoryId, dailyLimitMinutes);
+        eventBus.publish(CategoryChanged.updated(updated));
+        return updated;
     }
 
     public void deleteCategory(int categoryId) {
         categoryDao.delete(categoryId);
+        ruleDao.deleteForCategory(categoryId);
+        eventBus.publish(CategoryChanged.deleted(categoryId));
+    }
+
+    public List<CategoryRule> getRules() {
+        return ruleDao.findAll();
+    }
+
+    /**
+     * Adds a rule assigning matching auto-tracked activity to {@code categoryId}. The aggregation
+     * picks it up on its next run.
+     */
+    public CategoryRule addRule(int categoryId, CategoryRule.Field field, String pattern, int priority) {
+        if (field == null) {
+            throw new IllegalArgumentException("Rule field is required");
+        }
+        if (pattern == null || pattern.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rule pattern cannot be empty");
+        }
+        categoryDao.findById(categoryId);
+        return ruleDao.insert(categoryId, field, pattern.trim(), priority);
+    }
+
+    public void deleteRule(int ruleId) {
+        ruleDao.delete(ruleId);
     }
 }
@@ -1,7 +1,13 @@
 package com.timetracker.service;
 
 import com.timetracker.dao.SessionDao;
+import com.timetracker.event.DomainEventBus;
+import com.timetracker.event.SessionDeleted;
+import com.timetracker.event.SessionEdited;
+import com.timetracker.event.SessionStarted;
+import com.timetracker.event.SessionStopped;
 import com.timetracker.model.Category;
+import com.timetracker.model.CategorySummaryViewModel;
 import com.timetracker.model.Session;
 import com.timetracker.model.SessionDto;
 import com.timetracker.model.SessionViewModel;
@@ -12,75 +18,104 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+/**
+ * Manual session tracking. The running session is an immutable {@link ActiveSession} snapshot
+ * held in an {@link AtomicReference}; start, stop and cancel are compare-and-set transitions on
+ * it, so readers never wait and database work never runs while holding a lock. Exactly one of
+ * several racing transitions wins and publishes its event; the others see the session already
+ * gone and do nothing.
+ */
 public class SessionService {
 
     private final SessionDao sessionDao;
-    private ActiveSession activeSession;
+    private final DomainEventBus eventBus;
+    private final AtomicReference<ActiveSession> activeSession = new AtomicReference<>();
 
     public SessionService() {
         this(new SessionDao());
     }
 
     public SessionService(SessionDao sessionDao) {
+        this(sessionDao, new DomainEventBus());
+    }
+
+    public SessionService(SessionDao sessionDao, DomainEventBus eventBus) {
         this.sessionDao = Objects.requireNonNull(sessionDao, "sessionDao");
+        this.eventBus = Objects.requireNonNull(eventBus, "eventBus");
     }
 
-    public synchronized void startSession(Category category, Long allowedSeconds) {
+    public void startSession(Category category, Long allowedSeconds) {
         if (category == null) {
             throw new IllegalArgumentException("Category must be provided to start a session");
         }
-        if (activeSession != null) {
-            throw new IllegalStateException("A session is already running");
-        }
         if (allowedSeconds != null && allowedSeconds <= 0) {
             throw new IllegalArgumentException("allowedSeconds must be positive when provided");
         }
-        activeSession = new ActiveSession(category, LocalDateTime.now(), allowedSeconds);
+        ActiveSession started = new ActiveSession(category, LocalDateTime.now(), allowedSeconds);
+        if (!activeSession.compareAndSet(null, started)) {
+            throw new IllegalStateException("A session is already running");
+        }
+        eventBus.publish(new SessionStarted(category, started.startTime(), allowedSeconds));
     }
 
-    public synchronized Optional<Session> stopSession() {
-        if (activeSession == null) {
+    /**
+     * Stops and persists the running session, clamping its end to the allowance. Returns empty if
+     * no session was running or a concurrent stop/cancel/reset claimed it first.
+     */
+    public Optional<Session> stopSession() {
+        ActiveSession stopped = activeSession.get();
+        if (stopped == null || !activeSession.compareAndSet(stopped, null)) {
             return Optional.empty();
         }
         LocalDateTime endTime = LocalDateTime.now();
-        Long allowedSeconds = activeSession.allowedSeconds();
+        Long allowedSeconds = stopped.allowedSeconds();
         if (allowedSeconds != null) {
-            LocalDateTime limitEndTime = activeSession.startTime().plusSeconds(allowedSeconds);
+            LocalDateTime limitEndTime = stopped.startTime().plusSeconds(allowedSeconds);
             if (endTime.isAfter(limitEndTime)) {
                 endTime = limitEndTime;
             }
         }
-        int durationMinutes = TimeUtils.minutesBetween(activeSession.startTime(), endTime);
+        int durationMinutes = TimeUtils.minutesBetween(stopped.startTime(), endTime);
         Session toSave = new Session(
                 0,
-                activeSession.category().getId(),
-                activeSession.startTime(),
+                stopped.category().getId(),
+                stopped.startTime(),
                 endTime,
                 durationMinutes
         );
-        Session persisted = sessionDao.insert(toSave);
-        activeSession = null;
+        Session persisted;
+        try {
+            persisted = sessionDao.insert(toSave);
+        } catch (RuntimeException e) {
+            // Hand the session back so the user can retry, unless another one has started meanwhile.
+            activeSession.compareAndSet(null, stopped);
+            throw e;
+        }
+        Category category = stopped.category();
+        eventBus.publish(new SessionStopped(category, toDto(persisted, category.getName())));
         return Optional.of(persisted);
     }
 
-    public synchronized void cancelActiveSession() {
-        activeSession = null;
+    public void cancelActiveSession() {
+        ActiveSession cancelled = activeSession.getAndSet(null);
+        if (cancelled != null) {
+            publishDiscarded(cancelled);
+        }
     }
 
-    public synchronized boolean isSessionRunning() {
-        return activeSession != null;
+    public boolean isSessionRunning() {
+        return activeSession.get() != null;
     }
 
-    public synchronized Optional<ActiveSession> getActiveSession() {
-        return Optional.ofNullable(activeSession);
+    public Optional<ActiveSession> getActiveSession() {
+        return Optional.ofNullable(activeSession.get());
     }
 
     public List<SessionViewModel> getTodaySessions() {
@@ -92,26 +127,48 @@ public class SessionService {
         return toViewModels(sessionDao.findSessionsForDateRange(startDate, endDate));
     }
 
-    public Map<String, Long> getCategorySummaryForDateRange(LocalDate startDate, LocalDate endDate) {
+    /**
+     * Loads one page of the range, ordered by start time then id. {@code after} is the last row of
+     * the previous page, or {@code null} for the first page.
+     */
+    public List<SessionViewModel> getSessionsPage(LocalDate startDate, LocalDate endDate,
+                                                  SessionViewModel after, int pageSize) {
         validateRange(startDate, endDate);
-        List<SessionDto> sessions = sessionDao.findSessionsForDateRange(startDate, endDate);
-        Map<Integer, String> categories = new LinkedHashMap<>();
-        for (SessionDto session : sessions) {
-            categories.putIfAbsent(session.getCategoryId(), session.getCategoryName());
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
         }
-        Map<String, Long> summary = new LinkedHashMap<>();
-        for (Map.Entry<Integer, String> entry : categories.entrySet()) {
-            long minutes = sessionDao.findTotalDurationMinutesForDateRange(startDate, endDate, entry.getKey());
-            summary.put(entry.getValue(), minutes);
-        }
-        return summary;
+        SessionDao.PageCursor cursor = after == null
+                ? null
+                : new SessionDao.PageCursor(after.startDateTime(), after.id());
+        return toViewModels(sessionDao.findSessionsPage(startDate, endDate, cursor, pageSize));
+    }
+
+    public long countSessionsForDateRange(LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        return sessionDao.countSessionsForDateRange(startDate, endDate);
+    }
+
+    public List<CategorySummaryViewModel> getCategorySummaryForDateRange(LocalDate startDate, LocalDate endDate) {
+        validateRange(startDate, endDate);
+        return sessionDao.findCategoryTotalsForDateRange(startDate, endDate).stream()
+                .map(total -> new CategorySummaryViewModel(
+                        total.categoryId(), total.categoryName(), total.totalMinutes(), total.sessionCount()))
+                .collect(Collectors.toList());
     }
 
     public boolean deleteSession(int sessionId) {
         if (sessionId <= 0) {
             throw new IllegalArgumentException("sessionId must be positive");
         }
-        return sessionDao.deleteById(sessionId);
+        Optional<SessionDto> existing = sessionDao.findById(sessionId);
+        if (existing.isEmpty()) {
+            return false;
+        }
+        boolean deleted = sessionDao.deleteById(sessionId);
+        if (deleted) {
+            eventBus.publish(new SessionDeleted(existing.get()));
+        }
+        return deleted;
     }
 
     public Optional<SessionDto> findSessionById(int sessionId) {
@@ -121,17 +178,17 @@ public class SessionService {
         return sessionDao.findById(sessionId);
     }
 
-    public synchronized OptionalLong getRemainingSecondsForCategoryToday(Category category) {
+    public OptionalLong getRemainingSecondsForCategoryToday(Category category) {
         Objects.requireNonNull(category, "category");
+        ActiveSession running = activeSession.get();
         LocalDate today = LocalDate.now();
         SessionDao.UsageAdjustment adjustment = sessionDao.findUsageAdjustment(today, category.getId());
         long offsetSeconds = adjustment.offsetSeconds();
         Long overrideLimitSeconds = adjustment.overrideLimitSeconds();
         long totalSeconds = sessionDao.findTotalDurationSecondsForDateAndCategory(today, category.getId());
         long usedSeconds = Math.max(0, totalSeconds - offsetSeconds);
-        if (activeSession != null && activeSession.category().getId() == category.getId()) {
-            long elapsedSeconds = Duration.between(activeSession.startTime(), LocalDateTime.now()).getSeconds();
-            usedSeconds += Math.max(0, elapsedSeconds);
+        if (running != null && running.category().getId() == category.getId()) {
+            usedSeconds += running.elapsedSeconds(LocalDateTime.now());
         }
         if (overrideLimitSeconds != null) {
             if (overrideLimitSeconds < 0) {
@@ -149,24 +206,36 @@ public class SessionService {
         return OptionalLong.of(remaining);
     }
 
-    public synchronized void resetUsageForToday(Category category) {
+    public void resetUsageForToday(Category category) {
         Objects.requireNonNull(category, "category");
         if (category.getDailyLimitMinutes() == null) {
             throw new IllegalStateException("Category has no daily limit to reset");
         }
+        // Claim a running session for this category first so a racing stop cannot persist it
+        // after its time has already been folded into the adjustment.
+        ActiveSession discarded = claimActiveSession(category.getId());
         LocalDate today = LocalDate.now();
-        long totalSeconds = sessionDao.findTotalDurationSecondsForDateAndCategory(today, category.getId());
-        if (activeSession != null && activeSession.category().getId() == category.getId()) {
-            long elapsedSeconds = Duration.between(activeSession.startTime(), LocalDateTime.now()).getSeconds();
-            totalSeconds += Math.max(0, elapsedSeconds);
-            activeSession = null;
+        try {
+            long totalSeconds = sessionDao.findTotalDurationSecondsForDateAndCategory(today, category.getId());
+            if (discarded != null) {
+                totalSeconds += discarded.elapsedSeconds(LocalDateTime.now());
+            }
+            sessionDao.saveUsageAdjustment(today, category.getId(), totalSeconds, null);
+        } catch (RuntimeException e) {
+            if (discarded != null) {
+                activeSession.compareAndSet(null, discarded);
+            }
+            throw e;
+        }
+        if (discarded != null) {
+            publishDiscarded(discarded);
         }
-        sessionDao.saveUsageAdjustment(today, category.getId(), totalSeconds, null);
     }
 
-    public synchronized void setRemainingSecondsForToday(Category category, Long remainingSeconds) {
+    public void setRemainingSecondsForToday(Category category, Long remainingSeconds) {
         Objects.requireNonNull(category, "category");
-        if (activeSession != null && activeSession.category().getId() == category.getId()) {
+        ActiveSession running = activeSession.get();
+        if (running != null && running.category().getId() == category.getId()) {
             throw new IllegalStateException("Stop the active session before adjusting today's remaining time.");
         }
 
@@ -190,9 +259,10 @@ public class SessionService {
         sessionDao.saveUsageAdjustment(today, category.getId(), normalizedOffset, newLimit);
     }
 
-    public synchronized void deleteSessionsForCategory(int categoryId) {
-        if (activeSession != null && activeSession.category().getId() == categoryId) {
-            activeSession = null;
+    public void deleteSessionsForCategory(int categoryId) {
+        ActiveSession discarded = claimActiveSession(categoryId);
+        if (discarded != null) {
+            publishDiscarded(discarded);
         }
         sessionDao.deleteByCategory(categoryId);
         sessionDao.deleteUsageResetsForCategory(categoryId);
@@ -210,8 +280,10 @@ public class SessionService {
         SessionDto existing = sessionDao.findById(sessionId)
                 .orElseThrow(() -> new IllegalArgumentException("Session not found: " + sessionId));
         int durationMinutes = TimeUtils.minutesBetween(startTime, endTime);
-        Session updated = new Session(existing.getId(), existing.getCategoryId(), startTime, endTime, durationMinutes);
-        return sessionDao.update(updated);
+        Session updated = sessionDao.update(
+                new Session(existing.getId(), existing.getCategoryId(), startTime, endTime, durationMinutes));
+        eventBus.publish(new SessionEdited(existing, toDto(updated, existing.getCategoryName())));
+        return updated;
     }
 
     public String generateIcsForDateRange(LocalDate startDate, LocalDate endDate) {
@@ -293,17 +365,51 @@ public class SessionService {
         }
     }
 
+    /**
+     * Atomically takes the running session if it belongs to {@code categoryId}.
+     */
+    private ActiveSession claimActiveSession(int categoryId) {
+        while (true) {
+            ActiveSession current = activeSession.get();
+            if (current == null || current.category().getId() != categoryId) {
+                return null;
+            }
+            if (activeSession.compareAndSet(current, null)) {
+                return current;
+            }
+        }
+    }
+
+    private void publishDiscarded(ActiveSession discarded) {
+        eventBus.publish(new SessionStopped(discarded.category(), null));
+    }
+
+    public SessionViewModel toViewModel(SessionDto dto) {
+        return new SessionViewModel(
+                dto.getId(),
+                dto.getCategoryId(),
+                dto.getStartTime(),
+                TimeUtils.formatHHmm(dto.getStartTime()),
+                TimeUtils.formatHHmm(dto.getEndTime()),
+                dto.getCategoryName(),
+                dto.getDurationMinutes());
+    }
+
     private List<SessionViewModel> toViewModels(List<SessionDto> sessions) {
         return sessions.stream()
-                .map(dto -> new SessionViewModel(
-                        dto.getId(),
-                        TimeUtils.formatHHmm(dto.getStartTime()),
-                        TimeUtils.formatHHmm(dto.getEndTime()),
-                        dto.getCategoryName(),
-                        dto.getDurationMinutes()))
+                .map(this::toViewModel)
                 .collect(Collectors.toList());
     }
 
+    private static SessionDto toDto(Session session, String categoryName) {
+        return new SessionDto(session.getId(), session.getCategoryId(), categoryName,
+                session.getStartTime(), session.getEndTime(), session.getDurationMinutes());
+    }
+
     public record ActiveSession(Category category, LocalDateTime startTime, Long allowedSeconds) {
+
+        long elapsedSeconds(LocalDateTime now) {
+            return Math.max(0, Duration.between(startTime, now).getSeconds());
+        }
     }
 }
@@ -0,0 +1,400 @@
+package com.timetracker.tools;
+
+import com.timetracker.dao.CategoryDao;
+import com.timetracker.dao.SessionDao;
+import com.timetracker.db.DatabaseInitializer;
+import com.timetracker.db.DatabaseManager;
+import com.timetracker.model.Category;
+import com.timetracker.model.Session;
+import com.timetracker.tracking.ActivityAggregator;
+import com.timetracker.tracking.ActivityDailyTotal;
+import com.timetracker.tracking.ActivityEvent;
+import com.timetracker.tracking.ActivityEventDao;
+import com.timetracker.tracking.ActivityEventType;
+import com.timetracker.tracking.ActivitySession;
+import com.timetracker.tracking.ActivitySessionDao;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds realistic tracker databases for benchmarks and load tests: categories, manual sessions,
+ * FOCUS/URL_CHANGE/IDLE event streams and the aggregated activity sessions and daily totals,
+ * written through the regular DAOs. Every day is generated from its own random stream derived
+ * from the seed, so output is identical for the same {@link Spec} regardless of how many days
+ * are generated or in which order they are read.
+ * <p>
+ * Run against a fresh file, e.g.
+ * {@code java -cp <classpath> com.timetracker.tools.WorkloadGenerator --db=/tmp/load.db --days=120 --poll-seconds=1}.
+ */
+public final class WorkloadGenerator {
+
+    private static final String[] CATEGORY_NAMES = {
+            "Work", "Study", "Reading", "Exercise", "Side Project", "Email", "Meetings", "Music",
+            "Language", "Writing", "Games", "Chores"
+    };
+
+    /**
+     * App id, relative popularity, mean dwell seconds, and the sites a browser cycles through.
+     */
+    private record App(String appId, double weight, int meanDwellSeconds, String[] sites) {
+        boolean browser() {
+            return sites.length > 0;
+        }
+    }
+
+    private static final App[] APPS = {
+            new App("jetbrains-idea", 30, 240, new String[0]),
+            new App("firefox", 24, 90, new String[]{
+                    "https://github.com/Blitz00X/TimeTracker/pulls",
+                    "https://news.ycombinator.com/",
+                    "https://stackoverflow.com/questions/tagged/java",
+                    "https://en.wikipedia.org/wiki/SQLite"}),
+            new App("google-chrome", 18, 75, new String[]{
+                    "https://mail.google.com/mail/u/0/",
+                    "https://www.youtube.com/watch",
+                    "https://docs.oracle.com/en/java/javase/21/docs/api/index.html",
+                    "https://calendar.google.com/calendar/r"}),
+            new App("gnome-terminal", 12, 45, new String[0]),
+            new App("code", 8, 180, new String[0]),
+            new App("slack", 6, 30, new String[0]),
+            new App("thunderbird", 3, 40, new String[0]),
+            new App("spotify", 2, 15, new String[0]),
+            new App("org.gnome.Nautilus", 2, 20, new String[0]),
+            new App("libreoffice-writer", 1, 300, new String[0]),
+    };
+
+    public record Spec(long seed,
+                       LocalDate lastDay,
+                       int days,
+                       int pollSeconds,
+                       int activeHoursPerDay,
+                       int categories,
+                       int sessionsPerDay,
+                       boolean activitySessions,
+                       ZoneId zone) {
+
+        public Spec {
+            Objects.requireNonNull(lastDay, "lastDay");
+            Objects.requireNonNull(zone, "zone");
+            if (days <= 0) {
+                throw new IllegalArgumentException("days must be positive");
+            }
+            if (pollSeconds <= 0) {
+                throw new IllegalArgumentException("pollSeconds must be positive");
+            }
+            if (activeHoursPerDay <= 0 || activeHoursPerDay > 24) {
+                throw new IllegalArgumentException("activeHoursPerDay must be between 1 and 24");
+            }
+            if (categories <= 0 || categories > CATEGORY_NAMES.length) {
+                throw new IllegalArgumentException("categories must be between 1 and " + CATEGORY_NAMES.length);
+            }
+            if (sessionsPerDay < 0) {
+                throw new IllegalArgumentException("sessionsPerDay must not be negative");
+            }
+        }
+
+        public static Spec defaults() {
+            return new Spec(42L, LocalDate.now().minusDays(1), 30, 10, 9, 4, 6, false, ZoneId.systemDefault());
+        }
+
+        public LocalDate firstDay() {
+            return lastDay.minusDays(days - 1L);
+        }
+
+        public Spec withSeed(long value) {
+            return new Spec(value, lastDay, days, pollSeconds, activeHoursPerDay, categories, sessionsPerDay, activitySessions, zone);
+        }
+
+        public Spec withLastDay(LocalDate value) {
+            return new Spec(seed, value, days, pollSeconds, activeHoursPerDay, categories, sessionsPerDay, activitySessions, zone);
+        }
+
+        public Spec withDays(int value) {
+            return new Spec(seed, lastDay, value, pollSeconds, activeHoursPerDay, categories, sessionsPerDay, activitySessions, zone);
+        }
+
+        public Spec withPollSeconds(int value) {
+            return new Spec(seed, lastDay, days, value, activeHoursPerDay, categories, sessionsPerDay, activitySessions, zone);
+        }
+
+        public Spec withActiveHoursPerDay(int value) {
+            return new Spec(seed, lastDay, days, pollSeconds, value, categories, sessionsPerDay, activitySessions, zone);
+        }
+
+        public Spec withCategories(int value) {
+            return new Spec(seed, lastDay, days, pollSeconds, activeHoursPerDay, value, sessionsPerDay, activitySessions, zone);
+        }
+
+        public Spec withSessionsPerDay(int value) {
+            return new Spec(seed, lastDay, days, pollSeconds, activeHoursPerDay, categories, value, activitySessions, zone);
+        }
+
+        /**
+         * Also persist the aggregated {@code activity_sessions} rows, roughly one per poll.
+         */
+        public Spec withActivitySessions(boolean value) {
+            return new Spec(seed, lastDay, days, pollSeconds, activeHoursPerDay, categories, sessionsPerDay, value, zone);
+        }
+    }
+
+    public record Result(int categories, long sessions, long events, long activitySessions, long dailyTotals,
+                         Duration elapsed) {
+    }
+
+    private final Spec spec;
+    private final CategoryDao categoryDao;
+    private final SessionDao sessionDao;
+    private final ActivityEventDao eventDao;
+    private final ActivitySessionDao activitySessionDao;
+    private final ActivityAggregator aggregator;
+    private final double totalWeight;
+
+    public WorkloadGenerator(Spec spec) {
+        this(spec, new CategoryDao(), new SessionDao(), new ActivityEventDao(), new ActivitySessionDao(),
+                new ActivityAggregator());
+    }
+
+    public WorkloadGenerator(Spec spec,
+                             CategoryDao categoryDao,
+                             SessionDao sessionDao,
+                             ActivityEventDao eventDao,
+                             ActivitySessionDao activitySessionDao,
+                             ActivityAggregator aggregator) {
+        this.spec = Objects.requireNonNull(spec, "spec");
+        this.categoryDao = Objects.requireNonNull(categoryDao, "categoryDao");
+        this.sessionDao = Objects.requireNonNull(sessionDao, "sessionDao");
+        this.eventDao = Objects.requireNonNull(eventDao, "eventDao");
+        this.activitySessionDao = Objects.requireNonNull(activitySessionDao, "activitySessionDao");
+        this.aggregator = Objects.requireNonNull(aggregator, "aggregator");
+        double weight = 0;
+        for (App app : APPS) {
+            weight += app.weight();
+        }
+        this.totalWeight = weight;
+    }
+
+    /**
+     * Creates the schema and writes the whole workload into the database {@link DatabaseManager}
+     * currently points at. Intended for an empty file; existing rows are left in place. Days are
+     * generated and aggregated in parallel and written in order on the calling thread.
+     */
+    public Result generate() {
+        long started = System.nanoTime();
+        DatabaseInitializer.initialize();
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < spec.categories(); i++) {
+            Integer limit = i % 3 == 1 ? 60 + 30 * (i % 4) : null;
+            categories.add(categoryDao.insert(CATEGORY_NAMES[i], limit));
+        }
+        DatabaseInitializer.dropActivityEventIndexes();
+        int workers = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "workload-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sessions = 0;
+        long activitySessions = 0;
+        long dailyTotals = 0;
+        long events;
+        try (ActivityEventDao.BulkWriter writer = eventDao.openBulkWriter()) {
+            Deque<Future<DayBatch>> inFlight = new ArrayDeque<>();
+            LocalDate next = spec.firstDay();
+            while (next != null || !inFlight.isEmpty()) {
+                while (next != null && inFlight.size() < workers * 2) {
+                    LocalDate day = next;
+                    inFlight.add(executor.submit(() -> buildDay(day, categories)));
+                    next = day.isBefore(spec.lastDay()) ? day.plusDays(1) : null;
+                }
+                DayBatch batch = await(inFlight.poll());
+                for (ActivityEvent event : batch.events()) {
+                    writer.add(event);
+                }
+                // Commit before the other DAOs open their own connections to write.
+                writer.commit();
+                sessionDao.insertAll(batch.sessions());
+                if (spec.activitySessions()) {
+                    activitySessionDao.insertSessions(batch.activitySessions());
+                    activitySessions += batch.activitySessions().size();
+                }
+                activitySessionDao.upsertDailyTotals(batch.totals());
+                sessions += batch.sessions().size();
+                dailyTotals += batch.totals().size();
+            }
+            events = writer.written();
+        } finally {
+            executor.shutdownNow();
+        }
+        DatabaseInitializer.createActivityEventIndexes();
+        return new Result(categories.size(), sessions, events, activitySessions, dailyTotals,
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private DayBatch buildDay(LocalDate day, List<Category> categories) {
+        List<ActivityEvent> events = eventsForDay(day);
+        Instant dayEnd = day.plusDays(1).atStartOfDay(spec.zone()).toInstant();
+        List<ActivitySession> built = aggregator.buildSessions(events, dayEnd);
+        return new DayBatch(sessionsForDay(day, categories), events, built, aggregator.summarize(built));
+    }
+
+    private static DayBatch await(Future<DayBatch> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating workload", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to generate workload day", e.getCause());
+        }
+    }
+
+    private record DayBatch(List<Session> sessions,
+                            List<ActivityEvent> events,
+                            List<ActivitySession> activitySessions,
+                            List<ActivityDailyTotal> totals) {
+    }
+
+    /**
+     * The event stream for one day: a poll every {@code pollSeconds} during the active window,
+     * switching apps after exponentially distributed dwell times (popularity-weighted, with a bias
+     * towards alt-tabbing back to the previous app), URL changes inside browsers, and idle breaks.
+     */
+    public List<ActivityEvent> eventsForDay(LocalDate day) {
+        SplittableRandom random = randomFor(day, 1);
+        int activeSeconds = spec.activeHoursPerDay() * 3600;
+        int startSecond = spec.activeHoursPerDay() == 24
+                ? 0
+                : Math.min(8 * 3600 + random.nextInt(3600), 86_400 - activeSeconds);
+        Instant dayStart = day.atStartOfDay(spec.zone()).toInstant();
+        List<ActivityEvent> events = new ArrayList<>(activeSeconds / spec.pollSeconds() + 16);
+
+        int current = pickApp(random);
+        int previous = current;
+        int site = 0;
+        int dwell = dwellSeconds(random, APPS[current]);
+        int second = 0;
+        while (second < activeSeconds) {
+            Instant ts = dayStart.plusSeconds(startSecond + second);
+            if (dwell <= 0) {
+                if (random.nextDouble() < 0.02) {
+                    int idle = 60 + (int) exponential(random, 600);
+                    events.add(new ActivityEvent(ts, ActivityEventType.IDLE_ON, null, null, null, null));
+                    second += idle;
+                    if (second < activeSeconds) {
+                        events.add(new ActivityEvent(dayStart.plusSeconds(startSecond + second),
+                                ActivityEventType.IDLE_OFF, null, null, null, null));
+                    }
+                    dwell = dwellSeconds(random, APPS[current]);
+                    continue;
+                }
+                int next = random.nextDouble() < 0.35 ? previous : pickApp(random);
+                previous = current;
+                current = next;
+                site = APPS[current].browser() ? random.nextInt(APPS[current].sites().length) : 0;
+                dwell = dwellSeconds(random, APPS[current]);
+            }
+            App app = APPS[current];
+            ActivityEventType type = ActivityEventType.FOCUS;
+            if (app.browser() && random.nextDouble() < 0.01) {
+                site = random.nextInt(app.sites().length);
+                type = ActivityEventType.URL_CHANGE;
+            }
+            String url = app.browser() ? app.sites()[site] : null;
+            String title = app.browser() ? url + " - " + app.appId() : app.appId() + " window";
+            events.add(new ActivityEvent(ts, type, app.appId(), title, url, null));
+            second += spec.pollSeconds();
+            dwell -= spec.pollSeconds();
+        }
+        return events;
+    }
+
+    /**
+     * Non-overlapping manual sessions spread over the day's active window.
+     */
+    public List<Session> sessionsForDay(LocalDate day, List<Category> categories) {
+        SplittableRandom random = randomFor(day, 2);
+        List<Session> sessions = new ArrayList<>(spec.sessionsPerDay());
+        LocalDateTime cursor = day.atTime(8, 0).plusMinutes(random.nextInt(60));
+        LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+        for (int i = 0; i < spec.sessionsPerDay(); i++) {
+            int minutes = 10 + (int) exponential(random, 40);
+            LocalDateTime end = cursor.plusMinutes(minutes);
+            if (!end.isBefore(dayEnd)) {
+                break;
+            }
+            Category category = categories.get(random.nextInt(categories.size()));
+            sessions.add(new Session(0, category.getId(), cursor, end, minutes));
+            cursor = end.plusMinutes(random.nextInt(45));
+        }
+        return sessions;
+    }
+
+    private SplittableRandom randomFor(LocalDate day, int stream) {
+        return new SplittableRandom(spec.seed() * 1_000_003L + day.toEpochDay() * 31L + stream);
+    }
+
+    private int pickApp(SplittableRandom random) {
+        double roll = random.nextDouble() * totalWeight;
+        for (int i = 0; i < APPS.length; i++) {
+            roll -= APPS[i].weight();
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return APPS.length - 1;
+    }
+
+    private static int dwellSeconds(SplittableRandom random, App app) {
+        return 1 + (int) exponential(random, app.meanDwellSeconds());
+    }
+
+    private static double exponential(SplittableRandom random, double mean) {
+        return -mean * Math.log(1 - random.nextDouble());
+    }
+
+    public static void main(String[] args) {
+        Spec spec = Spec.defaults();
+        String db = null;
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            if (parts.length != 2 || !parts[0].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            String value = parts[1];
+            switch (parts[0]) {
+                case "--db" -> db = value;
+                case "--seed" -> spec = spec.withSeed(Long.parseLong(value));
+                case "--last-day" -> spec = spec.withLastDay(LocalDate.parse(value));
+                case "--days" -> spec = spec.withDays(Integer.parseInt(value));
+                case "--poll-seconds" -> spec = spec.withPollSeconds(Integer.parseInt(value));
+                case "--active-hours" -> spec = spec.withActiveHoursPerDay(Integer.parseInt(value));
+                case "--categories" -> spec = spec.withCategories(Integer.parseInt(value));
+                case "--sessions-per-day" -> spec = spec.withSessionsPerDay(Integer.parseInt(value));
+                case "--activity-sessions" -> spec = spec.withActivitySessions(Boolean.parseBoolean(value));
+                default -> throw new IllegalArgumentException("Unknown option: " + parts[0]);
+            }
+        }
+        if (db == null) {
+            throw new IllegalArgumentException("--db=<file> is required");
+        }
+        System.setProperty(DatabaseManager.DATABASE_PATH_PROPERTY, db);
+        Result result = new WorkloadGenerator(spec).generate();
+        System.out.printf("Wrote %d events, %d sessions, %d activity sessions and %d daily totals for %d categories in %d ms%n",
+                result.events(), result.sessions(), result.activitySessions(), result.dailyTotals(),
+                result.categories(), result.elapsed().toMillis());
+    }
+}
@@ -1,33 +1,168 @@
 package com.timetracker.tracking;
 
+import com.timetracker.diagnostics.AggregationEvent;
+import com.timetracker.event.AggregationCompleted;
+import com.timetracker.event.DomainEventBus;
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
+
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 public class ActivityAggregationJob {
 
+    private static final LatencyHistogram AGGREGATE_LATENCY = MetricsRegistry.global().histogram("aggregation.latency");
+    private static final Counter RUNS = MetricsRegistry.global().counter("aggregation.runs");
+    private static final Counter FAILURES = MetricsRegistry.global().counter("aggregation.failures");
+    private static final Counter EVENTS_READ = MetricsRegistry.global().counter("aggregation.events_read");
+    private static final Counter EVENTS_INSERTED = MetricsRegistry.global().counter("db.activity_events.inserted");
+
     private final ActivityEventDao eventDao;
     private final ActivitySessionDao sessionDao;
     private final ActivityAggregator aggregator;
+    private final ActivityCategorizer categorizer;
+    private final MinuteIndex minuteIndex;
+    private final DomainEventBus eventBus;
+    private final AtomicLong persistedUntilMillis = new AtomicLong();
+    private final AtomicLong insertedAtLastPersist = new AtomicLong();
 
     public ActivityAggregationJob(ActivityEventDao eventDao,
                                   ActivitySessionDao sessionDao,
                                   ActivityAggregator aggregator) {
+        this(eventDao, sessionDao, aggregator, new DomainEventBus());
+    }
+
+    public ActivityAggregationJob(ActivityEventDao eventDao,
+                                  ActivitySessionDao sessionDao,
+                                  ActivityAggregator aggregator,
+                                  DomainEventBus eventBus) {
+        this(eventDao, sessionDao, aggregator, null, eventBus);
+    }
+
+    /**
+     * @param categorizer assigns auto sessions to categories; null skips the category totals
+     */
+    public ActivityAggregationJob(ActivityEventDao eventDao,
+                                  ActivitySessionDao sessionDao,
+                                  ActivityAggregator aggregator,
+                                  ActivityCategorizer categorizer,
+                                  DomainEventBus eventBus) {
+        this(eventDao, sessionDao, aggregator, categorizer, null, eventBus);
+    }
+
+    /**
+     * @param categorizer assigns auto sessions to categories; null skips the category totals
+     * @param minuteIndex asked to {@linkplain MinuteIndex#scheduleRefresh refresh} after each
+     *                    persisted run; null if there is none
+     */
+    public ActivityAggregationJob(ActivityEventDao eventDao,
+                                  ActivitySessionDao sessionDao,
+                                  ActivityAggregator aggregator,
+                                  ActivityCategorizer categorizer,
+                                  MinuteIndex minuteIndex,
+                                  DomainEventBus eventBus) {
+        this.categorizer = categorizer;
+        this.minuteIndex = minuteIndex;
         this.eventDao = Objects.requireNonNull(eventDao, "eventDao");
         this.sessionDao = Objects.requireNonNull(sessionDao, "sessionDao");
         this.aggregator = Objects.requireNonNull(aggregator, "aggregator");
+        this.eventBus = Objects.requireNonNull(eventBus, "eventBus");
+    }
+
+    /**
+     * Registers {@code aggregation.pending_events} (captured events not yet folded into persisted
+     * totals) and {@code aggregation.lag_ms} for this job. Called once by the owner of the
+     * pipeline, so other jobs (e.g. in tests) cannot take the gauges over.
+     *
+     * @param unstoredEvents captured events still queued ahead of SQLite, such as
+     *                       {@link IngestJournal#pendingRecords}; they count as pending too
+     */
+    public void registerGauges(MetricsRegistry metrics, LongSupplier unstoredEvents) {
+        Objects.requireNonNull(unstoredEvents, "unstoredEvents");
+        metrics.gauge("aggregation.pending_events", () -> pendingEvents() + unstoredEvents.getAsLong());
+        metrics.gauge("aggregation.lag_ms", this::lagMillis);
+    }
+
+    /**
+     * Events inserted into SQLite since the start of the last persisted run; events still in a
+     * journal are not included.
+     */
+    public long pendingEvents() {
+        return EVENTS_INSERTED.value() - insertedAtLastPersist.get();
+    }
+
+    /**
+     * How far the persisted totals trail the wall clock, or -1 before the first persisted run.
+     */
+    public long lagMillis() {
+        long until = persistedUntilMillis.get();
+        return until == 0 ? -1 : Math.max(0, System.currentTimeMillis() - until);
     }
 
     public ActivityAggregationResult aggregate(Instant fromInclusive, Instant toExclusive, boolean persist) {
-        List<ActivityEvent> events = eventDao.findBetween(fromInclusive, toExclusive);
-        List<ActivitySession> sessions = aggregator.buildSessions(events, toExclusive);
-        List<ActivityDailyTotal> totals = aggregator.summarize(sessions);
+        AggregationEvent jfrEvent = new AggregationEvent();
+        jfrEvent.begin();
+        long start = System.nanoTime();
+        long startedAtMillis = System.currentTimeMillis();
+        long insertedBefore = EVENTS_INSERTED.value();
+        List<ActivityEvent> events;
+        List<ActivitySession> sessions;
+        List<ActivityDailyTotal> totals;
+        List<ActivityCategoryTotal> categoryTotals = List.of();
+        try {
+            events = eventDao.findBetween(fromInclusive, toExclusive);
+            sessions = aggregator.buildSessions(events, toExclusive);
+            totals = aggregator.summarize(sessions);
+            if (categorizer != null) {
+                categorizer.refresh();
+                categoryTotals = categorizer.summarize(sessions);
+            }
 
+            if (persist) {
+                sessionDao.insertSessions(sessions);
+                sessionDao.upsertDailyTotals(totals);
+                sessionDao.replaceRollups(fromInclusive, toExclusive, sessions);
+                if (minuteIndex != null) {
+                    minuteIndex.scheduleRefresh(LocalDate.ofInstant(fromInclusive, ZoneOffset.UTC), sessionDao);
+                }
+                if (categorizer != null) {
+                    ZoneId zone = ZoneId.systemDefault();
+                    sessionDao.replaceCategoryTotals(LocalDate.ofInstant(fromInclusive, zone),
+                            LocalDate.ofInstant(toExclusive.minusNanos(1), zone), categoryTotals);
+                }
+            }
+        } catch (RuntimeException e) {
+            FAILURES.increment();
+            throw e;
+        } finally {
+            AGGREGATE_LATENCY.recordSince(start);
+        }
+        RUNS.increment();
+        EVENTS_READ.add(events.size());
         if (persist) {
-            sessionDao.insertSessions(sessions);
-            sessionDao.upsertDailyTotals(totals);
+            // Windows reaching into the future (the UI aggregates whole days) are only current up to now.
+            persistedUntilMillis.accumulateAndGet(Math.min(toExclusive.toEpochMilli(), startedAtMillis), Math::max);
+            insertedAtLastPersist.accumulateAndGet(insertedBefore, Math::max);
+        }
+        jfrEvent.end();
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.fromInclusive = fromInclusive.toEpochMilli();
+            jfrEvent.toExclusive = toExclusive.toEpochMilli();
+            jfrEvent.eventsRead = events.size();
+            jfrEvent.sessionsBuilt = sessions.size();
+            jfrEvent.dailyTotals = totals.size();
+            jfrEvent.persisted = persist;
+            jfrEvent.commit();
         }
+        eventBus.publish(new AggregationCompleted(fromInclusive, toExclusive, persist, totals));
 
-        return new ActivityAggregationResult(events, sessions, totals);
+        return new ActivityAggregationResult(events, sessions, totals, categoryTotals);
     }
 }
@@ -4,5 +4,6 @@ import java.util.List;
 
 public record ActivityAggregationResult(List<ActivityEvent> events,
                                         List<ActivitySession> sessions,
-                                        List<ActivityDailyTotal> dailyTotals) {
+                                        List<ActivityDailyTotal> dailyTotals,
+                                        List<ActivityCategoryTotal> categoryTotals) {
 }
@@ -39,7 +39,7 @@ public class ActivityAggregator {
                         current = closeCurrent(current, ts, sessions);
                     }
                 }
-                case IDLE_ON, LOCK -> current = closeCurrent(current, ts, sessions);
+                case IDLE_ON, LOCK, PRIVATE -> current = closeCurrent(current, ts, sessions);
                 case IDLE_OFF, UNLOCK -> {
                     // wait for the next focus/manual event
                 }
@@ -0,0 +1,107 @@
+package com.timetracker.tracking;
+
+import com.timetracker.dao.CategoryRuleDao;
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.MetricsRegistry;
+import com.timetracker.model.CategoryRule;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Assigns auto-tracked sessions to categories with a compiled {@link CategoryRuleMatcher}.
+ * Results are memoized per distinct (app, url, title), so a day of polls classifies each distinct
+ * window once and later aggregation runs only classify what is new. {@link #refresh()} re-reads
+ * the rules, which is cheap enough to do per run and also picks up edits made by another process;
+ * the matcher is recompiled and the memo dropped only when the rules actually changed.
+ */
+public class ActivityCategorizer {
+
+    static final int MEMO_CAPACITY = 4096;
+
+    private static final Counter MEMO_HITS = MetricsRegistry.global().counter("rules.memo_hits");
+    private static final Counter MEMO_MISSES = MetricsRegistry.global().counter("rules.memo_misses");
+    private static final Counter RECOMPILES = MetricsRegistry.global().counter("rules.recompiles");
+
+    private final Supplier<List<CategoryRule>> ruleSource;
+    private final Map<Key, Integer> memo = new LinkedHashMap<>(MEMO_CAPACITY * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+            return size() > MEMO_CAPACITY;
+        }
+    };
+    private List<CategoryRule> rules = List.of();
+    private CategoryRuleMatcher matcher = CategoryRuleMatcher.compile(List.of());
+
+    public ActivityCategorizer(CategoryRuleDao ruleDao) {
+        this(Objects.requireNonNull(ruleDao, "ruleDao")::findAll);
+    }
+
+    ActivityCategorizer(Supplier<List<CategoryRule>> ruleSource) {
+        this.ruleSource = Objects.requireNonNull(ruleSource, "ruleSource");
+    }
+
+    public synchronized void refresh() {
+        List<CategoryRule> latest = List.copyOf(ruleSource.get());
+        if (!latest.equals(rules)) {
+            rules = latest;
+            matcher = CategoryRuleMatcher.compile(latest);
+            memo.clear();
+            RECOMPILES.increment();
+        }
+    }
+
+    /**
+     * The category for this activity, or {@link CategoryRuleMatcher#NO_CATEGORY}.
+     */
+    public synchronized int categorize(String appId, String url, String windowTitle) {
+        Key key = new Key(appId, url, windowTitle);
+        Integer cached = memo.get(key);
+        if (cached != null) {
+            MEMO_HITS.increment();
+            return cached;
+        }
+        MEMO_MISSES.increment();
+        int category = matcher.match(appId, url, windowTitle);
+        memo.put(key, category);
+        return category;
+    }
+
+    /**
+     * Sums non-idle auto sessions per day (of their start, like the daily totals) and category;
+     * sessions no rule matches are left out.
+     */
+    public List<ActivityCategoryTotal> summarize(List<ActivitySession> sessions) {
+        Map<DayCategory, Long> totals = new LinkedHashMap<>();
+        for (ActivitySession session : sessions) {
+            if (session.idle() || session.source() != ActivitySessionSource.AUTO) {
+                continue;
+            }
+            int category = categorize(session.appId(), session.url(), session.windowTitle());
+            if (category == CategoryRuleMatcher.NO_CATEGORY) {
+                continue;
+            }
+            LocalDate date = LocalDate.ofInstant(session.start(), ZoneId.systemDefault());
+            totals.merge(new DayCategory(date, category), session.durationSeconds(), Long::sum);
+        }
+        List<ActivityCategoryTotal> result = new ArrayList<>(totals.size());
+        totals.forEach((key, seconds) -> result.add(new ActivityCategoryTotal(key.date, key.categoryId, seconds)));
+        return result;
+    }
+
+    synchronized int memoSize() {
+        return memo.size();
+    }
+
+    private record Key(String appId, String url, String windowTitle) {
+    }
+
+    private record DayCategory(LocalDate date, int categoryId) {
+    }
+}
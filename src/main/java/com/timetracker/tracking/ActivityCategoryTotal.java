@@ -0,0 +1,15 @@
+package com.timetracker.tracking;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Auto-tracked seconds on {@code date} assigned to a category by its rules.
+ */
+public record ActivityCategoryTotal(LocalDate date, int categoryId, long totalSeconds) {
+
+    public ActivityCategoryTotal {
+        Objects.requireNonNull(date, "date");
+        totalSeconds = Math.max(0, totalSeconds);
+    }
+}
@@ -1,40 +1,183 @@
 package com.timetracker.tracking;
 
 import com.timetracker.db.DatabaseManager;
+import com.timetracker.diagnostics.ActivityInsertEvent;
+import com.timetracker.diagnostics.DaoQueryEvent;
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-public class ActivityEventDao {
+public class ActivityEventDao implements ActivityEventSink {
 
     private static final DateTimeFormatter ISO_INSTANT = DateTimeFormatter.ISO_INSTANT.withLocale(Locale.ROOT);
+    private static final LatencyHistogram INSERT_LATENCY = MetricsRegistry.global().histogram("db.activity_events.insert");
+    private static final LatencyHistogram FIND_BETWEEN_LATENCY =
+            MetricsRegistry.global().histogram("db.activity_events.find_between");
+    private static final Counter INSERTED = MetricsRegistry.global().counter("db.activity_events.inserted");
+    private static final Counter INSERT_FAILURES = MetricsRegistry.global().counter("db.activity_events.insert_failures");
+
+    private static final String INSERT_SQL = """
+            INSERT INTO activity_events (ts, event_type, app_id, window_title, url, payload_json)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPSERT_CHECKPOINT_SQL = """
+            INSERT INTO ingest_checkpoints (journal, segment, slot) VALUES (?, ?, ?)
+            ON CONFLICT (journal) DO UPDATE SET segment = excluded.segment, slot = excluded.slot
+            """;
+
+    @Override
+    public void append(Instant timestamp,
+                       ActivityEventType type,
+                       String appId,
+                       String windowTitle,
+                       String url,
+                       String payloadJson) {
+        insert(new ActivityEvent(timestamp, type, appId, windowTitle, url, payloadJson));
+    }
 
     public void insert(ActivityEvent event) {
-        String sql = """
-                INSERT INTO activity_events (ts, event_type, app_id, window_title, url, payload_json)
-                VALUES (?, ?, ?, ?, ?, ?)
-                """;
+        ActivityInsertEvent insertEvent = new ActivityInsertEvent();
+        insertEvent.begin();
+        long start = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, ISO_INSTANT.format(event.timestamp()));
-            statement.setString(2, event.type().name());
-            statement.setString(3, event.appId());
-            statement.setString(4, event.windowTitle());
-            statement.setString(5, event.url());
-            statement.setString(6, event.payloadJson());
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            bind(statement, event);
             statement.executeUpdate();
+            INSERTED.increment();
         } catch (SQLException e) {
+            INSERT_FAILURES.increment();
             throw new IllegalStateException("Failed to insert activity event", e);
+        } finally {
+            INSERT_LATENCY.recordSince(start);
+            insertEvent.end();
+            if (insertEvent.shouldCommit()) {
+                insertEvent.rows = 1;
+                insertEvent.payloadBytes = payloadLength(event);
+                insertEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Inserts {@code events} as one batch in a single transaction; either all rows are written or none.
+     */
+    public void insertAll(List<ActivityEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        insertAll(events, null, null);
+    }
+
+    /**
+     * Inserts {@code events} and moves {@code journal}'s checkpoint to {@code checkpoint} in the
+     * same transaction, so a drained record is either stored with the checkpoint past it or not at
+     * all. {@code events} may be empty when only the checkpoint moves.
+     */
+    void insertAll(List<ActivityEvent> events, String journal, IngestJournal.Position checkpoint) {
+        ActivityInsertEvent insertEvent = new ActivityInsertEvent();
+        insertEvent.begin();
+        try (Connection connection = DatabaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (ActivityEvent event : events) {
+                    bind(statement, event);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                if (checkpoint != null) {
+                    saveCheckpoint(connection, journal, checkpoint);
+                }
+                connection.commit();
+                INSERTED.add(events.size());
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            INSERT_FAILURES.increment();
+            throw new IllegalStateException("Failed to insert activity events", e);
+        } finally {
+            insertEvent.end();
+            if (insertEvent.shouldCommit()) {
+                long payload = 0;
+                for (ActivityEvent event : events) {
+                    payload += payloadLength(event);
+                }
+                insertEvent.rows = events.size();
+                insertEvent.payloadBytes = payload;
+                insertEvent.commit();
+            }
+        }
+    }
+
+    private static void saveCheckpoint(Connection connection, String journal, IngestJournal.Position checkpoint)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_CHECKPOINT_SQL)) {
+            statement.setString(1, journal);
+            statement.setLong(2, checkpoint.segment());
+            statement.setInt(3, checkpoint.slot());
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * The position up to which {@code journal} has been drained, or {@code null} if it never was.
+     */
+    IngestJournal.Position findCheckpoint(String journal) {
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT segment, slot FROM ingest_checkpoints WHERE journal = ?")) {
+            statement.setString(1, journal);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? new IngestJournal.Position(resultSet.getLong(1), resultSet.getInt(2)) : null;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to read ingest checkpoint", e);
+        }
+    }
+
+    private static long payloadLength(ActivityEvent event) {
+        return length(event.appId()) + length(event.windowTitle()) + length(event.url());
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Opens a writer for bulk loads (imports, synthetic workloads). Rows are batched on one
+     * connection with {@code synchronous=OFF} and only become visible on {@link BulkWriter#commit()}
+     * or {@link BulkWriter#close()}, so other connections must not write in between.
+     */
+    public BulkWriter openBulkWriter() {
+        try {
+            return new BulkWriter(DatabaseManager.getConnection());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to open activity event bulk writer", e);
         }
     }
 
+    private static void bind(PreparedStatement statement, ActivityEvent event) throws SQLException {
+        statement.setString(1, ISO_INSTANT.format(event.timestamp()));
+        statement.setString(2, event.type().name());
+        statement.setString(3, event.appId());
+        statement.setString(4, event.windowTitle());
+        statement.setString(5, event.url());
+        statement.setString(6, event.payloadJson());
+    }
+
     public List<ActivityEvent> findBetween(Instant fromInclusive, Instant toExclusive) {
         String sql = """
                 SELECT id, ts, event_type, app_id, window_title, url, payload_json
@@ -43,6 +186,8 @@ public class ActivityEventDao {
                 ORDER BY ts ASC
                 """;
         List<ActivityEvent> results = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_events", "find_between");
+        long start = System.nanoTime();
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, ISO_INSTANT.format(fromInclusive));
@@ -55,6 +200,9 @@ public class ActivityEventDao {
             return results;
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to query activity events", e);
+        } finally {
+            FIND_BETWEEN_LATENCY.recordSince(start);
+            queryEvent.finish(results.size());
         }
     }
 
@@ -71,4 +219,73 @@ public class ActivityEventDao {
         String payload = resultSet.getString("payload_json");
         return new ActivityEvent(id, ts, type, appId, windowTitle, url, payload);
     }
+
+    public static final class BulkWriter implements AutoCloseable {
+
+        private static final int BATCH_SIZE = 10_000;
+
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private int pending;
+        private long written;
+
+        private BulkWriter(Connection connection) throws SQLException {
+            this.connection = connection;
+            try {
+                try (Statement pragma = connection.createStatement()) {
+                    pragma.execute("PRAGMA synchronous = OFF");
+                }
+                connection.setAutoCommit(false);
+                this.statement = connection.prepareStatement(INSERT_SQL);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        public void add(ActivityEvent event) {
+            try {
+                bind(statement, event);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    flushBatch();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to batch activity event", e);
+            }
+        }
+
+        public void commit() {
+            try {
+                flushBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to commit activity events", e);
+            }
+        }
+
+        /**
+         * Rows added so far, committed or not.
+         */
+        public long written() {
+            return written + pending;
+        }
+
+        private void flushBatch() throws SQLException {
+            if (pending > 0) {
+                statement.executeBatch();
+                written += pending;
+                pending = 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            try (connection; statement) {
+                commit();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to close activity event bulk writer", e);
+            }
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package com.timetracker.tracking;
+
+import java.time.Instant;
+
+/**
+ * Where capture, idle detection and lock detection write their events. Taking the fields rather
+ * than an {@link ActivityEvent} lets an implementation record them without allocating.
+ */
+public interface ActivityEventSink {
+
+    void append(Instant timestamp,
+                ActivityEventType type,
+                String appId,
+                String windowTitle,
+                String url,
+                String payloadJson);
+}
@@ -8,5 +8,7 @@ public enum ActivityEventType {
     LOCK,
     UNLOCK,
     MANUAL_START,
-    MANUAL_STOP
+    MANUAL_STOP,
+    /** A capture dropped by a privacy rule: ends the current session without recording the app. */
+    PRIVATE
 }
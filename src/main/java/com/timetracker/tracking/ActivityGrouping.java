@@ -0,0 +1,38 @@
+package com.timetracker.tracking;
+
+import java.time.DayOfWeek;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Bucket size of a range report, in local time. Weeks start on Monday.
+ */
+public enum ActivityGrouping {
+    HOUR,
+    DAY,
+    WEEK;
+
+    /**
+     * Start of the bucket containing {@code time}.
+     */
+    ZonedDateTime bucketStart(ZonedDateTime time) {
+        return switch (this) {
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.toLocalDate().atStartOfDay(time.getZone());
+            case WEEK -> time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    .atStartOfDay(time.getZone());
+        };
+    }
+
+    /**
+     * Start of the bucket after the one starting at {@code bucketStart}.
+     */
+    ZonedDateTime next(ZonedDateTime bucketStart) {
+        return switch (this) {
+            case HOUR -> bucketStart.plusHours(1);
+            case DAY -> bucketStart.toLocalDate().plusDays(1).atStartOfDay(bucketStart.getZone());
+            case WEEK -> bucketStart.toLocalDate().plusWeeks(1).atStartOfDay(bucketStart.getZone());
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.timetracker.tracking;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Seconds of non-idle activity in {@code appId} during the UTC hour starting at {@code hourStart}.
+ */
+public record ActivityHourlyTotal(Instant hourStart, String appId, long totalSeconds) {
+
+    public ActivityHourlyTotal {
+        Objects.requireNonNull(hourStart, "hourStart");
+        Objects.requireNonNull(appId, "appId");
+        totalSeconds = Math.max(0, totalSeconds);
+    }
+}
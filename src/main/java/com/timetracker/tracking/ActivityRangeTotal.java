@@ -0,0 +1,18 @@
+package com.timetracker.tracking;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Seconds of non-idle activity in {@code appId} between {@code start} and {@code end}: one
+ * bucket of a range report, clipped to the requested range.
+ */
+public record ActivityRangeTotal(Instant start, Instant end, String appId, long totalSeconds) {
+
+    public ActivityRangeTotal {
+        Objects.requireNonNull(start, "start");
+        Objects.requireNonNull(end, "end");
+        Objects.requireNonNull(appId, "appId");
+        totalSeconds = Math.max(0, totalSeconds);
+    }
+}
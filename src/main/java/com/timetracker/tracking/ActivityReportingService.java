@@ -1,15 +1,36 @@
 package com.timetracker.tracking;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.TreeMap;
 
 public class ActivityReportingService {
 
+    private static final long SECONDS_PER_HOUR = 3600;
+
     private final ActivitySessionDao sessionDao;
+    private final MinuteIndex minuteIndex;
 
     public ActivityReportingService(ActivitySessionDao sessionDao) {
+        this(sessionDao, null);
+    }
+
+    /**
+     * @param minuteIndex answers ungrouped range totals while it is available; null always uses
+     *                    the rollup tables
+     */
+    public ActivityReportingService(ActivitySessionDao sessionDao, MinuteIndex minuteIndex) {
         this.sessionDao = Objects.requireNonNull(sessionDao, "sessionDao");
+        this.minuteIndex = minuteIndex;
     }
 
     public ActivityReportingService() {
@@ -20,4 +41,153 @@ public class ActivityReportingService {
         Objects.requireNonNull(date, "date");
         return sessionDao.findTotalsForDate(date);
     }
+
+    public List<ActivityCategoryTotal> getCategoryTotalsForDate(LocalDate date) {
+        Objects.requireNonNull(date, "date");
+        return sessionDao.findCategoryTotalsForDate(date);
+    }
+
+    /**
+     * Per-app totals between {@code start} and {@code end}, in {@code grouping} buckets of local
+     * time in {@code zone}, ordered by bucket and then largest first. The first and last buckets
+     * are clipped to the range. Whole UTC hours come from {@code activity_hourly_totals} and the
+     * remainder from the minute occupancy, so the result has one-minute resolution (partial
+     * minutes at either end are left out) and never reads raw events or sessions.
+     */
+    public List<ActivityRangeTotal> getTotalsBetween(Instant start, Instant end, ActivityGrouping grouping, ZoneId zone) {
+        Objects.requireNonNull(start, "start");
+        Objects.requireNonNull(end, "end");
+        Objects.requireNonNull(grouping, "grouping");
+        Objects.requireNonNull(zone, "zone");
+        if (!end.isAfter(start)) {
+            return List.of();
+        }
+        long from = Math.floorDiv(start.getEpochSecond() + 59, 60) * 60;
+        long to = Math.floorDiv(end.getEpochSecond(), 60) * 60;
+        NavigableMap<Long, List<ActivityHourlyTotal>> hours = hourlyTotals(from, end);
+        Map<LocalDate, List<MinuteOccupancy>> minutes = new HashMap<>();
+
+        List<ActivityRangeTotal> results = new ArrayList<>();
+        ZonedDateTime bucket = grouping.bucketStart(start.atZone(zone));
+        while (bucket.toInstant().isBefore(end)) {
+            ZonedDateTime next = grouping.next(bucket);
+            Instant bucketStart = max(bucket.toInstant(), start);
+            Instant bucketEnd = min(next.toInstant(), end);
+            Map<String, Long> totals = rollupTotals(Math.max(from, bucketStart.getEpochSecond()),
+                    Math.min(to, next.toEpochSecond()), hours, minutes);
+            addLargestFirst(results, bucketStart, bucketEnd, totals);
+            bucket = next;
+        }
+        return results;
+    }
+
+    public List<ActivityRangeTotal> getTotalsBetween(Instant start, Instant end, ActivityGrouping grouping) {
+        return getTotalsBetween(start, end, grouping, ZoneId.systemDefault());
+    }
+
+    /**
+     * Per-app totals between {@code start} and {@code end}, largest first, with the same
+     * one-minute resolution as {@link #getTotalsBetween}. While the {@link MinuteIndex} is
+     * available this costs two reads per app whatever the length of the range; otherwise it is
+     * answered from the rollup tables.
+     */
+    public List<ActivityRangeTotal> getAppTotalsBetween(Instant start, Instant end) {
+        Objects.requireNonNull(start, "start");
+        Objects.requireNonNull(end, "end");
+        List<ActivityRangeTotal> results = new ArrayList<>();
+        if (!end.isAfter(start)) {
+            return results;
+        }
+        Map<String, Long> totals;
+        if (minuteIndex != null && minuteIndex.isAvailable()) {
+            totals = minuteIndex.totals(start, end);
+        } else {
+            long from = Math.floorDiv(start.getEpochSecond() + 59, 60) * 60;
+            long to = Math.floorDiv(end.getEpochSecond(), 60) * 60;
+            totals = rollupTotals(from, to, hourlyTotals(from, end), new HashMap<>());
+        }
+        addLargestFirst(results, start, end, totals);
+        return results;
+    }
+
+    /**
+     * Seconds of {@code appId} between {@code start} and {@code end}; see {@link #getAppTotalsBetween}.
+     */
+    public long getAppTotalBetween(String appId, Instant start, Instant end) {
+        Objects.requireNonNull(appId, "appId");
+        if (minuteIndex != null && minuteIndex.isAvailable()) {
+            return minuteIndex.totalSeconds(appId, Objects.requireNonNull(start, "start"), Objects.requireNonNull(end, "end"));
+        }
+        return getAppTotalsBetween(start, end).stream()
+                .filter(total -> total.appId().equals(appId))
+                .mapToLong(ActivityRangeTotal::totalSeconds)
+                .sum();
+    }
+
+    private NavigableMap<Long, List<ActivityHourlyTotal>> hourlyTotals(long from, Instant end) {
+        NavigableMap<Long, List<ActivityHourlyTotal>> hours = new TreeMap<>();
+        for (ActivityHourlyTotal total : sessionDao.findHourlyTotals(
+                Instant.ofEpochSecond(Math.floorDiv(from, SECONDS_PER_HOUR) * SECONDS_PER_HOUR), end)) {
+            hours.computeIfAbsent(total.hourStart().getEpochSecond(), hour -> new ArrayList<>()).add(total);
+        }
+        return hours;
+    }
+
+    /**
+     * Per-app seconds in {@code [a, b)} (minute-aligned epoch seconds): whole UTC hours from
+     * {@code hours}, the rest from the minute occupancy.
+     */
+    private Map<String, Long> rollupTotals(long a, long b, NavigableMap<Long, List<ActivityHourlyTotal>> hours,
+                                           Map<LocalDate, List<MinuteOccupancy>> minutes) {
+        Map<String, Long> totals = new HashMap<>();
+        long firstFullHour = Math.floorDiv(a + SECONDS_PER_HOUR - 1, SECONDS_PER_HOUR) * SECONDS_PER_HOUR;
+        long lastFullHour = Math.floorDiv(b, SECONDS_PER_HOUR) * SECONDS_PER_HOUR;
+        if (firstFullHour < lastFullHour) {
+            addMinutes(totals, minutes, a, firstFullHour);
+            for (List<ActivityHourlyTotal> hour : hours.subMap(firstFullHour, lastFullHour).values()) {
+                for (ActivityHourlyTotal total : hour) {
+                    totals.merge(total.appId(), total.totalSeconds(), Long::sum);
+                }
+            }
+            addMinutes(totals, minutes, lastFullHour, b);
+        } else {
+            addMinutes(totals, minutes, a, b);
+        }
+        return totals;
+    }
+
+    private static void addLargestFirst(List<ActivityRangeTotal> results, Instant start, Instant end,
+                                        Map<String, Long> totals) {
+        totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(total -> results.add(new ActivityRangeTotal(start, end, total.getKey(), total.getValue())));
+    }
+
+    /**
+     * Adds the occupancy of the minutes in {@code [from, to)}, both minute-aligned epoch seconds,
+     * loading each UTC day once.
+     */
+    private void addMinutes(Map<String, Long> totals, Map<LocalDate, List<MinuteOccupancy>> minutes, long from, long to) {
+        while (from < to) {
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(from, MinuteOccupancy.SECONDS_PER_DAY));
+            long dayEnd = (date.toEpochDay() + 1) * MinuteOccupancy.SECONDS_PER_DAY;
+            long until = Math.min(to, dayEnd);
+            for (MinuteOccupancy day : minutes.computeIfAbsent(date, d -> sessionDao.findMinuteOccupancy(d, d))) {
+                long seconds = day.sum(day.minuteOf(from, false), day.minuteOf(until, false));
+                if (seconds > 0) {
+                    totals.merge(day.appId(), seconds, Long::sum);
+                }
+            }
+            from = until;
+        }
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
 }
@@ -1,17 +1,27 @@
 package com.timetracker.tracking;
 
 import com.timetracker.db.DatabaseManager;
+import com.timetracker.diagnostics.DaoQueryEvent;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 public class ActivitySessionDao {
 
     private static final DateTimeFormatter ISO_INSTANT = DateTimeFormatter.ISO_INSTANT.withLocale(Locale.ROOT);
+    // The largest date whose ISO form still sorts after every four-digit year.
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
 
     public void insertSessions(List<ActivitySession> sessions) {
         if (sessions.isEmpty()) {
@@ -24,21 +34,31 @@ public class ActivitySessionDao {
                 DO UPDATE SET end_ts = excluded.end_ts,
                               window_title = excluded.window_title
                 """;
-        try (Connection connection = DatabaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            for (ActivitySession session : sessions) {
-                statement.setString(1, ISO_INSTANT.format(session.start()));
-                statement.setString(2, ISO_INSTANT.format(session.end()));
-                statement.setString(3, session.appId());
-                statement.setString(4, session.windowTitle());
-                statement.setString(5, session.url());
-                statement.setString(6, session.source().name());
-                statement.setInt(7, session.idle() ? 1 : 0);
-                statement.addBatch();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_sessions", "insert_sessions");
+        // One transaction per batch: in autocommit mode every row would be its own synced commit.
+        try (Connection connection = DatabaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (ActivitySession session : sessions) {
+                    statement.setString(1, ISO_INSTANT.format(session.start()));
+                    statement.setString(2, ISO_INSTANT.format(session.end()));
+                    statement.setString(3, session.appId());
+                    statement.setString(4, session.windowTitle());
+                    statement.setString(5, session.url());
+                    statement.setString(6, session.source().name());
+                    statement.setInt(7, session.idle() ? 1 : 0);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
-            statement.executeBatch();
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to insert activity sessions", e);
+        } finally {
+            queryEvent.finish(sessions.size());
         }
     }
 
@@ -52,23 +72,294 @@ public class ActivitySessionDao {
                 ON CONFLICT(usage_date, app_id, domain, url, source)
                 DO UPDATE SET total_seconds = excluded.total_seconds
                 """;
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_daily_totals", "upsert_totals");
+        try (Connection connection = DatabaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (ActivityDailyTotal total : totals) {
+                    statement.setString(1, total.date().toString());
+                    statement.setString(2, total.appId());
+                    statement.setString(3, total.domain());
+                    statement.setString(4, total.url());
+                    statement.setLong(5, total.totalSeconds());
+                    statement.setString(6, total.source().name());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to upsert activity daily totals", e);
+        } finally {
+            queryEvent.finish(totals.size());
+        }
+    }
+
+    /**
+     * Replaces the category totals of every day from {@code fromDate} to {@code toDate}
+     * (inclusive) with {@code totals}, so a category whose rules no longer match drops out.
+     */
+    public void replaceCategoryTotals(java.time.LocalDate fromDate, java.time.LocalDate toDate,
+                                      List<ActivityCategoryTotal> totals) {
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_category_totals", "replace_totals");
+        try (Connection connection = DatabaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM activity_category_totals WHERE usage_date >= ? AND usage_date <= ?");
+                 PreparedStatement insert = connection.prepareStatement("""
+                         INSERT INTO activity_category_totals (usage_date, category_id, total_seconds)
+                         VALUES (?, ?, ?)
+                         ON CONFLICT(usage_date, category_id)
+                         DO UPDATE SET total_seconds = excluded.total_seconds
+                         """)) {
+                delete.setString(1, fromDate.toString());
+                delete.setString(2, toDate.toString());
+                delete.executeUpdate();
+                for (ActivityCategoryTotal total : totals) {
+                    insert.setString(1, total.date().toString());
+                    insert.setInt(2, total.categoryId());
+                    insert.setLong(3, total.totalSeconds());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to replace activity category totals", e);
+        } finally {
+            queryEvent.finish(totals.size());
+        }
+    }
+
+    /**
+     * Category totals for {@code date}, largest first; categories deleted since are left out.
+     */
+    public List<ActivityCategoryTotal> findCategoryTotalsForDate(java.time.LocalDate date) {
+        String sql = """
+                SELECT usage_date, category_id, total_seconds
+                FROM activity_category_totals
+                WHERE usage_date = ? AND category_id IN (SELECT id FROM categories)
+                ORDER BY total_seconds DESC
+                """;
+        List<ActivityCategoryTotal> results = new java.util.ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_category_totals", "find_date");
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
-            for (ActivityDailyTotal total : totals) {
-                statement.setString(1, total.date().toString());
-                statement.setString(2, total.appId());
-                statement.setString(3, total.domain());
-                statement.setString(4, total.url());
-                statement.setLong(5, total.totalSeconds());
-                statement.setString(6, total.source().name());
-                statement.addBatch();
+            statement.setString(1, date.toString());
+            try (java.sql.ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    results.add(new ActivityCategoryTotal(
+                            java.time.LocalDate.parse(resultSet.getString("usage_date")),
+                            resultSet.getInt("category_id"),
+                            resultSet.getLong("total_seconds")));
+                }
             }
-            statement.executeBatch();
+            return results;
         } catch (SQLException e) {
-            throw new IllegalStateException("Failed to upsert activity daily totals", e);
+            throw new IllegalStateException("Failed to query activity category totals", e);
+        } finally {
+            queryEvent.finish(results.size());
+        }
+    }
+
+    /**
+     * Rewrites the hourly totals and minute occupancy overlapping {@code [fromInclusive, toExclusive)}
+     * from the automatically tracked, non-idle {@code sessions} (manual sessions are named after a
+     * category, not an app, and are left out as in {@link ActivityCategorizer}); minutes of the same UTC days outside the window are kept.
+     * The window should start on a minute boundary, as the aggregation's local-midnight windows do.
+     */
+    public void replaceRollups(Instant fromInclusive, Instant toExclusive, List<ActivitySession> sessions) {
+        long from = fromInclusive.getEpochSecond();
+        long to = toExclusive.getEpochSecond() + (toExclusive.getNano() > 0 ? 1 : 0);
+        if (to <= from) {
+            return;
+        }
+        LocalDate firstDay = utcDate(from);
+        LocalDate lastDay = utcDate(to - 1);
+        Map<OccupancyKey, MinuteOccupancy> occupancy = new LinkedHashMap<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_hourly_totals", "replace_rollups");
+        try (Connection connection = DatabaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (MinuteOccupancy day : selectOccupancy(connection, firstDay, lastDay)) {
+                    day.clear(from, to);
+                    occupancy.put(new OccupancyKey(day.utcDate(), day.appId()), day);
+                }
+                for (ActivitySession session : sessions) {
+                    long start = Math.max(from, session.start().getEpochSecond());
+                    long end = Math.min(to, session.end().getEpochSecond());
+                    if (session.idle() || session.source() != ActivitySessionSource.AUTO || end <= start) {
+                        continue;
+                    }
+                    String appId = Objects.requireNonNullElse(session.appId(), "");
+                    for (LocalDate day = utcDate(start); !day.isAfter(utcDate(end - 1)); day = day.plusDays(1)) {
+                        LocalDate date = day;
+                        occupancy.computeIfAbsent(new OccupancyKey(date, appId), key -> new MinuteOccupancy(date, appId))
+                                .add(start, end);
+                    }
+                }
+                writeOccupancy(connection, firstDay, lastDay, occupancy.values());
+                writeHourlyTotals(connection, from, to, occupancy.values());
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to replace activity rollups", e);
+        } finally {
+            queryEvent.finish(occupancy.size());
+        }
+    }
+
+    /**
+     * Hourly totals for the UTC hours starting in {@code [fromInclusive, toExclusive)}, by hour.
+     */
+    public List<ActivityHourlyTotal> findHourlyTotals(Instant fromInclusive, Instant toExclusive) {
+        String sql = """
+                SELECT hour_start, app_id, total_seconds
+                FROM activity_hourly_totals
+                WHERE hour_start >= ? AND hour_start < ?
+                ORDER BY hour_start
+                """;
+        List<ActivityHourlyTotal> results = new ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_hourly_totals", "find_range");
+        try (Connection connection = DatabaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, ISO_INSTANT.format(fromInclusive));
+            statement.setString(2, ISO_INSTANT.format(toExclusive));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    results.add(new ActivityHourlyTotal(
+                            Instant.parse(resultSet.getString("hour_start")),
+                            resultSet.getString("app_id"),
+                            resultSet.getLong("total_seconds")));
+                }
+            }
+            return results;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query activity hourly totals", e);
+        } finally {
+            queryEvent.finish(results.size());
+        }
+    }
+
+    /**
+     * Minute occupancy of every app on the UTC dates {@code fromDate} to {@code toDate} (inclusive).
+     */
+    List<MinuteOccupancy> findMinuteOccupancy(LocalDate fromDate, LocalDate toDate) {
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_minute_occupancy", "find_range");
+        List<MinuteOccupancy> results = List.of();
+        try (Connection connection = DatabaseManager.getConnection()) {
+            results = selectOccupancy(connection, fromDate, toDate);
+            return results;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query activity minute occupancy", e);
+        } finally {
+            queryEvent.finish(results.size());
+        }
+    }
+
+    /**
+     * Minute occupancy of every app on {@code fromDate} (UTC) and all later days.
+     */
+    List<MinuteOccupancy> findMinuteOccupancySince(LocalDate fromDate) {
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_minute_occupancy", "find_since");
+        List<MinuteOccupancy> results = List.of();
+        try (Connection connection = DatabaseManager.getConnection()) {
+            results = selectOccupancy(connection, fromDate, LAST_DATE);
+            return results;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query activity minute occupancy", e);
+        } finally {
+            queryEvent.finish(results.size());
+        }
+    }
+
+    private static List<MinuteOccupancy> selectOccupancy(Connection connection, LocalDate fromDate, LocalDate toDate)
+            throws SQLException {
+        String sql = """
+                SELECT utc_date, app_id, seconds
+                FROM activity_minute_occupancy
+                WHERE utc_date >= ? AND utc_date <= ?
+                """;
+        List<MinuteOccupancy> results = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, fromDate.toString());
+            statement.setString(2, toDate.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    results.add(new MinuteOccupancy(LocalDate.parse(resultSet.getString("utc_date")),
+                            resultSet.getString("app_id"), resultSet.getBytes("seconds")));
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void writeOccupancy(Connection connection, LocalDate firstDay, LocalDate lastDay,
+                                       Iterable<MinuteOccupancy> occupancy) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM activity_minute_occupancy WHERE utc_date >= ? AND utc_date <= ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO activity_minute_occupancy (utc_date, app_id, seconds) VALUES (?, ?, ?)")) {
+            delete.setString(1, firstDay.toString());
+            delete.setString(2, lastDay.toString());
+            delete.executeUpdate();
+            for (MinuteOccupancy day : occupancy) {
+                if (day.isEmpty()) {
+                    continue;
+                }
+                insert.setString(1, day.utcDate().toString());
+                insert.setString(2, day.appId());
+                insert.setBytes(3, day.bytes());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static void writeHourlyTotals(Connection connection, long from, long to,
+                                          Iterable<MinuteOccupancy> occupancy) throws SQLException {
+        long firstHour = Math.floorDiv(from, 3600) * 3600;
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM activity_hourly_totals WHERE hour_start >= ? AND hour_start < ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO activity_hourly_totals (hour_start, app_id, total_seconds) VALUES (?, ?, ?)")) {
+            delete.setString(1, ISO_INSTANT.format(Instant.ofEpochSecond(firstHour)));
+            delete.setString(2, ISO_INSTANT.format(Instant.ofEpochSecond(to)));
+            delete.executeUpdate();
+            for (MinuteOccupancy day : occupancy) {
+                long dayStart = day.utcDate().toEpochDay() * MinuteOccupancy.SECONDS_PER_DAY;
+                for (int hour = 0; hour < 24; hour++) {
+                    long hourStart = dayStart + hour * 3600L;
+                    long seconds = day.sum(hour * 60, hour * 60 + 60);
+                    if (hourStart < firstHour || hourStart >= to || seconds == 0) {
+                        continue;
+                    }
+                    insert.setString(1, ISO_INSTANT.format(Instant.ofEpochSecond(hourStart)));
+                    insert.setString(2, day.appId());
+                    insert.setLong(3, seconds);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
         }
     }
 
+    private static LocalDate utcDate(long epochSecond) {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochSecond, MinuteOccupancy.SECONDS_PER_DAY));
+    }
+
+    private record OccupancyKey(LocalDate utcDate, String appId) {
+    }
+
     public List<ActivityDailyTotal> findTotalsForDate(java.time.LocalDate date) {
         String sql = """
                 SELECT usage_date, app_id, domain, url, total_seconds, source
@@ -77,6 +368,7 @@ public class ActivitySessionDao {
                 ORDER BY total_seconds DESC
                 """;
         List<ActivityDailyTotal> results = new java.util.ArrayList<>();
+        DaoQueryEvent queryEvent = DaoQueryEvent.begin("activity_daily_totals", "find_date");
         try (Connection connection = DatabaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, date.toString());
@@ -95,6 +387,8 @@ public class ActivitySessionDao {
             return results;
         } catch (SQLException e) {
             throw new IllegalStateException("Failed to query activity daily totals", e);
+        } finally {
+            queryEvent.finish(results.size());
         }
     }
 }
@@ -1,5 +1,9 @@
 package com.timetracker.tracking;
 
+import com.timetracker.diagnostics.CaptureEvent;
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,24 +11,46 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class ActivityTrackingService implements AutoCloseable {
+public class ActivityTrackingService implements AutoCloseable, Parkable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ActivityTrackingService.class);
+    private static final LatencyHistogram CAPTURE_LATENCY = MetricsRegistry.global().histogram("capture.latency");
+    private static final Counter CAPTURES = MetricsRegistry.global().counter("capture.snapshots");
+    private static final Counter CAPTURES_EMPTY = MetricsRegistry.global().counter("capture.empty");
+    private static final Counter CAPTURE_FAILURES = MetricsRegistry.global().counter("capture.failures");
+    private static final Counter PRIVACY_DROPPED = MetricsRegistry.global().counter("capture.privacy_dropped");
+    private static final Counter PRIVACY_REDACTED = MetricsRegistry.global().counter("capture.privacy_redacted");
 
     private final ActiveAppCollector collector;
-    private final ActivityEventDao eventDao;
+    private final ActivityEventSink events;
     private final ActivityTrackingConfig config;
+    private final PrivacyFilter privacyFilter;
     private final ScheduledExecutorService executor;
+    private final AtomicLong lastCaptureMillis = new AtomicLong();
     private volatile boolean paused;
+    private ScheduledFuture<?> schedule;
 
     public ActivityTrackingService(ActiveAppCollector collector,
-                                   ActivityEventDao eventDao,
+                                   ActivityEventSink events,
                                    ActivityTrackingConfig config) {
+        this(collector, events, config, PrivacyFilter.none());
+    }
+
+    /**
+     * @param privacyFilter applied to every snapshot before it is recorded
+     */
+    public ActivityTrackingService(ActiveAppCollector collector,
+                                   ActivityEventSink events,
+                                   ActivityTrackingConfig config,
+                                   PrivacyFilter privacyFilter) {
         this.collector = Objects.requireNonNull(collector, "collector");
-        this.eventDao = Objects.requireNonNull(eventDao, "eventDao");
+        this.events = Objects.requireNonNull(events, "events");
         this.config = Objects.requireNonNull(config, "config");
+        this.privacyFilter = Objects.requireNonNull(privacyFilter, "privacyFilter");
         this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread thread = new Thread(r, "activity-tracker");
             thread.setDaemon(true);
@@ -32,8 +58,35 @@ public class ActivityTrackingService implements AutoCloseable {
         });
     }
 
-    public void start() {
-        executor.scheduleAtFixedRate(this::captureSnapshot, 0L, config.pollingInterval().toMillis(), TimeUnit.MILLISECONDS);
+    /**
+     * Registers {@code capture.last_success_epoch_ms} for this service. Called once by the owner
+     * of the pipeline, so other instances (e.g. in tests) cannot take the gauge over.
+     */
+    public void registerGauges(MetricsRegistry metrics) {
+        metrics.gauge("capture.last_success_epoch_ms", lastCaptureMillis::get);
+    }
+
+    public synchronized void start() {
+        schedule = executor.scheduleAtFixedRate(this::captureSnapshot, 0L, config.pollingInterval().toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the capture schedule (unlike {@link #setPaused}, which keeps polling and skips).
+     */
+    @Override
+    public synchronized void park() {
+        if (schedule != null) {
+            schedule.cancel(false);
+            schedule = null;
+        }
+    }
+
+    @Override
+    public synchronized void unpark() {
+        if (schedule == null && !executor.isShutdown()) {
+            start();
+        }
     }
 
     public void setPaused(boolean paused) {
@@ -49,22 +102,53 @@ public class ActivityTrackingService implements AutoCloseable {
             if (paused) {
                 return;
             }
-            Optional<ActiveAppSnapshot> snapshot = collector.capture();
+            CaptureEvent captureEvent = new CaptureEvent();
+            captureEvent.begin();
+            long start = System.nanoTime();
+            Optional<ActiveAppSnapshot> snapshot = null;
+            try {
+                snapshot = collector.capture();
+            } finally {
+                // Failed captures are often the slowest ones; keep them in the histogram and in JFR.
+                CAPTURE_LATENCY.recordSince(start);
+                captureEvent.end();
+                if (captureEvent.shouldCommit()) {
+                    captureEvent.failed = snapshot == null;
+                    captureEvent.empty = snapshot != null && snapshot.isEmpty();
+                    if (snapshot != null) {
+                        snapshot.ifPresent(value -> {
+                            captureEvent.appId = value.appId();
+                            captureEvent.titleLength = value.windowTitle() == null ? 0 : value.windowTitle().length();
+                            captureEvent.urlCaptured = value.url() != null;
+                        });
+                    }
+                    captureEvent.commit();
+                }
+            }
+            if (snapshot.isEmpty()) {
+                CAPTURES_EMPTY.increment();
+            }
             snapshot.ifPresent(value -> {
                 String url = config.captureUrls()
                         ? ActivityUrlUtils.redactQuery(value.url(), config.redactQueryStrings()).orElse(null)
                         : null;
-                ActivityEvent event = new ActivityEvent(
-                        value.capturedAt(),
-                        ActivityEventType.FOCUS,
-                        value.appId(),
-                        value.windowTitle(),
-                        url,
-                        null
-                );
-                eventDao.insert(event);
+                PrivacyFilter.Redacted redacted = privacyFilter.apply(value.appId(), value.windowTitle(), url);
+                if (redacted == null) {
+                    PRIVACY_DROPPED.increment();
+                    // Still mark the capture, or the previous app's session would absorb the time.
+                    events.append(value.capturedAt(), ActivityEventType.PRIVATE, null, null, null, null);
+                } else {
+                    if (redacted.changed()) {
+                        PRIVACY_REDACTED.increment();
+                    }
+                    events.append(value.capturedAt(), ActivityEventType.FOCUS, value.appId(),
+                            redacted.windowTitle(), redacted.url(), null);
+                }
+                CAPTURES.increment();
+                lastCaptureMillis.set(System.currentTimeMillis());
             });
         } catch (Exception e) {
+            CAPTURE_FAILURES.increment();
             LOGGER.warn("Active app capture failed", e);
         }
     }
@@ -2,10 +2,27 @@ package com.timetracker.tracking;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Domain extraction and query redaction for captured URLs. Results match {@link URI}'s parsing,
+ * but common URLs go through {@link UrlScanner} instead of building URIs, and the results for
+ * recently seen URLs are cached. Capture and aggregation see the same few hundred URLs over and
+ * over, so a cache hit allocates nothing.
+ */
 public final class ActivityUrlUtils {
 
+    static final int CACHE_CAPACITY = 1024;
+
+    private static final Map<String, ParsedUrl> CACHE = new LinkedHashMap<>(CACHE_CAPACITY * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedUrl> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
     private ActivityUrlUtils() {
     }
 
@@ -13,6 +30,46 @@ public final class ActivityUrlUtils {
         if (url == null || url.isBlank()) {
             return Optional.empty();
         }
+        return parse(url).domain();
+    }
+
+    public static Optional<String> redactQuery(String url, boolean redactQueries) {
+        if (!redactQueries || url == null || url.isBlank()) {
+            return Optional.ofNullable(url);
+        }
+        return parse(url).redacted();
+    }
+
+    private static ParsedUrl parse(String url) {
+        synchronized (CACHE) {
+            ParsedUrl cached = CACHE.get(url);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        ParsedUrl parsed = scan(url);
+        synchronized (CACHE) {
+            CACHE.put(url, parsed);
+        }
+        return parsed;
+    }
+
+    static ParsedUrl scan(String url) {
+        UrlScanner.Offsets offsets = UrlScanner.scan(url);
+        if (offsets == null) {
+            return new ParsedUrl(extractDomainWithUri(url), redactQueryWithUri(url));
+        }
+        Optional<String> domain = Optional.of(url.substring(offsets.hostStart(), offsets.hostEnd()));
+        if (offsets.queryStart() < 0) {
+            return new ParsedUrl(domain, Optional.of(url));
+        }
+        String redacted = offsets.fragmentStart() < 0
+                ? url.substring(0, offsets.queryStart())
+                : url.substring(0, offsets.queryStart()) + url.substring(offsets.fragmentStart());
+        return new ParsedUrl(domain, Optional.of(redacted));
+    }
+
+    static Optional<String> extractDomainWithUri(String url) {
         try {
             URI uri = new URI(url);
             String host = uri.getHost();
@@ -25,10 +82,7 @@ public final class ActivityUrlUtils {
         }
     }
 
-    public static Optional<String> redactQuery(String url, boolean redactQueries) {
-        if (!redactQueries || url == null || url.isBlank()) {
-            return Optional.ofNullable(url);
-        }
+    static Optional<String> redactQueryWithUri(String url) {
         try {
             URI uri = new URI(url);
             URI sanitized = new URI(uri.getScheme(),
@@ -41,4 +95,7 @@ public final class ActivityUrlUtils {
             return Optional.ofNullable(url);
         }
     }
+
+    record ParsedUrl(Optional<String> domain, Optional<String> redacted) {
+    }
 }
@@ -0,0 +1,178 @@
+package com.timetracker.tracking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Case-insensitive multi-pattern substring matcher. Each pattern is added for one slot (the kind
+ * of text it applies to, e.g. app id or window title) with a rank; {@link #bestRank} scans a text
+ * once, whatever the number of patterns, and returns the lowest rank among that slot's patterns
+ * occurring in it.
+ * <p>
+ * The automaton is frozen into arrays: per state a sorted transition table, the failure link,
+ * and per slot the best rank reachable through the failure chain, so a scan does no allocation
+ * and never walks output lists.
+ */
+final class AhoCorasick {
+
+    static final int NONE = Integer.MAX_VALUE;
+
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[][] best;
+
+    private AhoCorasick(char[][] labels, int[][] targets, int[] fail, int[][] best) {
+        this.labels = labels;
+        this.targets = targets;
+        this.fail = fail;
+        this.best = best;
+    }
+
+    static Builder builder(int slots) {
+        return new Builder(slots);
+    }
+
+    /**
+     * The lowest rank among {@code slot}'s patterns found in {@code text}, or {@link #NONE}.
+     */
+    int bestRank(String text, int slot) {
+        int[] ranks = best[slot];
+        int result = NONE;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = transition(labels, targets, state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = transition(labels, targets, state, c);
+            }
+            state = Math.max(next, 0);
+            if (ranks[state] < result) {
+                result = ranks[state];
+                if (result == 0) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@link #bestRank} for every slot in one scan; {@code out[slot]} receives each result.
+     */
+    void bestRanks(String text, int[] out) {
+        Arrays.fill(out, NONE);
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = transition(labels, targets, state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = transition(labels, targets, state, c);
+            }
+            state = Math.max(next, 0);
+            for (int slot = 0; slot < out.length; slot++) {
+                out[slot] = Math.min(out[slot], best[slot][state]);
+            }
+        }
+    }
+
+    int states() {
+        return fail.length;
+    }
+
+    private static int transition(char[][] labels, int[][] targets, int state, char c) {
+        int index = Arrays.binarySearch(labels[state], c);
+        return index < 0 ? -1 : targets[state][index];
+    }
+
+    static final class Builder {
+        private final int slots;
+        private final List<Map<Character, Integer>> edges = new ArrayList<>();
+        private final List<int[]> ranks = new ArrayList<>();
+
+        private Builder(int slots) {
+            this.slots = slots;
+            newState();
+        }
+
+        Builder add(String pattern, int slot, int rank) {
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("Pattern cannot be empty");
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                Integer next = edges.get(state).get(c);
+                if (next == null) {
+                    next = newState();
+                    edges.get(state).put(c, next);
+                }
+                state = next;
+            }
+            int[] stateRanks = ranks.get(state);
+            stateRanks[slot] = Math.min(stateRanks[slot], rank);
+            return this;
+        }
+
+        AhoCorasick build() {
+            int count = edges.size();
+            char[][] labels = new char[count][];
+            int[][] targets = new int[count][];
+            for (int state = 0; state < count; state++) {
+                Map<Character, Integer> out = edges.get(state);
+                labels[state] = new char[out.size()];
+                targets[state] = new int[out.size()];
+                int i = 0;
+                for (Map.Entry<Character, Integer> edge : out.entrySet()) {
+                    labels[state][i] = edge.getKey();
+                    targets[state][i] = edge.getValue();
+                    i++;
+                }
+            }
+            int[] fail = new int[count];
+            int[][] best = new int[slots][count];
+            for (int slot = 0; slot < slots; slot++) {
+                best[slot][0] = ranks.get(0)[slot];
+            }
+            // Breadth first, so a state's failure target is complete before the state itself.
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : targets[0]) {
+                fail[child] = 0;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int slot = 0; slot < slots; slot++) {
+                    best[slot][state] = Math.min(ranks.get(state)[slot], best[slot][fail[state]]);
+                }
+                for (int i = 0; i < labels[state].length; i++) {
+                    char c = labels[state][i];
+                    int child = targets[state][i];
+                    int candidate = fail[state];
+                    int next = transition(labels, targets, candidate, c);
+                    while (next < 0 && candidate != 0) {
+                        candidate = fail[candidate];
+                        next = transition(labels, targets, candidate, c);
+                    }
+                    fail[child] = Math.max(next, 0);
+                    queue.add(child);
+                }
+            }
+            return new AhoCorasick(labels, targets, fail, best);
+        }
+
+        private int newState() {
+            edges.add(new TreeMap<>());
+            int[] stateRanks = new int[slots];
+            Arrays.fill(stateRanks, NONE);
+            ranks.add(stateRanks);
+            return edges.size() - 1;
+        }
+    }
+}
@@ -5,4 +5,20 @@ import java.util.Optional;
 public interface BrowserUrlResolver {
 
     Optional<String> resolveActiveUrl();
+
+    /**
+     * Resolves the URL of the tab shown in the browser window with this title; resolvers that
+     * cannot tell tabs apart ignore the title.
+     */
+    default Optional<String> resolveActiveUrl(String windowTitle) {
+        return resolveActiveUrl();
+    }
+
+    /**
+     * False while the resolver knows it cannot answer (e.g. no browser to talk to), so callers can
+     * skip it without a call.
+     */
+    default boolean isAvailable() {
+        return true;
+    }
 }
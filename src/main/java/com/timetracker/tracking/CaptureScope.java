@@ -0,0 +1,103 @@
+package com.timetracker.tracking;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A small structured-concurrency scope for one capture: subtasks are forked onto virtual threads,
+ * {@link #join()} waits for them up to a single deadline shared by the whole scope, and
+ * {@link #close()} cancels (interrupts) whatever is still running, so no subtask outlives the
+ * capture. Subtasks may wait on each other with {@link Subtask#await()}, which is bounded by the
+ * same deadline. This mirrors {@code java.util.concurrent.StructuredTaskScope}, which is still a
+ * preview API in Java 21, without requiring {@code --enable-preview}.
+ */
+final class CaptureScope implements AutoCloseable {
+
+    private static final ThreadFactory THREADS = Thread.ofVirtual().name("capture-", 0).factory();
+
+    private final long deadlineNanos;
+    private final List<Subtask<?>> subtasks = new ArrayList<>();
+
+    CaptureScope(Duration timeout) {
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    <T> Subtask<T> fork(Callable<T> task) {
+        Subtask<T> subtask = new Subtask<>(new FutureTask<>(task));
+        subtasks.add(subtask);
+        THREADS.newThread(subtask.future).start();
+        return subtask;
+    }
+
+    /**
+     * Waits until every subtask has finished or the deadline has passed, whichever comes first.
+     *
+     * @return true if every subtask finished in time
+     */
+    boolean join() throws InterruptedException {
+        boolean complete = true;
+        for (Subtask<?> subtask : subtasks) {
+            try {
+                subtask.future.get(remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                complete = false;
+            } catch (ExecutionException | CancellationException e) {
+                // Failed subtasks simply have no result.
+            }
+        }
+        return complete;
+    }
+
+    @Override
+    public void close() {
+        for (Subtask<?> subtask : subtasks) {
+            subtask.future.cancel(true);
+        }
+    }
+
+    private long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    final class Subtask<T> {
+
+        private final FutureTask<T> future;
+
+        private Subtask(FutureTask<T> future) {
+            this.future = future;
+        }
+
+        /**
+         * The result if the subtask finished successfully with a non-null value; empty if it
+         * failed, was cancelled or is still running.
+         */
+        Optional<T> result() {
+            if (future.state() != Future.State.SUCCESS) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(future.resultNow());
+        }
+
+        /**
+         * Waits for the result from inside another subtask, no longer than the scope's deadline.
+         * Returns null if this subtask failed or produced nothing.
+         */
+        T await() throws InterruptedException, TimeoutException {
+            try {
+                return future.get(remainingNanos(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | CancellationException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.timetracker.tracking;
+
+import com.timetracker.model.CategoryRule;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * All category rules compiled into one matcher: the substring rules (app, title, url) share an
+ * {@link AhoCorasick} automaton and the domain rules a {@link DomainSuffixTrie}. Rules are ranked
+ * by priority (highest first), then id, so a match costs one scan per field however many rules
+ * there are, and the best rank across the fields decides the category.
+ */
+public final class CategoryRuleMatcher {
+
+    public static final int NO_CATEGORY = -1;
+
+    private static final int APP = 0;
+    private static final int TITLE = 1;
+    private static final int URL = 2;
+
+    private final int[] categoryByRank;
+    private final AhoCorasick substrings;
+    private final DomainSuffixTrie domains;
+    private final boolean hasDomains;
+
+    private CategoryRuleMatcher(int[] categoryByRank, AhoCorasick substrings, DomainSuffixTrie domains, boolean hasDomains) {
+        this.categoryByRank = categoryByRank;
+        this.substrings = substrings;
+        this.domains = domains;
+        this.hasDomains = hasDomains;
+    }
+
+    public static CategoryRuleMatcher compile(List<CategoryRule> rules) {
+        List<CategoryRule> ranked = new ArrayList<>(rules);
+        ranked.sort(Comparator.comparingInt(CategoryRule::priority).reversed().thenComparingInt(CategoryRule::id));
+        int[] categoryByRank = new int[ranked.size()];
+        AhoCorasick.Builder substrings = AhoCorasick.builder(3);
+        DomainSuffixTrie domains = new DomainSuffixTrie(1);
+        boolean hasDomains = false;
+        for (int rank = 0; rank < ranked.size(); rank++) {
+            CategoryRule rule = ranked.get(rank);
+            categoryByRank[rank] = rule.categoryId();
+            switch (rule.field()) {
+                case APP -> substrings.add(rule.pattern(), APP, rank);
+                case TITLE -> substrings.add(rule.pattern(), TITLE, rank);
+                case URL -> substrings.add(rule.pattern(), URL, rank);
+                case DOMAIN -> {
+                    domains.add(rule.pattern(), 0, rank);
+                    hasDomains = true;
+                }
+            }
+        }
+        return new CategoryRuleMatcher(categoryByRank, substrings.build(), domains, hasDomains);
+    }
+
+    /**
+     * The category of the best matching rule, or {@link #NO_CATEGORY}.
+     */
+    public int match(String appId, String url, String windowTitle) {
+        if (categoryByRank.length == 0) {
+            return NO_CATEGORY;
+        }
+        int best = AhoCorasick.NONE;
+        if (appId != null) {
+            best = Math.min(best, substrings.bestRank(appId, APP));
+        }
+        if (windowTitle != null && best > 0) {
+            best = Math.min(best, substrings.bestRank(windowTitle, TITLE));
+        }
+        if (url != null && best > 0) {
+            best = Math.min(best, substrings.bestRank(url, URL));
+            if (hasDomains) {
+                String domain = ActivityUrlUtils.extractDomain(url).orElse(null);
+                if (domain != null) {
+                    best = Math.min(best, domains.bestRank(domain, 0));
+                }
+            }
+        }
+        return best == AhoCorasick.NONE ? NO_CATEGORY : categoryByRank[best];
+    }
+
+    public int size() {
+        return categoryByRank.length;
+    }
+}
@@ -1,62 +1,288 @@
 package com.timetracker.tracking;
 
-import java.io.BufferedReader;
+import com.timetracker.diagnostics.ResolverEvent;
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
 import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Reads the active tab URL from a Chromium-based browser started with --remote-debugging-port.
- * Falls back silently if the endpoint is not reachable.
+ * Tracks the tabs of a Chromium-based browser started with --remote-debugging-port over one
+ * long-lived DevTools WebSocket. After {@link #start()} it subscribes to target discovery, so the
+ * browser pushes {@code Target.targetCreated}, {@code Target.targetInfoChanged} (navigations and
+ * title changes) and {@code Target.targetDestroyed}; resolving a URL reads the in-memory cache and
+ * never touches the network.
+ * <p>
+ * DevTools does not report which tab has focus. The most recently changed tab is the default, and
+ * {@link #resolveActiveUrl(String)} picks the tab whose title the browser window title starts with
+ * ("Inbox - Google Chrome"). If the browser is not reachable or the socket drops, the cache is
+ * cleared and the connection is retried with exponential backoff.
  */
-public class ChromiumDebugUrlResolver implements BrowserUrlResolver {
+public class ChromiumDebugUrlResolver implements BrowserUrlResolver, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChromiumDebugUrlResolver.class);
+    private static final Counter CONNECTS = MetricsRegistry.global().counter("resolver.devtools.connects");
+    private static final Counter CONNECT_FAILURES = MetricsRegistry.global().counter("resolver.devtools.connect_failures");
+    private static final Counter TARGET_EVENTS = MetricsRegistry.global().counter("resolver.devtools.target_events");
+    private static final String DISCOVER_TARGETS =
+            "{\"id\":1,\"method\":\"Target.setDiscoverTargets\",\"params\":{\"discover\":true}}";
 
-    private static final Pattern URL_PATTERN = Pattern.compile("\"url\"\\s*:\\s*\"([^\"]+)\"");
-    private final int port;
+    private final URI versionEndpoint;
     private final Duration timeout;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, PageTarget> pages = new ConcurrentHashMap<>();
+    private final AtomicReference<WebSocket> socket = new AtomicReference<>();
+    private volatile PageTarget active;
+    private volatile boolean closed;
+    private boolean started;
+    private long backoffMillis;
+
+    public ChromiumDebugUrlResolver(int port, Duration timeout, Duration initialBackoff, Duration maxBackoff) {
+        if (initialBackoff.isNegative() || initialBackoff.isZero() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Backoff must be positive and at most maxBackoff");
+        }
+        this.versionEndpoint = URI.create("http://127.0.0.1:" + port + "/json/version");
+        this.timeout = Objects.requireNonNull(timeout, "timeout");
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.backoffMillis = initialBackoffMillis;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "devtools-resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     public ChromiumDebugUrlResolver(int port, Duration timeout) {
-        this.port = port;
-        this.timeout = timeout;
+        this(port, timeout, Duration.ofMillis(500), Duration.ofSeconds(30));
     }
 
     public ChromiumDebugUrlResolver() {
         this(9222, Duration.ofMillis(500));
     }
 
+    /**
+     * Connects in the background; calling it again, or after {@link #close()}, does nothing.
+     */
+    public synchronized void start() {
+        if (started || closed) {
+            return;
+        }
+        started = true;
+        scheduler.execute(this::connect);
+    }
+
+    public boolean isConnected() {
+        return socket.get() != null;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return isConnected();
+    }
+
     @Override
     public Optional<String> resolveActiveUrl() {
+        PageTarget current = active;
+        return current == null ? Optional.empty() : Optional.of(current.url());
+    }
+
+    @Override
+    public Optional<String> resolveActiveUrl(String windowTitle) {
+        PageTarget current = active;
+        if (windowTitle == null || current != null && current.titlesWindow(windowTitle)) {
+            return resolveActiveUrl();
+        }
+        PageTarget best = null;
+        for (PageTarget page : pages.values()) {
+            if (page.titlesWindow(windowTitle) && (best == null || page.title().length() > best.title().length())) {
+                best = page;
+            }
+        }
+        if (best == null) {
+            return resolveActiveUrl();
+        }
+        active = best;
+        return Optional.of(best.url());
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        WebSocket current = socket.getAndSet(null);
+        if (current != null) {
+            current.abort();
+        }
+        httpClient.shutdownNow();
+        clearTargets();
+    }
+
+    private void connect() {
+        if (closed) {
+            return;
+        }
+        ResolverEvent event = ResolverEvent.begin("chromium-devtools", versionEndpoint.toString());
+        String body = null;
+        boolean connected = false;
         try {
-            URL endpoint = URI.create("http://localhost:" + port + "/json/active").toURL();
-            HttpURLConnection conn = (HttpURLConnection) endpoint.openConnection();
-            conn.setConnectTimeout((int) timeout.toMillis());
-            conn.setReadTimeout((int) timeout.toMillis());
-            conn.setRequestMethod("GET");
-            int status = conn.getResponseCode();
-            if (status != 200) {
-                return Optional.empty();
+            body = fetchVersion();
+            String debuggerUrl = body == null ? null : DevToolsJson.string(DevToolsJson.parseObject(body), "webSocketDebuggerUrl");
+            if (debuggerUrl != null) {
+                WebSocket webSocket = httpClient.newWebSocketBuilder()
+                        .connectTimeout(timeout)
+                        .buildAsync(URI.create(debuggerUrl), new TargetListener())
+                        .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                socket.set(webSocket);
+                webSocket.sendText(DISCOVER_TARGETS, true);
+                connected = true;
+                if (webSocket.isInputClosed()) {
+                    disconnected(webSocket); // closed before the listener could see it registered
+                }
             }
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sb.append(line);
+        } catch (IOException | ExecutionException | TimeoutException | IllegalArgumentException e) {
+            // Browser not started with remote debugging, or it went away; retry later.
+            LOGGER.debug("DevTools connection to {} failed: {}", versionEndpoint, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            event.finish(body, connected);
+        }
+        if (connected) {
+            CONNECTS.increment();
+            synchronized (this) {
+                backoffMillis = initialBackoffMillis;
+            }
+        } else {
+            CONNECT_FAILURES.increment();
+            scheduleReconnect();
+        }
+    }
+
+    private String fetchVersion() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(versionEndpoint).timeout(timeout).GET().build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        return response.statusCode() == 200 ? response.body() : null;
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (closed) {
+            return;
+        }
+        long delay = backoffMillis;
+        backoffMillis = Math.min(maxBackoffMillis, backoffMillis * 2);
+        scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void disconnected(WebSocket webSocket) {
+        if (socket.compareAndSet(webSocket, null)) {
+            clearTargets();
+            scheduleReconnect();
+        }
+    }
+
+    private void clearTargets() {
+        pages.clear();
+        active = null;
+    }
+
+    private void handleMessage(String message) {
+        Map<String, Object> json = DevToolsJson.parseObject(message);
+        String method = DevToolsJson.string(json, "method");
+        if (method == null) {
+            return; // command reply
+        }
+        Map<String, Object> params = DevToolsJson.object(json, "params");
+        switch (method) {
+            case "Target.targetCreated", "Target.targetInfoChanged" -> {
+                Map<String, Object> info = DevToolsJson.object(params, "targetInfo");
+                String targetId = DevToolsJson.string(info, "targetId");
+                String url = DevToolsJson.string(info, "url");
+                if (targetId == null || url == null || !"page".equals(DevToolsJson.string(info, "type"))) {
+                    return;
+                }
+                String title = Objects.requireNonNullElse(DevToolsJson.string(info, "title"), "");
+                PageTarget page = new PageTarget(targetId, title, url);
+                pages.put(targetId, page);
+                active = page;
+                TARGET_EVENTS.increment();
+            }
+            case "Target.targetDestroyed" -> {
+                String targetId = DevToolsJson.string(params, "targetId");
+                if (targetId != null && pages.remove(targetId) != null) {
+                    PageTarget current = active;
+                    if (current != null && current.targetId().equals(targetId)) {
+                        active = null;
+                    }
+                    TARGET_EVENTS.increment();
                 }
-                Matcher matcher = URL_PATTERN.matcher(sb.toString());
-                if (matcher.find()) {
-                    String url = matcher.group(1);
-                    return Optional.ofNullable(url);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private record PageTarget(String targetId, String title, String url) {
+
+        boolean titlesWindow(String windowTitle) {
+            return !title.isEmpty() && windowTitle.startsWith(title);
+        }
+    }
+
+    private final class TargetListener implements WebSocket.Listener {
+
+        private final StringBuilder partial = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                String message = partial.toString();
+                partial.setLength(0);
+                try {
+                    handleMessage(message);
+                } catch (IllegalArgumentException e) {
+                    LOGGER.debug("Ignoring malformed DevTools message", e);
                 }
             }
-        } catch (IOException ignored) {
-            // Browser may not expose remote debugging; ignore.
+            webSocket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            disconnected(webSocket);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            LOGGER.debug("DevTools connection lost", error);
+            disconnected(webSocket);
         }
-        return Optional.empty();
     }
 }
@@ -0,0 +1,77 @@
+package com.timetracker.tracking;
+
+/**
+ * Consecutive-failure circuit breaker with exponential re-probing. Closed, every call is allowed;
+ * after {@code failureThreshold} failures in a row (or a {@link #trip}) it opens and refuses calls
+ * until the re-probe time. Then one probe goes through: success closes the breaker, and another
+ * failure reopens it with the interval doubled, up to the maximum. Times are
+ * {@link System#nanoTime()} readings supplied by the caller.
+ */
+final class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long initialReprobeNanos;
+    private final long maxReprobeNanos;
+    private int consecutiveFailures;
+    private long reprobeNanos;
+    private long reprobeAtNanos;
+    private boolean open;
+
+    CircuitBreaker(int failureThreshold, long initialReprobeNanos, long maxReprobeNanos) {
+        if (failureThreshold < 1 || initialReprobeNanos <= 0 || maxReprobeNanos < initialReprobeNanos) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
+        this.failureThreshold = failureThreshold;
+        this.initialReprobeNanos = initialReprobeNanos;
+        this.maxReprobeNanos = maxReprobeNanos;
+        this.reprobeNanos = initialReprobeNanos;
+    }
+
+    /**
+     * Whether a call may go ahead now. An open breaker lets one probe through once the re-probe
+     * time has passed and holds further calls back for another interval while it runs.
+     */
+    synchronized boolean allowRequest(long nowNanos) {
+        if (!open) {
+            return true;
+        }
+        if (nowNanos - reprobeAtNanos < 0) {
+            return false;
+        }
+        reprobeAtNanos = nowNanos + reprobeNanos;
+        return true;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        reprobeNanos = initialReprobeNanos;
+        open = false;
+    }
+
+    synchronized void recordFailure(long nowNanos) {
+        consecutiveFailures++;
+        if (open || consecutiveFailures >= failureThreshold) {
+            openAt(nowNanos);
+        }
+    }
+
+    /**
+     * Opens immediately, for failures that will not go away on the next call (nothing listening).
+     */
+    synchronized void trip(long nowNanos) {
+        consecutiveFailures = Math.max(consecutiveFailures + 1, failureThreshold);
+        openAt(nowNanos);
+    }
+
+    synchronized boolean isOpen() {
+        return open;
+    }
+
+    private void openAt(long nowNanos) {
+        if (open) {
+            reprobeNanos = Math.min(maxReprobeNanos, reprobeNanos * 2);
+        }
+        open = true;
+        reprobeAtNanos = nowNanos + reprobeNanos;
+    }
+}
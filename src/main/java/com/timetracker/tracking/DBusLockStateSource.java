@@ -0,0 +1,517 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Listens for screen lock signals on a D-Bus bus and reports them to a {@link LockStateListener}:
+ * <ul>
+ *     <li>{@code ActiveChanged(b)} from the freedesktop, GNOME, Cinnamon and MATE screensaver
+ *     interfaces on the session bus;</li>
+ *     <li>{@code Lock} and {@code Unlock} from logind ({@code org.freedesktop.login1.Session}) on
+ *     the system bus, for this login session only.</li>
+ * </ul>
+ * Speaks the D-Bus wire protocol directly over the bus's Unix socket (EXTERNAL auth, {@code Hello},
+ * {@code AddMatch}), so no D-Bus library is needed and the only cost is one blocked reader thread
+ * that wakes when a matching signal arrives. Only {@code unix:path=} addresses are supported; Java
+ * cannot connect to abstract sockets. A dropped connection is retried with backoff.
+ */
+public final class DBusLockStateSource implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DBusLockStateSource.class);
+    private static final Counter SIGNALS = MetricsRegistry.global().counter("lock.dbus.signals");
+    private static final Counter CONNECTS = MetricsRegistry.global().counter("lock.dbus.connects");
+
+    static final List<String> SCREENSAVER_INTERFACES = List.of(
+            "org.freedesktop.ScreenSaver", "org.gnome.ScreenSaver", "org.cinnamon.ScreenSaver", "org.mate.ScreenSaver");
+    static final String LOGIND_SESSION_INTERFACE = "org.freedesktop.login1.Session";
+
+    private static final int METHOD_CALL = 1;
+    private static final int METHOD_RETURN = 2;
+    private static final int ERROR = 3;
+    private static final int SIGNAL = 4;
+    private static final int NO_REPLY_EXPECTED = 0x1;
+    private static final int MAX_MESSAGE_BYTES = 1 << 20;
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private final String name;
+    private final Path socket;
+    private final List<String> matchRules;
+    private final LockStateListener listener;
+
+    private volatile SocketChannel channel;
+    private volatile boolean closed;
+    private Thread reader;
+    private int serial;
+
+    DBusLockStateSource(String name, Path socket, List<String> matchRules, LockStateListener listener) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.socket = socket;
+        this.matchRules = List.copyOf(matchRules);
+        this.listener = Objects.requireNonNull(listener, "listener");
+    }
+
+    /**
+     * Screensaver {@code ActiveChanged} signals on the session bus
+     * ({@code DBUS_SESSION_BUS_ADDRESS}, else {@code $XDG_RUNTIME_DIR/bus}).
+     */
+    public static DBusLockStateSource sessionBus(LockStateListener listener) {
+        String address = System.getenv("DBUS_SESSION_BUS_ADDRESS");
+        Path socket = socketPath(address);
+        String runtimeDir = System.getenv("XDG_RUNTIME_DIR");
+        if (address == null && runtimeDir != null && !runtimeDir.isBlank()) {
+            socket = Path.of(runtimeDir, "bus");
+        }
+        List<String> rules = SCREENSAVER_INTERFACES.stream()
+                .map(iface -> "type='signal',interface='" + iface + "',member='ActiveChanged'")
+                .toList();
+        return new DBusLockStateSource("session", socket, rules, listener);
+    }
+
+    /**
+     * logind {@code Lock}/{@code Unlock} signals for this login session ({@code XDG_SESSION_ID}) on
+     * the system bus. Without a session id there is nothing to match, and {@link #start()} fails.
+     */
+    public static DBusLockStateSource systemBus(LockStateListener listener) {
+        String address = System.getenv("DBUS_SYSTEM_BUS_ADDRESS");
+        Path socket = address == null ? Path.of("/var/run/dbus/system_bus_socket") : socketPath(address);
+        String sessionId = System.getenv("XDG_SESSION_ID");
+        if (sessionId == null || sessionId.isBlank()) {
+            return new DBusLockStateSource("system", null, List.of(), listener);
+        }
+        String rule = "type='signal',sender='org.freedesktop.login1',interface='" + LOGIND_SESSION_INTERFACE
+                + "',path='" + logindSessionPath(sessionId.trim()) + "'";
+        return new DBusLockStateSource("system", socket, List.of(rule), listener);
+    }
+
+    /**
+     * Connects and subscribes. Returns false if the bus cannot be reached; signals are then never
+     * reported by this source.
+     */
+    public synchronized boolean start() {
+        if (socket == null || matchRules.isEmpty()) {
+            LOGGER.info("Lock detection on the {} bus unavailable: no usable bus address", name);
+            return false;
+        }
+        try {
+            connect();
+        } catch (IOException e) {
+            LOGGER.info("Lock detection on the {} bus unavailable: {}", name, e.getMessage());
+            closeChannel();
+            return false;
+        }
+        reader = new Thread(this::readLoop, "dbus-lock-" + name);
+        reader.setDaemon(true);
+        reader.start();
+        return true;
+    }
+
+    private void connect() throws IOException {
+        SocketChannel opened = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel = opened;
+        opened.connect(UnixDomainSocketAddress.of(socket));
+        authenticate(opened);
+        serial = 0;
+        int hello = send(opened, METHOD_CALL, 0, "/org/freedesktop/DBus", "org.freedesktop.DBus", "Hello", null, null);
+        while (true) {
+            Message reply = readMessage(opened);
+            if (reply.replySerial == hello && reply.type == METHOD_RETURN) {
+                break;
+            }
+            if (reply.replySerial == hello && reply.type == ERROR) {
+                throw new IOException("Hello failed: " + reply.errorName);
+            }
+        }
+        for (String rule : matchRules) {
+            send(opened, METHOD_CALL, NO_REPLY_EXPECTED, "/org/freedesktop/DBus", "org.freedesktop.DBus", "AddMatch",
+                    "s", marshalString(rule));
+        }
+        CONNECTS.increment();
+    }
+
+    private void readLoop() {
+        long backoffMillis = 1000;
+        while (!closed) {
+            try {
+                SocketChannel current = channel;
+                while (!closed) {
+                    dispatch(readMessage(current));
+                    backoffMillis = 1000;
+                }
+            } catch (IOException e) {
+                if (closed) {
+                    return;
+                }
+                LOGGER.debug("Lost the {} bus connection", name, e);
+            }
+            closeChannel();
+            try {
+                Thread.sleep(backoffMillis);
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF.toMillis());
+                synchronized (this) {
+                    if (!closed) {
+                        connect();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.debug("Reconnect to the {} bus failed", name, e);
+            }
+        }
+    }
+
+    void dispatch(Message message) {
+        if (message.type != SIGNAL || message.iface == null || message.member == null) {
+            return;
+        }
+        Boolean locked = null;
+        if (message.member.equals("ActiveChanged") && SCREENSAVER_INTERFACES.contains(message.iface)
+                && "b".equals(message.signature) && message.body.remaining() >= 4) {
+            locked = message.body.getInt(message.body.position()) != 0;
+        } else if (message.iface.equals(LOGIND_SESSION_INTERFACE) && message.member.equals("Lock")) {
+            locked = true;
+        } else if (message.iface.equals(LOGIND_SESSION_INTERFACE) && message.member.equals("Unlock")) {
+            locked = false;
+        }
+        if (locked != null) {
+            SIGNALS.increment();
+            try {
+                listener.lockStateChanged(locked);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Lock state listener failed", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        closeChannel();
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    private void closeChannel() {
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close the {} bus connection cleanly", name, e);
+            }
+        }
+    }
+
+    private static void authenticate(SocketChannel channel) throws IOException {
+        String uid;
+        try {
+            uid = HexFormat.of().formatHex(
+                    String.valueOf(Files.getAttribute(Path.of("/proc/self"), "unix:uid")).getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException | UnsupportedOperationException e) {
+            uid = "";
+        }
+        String command = uid.isEmpty() ? "AUTH EXTERNAL" : "AUTH EXTERNAL " + uid;
+        writeFully(channel, ByteBuffer.wrap(("\0" + command + "\r\n").getBytes(StandardCharsets.US_ASCII)));
+        String response = readLine(channel);
+        if (response.startsWith("DATA")) {
+            writeFully(channel, ByteBuffer.wrap("DATA\r\n".getBytes(StandardCharsets.US_ASCII)));
+            response = readLine(channel);
+        }
+        if (!response.startsWith("OK")) {
+            throw new IOException("Bus rejected EXTERNAL authentication: " + response);
+        }
+        writeFully(channel, ByteBuffer.wrap("BEGIN\r\n".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static String readLine(SocketChannel channel) throws IOException {
+        StringBuilder line = new StringBuilder();
+        ByteBuffer one = ByteBuffer.allocate(1);
+        while (line.length() < 512) {
+            one.clear();
+            if (channel.read(one) < 0) {
+                throw new EOFException("Bus closed the connection during authentication");
+            }
+            char c = (char) one.get(0);
+            if (c == '\n') {
+                return line.toString().strip();
+            }
+            line.append(c);
+        }
+        throw new IOException("Authentication line too long");
+    }
+
+    private int send(SocketChannel channel, int type, int flags, String path, String iface, String member,
+                     String signature, byte[] body) throws IOException {
+        int messageSerial = ++serial;
+        byte[] payload = body == null ? new byte[0] : body;
+        Marshaller out = new Marshaller();
+        out.putByte('l').putByte(type).putByte(flags).putByte(1).putInt(payload.length).putInt(messageSerial);
+        int arrayLengthAt = out.size();
+        out.putInt(0);
+        out.align(8);
+        int fieldsStart = out.size();
+        out.headerField(1, 'o', path);
+        out.headerField(2, 's', iface);
+        out.headerField(3, 's', member);
+        out.headerField(6, 's', "org.freedesktop.DBus");
+        if (signature != null) {
+            out.headerField(8, 'g', signature);
+        }
+        out.setInt(arrayLengthAt, out.size() - fieldsStart);
+        out.align(8);
+        out.putBytes(payload);
+        writeFully(channel, ByteBuffer.wrap(out.toByteArray()));
+        return messageSerial;
+    }
+
+    private static byte[] marshalString(String value) {
+        return new Marshaller().putString(value).toByteArray();
+    }
+
+    static Message readMessage(SocketChannel channel) throws IOException {
+        ByteBuffer fixed = readFully(channel, 16);
+        ByteOrder order = switch (fixed.get(0)) {
+            case 'l' -> ByteOrder.LITTLE_ENDIAN;
+            case 'B' -> ByteOrder.BIG_ENDIAN;
+            default -> throw new IOException("Bad D-Bus endianness marker");
+        };
+        fixed.order(order);
+        long bodyLength = Integer.toUnsignedLong(fixed.getInt(4));
+        long fieldsLength = Integer.toUnsignedLong(fixed.getInt(12));
+        long bodyStart = align(16 + fieldsLength, 8);
+        if (bodyStart + bodyLength > MAX_MESSAGE_BYTES) {
+            throw new IOException("D-Bus message too large: " + (bodyStart + bodyLength) + " bytes");
+        }
+        ByteBuffer rest = readFully(channel, (int) (bodyStart + bodyLength - 16));
+        ByteBuffer message = ByteBuffer.allocate((int) (bodyStart + bodyLength)).order(order);
+        message.put(fixed.rewind()).put(rest.rewind()).rewind();
+        return Message.parse(message, (int) fieldsLength, (int) bodyStart);
+    }
+
+    private static ByteBuffer readFully(SocketChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Bus closed the connection");
+            }
+        }
+        return buffer;
+    }
+
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long align(long offset, int boundary) {
+        return (offset + boundary - 1) & -boundary;
+    }
+
+    /**
+     * The socket of the first {@code unix:path=} entry of a D-Bus address list, or null.
+     */
+    static Path socketPath(String address) {
+        if (address == null) {
+            return null;
+        }
+        for (String entry : address.split(";")) {
+            if (!entry.startsWith("unix:")) {
+                continue;
+            }
+            for (String pair : entry.substring("unix:".length()).split(",")) {
+                if (pair.startsWith("path=")) {
+                    return Path.of(pair.substring("path=".length()));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * logind's object path for a session id, escaped the way sd-bus does: every byte that is not
+     * an ASCII letter or digit, and a leading digit, becomes {@code _xx}.
+     */
+    static String logindSessionPath(String sessionId) {
+        StringBuilder path = new StringBuilder("/org/freedesktop/login1/session/");
+        byte[] bytes = sessionId.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < bytes.length; i++) {
+            int b = bytes[i] & 0xFF;
+            boolean alnum = (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9');
+            if (alnum && !(i == 0 && b <= '9')) {
+                path.append((char) b);
+            } else {
+                path.append('_').append(HexFormat.of().toHexDigits((byte) b));
+            }
+        }
+        return path.toString();
+    }
+
+    static final class Message {
+        final int type;
+        final int replySerial;
+        final String iface;
+        final String member;
+        final String errorName;
+        final String signature;
+        final ByteBuffer body;
+
+        private Message(int type, int replySerial, String iface, String member, String errorName, String signature,
+                        ByteBuffer body) {
+            this.type = type;
+            this.replySerial = replySerial;
+            this.iface = iface;
+            this.member = member;
+            this.errorName = errorName;
+            this.signature = signature;
+            this.body = body;
+        }
+
+        private static Message parse(ByteBuffer message, int fieldsLength, int bodyStart) throws IOException {
+            int type = message.get(1);
+            int replySerial = -1;
+            String iface = null;
+            String member = null;
+            String errorName = null;
+            String signature = null;
+            int pos = 16;
+            int end = 16 + fieldsLength;
+            while (pos < end) {
+                pos = (int) align(pos, 8);
+                int code = message.get(pos);
+                int signatureLength = message.get(pos + 1);
+                if (signatureLength != 1) {
+                    throw new IOException("Unexpected header field signature");
+                }
+                char valueType = (char) message.get(pos + 2);
+                pos += 4;
+                switch (valueType) {
+                    case 's', 'o' -> {
+                        pos = (int) align(pos, 4);
+                        int length = message.getInt(pos);
+                        String value = new String(message.array(), pos + 4, length, StandardCharsets.UTF_8);
+                        pos += 4 + length + 1;
+                        switch (code) {
+                            case 2 -> iface = value;
+                            case 3 -> member = value;
+                            case 4 -> errorName = value;
+                            default -> {
+                            }
+                        }
+                    }
+                    case 'g' -> {
+                        int length = message.get(pos) & 0xFF;
+                        String value = new String(message.array(), pos + 1, length, StandardCharsets.US_ASCII);
+                        pos += 1 + length + 1;
+                        if (code == 8) {
+                            signature = value;
+                        }
+                    }
+                    case 'u' -> {
+                        pos = (int) align(pos, 4);
+                        if (code == 5) {
+                            replySerial = message.getInt(pos);
+                        }
+                        pos += 4;
+                    }
+                    default -> throw new IOException("Unexpected header field type " + valueType);
+                }
+            }
+            ByteBuffer body = message.slice(bodyStart, message.capacity() - bodyStart).order(message.order());
+            return new Message(type, replySerial, iface, member, errorName, signature, body);
+        }
+    }
+
+    /**
+     * Little-endian D-Bus marshalling of the few types this client sends.
+     */
+    private static final class Marshaller {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int size() {
+            return out.size();
+        }
+
+        Marshaller putByte(int value) {
+            out.write(value);
+            return this;
+        }
+
+        Marshaller putInt(int value) {
+            align(4);
+            out.write(value);
+            out.write(value >>> 8);
+            out.write(value >>> 16);
+            out.write(value >>> 24);
+            return this;
+        }
+
+        Marshaller putBytes(byte[] bytes) {
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        Marshaller putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            out.writeBytes(bytes);
+            out.write(0);
+            return this;
+        }
+
+        void putSignature(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            out.write(bytes.length);
+            out.writeBytes(bytes);
+            out.write(0);
+        }
+
+        void headerField(int code, char type, String value) {
+            align(8);
+            putByte(code);
+            putSignature(String.valueOf(type));
+            if (type == 'g') {
+                putSignature(value);
+            } else {
+                putString(value);
+            }
+        }
+
+        void align(int boundary) {
+            while (out.size() % boundary != 0) {
+                out.write(0);
+            }
+        }
+
+        void setInt(int offset, int value) {
+            byte[] bytes = out.toByteArray();
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+            out.reset();
+            out.writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.timetracker.tracking;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Domains keyed by their labels from the right ({@code com -> github -> gist}), so one walk over
+ * a host finds every rule for the host itself and each of its parent domains. Like
+ * {@link AhoCorasick}, entries carry a slot and a rank and lookups return the lowest rank per slot.
+ */
+final class DomainSuffixTrie {
+
+    private final int slots;
+    private final Node root;
+
+    DomainSuffixTrie(int slots) {
+        this.slots = slots;
+        this.root = new Node(slots);
+    }
+
+    /**
+     * Adds {@code domain} to {@code slot} with {@code rank}; a leading {@code *.} or {@code .} is
+     * ignored, since subdomains always match.
+     */
+    void add(String domain, int slot, int rank) {
+        String normalized = normalize(domain);
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Domain cannot be empty: " + domain);
+        }
+        Node node = root;
+        int end = normalized.length();
+        while (end > 0) {
+            int dot = normalized.lastIndexOf('.', end - 1);
+            node = node.children.computeIfAbsent(normalized.substring(dot + 1, end), label -> new Node(slots));
+            end = dot;
+        }
+        node.ranks[slot] = Math.min(node.ranks[slot], rank);
+    }
+
+    /**
+     * The lowest rank in {@code slot} among the domains that equal {@code host} or are a parent
+     * of it, or {@link AhoCorasick#NONE}.
+     */
+    int bestRank(String host, int slot) {
+        int[] out = new int[slots];
+        bestRanks(host, out);
+        return out[slot];
+    }
+
+    /**
+     * {@link #bestRank} for every slot in one walk; {@code out[slot]} receives each result.
+     */
+    void bestRanks(String host, int[] out) {
+        Arrays.fill(out, AhoCorasick.NONE);
+        String normalized = normalize(host);
+        Node node = root;
+        int end = normalized.length();
+        while (end > 0 && node != null) {
+            int dot = normalized.lastIndexOf('.', end - 1);
+            node = node.children.get(normalized.substring(dot + 1, end));
+            if (node != null) {
+                for (int slot = 0; slot < out.length; slot++) {
+                    out[slot] = Math.min(out[slot], node.ranks[slot]);
+                }
+            }
+            end = dot;
+        }
+    }
+
+    private static String normalize(String domain) {
+        String lower = domain.trim().toLowerCase(Locale.ROOT);
+        if (lower.startsWith("*.")) {
+            lower = lower.substring(2);
+        }
+        int start = 0;
+        int end = lower.length();
+        while (start < end && lower.charAt(start) == '.') {
+            start++;
+        }
+        while (end > start && lower.charAt(end - 1) == '.') {
+            end--;
+        }
+        return lower.substring(start, end);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final int[] ranks;
+
+        private Node(int slots) {
+            ranks = new int[slots];
+            Arrays.fill(ranks, AhoCorasick.NONE);
+        }
+    }
+}
@@ -1,39 +1,52 @@
 package com.timetracker.tracking;
 
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.github.kwhat.jnativehook.GlobalScreen;
-import com.github.kwhat.jnativehook.NativeHookException;
-import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
-import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
-import com.github.kwhat.jnativehook.mouse.NativeMouseEvent;
-import com.github.kwhat.jnativehook.mouse.NativeMouseInputListener;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Objects;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
 
 /**
- * Emits IDLE_ON/IDLE_OFF events based on global input activity.
+ * Emits IDLE_ON/IDLE_OFF events based on the idle time reported by an {@link IdleSource}.
+ * <p>
+ * Checks are scheduled adaptively: while the user is active, the next check is due when the idle
+ * time could first reach the threshold (input in between only pushes that further out), so an
+ * active session costs one check every few minutes. While idle, checks run every second so the
+ * return is noticed promptly.
  */
-public class IdleDetectionService implements AutoCloseable, NativeKeyListener, NativeMouseInputListener {
+public class IdleDetectionService implements AutoCloseable, Parkable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IdleDetectionService.class);
+    private static final Counter CHECKS = MetricsRegistry.global().counter("idle.checks");
+    private static final Counter CHECK_FAILURES = MetricsRegistry.global().counter("idle.check_failures");
+    static final Duration MIN_CHECK_INTERVAL = Duration.ofSeconds(1);
+    static final Duration RETRY_INTERVAL = Duration.ofSeconds(5);
 
-    private final ActivityEventDao eventDao;
+    private final ActivityEventSink events;
     private final Duration idleThreshold;
+    private final IdleSource source;
     private final ScheduledExecutorService scheduler;
 
-    private volatile Instant lastActivity = Instant.now();
     private volatile boolean idle = false;
-
-    public IdleDetectionService(ActivityEventDao eventDao, Duration idleThreshold) {
-        this.eventDao = Objects.requireNonNull(eventDao, "eventDao");
+    private boolean parked;
+    private ScheduledFuture<?> nextCheck;
+
+    /**
+     * @param source an already started idle source; closed with this service
+     */
+    public IdleDetectionService(ActivityEventSink events, Duration idleThreshold, IdleSource source) {
+        this.events = Objects.requireNonNull(events, "events");
         this.idleThreshold = Objects.requireNonNull(idleThreshold, "idleThreshold");
+        this.source = Objects.requireNonNull(source, "source");
         this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "idle-detector");
             t.setDaemon(true);
@@ -42,86 +55,78 @@ public class IdleDetectionService implements AutoCloseable, NativeKeyListener, N
     }
 
     public void start() {
-        suppressJNativeHookLogging();
-        try {
-            GlobalScreen.registerNativeHook();
-            GlobalScreen.addNativeKeyListener(this);
-            GlobalScreen.addNativeMouseListener(this);
-            GlobalScreen.addNativeMouseMotionListener(this);
-        } catch (NativeHookException e) {
-            LOGGER.warn("Failed to register native hook for idle detection", e);
-            return;
-        }
-        scheduler.scheduleAtFixedRate(this::checkIdle, 1, 1, TimeUnit.SECONDS);
+        LOGGER.info("Idle detection using {} source", source.name());
+        schedule(MIN_CHECK_INTERVAL);
     }
 
-    private void checkIdle() {
-        Instant now = Instant.now();
-        Duration sinceActivity = Duration.between(lastActivity, now);
-        if (!idle && sinceActivity.compareTo(idleThreshold) >= 0) {
-            idle = true;
-            eventDao.insert(new ActivityEvent(now, ActivityEventType.IDLE_ON, null, null, null, null));
-        } else if (idle && sinceActivity.compareTo(idleThreshold) < 0) {
-            idle = false;
-            eventDao.insert(new ActivityEvent(now, ActivityEventType.IDLE_OFF, null, null, null, null));
+    private void check() {
+        Duration next;
+        try {
+            next = checkOnce(Instant.now());
+        } catch (IOException | RuntimeException e) {
+            CHECK_FAILURES.increment();
+            LOGGER.debug("Idle check via {} failed", source.name(), e);
+            next = RETRY_INTERVAL;
         }
+        schedule(next);
     }
 
-    private void markActivity() {
-        lastActivity = Instant.now();
-    }
-
-    @Override
-    public void nativeKeyPressed(NativeKeyEvent nativeKeyEvent) {
-        markActivity();
-    }
-
-    @Override
-    public void nativeKeyReleased(NativeKeyEvent nativeKeyEvent) {
-    }
-
-    @Override
-    public void nativeKeyTyped(NativeKeyEvent nativeKeyEvent) {
-    }
-
-    @Override
-    public void nativeMouseClicked(NativeMouseEvent nativeMouseEvent) {
-        markActivity();
-    }
-
-    @Override
-    public void nativeMousePressed(NativeMouseEvent nativeMouseEvent) {
-        markActivity();
+    private synchronized void schedule(Duration delay) {
+        if (parked) {
+            return;
+        }
+        try {
+            nextCheck = scheduler.schedule(this::check, delay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // Closed.
+        }
     }
 
+    /**
+     * Drops the pending check; a check already running finishes but does not schedule another.
+     */
     @Override
-    public void nativeMouseReleased(NativeMouseEvent nativeMouseEvent) {
-        markActivity();
+    public synchronized void park() {
+        parked = true;
+        if (nextCheck != null) {
+            nextCheck.cancel(false);
+            nextCheck = null;
+        }
     }
 
     @Override
-    public void nativeMouseMoved(NativeMouseEvent nativeMouseEvent) {
-        markActivity();
+    public synchronized void unpark() {
+        if (parked) {
+            parked = false;
+            schedule(MIN_CHECK_INTERVAL);
+        }
     }
 
-    @Override
-    public void nativeMouseDragged(NativeMouseEvent nativeMouseEvent) {
-        markActivity();
+    /**
+     * Reads the idle time once, emits a transition event if the threshold was crossed and returns
+     * the delay until the next check.
+     */
+    Duration checkOnce(Instant now) throws IOException {
+        Duration idleTime = source.idleTime();
+        CHECKS.increment();
+        boolean pastThreshold = idleTime.compareTo(idleThreshold) >= 0;
+        if (!idle && pastThreshold) {
+            idle = true;
+            events.append(now, ActivityEventType.IDLE_ON, null, null, null, null);
+        } else if (idle && !pastThreshold) {
+            idle = false;
+            events.append(now, ActivityEventType.IDLE_OFF, null, null, null, null);
+        }
+        if (idle) {
+            return MIN_CHECK_INTERVAL;
+        }
+        Duration untilIdle = idleThreshold.minus(idleTime);
+        return untilIdle.compareTo(MIN_CHECK_INTERVAL) < 0 ? MIN_CHECK_INTERVAL : untilIdle;
     }
 
     @Override
     public void close() {
         scheduler.shutdownNow();
-        try {
-            GlobalScreen.unregisterNativeHook();
-        } catch (NativeHookException e) {
-            LOGGER.debug("Failed to unregister native hook cleanly", e);
-        }
-    }
-
-    private void suppressJNativeHookLogging() {
-        java.util.logging.Logger logger = java.util.logging.Logger.getLogger(GlobalScreen.class.getPackage().getName());
-        logger.setLevel(Level.OFF);
-        logger.setUseParentHandlers(false);
+        source.close();
     }
 }
@@ -0,0 +1,29 @@
+package com.timetracker.tracking;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Where {@link IdleDetectionService} learns how long the user has been away from keyboard and
+ * mouse. Sources are asked on demand, so the service decides how often to look.
+ */
+public interface IdleSource extends AutoCloseable {
+
+    /**
+     * Prepares the source. Returns false if it cannot work in this session (no X server, no
+     * extension, no native hook), so the caller can try another one.
+     */
+    boolean start();
+
+    /**
+     * Time since the last keyboard or mouse input.
+     *
+     * @throws IOException if the source lost its connection; it reconnects on a later call
+     */
+    Duration idleTime() throws IOException;
+
+    String name();
+
+    @Override
+    void close();
+}
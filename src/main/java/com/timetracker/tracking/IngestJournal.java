@@ -0,0 +1,556 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal in front of {@code activity_events}. Events are written into fixed-size
+ * records of memory-mapped segment files, which costs no JDBC call, no SQLite page write and no
+ * allocation on the capture path; a compactor thread drains them into the table in large
+ * transactions.
+ * <p>
+ * Each drain commits the rows together with a checkpoint (segment, slot) in
+ * {@code ingest_checkpoints}, so after a crash {@link #open()} replays exactly the records that
+ * had not been drained. Records carry a CRC32C; a record torn by a crash ends its segment.
+ * The mapped pages are not forced to disk per append: a killed process loses nothing, a power
+ * failure loses what the kernel had not written back yet.
+ * <p>
+ * Record layout (little-endian): length of everything after the CRC, CRC32C, epoch second, nano,
+ * event type ordinal, one unused byte, the UTF-8 lengths of app id, title, url and payload
+ * ({@code 0xFFFF} for null), then the UTF-8 bytes. The length is published last with release
+ * semantics, so a reader that sees it non-zero sees the whole record. Events that do not fit in
+ * a record go straight to the DAO.
+ */
+public final class IngestJournal implements ActivityEventSink, Parkable, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestJournal.class);
+    private static final Counter APPENDED = MetricsRegistry.global().counter("ingest.journal.appended");
+    private static final Counter OVERSIZE = MetricsRegistry.global().counter("ingest.journal.oversize");
+    private static final Counter DRAINED = MetricsRegistry.global().counter("ingest.journal.drained");
+    private static final Counter DRAIN_FAILURES = MetricsRegistry.global().counter("ingest.journal.drain_failures");
+    private static final Counter TORN_RECORDS = MetricsRegistry.global().counter("ingest.journal.torn_records");
+    private static final Counter REPLAYED = MetricsRegistry.global().counter("ingest.journal.replayed");
+    private static final LatencyHistogram APPEND_LATENCY = MetricsRegistry.global().histogram("ingest.journal.append");
+    private static final LatencyHistogram DRAIN_LATENCY = MetricsRegistry.global().histogram("ingest.journal.drain");
+
+    static final String NAME = "activity_events";
+    static final int RECORD_SIZE = 1024;
+    static final int RECORDS_PER_SEGMENT = 4096;
+    static final int MAX_DRAIN_BATCH = 4096;
+
+    private static final int OFF_LENGTH = 0;
+    private static final int OFF_CRC = 4;
+    private static final int OFF_SECONDS = 8;
+    private static final int OFF_NANOS = 16;
+    private static final int OFF_TYPE = 20;
+    private static final int OFF_FIELD_LENGTHS = 22;
+    private static final int OFF_BODY = 30;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int MAX_BODY = RECORD_SIZE - OFF_BODY;
+    private static final ActivityEventType[] TYPES = ActivityEventType.values();
+    private static final Pattern SEGMENT_NAME = Pattern.compile("ingest-(\\d+)\\.seg");
+    private static final VarHandle LENGTH =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directory;
+    private final ActivityEventDao dao;
+    private final int recordsPerSegment;
+    private final ScheduledExecutorService compactor;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Appended by this instance and not drained yet; replayed records were never counted here.
+    private final AtomicLong pending = new AtomicLong();
+    private final CRC32C writeCrc = new CRC32C();
+    private final Object drainLock = new Object();
+
+    // Writer state, guarded by this.
+    private Segment active;
+    private ByteBuffer crcView;
+    private int writeSlot;
+    private boolean closed;
+    private volatile long activeSequence = -1;
+
+    // Reader state, guarded by drainLock.
+    private final CRC32C readCrc = new CRC32C();
+    private final byte[] scratch = new byte[MAX_BODY];
+    private long readSequence;
+    private int readSlot;
+
+    // Compactor state, guarded by this.
+    private Duration drainInterval;
+    private ScheduledFuture<?> drainSchedule;
+    private boolean parked;
+
+    public IngestJournal(Path directory, ActivityEventDao dao) {
+        this(directory, dao, RECORDS_PER_SEGMENT);
+    }
+
+    IngestJournal(Path directory, ActivityEventDao dao, int recordsPerSegment) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.dao = Objects.requireNonNull(dao, "dao");
+        if (recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("recordsPerSegment must be positive");
+        }
+        this.recordsPerSegment = recordsPerSegment;
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ingest-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Registers {@code ingest.journal.segments} for this journal; called once by its owner.
+     */
+    public void registerGauges(MetricsRegistry metrics) {
+        metrics.gauge("ingest.journal.segments", segments::size);
+    }
+
+    /**
+     * Events appended to this journal that have not reached SQLite yet.
+     */
+    public long pendingRecords() {
+        return Math.max(0, pending.get());
+    }
+
+    /**
+     * Where the position of the next record to drain is kept; {@code slot} counts records.
+     */
+    record Position(long segment, int slot) {
+    }
+
+    /**
+     * Maps the segments left by a previous run, replays what they hold past the checkpoint and
+     * starts a fresh segment for appends. Returns the number of records replayed.
+     */
+    public int open() throws IOException {
+        Files.createDirectories(directory);
+        Position checkpoint = dao.findCheckpoint(NAME);
+        long lastSequence = checkpoint == null ? 0 : checkpoint.segment();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long sequence = Long.parseLong(matcher.group(1));
+                lastSequence = Math.max(lastSequence, sequence);
+                if (checkpoint != null && sequence < checkpoint.segment()) {
+                    // Drained, but the process stopped before deleting it.
+                    Files.deleteIfExists(file);
+                } else {
+                    segments.put(sequence, Segment.map(sequence, file, 0));
+                }
+            }
+        }
+        synchronized (this) {
+            startSegment(lastSequence + 1);
+        }
+        synchronized (drainLock) {
+            if (checkpoint != null && segments.containsKey(checkpoint.segment())) {
+                readSequence = checkpoint.segment();
+                readSlot = checkpoint.slot();
+            } else {
+                readSequence = segments.firstKey();
+                readSlot = 0;
+            }
+        }
+        int replayed = drain();
+        pending.addAndGet(replayed);
+        REPLAYED.add(replayed);
+        if (replayed > 0) {
+            LOGGER.info("Replayed {} journaled activity events", replayed);
+        }
+        return replayed;
+    }
+
+    /**
+     * Drains every {@code interval} on a background thread until parked or closed.
+     */
+    public synchronized void startCompactor(Duration interval) {
+        drainInterval = Objects.requireNonNull(interval, "interval");
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (drainInterval != null && drainSchedule == null && !parked && !closed) {
+            long millis = drainInterval.toMillis();
+            drainSchedule = compactor.scheduleWithFixedDelay(this::drainQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Drains once, so a LOCK written just before parking is stored, then stops the compactor.
+     */
+    @Override
+    public void park() {
+        synchronized (this) {
+            parked = true;
+            if (drainSchedule != null) {
+                drainSchedule.cancel(false);
+                drainSchedule = null;
+            }
+        }
+        drainQuietly();
+    }
+
+    @Override
+    public synchronized void unpark() {
+        parked = false;
+        scheduleDrain();
+    }
+
+    @Override
+    public void append(Instant timestamp,
+                       ActivityEventType type,
+                       String appId,
+                       String windowTitle,
+                       String url,
+                       String payloadJson) {
+        long start = System.nanoTime();
+        int appLength = utf8Length(appId);
+        int titleLength = utf8Length(windowTitle);
+        int urlLength = utf8Length(url);
+        int payloadLength = utf8Length(payloadJson);
+        long body = (long) appLength + titleLength + urlLength + payloadLength;
+        synchronized (this) {
+            if (active != null && !closed && body <= MAX_BODY && (writeSlot < active.records || roll())) {
+                int base = writeSlot * RECORD_SIZE;
+                ByteBuffer buffer = active.buffer;
+                buffer.putLong(base + OFF_SECONDS, timestamp.getEpochSecond());
+                buffer.putInt(base + OFF_NANOS, timestamp.getNano());
+                buffer.put(base + OFF_TYPE, (byte) type.ordinal());
+                buffer.putShort(base + OFF_FIELD_LENGTHS, fieldLength(appId, appLength));
+                buffer.putShort(base + OFF_FIELD_LENGTHS + 2, fieldLength(windowTitle, titleLength));
+                buffer.putShort(base + OFF_FIELD_LENGTHS + 4, fieldLength(url, urlLength));
+                buffer.putShort(base + OFF_FIELD_LENGTHS + 6, fieldLength(payloadJson, payloadLength));
+                int position = base + OFF_BODY;
+                position = putUtf8(buffer, position, appId);
+                position = putUtf8(buffer, position, windowTitle);
+                position = putUtf8(buffer, position, url);
+                position = putUtf8(buffer, position, payloadJson);
+                crcView.limit(position).position(base + OFF_SECONDS);
+                writeCrc.reset();
+                writeCrc.update(crcView);
+                buffer.putInt(base + OFF_CRC, (int) writeCrc.getValue());
+                LENGTH.setRelease(buffer, base + OFF_LENGTH, position - base - OFF_SECONDS);
+                writeSlot++;
+                APPENDED.increment();
+                pending.incrementAndGet();
+                APPEND_LATENCY.recordSince(start);
+                return;
+            }
+        }
+        if (body > MAX_BODY) {
+            OVERSIZE.increment();
+        }
+        dao.append(timestamp, type, appId, windowTitle, url, payloadJson);
+    }
+
+    /**
+     * Starts the next segment once the active one is full; false (and the event goes to the DAO)
+     * if the new segment cannot be mapped.
+     */
+    private boolean roll() {
+        try {
+            startSegment(active.sequence + 1);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to start ingest segment {}; writing directly", active.sequence + 1, e);
+            return false;
+        }
+    }
+
+    private void startSegment(long sequence) throws IOException {
+        Segment segment = Segment.map(sequence, directory.resolve(segmentName(sequence)), recordsPerSegment);
+        segments.put(sequence, segment);
+        active = segment;
+        crcView = segment.buffer.duplicate();
+        writeSlot = 0;
+        activeSequence = sequence;
+    }
+
+    /**
+     * Moves every complete record into {@code activity_events}, in transactions of up to
+     * {@link #MAX_DRAIN_BATCH} rows, and deletes the segments left behind. Returns the number of
+     * records drained.
+     */
+    public int drain() {
+        synchronized (drainLock) {
+            long start = System.nanoTime();
+            int total = 0;
+            try {
+                int drained;
+                while ((drained = drainBatch()) >= 0) {
+                    total += drained;
+                }
+                return total;
+            } finally {
+                DRAINED.add(total);
+                pending.addAndGet(-total);
+                DRAIN_LATENCY.recordSince(start);
+            }
+        }
+    }
+
+    /**
+     * Drains one batch from the current segment; -1 once nothing is left to do.
+     */
+    private int drainBatch() {
+        Segment segment = segments.get(readSequence);
+        if (segment == null) {
+            return -1;
+        }
+        // Checked before reading: once a segment is sealed every record in it is complete.
+        boolean sealed = segment.sequence < activeSequence;
+        List<ActivityEvent> batch = new ArrayList<>();
+        int slot = readSlot;
+        boolean torn = false;
+        while (batch.size() < MAX_DRAIN_BATCH && slot < segment.records) {
+            int length = (int) LENGTH.getAcquire(segment.buffer, slot * RECORD_SIZE + OFF_LENGTH);
+            if (length == 0) {
+                break;
+            }
+            ActivityEvent event = read(segment.buffer, slot * RECORD_SIZE, length);
+            if (event == null) {
+                torn = true;
+                break;
+            }
+            batch.add(event);
+            slot++;
+        }
+        boolean exhausted = sealed && (slot == segment.records || batch.size() < MAX_DRAIN_BATCH);
+        if (torn) {
+            TORN_RECORDS.increment();
+            LOGGER.warn("Torn record at {} slot {}; skipping the rest of the segment", segment.path, slot);
+            if (!sealed) {
+                return -1;
+            }
+            exhausted = true;
+        }
+        if (exhausted) {
+            Long next = segments.higherKey(segment.sequence);
+            dao.insertAll(batch, NAME, new Position(next, 0));
+            segments.remove(segment.sequence);
+            segment.delete();
+            readSequence = next;
+            readSlot = 0;
+            return batch.size();
+        }
+        if (batch.isEmpty()) {
+            return -1;
+        }
+        dao.insertAll(batch, NAME, new Position(segment.sequence, slot));
+        readSlot = slot;
+        return batch.size();
+    }
+
+    private ActivityEvent read(MappedByteBuffer buffer, int base, int length) {
+        if (length < OFF_BODY - OFF_SECONDS || length > RECORD_SIZE - OFF_SECONDS) {
+            return null;
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.limit(base + OFF_SECONDS + length).position(base + OFF_SECONDS);
+        readCrc.reset();
+        readCrc.update(view);
+        if ((int) readCrc.getValue() != buffer.getInt(base + OFF_CRC)) {
+            return null;
+        }
+        int typeOrdinal = buffer.get(base + OFF_TYPE);
+        if (typeOrdinal < 0 || typeOrdinal >= TYPES.length) {
+            return null;
+        }
+        Instant timestamp = Instant.ofEpochSecond(buffer.getLong(base + OFF_SECONDS), buffer.getInt(base + OFF_NANOS));
+        int end = base + OFF_SECONDS + length;
+        int position = base + OFF_BODY;
+        String[] fields = new String[4];
+        for (int i = 0; i < fields.length; i++) {
+            int fieldLength = Short.toUnsignedInt(buffer.getShort(base + OFF_FIELD_LENGTHS + 2 * i));
+            if (fieldLength == NULL_LENGTH) {
+                continue;
+            }
+            if (position + fieldLength > end) {
+                return null;
+            }
+            buffer.get(position, scratch, 0, fieldLength);
+            fields[i] = new String(scratch, 0, fieldLength, StandardCharsets.UTF_8);
+            position += fieldLength;
+        }
+        return new ActivityEvent(timestamp, TYPES[typeOrdinal], fields[0], fields[1], fields[2], fields[3]);
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            DRAIN_FAILURES.increment();
+            LOGGER.warn("Draining the ingest journal failed; retrying later", e);
+        }
+    }
+
+    /**
+     * Stops the compactor, sends later appends straight to the DAO and drains what is left.
+     */
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (active != null) {
+            drainQuietly();
+        }
+        segments.values().forEach(Segment::closeChannel);
+    }
+
+    private static short fieldLength(String value, int utf8Length) {
+        return (short) (value == null ? NULL_LENGTH : utf8Length);
+    }
+
+    /**
+     * Encoded length matching {@link #putUtf8}; unpaired surrogates become {@code '?'}, as in
+     * {@link String#getBytes}.
+     */
+    static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else {
+                    length += 1;
+                }
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int putUtf8(ByteBuffer buffer, int position, String value) {
+        if (value == null) {
+            return position;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(position++, (byte) (0xC0 | (c >> 6)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put(position++, (byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put(position++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put(position++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+                } else {
+                    buffer.put(position++, (byte) '?');
+                }
+            } else {
+                buffer.put(position++, (byte) (0xE0 | (c >> 12)));
+                buffer.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return position;
+    }
+
+    static String segmentName(long sequence) {
+        return String.format(Locale.ROOT, "ingest-%016d.seg", sequence);
+    }
+
+    private static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int records;
+
+        private Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.records = buffer.capacity() / RECORD_SIZE;
+        }
+
+        /**
+         * Maps {@code path}, creating it with room for {@code records} records; 0 keeps the size
+         * of an existing file.
+         */
+        static Segment map(long sequence, Path path, int records) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            try {
+                long size = records > 0 ? (long) records * RECORD_SIZE : channel.size() / RECORD_SIZE * RECORD_SIZE;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return new Segment(sequence, path, channel, buffer);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        void delete() {
+            closeChannel();
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete drained segment {}", path, e);
+            }
+        }
+
+        void closeChannel() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to flush; the mapping stays valid until collected.
+            }
+        }
+    }
+}
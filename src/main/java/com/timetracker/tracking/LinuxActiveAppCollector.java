@@ -1,29 +1,74 @@
 package com.timetracker.tracking;
 
+import com.timetracker.diagnostics.ResolverEvent;
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.MetricsRegistry;
+import com.timetracker.tracking.WindowMetadataCache.WindowMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Lightweight X11 collector that shells out to xprop to resolve the active window.
  * Falls back silently if xprop is missing or parsing fails.
+ * <p>
+ * After the active window id is known, the window's title, its metadata and the browser URL are
+ * looked up concurrently on virtual threads in a {@link CaptureScope}. The whole capture shares one
+ * deadline. Lookups still running at the deadline are cancelled, and the snapshot is built from
+ * whatever finished, e.g. a title without a URL.
+ * <p>
+ * Window metadata (WM_CLASS, PID, executable, command line, browser or not) is fixed for the life
+ * of a window and comes from a {@link WindowMetadataCache}, so a steady-state poll runs one xprop
+ * for the active window and one for its title and PID.
  */
 public class LinuxActiveAppCollector implements ActiveAppCollector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LinuxActiveAppCollector.class);
+    private static final Counter PARTIAL_SNAPSHOTS = MetricsRegistry.global().counter("capture.partial_snapshots");
+    private static final Counter DEADLINE_MISSES = MetricsRegistry.global().counter("capture.deadline_exceeded");
+    static final Duration DEFAULT_DEADLINE = Duration.ofMillis(1000);
 
     private final boolean captureUrls;
     private final BrowserUrlResolver browserUrlResolver;
+    private final Duration deadline;
+    private final CommandRunner commandRunner;
+    private final Path procRoot;
+    private final WindowMetadataCache metadataCache;
 
-    public LinuxActiveAppCollector(boolean captureUrls, BrowserUrlResolver browserUrlResolver) {
+    LinuxActiveAppCollector(boolean captureUrls, BrowserUrlResolver browserUrlResolver, Duration deadline,
+                            CommandRunner commandRunner, Path procRoot) {
+        if (deadline.isNegative() || deadline.isZero()) {
+            throw new IllegalArgumentException("Capture deadline must be positive");
+        }
         this.captureUrls = captureUrls;
         this.browserUrlResolver = browserUrlResolver;
+        this.deadline = deadline;
+        this.commandRunner = Objects.requireNonNull(commandRunner, "commandRunner");
+        this.procRoot = Objects.requireNonNull(procRoot, "procRoot");
+        this.metadataCache = new WindowMetadataCache(procRoot);
+    }
+
+    public LinuxActiveAppCollector(boolean captureUrls, BrowserUrlResolver browserUrlResolver, Duration deadline) {
+        this(captureUrls, browserUrlResolver, deadline, LinuxActiveAppCollector::execute, Path.of("/proc"));
+    }
+
+    public LinuxActiveAppCollector(boolean captureUrls, BrowserUrlResolver browserUrlResolver) {
+        this(captureUrls, browserUrlResolver, DEFAULT_DEADLINE);
     }
 
     public LinuxActiveAppCollector() {
@@ -32,71 +77,184 @@ public class LinuxActiveAppCollector implements ActiveAppCollector {
 
     @Override
     public Optional<ActiveAppSnapshot> capture() {
-        try {
-            Optional<String> windowId = queryActiveWindowId();
-            if (windowId.isEmpty()) {
-                return Optional.empty();
+        try (CaptureScope scope = new CaptureScope(deadline)) {
+            CaptureScope.Subtask<String> windowId = scope.fork(this::queryActiveWindowId);
+            CaptureScope.Subtask<WindowState> state = scope.fork(() -> {
+                String id = windowId.await();
+                return id == null ? null : queryWindowState(id);
+            });
+            CaptureScope.Subtask<WindowMetadata> metadata = scope.fork(() -> {
+                String id = windowId.await();
+                return id == null ? null : lookupMetadata(id, state);
+            });
+            CaptureScope.Subtask<String> url = scope.fork(() -> resolveUrl(state, metadata));
+
+            boolean complete = scope.join();
+            WindowMetadata meta = metadata.result().orElse(null);
+            String appId = meta != null ? meta.appId() : null;
+            String title = state.result().map(WindowState::title).orElse(null);
+            if (!complete) {
+                DEADLINE_MISSES.increment();
             }
-            WindowInfo info = queryWindowInfo(windowId.get());
-            if (info == null) {
+            if (appId == null && title == null) {
                 return Optional.empty();
             }
-            String url = null;
-            if (captureUrls && isBrowser(info.appId) && browserUrlResolver != null) {
-                url = browserUrlResolver.resolveActiveUrl()
-                        .or(() -> new WindowTitleUrlResolver(info.title).resolveActiveUrl())
-                        .orElse(null);
+            if (!complete) {
+                PARTIAL_SNAPSHOTS.increment();
             }
-            Instant now = Instant.now();
-            return Optional.of(new ActiveAppSnapshot(info.appId, info.title, url, now));
+            return Optional.of(new ActiveAppSnapshot(appId, title, url.result().orElse(null), Instant.now()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
         } catch (Exception e) {
             LOGGER.debug("Failed to capture active X11 window", e);
             return Optional.empty();
         }
     }
 
-    private Optional<String> queryActiveWindowId() throws IOException, InterruptedException {
-        String command = "xprop -root _NET_ACTIVE_WINDOW";
-        String output = runCommand(command);
+    private String resolveUrl(CaptureScope.Subtask<WindowState> state, CaptureScope.Subtask<WindowMetadata> metadata)
+            throws Exception {
+        if (!captureUrls || browserUrlResolver == null) {
+            return null;
+        }
+        WindowMetadata meta = metadata.await();
+        if (meta == null || !meta.browser()) {
+            return null;
+        }
+        WindowState current = state.await();
+        return browserUrlResolver.resolveActiveUrl(current != null ? current.title() : null).orElse(null);
+    }
+
+    private String queryActiveWindowId() throws IOException, InterruptedException {
+        String output = runCommand("xprop", "-root", "_NET_ACTIVE_WINDOW");
         if (output == null) {
-            return Optional.empty();
+            return null;
         }
         int idx = output.lastIndexOf("0x");
         if (idx == -1) {
-            return Optional.empty();
+            return null;
         }
-        String id = output.substring(idx).trim();
-        return Optional.of(id);
+        return output.substring(idx).trim();
     }
 
-    private WindowInfo queryWindowInfo(String windowId) throws IOException, InterruptedException {
-        String command = "xprop -id " + windowId + " WM_CLASS _NET_WM_NAME";
-        String output = runCommand(command);
+    /**
+     * The per-poll part: title and PID. A failed query means the window is gone.
+     */
+    private WindowState queryWindowState(String windowId) throws IOException, InterruptedException {
+        String output = runCommand("xprop", "-id", windowId, "_NET_WM_NAME", "_NET_WM_PID");
         if (output == null) {
+            metadataCache.invalidate(windowId);
             return null;
         }
-        String[] lines = output.split("\n");
-        String appId = null;
         String title = null;
-        for (String line : lines) {
-            if (line.contains("WM_CLASS")) {
-                appId = extractFirstQuoted(line).map(String::toLowerCase).orElse(null);
-            } else if (line.contains("_NET_WM_NAME")) {
+        long pid = -1;
+        for (String line : output.split("\n")) {
+            if (line.startsWith("_NET_WM_NAME")) {
                 title = extractFirstQuoted(line).orElse(null);
+            } else if (line.startsWith("_NET_WM_PID")) {
+                pid = parsePid(line);
+            }
+        }
+        return new WindowState(title, pid);
+    }
+
+    /**
+     * Cached metadata if the window still belongs to the same process; otherwise looks it up again.
+     * A miss queries WM_CLASS and the PID itself rather than waiting for the title query.
+     */
+    private WindowMetadata lookupMetadata(String windowId, CaptureScope.Subtask<WindowState> state)
+            throws IOException, InterruptedException, TimeoutException {
+        WindowMetadata cached = metadataCache.get(windowId);
+        if (cached != null) {
+            WindowState current = state.await();
+            if (current != null && current.pid() == cached.pid()) {
+                return cached;
+            }
+            metadataCache.invalidate(windowId);
+            if (current == null) {
+                return null;
+            }
+        }
+        WindowMetadata loaded = queryMetadata(windowId);
+        if (loaded != null) {
+            metadataCache.put(loaded);
+        }
+        return loaded;
+    }
+
+    private WindowMetadata queryMetadata(String windowId) throws IOException, InterruptedException {
+        String output = runCommand("xprop", "-id", windowId, "WM_CLASS", "_NET_WM_PID");
+        if (output == null) {
+            return null;
+        }
+        String appId = null;
+        long pid = -1;
+        for (String line : output.split("\n")) {
+            if (line.startsWith("WM_CLASS")) {
+                appId = extractFirstQuoted(line).map(value -> value.toLowerCase(Locale.ROOT)).orElse(null);
+            } else if (line.startsWith("_NET_WM_PID")) {
+                pid = parsePid(line);
+            }
+        }
+        String executable = null;
+        List<String> cmdline = List.of();
+        if (pid > 0) {
+            Path process = procRoot.resolve(Long.toString(pid));
+            executable = readExecutable(process);
+            cmdline = readCmdline(process);
+            if (appId == null) {
+                appId = readProcessName(process);
             }
         }
-        if (appId == null && title == null) {
+        if (appId == null && pid <= 0) {
             return null;
         }
-        return new WindowInfo(appId, title);
+        return new WindowMetadata(windowId, pid, appId, executable, cmdline,
+                WindowMetadataCache.isBrowser(appId, executable));
     }
 
-    private boolean isBrowser(String appId) {
-        if (appId == null) {
-            return false;
+    private static long parsePid(String line) {
+        int equals = line.lastIndexOf('=');
+        if (equals < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(line.substring(equals + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String readExecutable(Path process) {
+        try {
+            return Files.readSymbolicLink(process.resolve("exe")).toString();
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static List<String> readCmdline(Path process) {
+        try {
+            String raw = new String(Files.readAllBytes(process.resolve("cmdline")), StandardCharsets.UTF_8);
+            List<String> args = new ArrayList<>();
+            for (String arg : raw.split("\u0000")) {
+                if (!arg.isEmpty()) {
+                    args.add(arg);
+                }
+            }
+            return args;
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static String readProcessName(Path process) {
+        try {
+            String name = Files.readString(process.resolve("comm")).trim().toLowerCase(Locale.ROOT);
+            return name.isEmpty() ? null : name;
+        } catch (IOException e) {
+            return null;
         }
-        String lower = appId.toLowerCase();
-        return lower.contains("chrome") || lower.contains("brave") || lower.contains("chromium") || lower.contains("edge");
     }
 
     private Optional<String> extractFirstQuoted(String line) {
@@ -108,27 +266,51 @@ public class LinuxActiveAppCollector implements ActiveAppCollector {
         return Optional.empty();
     }
 
-    private String runCommand(String command) throws IOException, InterruptedException {
-        ProcessBuilder builder = new ProcessBuilder("bash", "-lc", command);
-        Process process = builder.start();
-        boolean finished = process.waitFor(1, TimeUnit.SECONDS);
-        if (!finished) {
-            process.destroyForcibly();
-            return null;
-        }
-        if (process.exitValue() != 0) {
-            return null;
+    private String runCommand(String... command) throws IOException, InterruptedException {
+        ResolverEvent event = ResolverEvent.begin("xprop", String.join(" ", command));
+        String output = null;
+        try {
+            output = commandRunner.run(command);
+            return output;
+        } finally {
+            event.finish(output, output != null);
         }
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
+    }
+
+    /**
+     * Runs xprop directly (no shell) and gives it at most a second; an interrupt from a cancelled
+     * capture kills the process.
+     */
+    private static String execute(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            boolean finished = process.waitFor(1, TimeUnit.SECONDS);
+            if (!finished || process.exitValue() != 0) {
+                return null;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                StringBuilder sb = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    sb.append(line).append("\n");
+                }
+                return sb.toString().trim();
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
             }
-            return sb.toString().trim();
         }
     }
 
-    private record WindowInfo(String appId, String title) {
+    /**
+     * Runs an external command and returns its trimmed stdout, or null if it failed or timed out.
+     */
+    @FunctionalInterface
+    interface CommandRunner {
+        String run(String... command) throws IOException, InterruptedException;
+    }
+
+    private record WindowState(String title, long pid) {
     }
 }
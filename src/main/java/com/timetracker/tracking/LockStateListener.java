@@ -0,0 +1,7 @@
+package com.timetracker.tracking;
+
+@FunctionalInterface
+public interface LockStateListener {
+
+    void lockStateChanged(boolean locked);
+}
@@ -0,0 +1,376 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Per-app running totals of {@code activity_minute_occupancy}, one memory-mapped file of longs
+ * per UTC day, so the activity of an app between any two instants is two reads and a
+ * subtraction however long the range is.
+ * <p>
+ * Entry {@code m} of an app's array in a day file is the app's total seconds from the first
+ * indexed day up to the start of minute {@code m} (0 to 1440) of that day. Apps without activity
+ * on a day store only the total at its start, and days without any activity have no file: a
+ * lookup there reads the end of the nearest earlier day. App ids are numbered in
+ * {@code apps.dat}; ids are never reused, and a day file written before an app appeared reads as
+ * zero for it.
+ * <p>
+ * Day file layout (little-endian longs): magic, app count {@code n}, then for each app its total
+ * at the start of the day and the position of its {@value #ENTRIES_PER_DAY}-entry array ({@code -1}
+ * if it was idle all day), then the arrays. Files are replaced atomically, so a lookup that
+ * races a rebuild reads either the old or the new mapping.
+ * <p>
+ * The index is derived data. A new instance serves the files left by the previous run; if there
+ * are none or they cannot be read it starts unavailable and the first {@link #refresh} rebuilds
+ * it from the database. After that each aggregation rewrites the days from its window on.
+ */
+public final class MinuteIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MinuteIndex.class);
+    private static final LatencyHistogram REBUILD_LATENCY = MetricsRegistry.global().histogram("rollups.minute_index.rebuild");
+    private static final Counter DAYS_WRITTEN = MetricsRegistry.global().counter("rollups.minute_index.days_written");
+    private static final Counter FAILURES = MetricsRegistry.global().counter("rollups.minute_index.failures");
+
+    static final int ENTRIES_PER_DAY = MinuteOccupancy.MINUTES_PER_DAY + 1;
+
+    private static final long MAGIC = 0x5454_4D49_4E49_4458L;
+    private static final int HEADER = 2;
+    private static final String APPS_FILE = "apps.dat";
+    private static final Pattern DAY_FILE = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})\\.min");
+    private static final Snapshot UNAVAILABLE = new Snapshot(List.of(), Map.of(), Collections.emptyNavigableMap());
+
+    private final Path directory;
+    private final Executor executor;
+    private final AtomicReference<LocalDate> pendingFrom = new AtomicReference<>();
+    private volatile Snapshot snapshot = UNAVAILABLE;
+
+    /**
+     * An index whose {@link #scheduleRefresh} runs on the calling thread.
+     */
+    public MinuteIndex(Path directory) {
+        this(directory, Runnable::run);
+    }
+
+    /**
+     * @param executor runs the refreshes requested through {@link #scheduleRefresh}
+     */
+    public MinuteIndex(Path directory, Executor executor) {
+        this.directory = Objects.requireNonNull(directory, "directory");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        if (Files.exists(directory.resolve(APPS_FILE))) {
+            try {
+                snapshot = load();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Ignoring unreadable minute index in {}; the next refresh rebuilds it", directory, e);
+            }
+        }
+    }
+
+    /**
+     * False when no index was found on disk, until the first successful {@link #refresh}, and
+     * after a failed one; callers then
+     * answer from the rollup tables instead.
+     */
+    public boolean isAvailable() {
+        return snapshot != UNAVAILABLE;
+    }
+
+    /**
+     * Seconds of {@code appId} between {@code start} and {@code end}, counting whole minutes
+     * only: {@code start} is rounded up and {@code end} down to a minute, as in
+     * {@link ActivityReportingService#getTotalsBetween}.
+     */
+    public long totalSeconds(String appId, Instant start, Instant end) {
+        Snapshot current = snapshot;
+        Integer app = current.ids().get(appId);
+        long from = ceilMinute(start);
+        long to = Math.floorDiv(end.getEpochSecond(), 60);
+        if (app == null || to <= from) {
+            return 0;
+        }
+        return current.cumulative(app, to) - current.cumulative(app, from);
+    }
+
+    /**
+     * {@link #totalSeconds} for every app with activity in the range.
+     */
+    public Map<String, Long> totals(Instant start, Instant end) {
+        Snapshot current = snapshot;
+        long from = ceilMinute(start);
+        long to = Math.floorDiv(end.getEpochSecond(), 60);
+        Map<String, Long> totals = new LinkedHashMap<>();
+        if (to <= from) {
+            return totals;
+        }
+        for (int app = 0; app < current.names().size(); app++) {
+            long seconds = current.cumulative(app, to) - current.cumulative(app, from);
+            if (seconds > 0) {
+                totals.put(current.names().get(app), seconds);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Queues a {@link #refresh} on the index's executor. Requests made while one is still queued
+     * merge into it, keeping the earliest changed day, so a burst of aggregations costs one
+     * rewrite. Requests after the executor shut down are dropped; the next start rebuilds.
+     */
+    public void scheduleRefresh(LocalDate changedFrom, ActivitySessionDao sessionDao) {
+        Objects.requireNonNull(changedFrom, "changedFrom");
+        LocalDate queued = pendingFrom.getAndAccumulate(changedFrom,
+                (pending, changed) -> pending == null || changed.isBefore(pending) ? changed : pending);
+        if (queued != null) {
+            return;
+        }
+        try {
+            executor.execute(() -> refresh(pendingFrom.getAndSet(null), sessionDao));
+        } catch (RejectedExecutionException e) {
+            pendingFrom.set(null);
+            LOGGER.debug("Minute index refresh dropped, executor is shut down");
+        }
+    }
+
+    /**
+     * Brings the index up to date after the occupancy of {@code changedFrom} (a UTC date) and
+     * later days was rewritten; rebuilds everything if the index is not available yet. Failures
+     * are logged and leave the index unavailable until a later refresh succeeds.
+     */
+    synchronized void refresh(LocalDate changedFrom, ActivitySessionDao sessionDao) {
+        LocalDate from = isAvailable() ? changedFrom : LocalDate.EPOCH;
+        long start = System.nanoTime();
+        try {
+            rebuild(from, sessionDao.findMinuteOccupancySince(from));
+        } catch (IOException | RuntimeException e) {
+            FAILURES.increment();
+            snapshot = UNAVAILABLE;
+            LOGGER.warn("Failed to update the minute index in {}; reports fall back to the rollup tables", directory, e);
+        } finally {
+            REBUILD_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Rewrites the day files from {@code fromDate} on from {@code occupancy}, which holds every
+     * app's occupancy for those days; earlier days must be current already.
+     */
+    synchronized void rebuild(LocalDate fromDate, List<MinuteOccupancy> occupancy) throws IOException {
+        Files.createDirectories(directory);
+        Snapshot current = snapshot;
+        long fromDay = fromDate.toEpochDay();
+
+        List<MinuteOccupancy> sorted = new ArrayList<>(occupancy);
+        sorted.sort(Comparator.comparing(MinuteOccupancy::utcDate).thenComparing(MinuteOccupancy::appId));
+        List<String> names = new ArrayList<>(current.names());
+        Map<String, Integer> ids = new HashMap<>(current.ids());
+        TreeMap<Long, Map<Integer, MinuteOccupancy>> byDay = new TreeMap<>();
+        for (MinuteOccupancy day : sorted) {
+            if (day.utcDate().toEpochDay() < fromDay) {
+                continue;
+            }
+            int app = ids.computeIfAbsent(day.appId(), appId -> {
+                names.add(appId);
+                return names.size() - 1;
+            });
+            byDay.computeIfAbsent(day.utcDate().toEpochDay(), d -> new HashMap<>()).put(app, day);
+        }
+        if (names.size() != current.names().size() || !Files.exists(directory.resolve(APPS_FILE))) {
+            writeApps(names);
+        }
+
+        long[] running = new long[names.size()];
+        for (int app = 0; app < current.names().size(); app++) {
+            running[app] = current.cumulative(app, fromDay * MinuteOccupancy.MINUTES_PER_DAY);
+        }
+        NavigableMap<Long, LongBuffer> days = new TreeMap<>(current.days().headMap(fromDay, false));
+        for (Map.Entry<Long, Map<Integer, MinuteOccupancy>> day : byDay.entrySet()) {
+            days.put(day.getKey(), writeDay(day.getKey(), day.getValue(), running));
+        }
+        deleteStaleDays(fromDay, byDay);
+        snapshot = new Snapshot(List.copyOf(names), Map.copyOf(ids), Collections.unmodifiableNavigableMap(days));
+    }
+
+    /**
+     * Writes one day, advancing {@code running} to the totals at its end. A file that already
+     * holds the same longs is left alone, so a full rebuild rewrites only what changed.
+     */
+    private LongBuffer writeDay(long epochDay, Map<Integer, MinuteOccupancy> occupancy, long[] running) throws IOException {
+        int apps = running.length;
+        long[] values = new long[HEADER + 2 * apps + occupancy.size() * ENTRIES_PER_DAY];
+        values[0] = MAGIC;
+        values[1] = apps;
+        int next = HEADER + 2 * apps;
+        for (int app = 0; app < apps; app++) {
+            values[HEADER + 2 * app] = running[app];
+            MinuteOccupancy day = occupancy.get(app);
+            if (day == null) {
+                values[HEADER + 2 * app + 1] = -1;
+                continue;
+            }
+            values[HEADER + 2 * app + 1] = next;
+            long total = running[app];
+            values[next] = total;
+            for (int minute = 0; minute < MinuteOccupancy.MINUTES_PER_DAY; minute++) {
+                total += day.seconds(minute);
+                values[next + minute + 1] = total;
+            }
+            running[app] = total;
+            next += ENTRIES_PER_DAY;
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate(values.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asLongBuffer().put(values);
+        Path file = directory.resolve(dayName(epochDay));
+        ByteBuffer existing = Files.exists(file) ? map(file) : null;
+        if (existing == null || !existing.equals(bytes)) {
+            Path temporary = directory.resolve(file.getFileName() + ".tmp");
+            Files.write(temporary, bytes.array());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            existing = map(file);
+            DAYS_WRITTEN.increment();
+        }
+        return existing.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    private void writeApps(List<String> names) throws IOException {
+        Path temporary = directory.resolve(APPS_FILE + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(file)) {
+            out.writeInt(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+        }
+        Files.move(temporary, directory.resolve(APPS_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Snapshot load() throws IOException {
+        List<String> names = readApps();
+        Map<String, Integer> ids = new HashMap<>();
+        for (int app = 0; app < names.size(); app++) {
+            if (ids.put(names.get(app), app) != null) {
+                throw new IOException("Duplicate app " + names.get(app) + " in " + APPS_FILE);
+            }
+        }
+        NavigableMap<Long, LongBuffer> days = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = DAY_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                LongBuffer day = map(file).asLongBuffer();
+                if (day.limit() < HEADER || day.get(0) != MAGIC || day.get(1) < 0 || day.get(1) > names.size()
+                        || day.limit() < HEADER + 2 * day.get(1)) {
+                    throw new IOException("Not a minute index day file: " + file);
+                }
+                days.put(LocalDate.parse(matcher.group(1)).toEpochDay(), day);
+            }
+        }
+        return new Snapshot(List.copyOf(names), Map.copyOf(ids), Collections.unmodifiableNavigableMap(days));
+    }
+
+    private List<String> readApps() throws IOException {
+        try (InputStream file = Files.newInputStream(directory.resolve(APPS_FILE));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Negative app count in " + APPS_FILE);
+            }
+            List<String> names = new ArrayList<>(Math.min(count, 1024));
+            for (int app = 0; app < count; app++) {
+                names.add(in.readUTF());
+            }
+            return names;
+        }
+    }
+
+    private void deleteStaleDays(long fromDay, Map<Long, ?> kept) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = DAY_FILE.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long day = LocalDate.parse(matcher.group(1)).toEpochDay();
+                if (day >= fromDay && !kept.containsKey(day)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    static String dayName(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay) + ".min";
+    }
+
+    private static long ceilMinute(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond() + 59, 60);
+    }
+
+    private record Snapshot(List<String> names, Map<String, Integer> ids, NavigableMap<Long, LongBuffer> days) {
+
+        /**
+         * Total seconds of {@code app} before {@code epochMinute}.
+         */
+        long cumulative(int app, long epochMinute) {
+            long epochDay = Math.floorDiv(epochMinute, MinuteOccupancy.MINUTES_PER_DAY);
+            Map.Entry<Long, LongBuffer> entry = days.floorEntry(epochDay);
+            if (entry == null) {
+                return 0;
+            }
+            LongBuffer day = entry.getValue();
+            if (app >= day.get(1)) {
+                return 0;
+            }
+            int minute = entry.getKey() == epochDay
+                    ? (int) Math.floorMod(epochMinute, MinuteOccupancy.MINUTES_PER_DAY)
+                    : MinuteOccupancy.MINUTES_PER_DAY;
+            long position = day.get(HEADER + 2 * app + 1);
+            return position < 0 ? day.get(HEADER + 2 * app) : day.get((int) position + minute);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.timetracker.tracking;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Seconds of activity for one app in each minute of one UTC day, one byte per minute, so a day
+ * costs {@value #MINUTES_PER_DAY} bytes however many sessions it holds. Persisted as a BLOB in
+ * {@code activity_minute_occupancy}; {@code activity_hourly_totals} holds its hourly sums.
+ */
+final class MinuteOccupancy {
+
+    static final int MINUTES_PER_DAY = 1440;
+    static final long SECONDS_PER_DAY = 86_400;
+
+    private final LocalDate utcDate;
+    private final String appId;
+    private final byte[] seconds;
+    private final long dayStart;
+
+    MinuteOccupancy(LocalDate utcDate, String appId) {
+        this(utcDate, appId, new byte[MINUTES_PER_DAY]);
+    }
+
+    MinuteOccupancy(LocalDate utcDate, String appId, byte[] seconds) {
+        this.utcDate = Objects.requireNonNull(utcDate, "utcDate");
+        this.appId = Objects.requireNonNull(appId, "appId");
+        if (seconds.length != MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Expected " + MINUTES_PER_DAY + " minutes, got " + seconds.length);
+        }
+        this.seconds = seconds;
+        this.dayStart = utcDate.toEpochDay() * SECONDS_PER_DAY;
+    }
+
+    LocalDate utcDate() {
+        return utcDate;
+    }
+
+    String appId() {
+        return appId;
+    }
+
+    /**
+     * The stored form; callers must not modify it.
+     */
+    byte[] bytes() {
+        return seconds;
+    }
+
+    /**
+     * Adds the part of {@code [fromSecond, toSecond)} (epoch seconds) that falls on this day.
+     */
+    void add(long fromSecond, long toSecond) {
+        long start = Math.max(fromSecond, dayStart);
+        long end = Math.min(toSecond, dayStart + SECONDS_PER_DAY);
+        while (start < end) {
+            int minute = (int) ((start - dayStart) / 60);
+            long chunk = Math.min(end, dayStart + (minute + 1) * 60L) - start;
+            seconds[minute] = (byte) Math.min(60, seconds(minute) + chunk);
+            start += chunk;
+        }
+    }
+
+    /**
+     * Zeroes every minute of this day that overlaps {@code [fromSecond, toSecond)}.
+     */
+    void clear(long fromSecond, long toSecond) {
+        int from = minuteOf(fromSecond, false);
+        int to = minuteOf(toSecond, true);
+        for (int minute = from; minute < to; minute++) {
+            seconds[minute] = 0;
+        }
+    }
+
+    /**
+     * Seconds in minutes {@code [fromMinute, toMinute)} of this day.
+     */
+    long sum(int fromMinute, int toMinute) {
+        long total = 0;
+        for (int minute = fromMinute; minute < toMinute; minute++) {
+            total += seconds(minute);
+        }
+        return total;
+    }
+
+    boolean isEmpty() {
+        return sum(0, MINUTES_PER_DAY) == 0;
+    }
+
+    int seconds(int minute) {
+        return seconds[minute] & 0xFF;
+    }
+
+    /**
+     * The minute of this day containing {@code epochSecond}, rounded up to the next minute when
+     * {@code ceiling} and the second is not on a boundary; clamped to {@code [0, 1440]}.
+     */
+    int minuteOf(long epochSecond, boolean ceiling) {
+        long offset = Math.max(0, Math.min(SECONDS_PER_DAY, epochSecond - dayStart));
+        return (int) (ceiling ? (offset + 59) / 60 : offset / 60);
+    }
+}
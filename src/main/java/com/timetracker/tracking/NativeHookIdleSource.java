@@ -0,0 +1,110 @@
+package com.timetracker.tracking;
+
+import com.github.kwhat.jnativehook.GlobalScreen;
+import com.github.kwhat.jnativehook.NativeHookException;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
+import com.github.kwhat.jnativehook.mouse.NativeMouseEvent;
+import com.github.kwhat.jnativehook.mouse.NativeMouseInputListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.logging.Level;
+
+/**
+ * Idle source backed by JNativeHook global keyboard and mouse listeners. Every input event in the
+ * session is delivered into the JVM just to move a timestamp, so this is only an opt-in fallback
+ * for sessions where {@link X11ScreenSaverIdleSource} does not work.
+ */
+public final class NativeHookIdleSource implements IdleSource, NativeKeyListener, NativeMouseInputListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NativeHookIdleSource.class);
+
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    @Override
+    public boolean start() {
+        suppressJNativeHookLogging();
+        try {
+            GlobalScreen.registerNativeHook();
+            GlobalScreen.addNativeKeyListener(this);
+            GlobalScreen.addNativeMouseListener(this);
+            GlobalScreen.addNativeMouseMotionListener(this);
+            return true;
+        } catch (NativeHookException | UnsatisfiedLinkError e) {
+            LOGGER.warn("Failed to register native hook for idle detection", e);
+            return false;
+        }
+    }
+
+    @Override
+    public Duration idleTime() {
+        return Duration.ofNanos(System.nanoTime() - lastActivityNanos);
+    }
+
+    @Override
+    public String name() {
+        return "jnativehook";
+    }
+
+    private void markActivity() {
+        lastActivityNanos = System.nanoTime();
+    }
+
+    @Override
+    public void nativeKeyPressed(NativeKeyEvent nativeKeyEvent) {
+        markActivity();
+    }
+
+    @Override
+    public void nativeKeyReleased(NativeKeyEvent nativeKeyEvent) {
+    }
+
+    @Override
+    public void nativeKeyTyped(NativeKeyEvent nativeKeyEvent) {
+    }
+
+    @Override
+    public void nativeMouseClicked(NativeMouseEvent nativeMouseEvent) {
+        markActivity();
+    }
+
+    @Override
+    public void nativeMousePressed(NativeMouseEvent nativeMouseEvent) {
+        markActivity();
+    }
+
+    @Override
+    public void nativeMouseReleased(NativeMouseEvent nativeMouseEvent) {
+        markActivity();
+    }
+
+    @Override
+    public void nativeMouseMoved(NativeMouseEvent nativeMouseEvent) {
+        markActivity();
+    }
+
+    @Override
+    public void nativeMouseDragged(NativeMouseEvent nativeMouseEvent) {
+        markActivity();
+    }
+
+    @Override
+    public void close() {
+        try {
+            GlobalScreen.removeNativeKeyListener(this);
+            GlobalScreen.removeNativeMouseListener(this);
+            GlobalScreen.removeNativeMouseMotionListener(this);
+            GlobalScreen.unregisterNativeHook();
+        } catch (NativeHookException e) {
+            LOGGER.debug("Failed to unregister native hook cleanly", e);
+        }
+    }
+
+    private void suppressJNativeHookLogging() {
+        java.util.logging.Logger logger = java.util.logging.Logger.getLogger(GlobalScreen.class.getPackage().getName());
+        logger.setLevel(Level.OFF);
+        logger.setUseParentHandlers(false);
+    }
+}
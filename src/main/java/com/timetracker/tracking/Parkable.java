@@ -0,0 +1,12 @@
+package com.timetracker.tracking;
+
+/**
+ * Background work that stops completely while the screen is locked: no timers fire and no
+ * threads wake until {@link #unpark()}.
+ */
+public interface Parkable {
+
+    void park();
+
+    void unpark();
+}
@@ -0,0 +1,226 @@
+package com.timetracker.tracking;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Privacy rules compiled for the capture path. App patterns share one {@link AhoCorasick}
+ * automaton and domains one {@link DomainSuffixTrie}, with the rule's target as the slot and its
+ * action as the rank, so a snapshot costs one scan of the app id and one walk of the domain no
+ * matter how many rules there are, and the strongest action per target falls out directly.
+ * <p>
+ * Dropped fields become null. A hashed title becomes {@code #} and 16 hex digits of its
+ * HMAC-SHA256 under a per-install secret ({@link #loadOrCreateKey}), so distinct titles stay
+ * distinct and cannot be recovered by hashing guesses without the key file; a hashed URL keeps
+ * its scheme and host and replaces the rest with the hash of the whole URL. A masked title becomes {@code [masked]}
+ * and a masked URL keeps only scheme and host, so per-domain totals still work.
+ */
+public final class PrivacyFilter {
+
+    static final String MASKED_TITLE = "[masked]";
+
+    private static final int TITLE = PrivacyRule.Target.TITLE.ordinal();
+    private static final int URL = PrivacyRule.Target.URL.ordinal();
+    private static final int EVENT = PrivacyRule.Target.EVENT.ordinal();
+    private static final int TARGETS = PrivacyRule.Target.values().length;
+    private static final PrivacyRule.Action[] ACTIONS = PrivacyRule.Action.values();
+    private static final String HASH_ALGORITHM = "HmacSHA256";
+    static final int KEY_BYTES = 32;
+    private static final PrivacyFilter NONE = new PrivacyFilter(0, AhoCorasick.builder(TARGETS).build(),
+            new DomainSuffixTrie(TARGETS), false, false, null);
+
+    private final int size;
+    private final AhoCorasick apps;
+    private final DomainSuffixTrie domains;
+    private final boolean hasDomains;
+    private final boolean dropAll;
+    private final SecretKeySpec hashKey;
+
+    private PrivacyFilter(int size, AhoCorasick apps, DomainSuffixTrie domains, boolean hasDomains, boolean dropAll,
+                          SecretKeySpec hashKey) {
+        this.size = size;
+        this.apps = apps;
+        this.domains = domains;
+        this.hasDomains = hasDomains;
+        this.dropAll = dropAll;
+        this.hashKey = hashKey;
+    }
+
+    public static PrivacyFilter none() {
+        return NONE;
+    }
+
+    /**
+     * Drops every snapshot; used when configured rules cannot be read, so nothing is recorded
+     * unfiltered.
+     */
+    public static PrivacyFilter dropAll() {
+        return new PrivacyFilter(0, NONE.apps, NONE.domains, false, true, null);
+    }
+
+    /**
+     * @param hashKey secret for {@code hash} rules, at least {@value #KEY_BYTES} bytes
+     */
+    public static PrivacyFilter compile(List<PrivacyRule> rules, byte[] hashKey) {
+        if (hashKey == null || hashKey.length < KEY_BYTES) {
+            throw new IllegalArgumentException("Privacy hash key must have at least " + KEY_BYTES + " bytes");
+        }
+        AhoCorasick.Builder apps = AhoCorasick.builder(TARGETS);
+        DomainSuffixTrie domains = new DomainSuffixTrie(TARGETS);
+        boolean hasDomains = false;
+        for (PrivacyRule rule : rules) {
+            int slot = rule.target().ordinal();
+            int rank = rule.action().ordinal();
+            if (rule.scope() == PrivacyRule.Scope.APP) {
+                apps.add(rule.pattern(), slot, rank);
+            } else {
+                domains.add(rule.pattern(), slot, rank);
+                hasDomains = true;
+            }
+        }
+        return new PrivacyFilter(rules.size(), apps.build(), domains, hasDomains, false,
+                new SecretKeySpec(hashKey, HASH_ALGORITHM));
+    }
+
+    /**
+     * Reads one rule per line; blank lines and lines starting with {@code #} are skipped.
+     */
+    public static PrivacyFilter load(Path file, byte[] hashKey) throws IOException {
+        List<PrivacyRule> rules = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(PrivacyRule.parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(file + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return compile(rules, hashKey);
+    }
+
+    /**
+     * Reads the per-install hash key from {@code file}, creating it with {@value #KEY_BYTES}
+     * random bytes, readable by the owner only, on first use.
+     * Losing the file changes every hash recorded from then on.
+     */
+    public static byte[] loadOrCreateKey(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            byte[] key = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(key);
+            // Temp files are created owner-only on POSIX file systems.
+            Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, key);
+                Files.move(temporary, file);
+                return key;
+            } catch (FileAlreadyExistsException e) {
+                // Another process created it first; use theirs.
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        byte[] key = Files.readAllBytes(file);
+        if (key.length < KEY_BYTES) {
+            throw new IOException(file + " holds " + key.length + " bytes, expected " + KEY_BYTES);
+        }
+        return key;
+    }
+
+    /**
+     * The title and URL to record for this snapshot, or null if it must not be recorded at all.
+     */
+    public Redacted apply(String appId, String windowTitle, String url) {
+        if (dropAll) {
+            return null;
+        }
+        if (size == 0) {
+            return new Redacted(windowTitle, url, false);
+        }
+        int[] actions = new int[TARGETS];
+        if (appId != null) {
+            apps.bestRanks(appId, actions);
+        } else {
+            Arrays.fill(actions, AhoCorasick.NONE);
+        }
+        String domain = url == null || !hasDomains ? null : ActivityUrlUtils.extractDomain(url).orElse(null);
+        if (domain != null) {
+            int[] domainActions = new int[TARGETS];
+            domains.bestRanks(domain, domainActions);
+            for (int slot = 0; slot < TARGETS; slot++) {
+                actions[slot] = Math.min(actions[slot], domainActions[slot]);
+            }
+        }
+        if (actions[EVENT] != AhoCorasick.NONE) {
+            return null;
+        }
+        String title = redactTitle(windowTitle, actions[TITLE]);
+        String redactedUrl = redactUrl(url, domain, actions[URL]);
+        boolean changed = actions[TITLE] != AhoCorasick.NONE || actions[URL] != AhoCorasick.NONE;
+        return new Redacted(title, redactedUrl, changed);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private String redactTitle(String title, int action) {
+        if (title == null || action == AhoCorasick.NONE) {
+            return title;
+        }
+        return switch (ACTIONS[action]) {
+            case DROP -> null;
+            case HASH -> "#" + hash(title);
+            case MASK -> MASKED_TITLE;
+        };
+    }
+
+    private String redactUrl(String url, String domain, int action) {
+        if (url == null || action == AhoCorasick.NONE) {
+            return url;
+        }
+        if (ACTIONS[action] == PrivacyRule.Action.DROP) {
+            return null;
+        }
+        if (domain == null) {
+            domain = ActivityUrlUtils.extractDomain(url).orElse(null);
+        }
+        int colon = url.indexOf(':');
+        if (domain == null || colon <= 0) {
+            return null;
+        }
+        String origin = url.substring(0, colon) + "://" + domain + "/";
+        return ACTIONS[action] == PrivacyRule.Action.HASH ? origin + "#" + hash(url) : origin;
+    }
+
+    private String hash(String value) {
+        try {
+            Mac mac = Mac.getInstance(HASH_ALGORITHM);
+            mac.init(hashKey);
+            byte[] digest = mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " unavailable", e);
+        }
+    }
+
+    /**
+     * @param changed whether any rule rewrote the title or URL
+     */
+    public record Redacted(String windowTitle, String url, boolean changed) {
+    }
+}
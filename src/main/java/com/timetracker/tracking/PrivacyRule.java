@@ -0,0 +1,69 @@
+package com.timetracker.tracking;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * One redaction rule applied at capture time, written as {@code <action> <target> <scope>:<pattern>},
+ * e.g. {@code mask title app:keepassxc}, {@code hash url domain:bank.example} or
+ * {@code drop event app:signal}. {@code app:} matches a case-insensitive substring of the app id;
+ * {@code domain:} matches the URL's domain and its subdomains.
+ */
+public record PrivacyRule(Action action, Target target, Scope scope, String pattern) {
+
+    public PrivacyRule {
+        Objects.requireNonNull(action, "action");
+        Objects.requireNonNull(target, "target");
+        Objects.requireNonNull(scope, "scope");
+        if (pattern == null || pattern.isBlank()) {
+            throw new IllegalArgumentException("Privacy rule pattern cannot be empty");
+        }
+        if (target == Target.EVENT && action != Action.DROP) {
+            throw new IllegalArgumentException("Whole events can only be dropped");
+        }
+    }
+
+    public static PrivacyRule parse(String line) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Expected '<action> <target> <scope>:<pattern>': " + line);
+        }
+        int colon = parts[2].indexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected app:<pattern> or domain:<pattern>: " + parts[2]);
+        }
+        return new PrivacyRule(
+                parseEnum(Action.class, parts[0]),
+                parseEnum(Target.class, parts[1]),
+                parseEnum(Scope.class, parts[2].substring(0, colon)),
+                parts[2].substring(colon + 1));
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT) + ": " + value);
+        }
+    }
+
+    /**
+     * Ordered strongest first: when several rules hit the same target, the first action wins.
+     */
+    public enum Action {
+        DROP,
+        HASH,
+        MASK
+    }
+
+    public enum Target {
+        TITLE,
+        URL,
+        EVENT
+    }
+
+    public enum Scope {
+        APP,
+        DOMAIN
+    }
+}
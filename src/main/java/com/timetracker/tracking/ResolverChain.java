@@ -0,0 +1,241 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Asks browser URL resolvers in order and returns the first URL found. Each resolver sits behind
+ * its own {@link CircuitBreaker} and has a latency budget, so a dead or slow source stops costing
+ * capture time:
+ * <ul>
+ *     <li>an unavailable resolver ({@link BrowserUrlResolver#isAvailable()} false) trips its
+ *     breaker at once;</li>
+ *     <li>exceptions and calls over budget count as failures and open the breaker after
+ *     {@code failureThreshold} in a row;</li>
+ *     <li>an open breaker skips the resolver until its re-probe time. The interval doubles on each
+ *     failed probe, up to the maximum.</li>
+ * </ul>
+ * Resolvers added with {@link Builder#addBlocking} may block (network or process calls); they run
+ * on a virtual thread and are abandoned when the budget runs out, so the caller waits no longer
+ * than the budget. Others run inline, and the budget only decides whether the call counts as a
+ * failure. Each resolver gets {@code resolver.<name>.*} metrics: a latency histogram, counters for
+ * hits, misses, failures, timeouts and skipped calls, and a {@code circuit_open} gauge.
+ */
+public final class ResolverChain implements BrowserUrlResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolverChain.class);
+    private static final ThreadFactory BLOCKING_CALLS = Thread.ofVirtual().name("url-resolver-", 0).factory();
+
+    private final List<Stage> stages;
+
+    private ResolverChain(List<Stage> stages) {
+        this.stages = List.copyOf(stages);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public Optional<String> resolveActiveUrl() {
+        return resolveActiveUrl(null);
+    }
+
+    @Override
+    public Optional<String> resolveActiveUrl(String windowTitle) {
+        for (Stage stage : stages) {
+            Optional<String> url = stage.resolve(windowTitle);
+            if (url.isPresent()) {
+                return url;
+            }
+        }
+        return Optional.empty();
+    }
+
+    boolean isCircuitOpen(String name) {
+        return stages.stream()
+                .filter(stage -> stage.name.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown resolver " + name))
+                .breaker.isOpen();
+    }
+
+    private static final class Stage {
+
+        private final String name;
+        private final BrowserUrlResolver resolver;
+        private final long budgetNanos;
+        private final boolean blocking;
+        private final CircuitBreaker breaker;
+        private final LongSupplier nanoClock;
+        private final LatencyHistogram latency;
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter failures;
+        private final Counter timeouts;
+        private final Counter skipped;
+
+        private Stage(String name, BrowserUrlResolver resolver, Duration budget, boolean blocking,
+                      CircuitBreaker breaker, LongSupplier nanoClock, MetricsRegistry metrics) {
+            this.name = name;
+            this.resolver = resolver;
+            this.budgetNanos = budget.toNanos();
+            this.blocking = blocking;
+            this.breaker = breaker;
+            this.nanoClock = nanoClock;
+            String prefix = "resolver." + name + ".";
+            this.latency = metrics.histogram(prefix + "latency");
+            this.hits = metrics.counter(prefix + "hits");
+            this.misses = metrics.counter(prefix + "misses");
+            this.failures = metrics.counter(prefix + "failures");
+            this.timeouts = metrics.counter(prefix + "timeouts");
+            this.skipped = metrics.counter(prefix + "skipped");
+            metrics.gauge(prefix + "circuit_open", () -> breaker.isOpen() ? 1 : 0);
+        }
+
+        private Optional<String> resolve(String windowTitle) {
+            long start = nanoClock.getAsLong();
+            if (!breaker.allowRequest(start)) {
+                skipped.increment();
+                return Optional.empty();
+            }
+            if (!resolver.isAvailable()) {
+                failures.increment();
+                breaker.trip(start);
+                return Optional.empty();
+            }
+            Optional<String> url;
+            try {
+                url = blocking ? callWithinBudget(windowTitle) : resolver.resolveActiveUrl(windowTitle);
+            } catch (TimeoutException e) {
+                latency.record(nanoClock.getAsLong() - start);
+                timeouts.increment();
+                breaker.recordFailure(nanoClock.getAsLong());
+                return Optional.empty();
+            } catch (RuntimeException | ExecutionException e) {
+                latency.record(nanoClock.getAsLong() - start);
+                failures.increment();
+                breaker.recordFailure(nanoClock.getAsLong());
+                LOGGER.debug("URL resolver {} failed", name, e);
+                return Optional.empty();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            }
+            long end = nanoClock.getAsLong();
+            latency.record(end - start);
+            if (end - start > budgetNanos) {
+                timeouts.increment();
+                breaker.recordFailure(end);
+            } else {
+                breaker.recordSuccess();
+            }
+            (url.isPresent() ? hits : misses).increment();
+            return url;
+        }
+
+        private Optional<String> callWithinBudget(String windowTitle)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            FutureTask<Optional<String>> call = new FutureTask<>(() -> resolver.resolveActiveUrl(windowTitle));
+            BLOCKING_CALLS.newThread(call).start();
+            try {
+                return Objects.requireNonNullElse(call.get(budgetNanos, TimeUnit.NANOSECONDS), Optional.empty());
+            } catch (TimeoutException e) {
+                call.cancel(true);
+                throw e;
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<StageSpec> specs = new ArrayList<>();
+        private MetricsRegistry metrics = MetricsRegistry.global();
+        private LongSupplier nanoClock = System::nanoTime;
+        private int failureThreshold = 3;
+        private Duration initialReprobe = Duration.ofSeconds(1);
+        private Duration maxReprobe = Duration.ofMinutes(1);
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a resolver that answers from memory; it runs on the caller's thread.
+         */
+        public Builder add(String name, BrowserUrlResolver resolver, Duration budget) {
+            specs.add(new StageSpec(name, resolver, budget, false));
+            return this;
+        }
+
+        /**
+         * Adds a resolver that may block; each call gets a virtual thread and at most {@code budget}.
+         */
+        public Builder addBlocking(String name, BrowserUrlResolver resolver, Duration budget) {
+            specs.add(new StageSpec(name, resolver, budget, true));
+            return this;
+        }
+
+        /**
+         * Consecutive failures before a breaker opens (default 3). An unavailable resolver opens
+         * it at once.
+         */
+        public Builder failureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * First re-probe interval of an open breaker and the cap it doubles up to (default 1s and 1min).
+         */
+        public Builder reprobe(Duration initial, Duration max) {
+            this.initialReprobe = Objects.requireNonNull(initial, "initial");
+            this.maxReprobe = Objects.requireNonNull(max, "max");
+            return this;
+        }
+
+        public Builder metrics(MetricsRegistry metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics");
+            return this;
+        }
+
+        Builder nanoClock(LongSupplier nanoClock) {
+            this.nanoClock = Objects.requireNonNull(nanoClock, "nanoClock");
+            return this;
+        }
+
+        public ResolverChain build() {
+            List<Stage> stages = new ArrayList<>();
+            for (StageSpec spec : specs) {
+                CircuitBreaker breaker = new CircuitBreaker(failureThreshold, initialReprobe.toNanos(), maxReprobe.toNanos());
+                stages.add(new Stage(spec.name, spec.resolver, spec.budget, spec.blocking, breaker, nanoClock, metrics));
+            }
+            return new ResolverChain(stages);
+        }
+    }
+
+    private record StageSpec(String name, BrowserUrlResolver resolver, Duration budget, boolean blocking) {
+
+        private StageSpec {
+            Objects.requireNonNull(name, "name");
+            Objects.requireNonNull(resolver, "resolver");
+            if (budget.isNegative() || budget.isZero()) {
+                throw new IllegalArgumentException("Budget must be positive");
+            }
+        }
+    }
+}
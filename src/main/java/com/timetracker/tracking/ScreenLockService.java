@@ -0,0 +1,72 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Turns lock-state signals into LOCK/UNLOCK events and parks the tracking work while the screen
+ * is locked. Several sources may report the same lock (the screensaver and logind both do on
+ * GNOME), so only actual changes count. On lock the event is written first and then everything
+ * is parked; on unlock everything is unparked after the event, so capture resumes with the
+ * UNLOCK already recorded.
+ */
+public final class ScreenLockService implements LockStateListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenLockService.class);
+    private static final Counter TRANSITIONS = MetricsRegistry.global().counter("lock.transitions");
+
+    private final ActivityEventSink events;
+    private final List<Parkable> parkables;
+    private final Clock clock;
+    private boolean locked;
+
+    public ScreenLockService(ActivityEventSink events, List<Parkable> parkables) {
+        this(events, parkables, Clock.systemUTC());
+    }
+
+    ScreenLockService(ActivityEventSink events, List<Parkable> parkables, Clock clock) {
+        this.events = Objects.requireNonNull(events, "events");
+        this.parkables = List.copyOf(parkables);
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * Registers {@code lock.locked} for this service; called once by its owner.
+     */
+    public void registerGauges(MetricsRegistry metrics) {
+        metrics.gauge("lock.locked", () -> isLocked() ? 1 : 0);
+    }
+
+    @Override
+    public synchronized void lockStateChanged(boolean locked) {
+        if (this.locked == locked) {
+            return;
+        }
+        this.locked = locked;
+        TRANSITIONS.increment();
+        LOGGER.info("Screen {}", locked ? "locked: parking capture, idle checks and aggregation" : "unlocked");
+        ActivityEventType type = locked ? ActivityEventType.LOCK : ActivityEventType.UNLOCK;
+        events.append(clock.instant(), type, null, null, null, null);
+        for (Parkable parkable : parkables) {
+            try {
+                if (locked) {
+                    parkable.park();
+                } else {
+                    parkable.unpark();
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to {} {}", locked ? "park" : "unpark", parkable, e);
+            }
+        }
+    }
+
+    public synchronized boolean isLocked() {
+        return locked;
+    }
+}
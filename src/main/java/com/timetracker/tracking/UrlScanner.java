@@ -0,0 +1,215 @@
+package com.timetracker.tracking;
+
+/**
+ * Single-pass scanner for the URLs browsers report: {@code scheme://host[:port][/path][?query][#fragment]}
+ * in plain ASCII. It returns offsets into the input instead of building a {@link java.net.URI}.
+ * <p>
+ * The scanner accepts a URL only when {@code java.net.URI} would parse it the same way and give
+ * back the same components. That means a server authority with a valid host name or IPv4 address,
+ * and no percent-escapes outside the query (URI decodes and re-quotes those). Everything else
+ * returns {@code null} and the caller falls back to {@code URI}: user info, IPv6 literals,
+ * non-ASCII text, characters URI rejects, opaque and relative URIs. The rules mirror RFC 2396 as
+ * {@code java.net.URI} implements it.
+ */
+final class UrlScanner {
+
+    private UrlScanner() {
+    }
+
+    /**
+     * Component offsets of a scanned URL. {@code queryStart} and {@code fragmentStart} point at the
+     * {@code '?'} and {@code '#'} separators, or are -1 when absent.
+     */
+    record Offsets(int hostStart, int hostEnd, int pathStart, int queryStart, int fragmentStart) {
+    }
+
+    static Offsets scan(String url) {
+        int n = url.length();
+        int p = 0;
+
+        // scheme = alpha *( alpha | digit | "+" | "-" | "." ), followed by "://"
+        if (n == 0 || !isAlpha(url.charAt(0))) {
+            return null;
+        }
+        p++;
+        while (p < n && isSchemeChar(url.charAt(p))) {
+            p++;
+        }
+        if (!url.startsWith("://", p)) {
+            return null;
+        }
+        p += 3;
+
+        // authority = host [ ":" port ], ended by the first '/', '?' or '#'
+        int hostStart = p;
+        boolean digitsAndDotsOnly = true;
+        while (p < n) {
+            char c = url.charAt(p);
+            if (c == '/' || c == '?' || c == '#' || c == ':') {
+                break;
+            }
+            if (isAlpha(c) || c == '-') {
+                digitsAndDotsOnly = false;
+            } else if (!isDigit(c) && c != '.') {
+                return null;
+            }
+            p++;
+        }
+        int hostEnd = p;
+        if (hostEnd == hostStart) {
+            return null;
+        }
+        if (digitsAndDotsOnly ? !isIpv4(url, hostStart, hostEnd) : !isHostname(url, hostStart, hostEnd)) {
+            return null;
+        }
+        if (p < n && url.charAt(p) == ':') {
+            p++;
+            int portStart = p;
+            while (p < n && isDigit(url.charAt(p))) {
+                p++;
+            }
+            if (p - portStart > 9) {
+                return null; // URI rejects ports that overflow an int
+            }
+        }
+        if (p < n && url.charAt(p) != '/' && url.charAt(p) != '?' && url.charAt(p) != '#') {
+            return null;
+        }
+
+        int pathStart = p;
+        while (p < n) {
+            char c = url.charAt(p);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            if (!isPathChar(c)) {
+                return null;
+            }
+            p++;
+        }
+
+        int queryStart = -1;
+        if (p < n && url.charAt(p) == '?') {
+            queryStart = p++;
+            while (p < n && url.charAt(p) != '#') {
+                char c = url.charAt(p);
+                if (c == '%') {
+                    if (p + 2 >= n || !isHex(url.charAt(p + 1)) || !isHex(url.charAt(p + 2))) {
+                        return null;
+                    }
+                    p += 3;
+                    continue;
+                }
+                if (!isUricChar(c)) {
+                    return null;
+                }
+                p++;
+            }
+        }
+
+        int fragmentStart = -1;
+        if (p < n) {
+            fragmentStart = p++;
+            while (p < n) {
+                if (!isUricChar(url.charAt(p))) {
+                    return null;
+                }
+                p++;
+            }
+        }
+        return new Offsets(hostStart, hostEnd, pathStart, queryStart, fragmentStart);
+    }
+
+    /**
+     * hostname = *( domainlabel "." ) toplabel [ "." ]; labels are alphanumerics and inner dashes,
+     * and when there is more than one label the last must start with a letter.
+     */
+    private static boolean isHostname(String s, int start, int end) {
+        int p = start;
+        int lastLabel = -1;
+        while (p < end) {
+            if (!isAlphanum(s.charAt(p))) {
+                return false;
+            }
+            lastLabel = p;
+            while (p < end && (isAlphanum(s.charAt(p)) || s.charAt(p) == '-')) {
+                p++;
+            }
+            if (s.charAt(p - 1) == '-') {
+                return false;
+            }
+            if (p < end) {
+                p++; // the only other character left is '.'
+            }
+        }
+        return lastLabel == start || isAlpha(s.charAt(lastLabel));
+    }
+
+    /**
+     * Exactly four dot-separated decimal bytes; URI reads any other run of digits and dots as a
+     * host name, which {@link #scan} leaves to URI.
+     */
+    private static boolean isIpv4(String s, int start, int end) {
+        int p = start;
+        for (int part = 0; part < 4; part++) {
+            if (part > 0) {
+                if (p >= end || s.charAt(p) != '.') {
+                    return false;
+                }
+                p++;
+            }
+            int value = 0;
+            int digits = 0;
+            while (p < end && isDigit(s.charAt(p))) {
+                value = Math.min(1000, value * 10 + (s.charAt(p) - '0'));
+                digits++;
+                p++;
+            }
+            if (digits == 0 || value > 255) {
+                return false;
+            }
+        }
+        return p == end;
+    }
+
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlphanum(char c) {
+        return isAlpha(c) || isDigit(c);
+    }
+
+    private static boolean isHex(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isSchemeChar(char c) {
+        return isAlphanum(c) || c == '+' || c == '-' || c == '.';
+    }
+
+    /**
+     * unreserved = alphanum | mark; mark = "-" | "_" | "." | "!" | "~" | "*" | "'" | "(" | ")"
+     */
+    private static boolean isUnreserved(char c) {
+        return isAlphanum(c) || "-_.!~*'()".indexOf(c) >= 0;
+    }
+
+    /**
+     * Path characters without escapes: unreserved plus ":@&=+$,;/".
+     */
+    private static boolean isPathChar(char c) {
+        return isUnreserved(c) || ":@&=+$,;/".indexOf(c) >= 0;
+    }
+
+    /**
+     * uric without escapes: unreserved plus the reserved ";/?:@&=+$,[]".
+     */
+    private static boolean isUricChar(char c) {
+        return isUnreserved(c) || ";/?:@&=+$,[]".indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,90 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.MetricsRegistry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-window metadata that does not change while a window lives: its class, owning process,
+ * executable and command line, and whether it is a browser. Keyed by X11 window id. An entry is
+ * dropped when its window is gone (the collector calls {@link #invalidate}), when the window
+ * reports a different PID, or when the owning process no longer exists under {@code /proc}.
+ * Window ids are recycled by the X server, so the PID check is what keeps a reused id from
+ * inheriting the old window's metadata.
+ */
+final class WindowMetadataCache {
+
+    static final int CAPACITY = 64;
+
+    private static final Counter HITS = MetricsRegistry.global().counter("capture.window_cache.hits");
+    private static final Counter MISSES = MetricsRegistry.global().counter("capture.window_cache.misses");
+
+    private final Path procRoot;
+    private final Map<String, WindowMetadata> entries = new LinkedHashMap<>(CAPACITY * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WindowMetadata> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    WindowMetadataCache(Path procRoot) {
+        this.procRoot = procRoot;
+    }
+
+    /**
+     * The cached metadata for this window, or null if there is none or its process has exited.
+     */
+    synchronized WindowMetadata get(String windowId) {
+        WindowMetadata metadata = entries.get(windowId);
+        if (metadata != null && metadata.pid() > 0 && !Files.exists(procRoot.resolve(Long.toString(metadata.pid())))) {
+            entries.remove(windowId);
+            metadata = null;
+        }
+        (metadata != null ? HITS : MISSES).increment();
+        return metadata;
+    }
+
+    synchronized void put(WindowMetadata metadata) {
+        entries.put(metadata.windowId(), metadata);
+    }
+
+    synchronized void invalidate(String windowId) {
+        entries.remove(windowId);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    static boolean isBrowser(String appId, String executable) {
+        return isBrowserName(appId) || (executable != null && isBrowserName(Path.of(executable).getFileName().toString()));
+    }
+
+    private static boolean isBrowserName(String name) {
+        if (name == null) {
+            return false;
+        }
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.contains("chrome") || lower.contains("brave") || lower.contains("chromium") || lower.contains("edge");
+    }
+
+    /**
+     * @param appId      lowercased WM_CLASS instance, or the process name when the window has none
+     * @param pid        {@code _NET_WM_PID}, or -1 if the window does not set it
+     * @param executable resolved {@code /proc/<pid>/exe}, or null if unreadable
+     * @param cmdline    {@code /proc/<pid>/cmdline} arguments, empty if unreadable
+     */
+    record WindowMetadata(String windowId, long pid, String appId, String executable, List<String> cmdline,
+                          boolean browser) {
+
+        WindowMetadata {
+            cmdline = List.copyOf(cmdline);
+        }
+    }
+}
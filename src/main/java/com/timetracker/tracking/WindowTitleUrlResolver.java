@@ -7,18 +7,22 @@ import java.util.regex.Pattern;
 /**
  * Attempts to pull a plausible URL/domain out of a browser window title.
  * This is heuristic and used as a fallback when remote debugging is unavailable.
+ * Stateless: one instance serves every capture.
  */
 public class WindowTitleUrlResolver implements BrowserUrlResolver {
 
     private static final Pattern DOMAIN_PATTERN = Pattern.compile("([\\w.-]+\\.[a-zA-Z]{2,})(?:[/\\s-].*)?");
-    private final String windowTitle;
 
-    public WindowTitleUrlResolver(String windowTitle) {
-        this.windowTitle = windowTitle;
+    /**
+     * Without a window title there is nothing to parse.
+     */
+    @Override
+    public Optional<String> resolveActiveUrl() {
+        return Optional.empty();
     }
 
     @Override
-    public Optional<String> resolveActiveUrl() {
+    public Optional<String> resolveActiveUrl(String windowTitle) {
         if (windowTitle == null) {
             return Optional.empty();
         }
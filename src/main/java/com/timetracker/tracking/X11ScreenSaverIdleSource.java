@@ -0,0 +1,344 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Asks the X server how long the user has been idle, via the MIT-SCREEN-SAVER extension
+ * ({@code ScreenSaverQueryInfo}, the call behind {@code xprintidle}). The server already tracks
+ * the time of the last input event, so this costs one request on a local socket per check and
+ * nothing in between; no input event ever reaches the JVM.
+ * <p>
+ * Speaks the X11 wire protocol directly over {@code /tmp/.X11-unix/X<n>} with the
+ * MIT-MAGIC-COOKIE-1 entry from {@code $XAUTHORITY} (or {@code ~/.Xauthority}), so no native
+ * library is needed. Only local displays are supported; a remote {@code DISPLAY} makes
+ * {@link #start()} return false.
+ */
+public final class X11ScreenSaverIdleSource implements IdleSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(X11ScreenSaverIdleSource.class);
+    private static final LatencyHistogram QUERY_LATENCY = MetricsRegistry.global().histogram("idle.x11.query");
+    private static final Counter CONNECTS = MetricsRegistry.global().counter("idle.x11.connects");
+
+    private static final String EXTENSION = "MIT-SCREEN-SAVER";
+    private static final String COOKIE_AUTH = "MIT-MAGIC-COOKIE-1";
+    private static final int QUERY_EXTENSION_OPCODE = 98;
+    private static final int SCREEN_SAVER_QUERY_INFO = 1;
+    private static final long IO_TIMEOUT_MILLIS = 1000;
+
+    private final Path socket;
+    private final String displayNumber;
+    private final Path xauthority;
+
+    private SocketChannel channel;
+    private Selector selector;
+    private int rootWindow;
+    private int extensionOpcode;
+    private int sequence;
+
+    public X11ScreenSaverIdleSource() {
+        this(System.getenv("DISPLAY"), defaultXauthority());
+    }
+
+    X11ScreenSaverIdleSource(String display, Path xauthority) {
+        this(localSocket(display), displayNumber(display), xauthority);
+    }
+
+    X11ScreenSaverIdleSource(Path socket, String displayNumber, Path xauthority) {
+        this.socket = socket;
+        this.displayNumber = displayNumber;
+        this.xauthority = xauthority;
+    }
+
+    @Override
+    public synchronized boolean start() {
+        if (socket == null) {
+            LOGGER.info("X11 idle source unavailable: no local DISPLAY");
+            return false;
+        }
+        try {
+            connect();
+            return true;
+        } catch (IOException e) {
+            LOGGER.info("X11 idle source unavailable: {}", e.getMessage());
+            disconnect();
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized Duration idleTime() throws IOException {
+        if (socket == null) {
+            throw new IOException("No local X display");
+        }
+        if (channel == null) {
+            connect();
+        }
+        long start = System.nanoTime();
+        try {
+            ByteBuffer request = buffer(8)
+                    .put((byte) extensionOpcode)
+                    .put((byte) SCREEN_SAVER_QUERY_INFO)
+                    .putShort((short) 2)
+                    .putInt(rootWindow);
+            ByteBuffer reply = roundTrip(request);
+            return Duration.ofMillis(Integer.toUnsignedLong(reply.getInt(16)));
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        } finally {
+            QUERY_LATENCY.recordSince(start);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "x11";
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+    }
+
+    private void connect() throws IOException {
+        disconnect();
+        channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(socket));
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        sequence = 0;
+        setup();
+        extensionOpcode = queryExtension();
+        CONNECTS.increment();
+    }
+
+    private void disconnect() {
+        try {
+            if (selector != null) {
+                selector.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Failed to close X11 connection cleanly", e);
+        }
+        selector = null;
+        channel = null;
+    }
+
+    private void setup() throws IOException {
+        byte[] cookie = readCookie(xauthority, displayNumber);
+        byte[] authName = cookie == null ? new byte[0] : COOKIE_AUTH.getBytes(StandardCharsets.US_ASCII);
+        byte[] authData = cookie == null ? new byte[0] : cookie;
+        ByteBuffer request = buffer(12 + pad4(authName.length) + pad4(authData.length))
+                .put((byte) 'l')
+                .put((byte) 0)
+                .putShort((short) 11)
+                .putShort((short) 0)
+                .putShort((short) authName.length)
+                .putShort((short) authData.length)
+                .putShort((short) 0);
+        request.put(authName).position(12 + pad4(authName.length));
+        request.put(authData).position(request.capacity());
+        write(request);
+
+        ByteBuffer header = read(8);
+        ByteBuffer body = read(Short.toUnsignedInt(header.getShort(6)) * 4);
+        int status = header.get(0);
+        if (status == 0) {
+            int reasonLength = Byte.toUnsignedInt(header.get(1));
+            throw new IOException("X server refused connection: "
+                    + new String(body.array(), 0, Math.min(reasonLength, body.capacity()), StandardCharsets.US_ASCII));
+        }
+        if (status != 1) {
+            throw new IOException("X server requires further authentication");
+        }
+        int vendorLength = Short.toUnsignedInt(body.getShort(16));
+        int formatCount = Byte.toUnsignedInt(body.get(21));
+        rootWindow = body.getInt(32 + pad4(vendorLength) + 8 * formatCount);
+    }
+
+    private int queryExtension() throws IOException {
+        byte[] name = EXTENSION.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer request = buffer(8 + pad4(name.length))
+                .put((byte) QUERY_EXTENSION_OPCODE)
+                .put((byte) 0)
+                .putShort((short) (2 + pad4(name.length) / 4))
+                .putShort((short) name.length)
+                .putShort((short) 0);
+        request.put(name).position(request.capacity());
+        ByteBuffer reply = roundTrip(request);
+        if (reply.get(8) == 0) {
+            throw new IOException(EXTENSION + " extension not present");
+        }
+        return Byte.toUnsignedInt(reply.get(9));
+    }
+
+    /**
+     * Sends one request and returns the 32-byte head of its reply, skipping any events.
+     */
+    private ByteBuffer roundTrip(ByteBuffer request) throws IOException {
+        write(request);
+        int expected = ++sequence & 0xFFFF;
+        while (true) {
+            ByteBuffer head = read(32);
+            int type = head.get(0);
+            if (type == 0) {
+                throw new IOException("X error " + Byte.toUnsignedInt(head.get(1)));
+            }
+            if (type != 1) {
+                continue;
+            }
+            long extraBytes = Integer.toUnsignedLong(head.getInt(4)) * 4;
+            if (extraBytes > 0) {
+                read(Math.toIntExact(extraBytes));
+            }
+            if (Short.toUnsignedInt(head.getShort(2)) == expected) {
+                return head;
+            }
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        SelectionKey key = channel.keyFor(selector);
+        key.interestOps(SelectionKey.OP_WRITE);
+        try {
+            long deadline = System.nanoTime() + IO_TIMEOUT_MILLIS * 1_000_000;
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0) {
+                    await(deadline);
+                }
+            }
+        } finally {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private ByteBuffer read(int length) throws IOException {
+        ByteBuffer buffer = buffer(length);
+        long deadline = System.nanoTime() + IO_TIMEOUT_MILLIS * 1_000_000;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("X server closed the connection");
+            }
+            if (read == 0) {
+                await(deadline);
+            }
+        }
+        return buffer;
+    }
+
+    private void await(long deadlineNanos) throws IOException {
+        long remainingMillis = (deadlineNanos - System.nanoTime()) / 1_000_000;
+        if (remainingMillis <= 0 || selector.select(remainingMillis) == 0) {
+            throw new IOException("X server did not answer in " + IO_TIMEOUT_MILLIS + "ms");
+        }
+        selector.selectedKeys().clear();
+    }
+
+    private static ByteBuffer buffer(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int pad4(int length) {
+        return (length + 3) & ~3;
+    }
+
+    /**
+     * The display number of a local {@code DISPLAY} (":0", ":1.0", "unix:0"), or null if unset or
+     * remote.
+     */
+    static String displayNumber(String display) {
+        if (display == null || display.isBlank()) {
+            return null;
+        }
+        int colon = display.lastIndexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        String host = display.substring(0, colon);
+        if (!host.isEmpty() && !host.equals("unix")) {
+            return null;
+        }
+        String number = display.substring(colon + 1);
+        int dot = number.indexOf('.');
+        if (dot >= 0) {
+            number = number.substring(0, dot);
+        }
+        return !number.isEmpty() && number.chars().allMatch(Character::isDigit) ? number : null;
+    }
+
+    private static Path localSocket(String display) {
+        String number = displayNumber(display);
+        return number == null ? null : Path.of("/tmp/.X11-unix", "X" + number);
+    }
+
+    private static Path defaultXauthority() {
+        String configured = System.getenv("XAUTHORITY");
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured);
+        }
+        return Path.of(System.getProperty("user.home"), ".Xauthority");
+    }
+
+    /**
+     * The MIT-MAGIC-COOKIE-1 for this display from an Xauthority file, or null if there is none.
+     * Entries are big-endian: family, then length-prefixed address, display number, auth name
+     * and auth data.
+     */
+    static byte[] readCookie(Path xauthority, String displayNumber) {
+        if (xauthority == null || !Files.isReadable(xauthority)) {
+            return null;
+        }
+        try (InputStream stream = Files.newInputStream(xauthority);
+             DataInputStream in = new DataInputStream(stream)) {
+            while (true) {
+                try {
+                    in.readUnsignedShort();
+                } catch (EOFException e) {
+                    return null;
+                }
+                readCounted(in);
+                String number = new String(readCounted(in), StandardCharsets.US_ASCII);
+                String name = new String(readCounted(in), StandardCharsets.US_ASCII);
+                byte[] data = readCounted(in);
+                if (COOKIE_AUTH.equals(name) && (number.isEmpty() || number.equals(displayNumber))) {
+                    return data;
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Failed to read {}", xauthority, e);
+            return null;
+        }
+    }
+
+    private static byte[] readCounted(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -1,5 +1,8 @@
 package com.timetracker.util;
 
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+
 public final class CategoryColorUtil {
 
     private static final String[] PALETTE = new String[]{
@@ -13,14 +16,30 @@ public final class CategoryColorUtil {
             "#F97316"  // orange
     };
 
+    // Parsed once so list cells never call Color.web on the scroll path.
+    private static final Paint[] PALETTE_PAINTS = new Paint[PALETTE.length];
+
+    static {
+        for (int i = 0; i < PALETTE.length; i++) {
+            PALETTE_PAINTS[i] = Color.web(PALETTE[i]);
+        }
+    }
+
     private CategoryColorUtil() {
     }
 
     public static String colorFor(String key) {
+        return PALETTE[paletteIndex(key)];
+    }
+
+    public static Paint paintFor(String key) {
+        return PALETTE_PAINTS[paletteIndex(key)];
+    }
+
+    private static int paletteIndex(String key) {
         if (key == null || key.isBlank()) {
-            return PALETTE[0];
+            return 0;
         }
-        int idx = Math.abs(key.hashCode()) % PALETTE.length;
-        return PALETTE[idx];
+        return Math.abs(key.hashCode() % PALETTE.length);
     }
 }
@@ -0,0 +1,110 @@
+package com.timetracker.controller;
+
+import com.timetracker.model.SessionViewModel;
+import com.timetracker.util.TimeUtils;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.stage.Stage;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Manual benchmark: scrolls a history list of synthetic sessions through
+ * {@link SessionListCell} and reports pulse-to-pulse frame times. Needs a
+ * display (or Xvfb); not picked up by surefire.
+ *
+ * <pre>
+ * ./mvnw -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.timetracker.controller.SessionListScrollBenchmark -Dexec.args=50000
+ * </pre>
+ */
+public final class SessionListScrollBenchmark {
+
+    private static final String[] CATEGORIES = {"Deep Work", "Email", "Meetings", "Reading", "Study", "Admin"};
+    private static final int ROWS_PER_FRAME = 40;
+
+    private SessionListScrollBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.startup(() -> run(rows, done));
+        done.await();
+        Platform.exit();
+    }
+
+    private static void run(int rows, CountDownLatch done) {
+        ObservableList<SessionViewModel> items = FXCollections.observableArrayList(syntheticSessions(rows));
+        ListView<SessionViewModel> listView = new ListView<>(items);
+        // Context-menu actions are never triggered here, so no controller is needed.
+        listView.setCellFactory(view -> new SessionListCell(null));
+        Stage stage = new Stage();
+        stage.setScene(new Scene(listView, 600, 800));
+        stage.show();
+
+        long[] frameNanos = new long[rows / ROWS_PER_FRAME + 1];
+        new AnimationTimer() {
+            private long previous;
+            private int frame;
+            private int index;
+
+            @Override
+            public void handle(long now) {
+                if (previous != 0) {
+                    frameNanos[frame++] = now - previous;
+                }
+                previous = now;
+                if (index >= rows || frame >= frameNanos.length) {
+                    stop();
+                    report(rows, Arrays.copyOf(frameNanos, frame));
+                    stage.close();
+                    done.countDown();
+                    return;
+                }
+                listView.scrollTo(index);
+                index += ROWS_PER_FRAME;
+            }
+        }.start();
+    }
+
+    private static SessionViewModel[] syntheticSessions(int rows) {
+        SessionViewModel[] sessions = new SessionViewModel[rows];
+        LocalDateTime cursor = LocalDateTime.now().minusMinutes(rows * 30L);
+        for (int i = 0; i < rows; i++) {
+            int duration = 5 + (i * 7) % 90;
+            LocalDateTime end = cursor.plusMinutes(duration);
+            String category = CATEGORIES[i % CATEGORIES.length];
+            sessions[i] = new SessionViewModel(i + 1, i % CATEGORIES.length, cursor,
+                    TimeUtils.formatHHmm(cursor), TimeUtils.formatHHmm(end), category, duration);
+            cursor = end.plusMinutes(25);
+        }
+        return sessions;
+    }
+
+    private static void report(int rows, long[] frameNanos) {
+        if (frameNanos.length == 0) {
+            System.out.println("No frames recorded");
+            return;
+        }
+        Arrays.sort(frameNanos);
+        System.out.printf("rows=%d frames=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms%n",
+                rows,
+                frameNanos.length,
+                percentile(frameNanos, 0.50),
+                percentile(frameNanos, 0.95),
+                percentile(frameNanos, 0.99),
+                frameNanos[frameNanos.length - 1] / 1_000_000.0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int idx = (int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)));
+        return sorted[idx] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,64 @@
+package com.timetracker.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseInitializerTest {
+
+    @RegisterExtension
+    final TempDatabaseExtension database = TempDatabaseExtension.uninitialized();
+
+    @Test
+    void initialize_createsSchemaAndStampsVersion() throws Exception {
+        DatabaseInitializer.initialize();
+
+        assertEquals(DatabaseInitializer.SCHEMA_VERSION, queryInt("PRAGMA user_version"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM sqlite_master WHERE name = 'idx_activity_events_ts'"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM sqlite_master WHERE name = 'activity_daily_totals'"));
+    }
+
+    @Test
+    void initialize_skipsAllWorkWhenSchemaIsCurrent() throws Exception {
+        DatabaseInitializer.initialize();
+        execute("DROP TABLE activity_daily_totals");
+
+        DatabaseInitializer.initialize();
+
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM sqlite_master WHERE name = 'activity_daily_totals'"));
+    }
+
+    @Test
+    void initialize_upgradesUnversionedDatabaseFromOlderBuild() throws Exception {
+        execute("CREATE TABLE categories (id INTEGER PRIMARY KEY AUTOINCREMENT, name TEXT NOT NULL)");
+        execute("INSERT INTO categories (name) VALUES ('Work')");
+
+        DatabaseInitializer.initialize();
+
+        assertEquals(DatabaseInitializer.SCHEMA_VERSION, queryInt("PRAGMA user_version"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM categories WHERE name = 'Work' AND daily_limit_minutes IS NULL"));
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM sqlite_master WHERE name = 'sessions'"));
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = DatabaseManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int queryInt(String sql) throws SQLException {
+        try (Connection connection = DatabaseManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            assertTrue(resultSet.next());
+            return resultSet.getInt(1);
+        }
+    }
+}
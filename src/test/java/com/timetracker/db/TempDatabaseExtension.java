@@ -0,0 +1,81 @@
+package com.timetracker.db;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Points {@link DatabaseManager} at a fresh database in a temporary directory for each test and
+ * restores the previous path afterwards. Register it as a field:
+ * <pre>{@code
+ * @RegisterExtension
+ * final TempDatabaseExtension database = new TempDatabaseExtension();
+ * }</pre>
+ * The schema is created before the test class's own {@code @BeforeEach} methods run, unless the
+ * extension comes from {@link #uninitialized()}.
+ */
+public final class TempDatabaseExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private final boolean initialize;
+    private Path directory;
+    private String previousPath;
+
+    public TempDatabaseExtension() {
+        this(true);
+    }
+
+    private TempDatabaseExtension(boolean initialize) {
+        this.initialize = initialize;
+    }
+
+    /**
+     * Leaves the database file absent, for tests of {@link DatabaseInitializer} itself.
+     */
+    public static TempDatabaseExtension uninitialized() {
+        return new TempDatabaseExtension(false);
+    }
+
+    /**
+     * The database file, {@code test.db} in {@link #directory()}.
+     */
+    public Path path() {
+        return directory.resolve("test.db");
+    }
+
+    /**
+     * The temporary directory, for files kept next to the database (journal, minute index).
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws IOException {
+        directory = Files.createTempDirectory("timetracker-test");
+        previousPath = System.getProperty(DatabaseManager.DATABASE_PATH_PROPERTY);
+        System.setProperty(DatabaseManager.DATABASE_PATH_PROPERTY, path().toString());
+        if (initialize) {
+            DatabaseInitializer.initialize();
+        }
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) throws IOException {
+        if (previousPath == null) {
+            System.clearProperty(DatabaseManager.DATABASE_PATH_PROPERTY);
+        } else {
+            System.setProperty(DatabaseManager.DATABASE_PATH_PROPERTY, previousPath);
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
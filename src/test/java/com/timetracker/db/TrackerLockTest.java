@@ -0,0 +1,41 @@
+package com.timetracker.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrackerLockTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void tryAcquire_isExclusiveUntilClosed() throws Exception {
+        Path database = tempDir.resolve("timetracker.db");
+
+        Optional<TrackerLock> first = TrackerLock.tryAcquire(database);
+        assertTrue(first.isPresent());
+        assertTrue(TrackerLock.tryAcquire(database).isEmpty());
+        assertEquals(ProcessHandle.current().pid() + "\n", Files.readString(TrackerLock.lockFileFor(database)));
+
+        first.get().close();
+
+        Optional<TrackerLock> second = TrackerLock.tryAcquire(database);
+        assertTrue(second.isPresent());
+        second.get().close();
+    }
+
+    @Test
+    void locksAreScopedPerDatabase() {
+        try (TrackerLock lock = TrackerLock.tryAcquire(tempDir.resolve("a.db")).orElseThrow()) {
+            Optional<TrackerLock> other = TrackerLock.tryAcquire(tempDir.resolve("b.db"));
+            assertTrue(other.isPresent());
+            other.get().close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.timetracker.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bundledProfile_enablesEveryAppEvent() {
+        Map<String, String> settings = FlightRecording.loadConfiguration().getSettings();
+
+        for (String name : List.of("Capture", "Resolver", "ActivityInsert", "Aggregation", "DaoQuery", "UiRefresh")) {
+            assertEquals("true", settings.get("com.timetracker." + name + "#enabled"), name);
+        }
+    }
+
+    @Test
+    void startStop_writesCommittedEventsToFile() throws Exception {
+        FlightRecording recording = new FlightRecording();
+        Path file = tempDir.resolve("run.jfr");
+
+        recording.start(file);
+        assertTrue(recording.isRecording());
+        assertThrows(IllegalStateException.class, () -> recording.start(tempDir.resolve("other.jfr")));
+        DaoQueryEvent.begin("sessions", "find_range").finish(42);
+        ResolverEvent.begin("xprop", "xprop -root _NET_ACTIVE_WINDOW").finish("window id # 0x1e00007", true);
+        Path written = recording.stop();
+
+        assertFalse(recording.isRecording());
+        assertEquals(file, written);
+        assertTrue(Files.size(file) > 0);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent query = single(events, "com.timetracker.DaoQuery");
+        assertEquals("find_range", query.getString("query"));
+        assertEquals(42, query.getLong("rows"));
+        RecordedEvent resolver = single(events, "com.timetracker.Resolver");
+        assertEquals(21, resolver.getLong("payloadBytes"));
+        assertTrue(resolver.getBoolean("resolved"));
+    }
+
+    @Test
+    void stop_withoutRecording_fails() {
+        assertThrows(IllegalStateException.class, () -> new FlightRecording().stop());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.timetracker.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketBoundaries_coverEveryValueWithinThreePercent() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong(1, Long.MAX_VALUE >>> random.nextInt(0, 62));
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestValueIn(index);
+
+            assertTrue(highest >= value, () -> "bucket below " + value);
+            assertTrue(highest - value <= Math.max(0, value / 32), () -> "bucket too wide for " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.highestValueIn(index - 1) < value, () -> "overlapping bucket at " + value);
+            }
+        }
+        assertEquals(LatencyHistogram.indexOf(Long.MAX_VALUE), LatencyHistogram.indexOf(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    void snapshot_reportsPercentilesOfUniformSamples() {
+        LatencyHistogram histogram = new MetricsRegistry().histogram("test");
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.maxNanos());
+        assertEquals(5_000_000, snapshot.p50Nanos(), 5_000_000 * 0.03);
+        assertEquals(9_000_000, snapshot.p90Nanos(), 9_000_000 * 0.03);
+        assertEquals(9_900_000, snapshot.p99Nanos(), 9_900_000 * 0.03);
+        assertEquals(5_000_500, snapshot.meanNanos(), 1);
+    }
+
+    @Test
+    void registrySnapshot_rendersSortedJsonAndToleratesFailingGauges() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("b.count").add(3);
+        registry.counter("a.count").increment();
+        registry.gauge("broken", () -> {
+            throw new IllegalStateException("boom");
+        });
+        registry.histogram("latency").record(42);
+
+        MetricsSnapshot snapshot = registry.snapshot();
+
+        assertEquals(Map.of("a.count", 1L, "b.count", 3L), snapshot.counters());
+        assertEquals(-1L, snapshot.gauges().get("broken"));
+        String json = new MetricsSnapshot(Instant.EPOCH, snapshot.counters(), snapshot.gauges(), snapshot.histograms()).toJson();
+        assertEquals("{\"takenAt\":\"1970-01-01T00:00:00Z\",\"counters\":{\"a.count\":1,\"b.count\":3},"
+                + "\"gauges\":{\"broken\":-1},\"histograms\":{\"latency\":{\"count\":1,\"sumNanos\":42,"
+                + "\"maxNanos\":42,\"p50Nanos\":42,\"p90Nanos\":42,\"p99Nanos\":42,\"p999Nanos\":42}}}", json);
+    }
+}
@@ -0,0 +1,75 @@
+package com.timetracker.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsHttpServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private MetricsRegistry registry;
+    private MetricsHttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registry = new MetricsRegistry();
+        registry.counter("capture.snapshots").add(5);
+        registry.gauge("aggregation.pending_events", () -> 12);
+        registry.gauge("db.size_bytes", () -> 4096);
+        registry.histogram("db.sessions.find_range").record(2_000_000);
+        server = new MetricsHttpServer(registry, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void metrics_servesPrometheusText() throws Exception {
+        HttpResponse<String> response = get("/metrics");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElseThrow().startsWith("text/plain; version=0.0.4"));
+        String body = response.body();
+        assertTrue(body.contains("# TYPE timetracker_capture_snapshots_total counter\ntimetracker_capture_snapshots_total 5\n"), body);
+        assertTrue(body.contains("timetracker_aggregation_pending_events 12\n"), body);
+        assertTrue(body.contains("timetracker_db_sessions_find_range_seconds{quantile=\"0.99\"} 0.002"), body);
+        assertTrue(body.contains("timetracker_db_sessions_find_range_seconds_count 1\n"), body);
+    }
+
+    @Test
+    void health_reportsTrackerGaugesAndMissingOnesAsMinusOne() throws Exception {
+        String body = get("/health").body();
+
+        assertTrue(body.contains("\"eventQueueDepth\":12"), body);
+        assertTrue(body.contains("\"dbSizeBytes\":4096"), body);
+        assertTrue(body.contains("\"lastCaptureEpochMs\":-1"), body);
+    }
+
+    @Test
+    void json_andUnknownPathsAndMethods() throws Exception {
+        assertTrue(get("/metrics.json").body().contains("\"capture.snapshots\":5"));
+        assertEquals(404, get("/metrics/extra").statusCode());
+        HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri("/metrics"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.port() + path);
+    }
+}
@@ -1,6 +1,9 @@
 package com.timetracker.service;
 
 import com.timetracker.dao.SessionDao;
+import com.timetracker.event.DomainEventBus;
+import com.timetracker.event.SessionEdited;
+import com.timetracker.event.SessionStopped;
 import com.timetracker.model.Category;
 import com.timetracker.model.Session;
 import com.timetracker.model.SessionDto;
@@ -14,12 +17,27 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,9 +72,7 @@ class SessionServiceTest {
         LocalDateTime start = LocalDateTime.now().minusMinutes(10);
         long allowedSeconds = 120L;
 
-        Field activeSessionField = SessionService.class.getDeclaredField("activeSession");
-        activeSessionField.setAccessible(true);
-        activeSessionField.set(sessionService, new SessionService.ActiveSession(category, start, allowedSeconds));
+        setActiveSession(sessionService, new SessionService.ActiveSession(category, start, allowedSeconds));
 
         ArgumentCaptor<Session> captor = ArgumentCaptor.forClass(Session.class);
         when(sessionDao.insert(captor.capture())).thenAnswer(invocation -> {
@@ -129,4 +145,175 @@ class SessionServiceTest {
         assertEquals(60, updated.getDurationMinutes());
         verify(sessionDao).update(any(Session.class));
     }
+
+    @Test
+    void stopAndUpdate_publishDomainEvents() {
+        DomainEventBus eventBus = new DomainEventBus();
+        List<SessionStopped> stopped = new ArrayList<>();
+        List<SessionEdited> edited = new ArrayList<>();
+        eventBus.subscribe(SessionStopped.class, stopped::add);
+        eventBus.subscribe(SessionEdited.class, edited::add);
+        SessionService service = new SessionService(sessionDao, eventBus);
+        Category category = new Category(9, "Writing", null);
+
+        when(sessionDao.insert(any(Session.class))).thenAnswer(invocation -> {
+            Session toSave = invocation.getArgument(0);
+            return new Session(42, toSave.getCategoryId(), toSave.getStartTime(), toSave.getEndTime(), toSave.getDurationMinutes());
+        });
+        service.startSession(category, null);
+        service.stopSession();
+        service.startSession(category, null);
+        service.cancelActiveSession();
+
+        assertEquals(2, stopped.size());
+        assertEquals(42, stopped.get(0).session().getId());
+        assertEquals("Writing", stopped.get(0).session().getCategoryName());
+        assertTrue(stopped.get(1).discarded());
+
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 0);
+        SessionDto existing = new SessionDto(42, 9, "Writing", start, start.plusMinutes(10), 10);
+        when(sessionDao.findById(42)).thenReturn(Optional.of(existing));
+        when(sessionDao.update(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.updateSession(42, start, start.plusMinutes(25));
+
+        assertEquals(1, edited.size());
+        assertSame(existing, edited.get(0).previous());
+        assertEquals(25, edited.get(0).updated().getDurationMinutes());
+    }
+
+    @Test
+    void concurrentStops_persistSessionOnce() throws Exception {
+        Category category = new Category(12, "Deep Work", 30);
+        LocalDateTime start = LocalDateTime.now().minusMinutes(45);
+        // The limit has already expired: the UI clock's expiry handler and the user's Stop race.
+        setActiveSession(sessionService, new SessionService.ActiveSession(category, start, 1800L));
+        AtomicInteger ids = new AtomicInteger(200);
+        when(sessionDao.insert(any(Session.class))).thenAnswer(invocation -> {
+            Session toSave = invocation.getArgument(0);
+            return new Session(ids.getAndIncrement(), toSave.getCategoryId(), toSave.getStartTime(),
+                    toSave.getEndTime(), toSave.getDurationMinutes());
+        });
+
+        List<Optional<Session>> results = race(8, sessionService::stopSession);
+
+        assertEquals(1, results.stream().filter(Optional::isPresent).count());
+        ArgumentCaptor<Session> captor = ArgumentCaptor.forClass(Session.class);
+        verify(sessionDao, times(1)).insert(captor.capture());
+        assertEquals(start.plusSeconds(1800), captor.getValue().getEndTime());
+        assertFalse(sessionService.isSessionRunning());
+    }
+
+    @Test
+    void stopRacingCancel_publishesExactlyOneStop() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            DomainEventBus eventBus = new DomainEventBus();
+            List<SessionStopped> stopped = Collections.synchronizedList(new ArrayList<>());
+            eventBus.subscribe(SessionStopped.class, stopped::add);
+            SessionService service = new SessionService(sessionDao, eventBus);
+            lenient().when(sessionDao.insert(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+            service.startSession(new Category(13, "Review", null), null);
+
+            race(2, () -> {
+                service.stopSession();
+                return null;
+            }, () -> {
+                service.cancelActiveSession();
+                return null;
+            });
+
+            assertEquals(1, stopped.size());
+            assertFalse(service.isSessionRunning());
+        }
+    }
+
+    @Test
+    void stopRacingReset_eitherPersistsOrDiscardsNeverBoth() throws Exception {
+        Category category = new Category(14, "Games", 60);
+        lenient().when(sessionDao.findTotalDurationSecondsForDateAndCategory(any(LocalDate.class), eq(14)))
+                .thenReturn(0L);
+        lenient().when(sessionDao.insert(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        for (int round = 0; round < 50; round++) {
+            DomainEventBus eventBus = new DomainEventBus();
+            List<SessionStopped> stopped = Collections.synchronizedList(new ArrayList<>());
+            eventBus.subscribe(SessionStopped.class, stopped::add);
+            SessionService service = new SessionService(sessionDao, eventBus);
+            service.startSession(category, 3600L);
+
+            List<Object> results = race(2, () -> service.stopSession(), () -> {
+                service.resetUsageForToday(category);
+                return null;
+            });
+
+            assertEquals(1, stopped.size());
+            boolean persisted = ((Optional<?>) results.get(0)).isPresent();
+            assertEquals(persisted, !stopped.get(0).discarded());
+            assertFalse(service.isSessionRunning());
+        }
+        verify(sessionDao, times(50)).saveUsageAdjustment(any(LocalDate.class), eq(14), anyLong(), eq(null));
+    }
+
+    @Test
+    void remainingSecondsQuery_doesNotBlockStop() throws Exception {
+        Category category = new Category(15, "Music", 90);
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(sessionDao.findUsageAdjustment(any(LocalDate.class), anyInt()))
+                .thenReturn(new SessionDao.UsageAdjustment(0, null));
+        when(sessionDao.findTotalDurationSecondsForDateAndCategory(any(LocalDate.class), eq(15))).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            assertTrue(releaseQuery.await(5, TimeUnit.SECONDS));
+            return 0L;
+        });
+        when(sessionDao.insert(any(Session.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        sessionService.startSession(category, null);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<OptionalLong> remaining = executor.submit(() -> sessionService.getRemainingSecondsForCategoryToday(category));
+            assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+
+            assertTrue(sessionService.stopSession().isPresent());
+
+            releaseQuery.countDown();
+            assertEquals(5400L, remaining.get(5, TimeUnit.SECONDS).getAsLong());
+        } finally {
+            releaseQuery.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @SafeVarargs
+    private static <T> List<T> race(int threads, Callable<? extends T>... tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<? extends T> task = tasks[i % tasks.length];
+                futures.add(executor.submit(() -> {
+                    ready.countDown();
+                    go.await();
+                    return task.call();
+                }));
+            }
+            assertTrue(ready.await(5, TimeUnit.SECONDS));
+            go.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setActiveSession(SessionService service, SessionService.ActiveSession session) throws Exception {
+        Field activeSessionField = SessionService.class.getDeclaredField("activeSession");
+        activeSessionField.setAccessible(true);
+        ((AtomicReference<SessionService.ActiveSession>) activeSessionField.get(service)).set(session);
+    }
 }
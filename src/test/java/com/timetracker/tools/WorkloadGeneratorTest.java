@@ -0,0 +1,74 @@
+package com.timetracker.tools;
+
+import com.timetracker.model.Category;
+import com.timetracker.model.Session;
+import com.timetracker.tracking.ActivityEvent;
+import com.timetracker.tracking.ActivityEventType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkloadGeneratorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 14);
+
+    private static WorkloadGenerator.Spec spec(long seed, int days) {
+        return new WorkloadGenerator.Spec(seed, DAY, days, 5, 9, 4, 6, false, ZoneOffset.UTC);
+    }
+
+    @Test
+    void eventsForDay_isDeterministicPerSeedAndIndependentOfRange() {
+        List<ActivityEvent> first = new WorkloadGenerator(spec(7, 1)).eventsForDay(DAY);
+        List<ActivityEvent> again = new WorkloadGenerator(spec(7, 90)).eventsForDay(DAY);
+        List<ActivityEvent> otherSeed = new WorkloadGenerator(spec(8, 1)).eventsForDay(DAY);
+
+        assertEquals(render(first), render(again));
+        assertNotEquals(render(first), render(otherSeed));
+    }
+
+    @Test
+    void eventsForDay_staysInsideActiveWindowAndPairsIdleEvents() {
+        List<ActivityEvent> events = new WorkloadGenerator(spec(3, 1)).eventsForDay(DAY);
+
+        assertFalse(events.isEmpty());
+        long windowSeconds = events.get(events.size() - 1).timestamp().getEpochSecond()
+                - events.get(0).timestamp().getEpochSecond();
+        assertTrue(windowSeconds < 9 * 3600);
+        int openIdle = 0;
+        for (ActivityEvent event : events) {
+            assertEquals(DAY, event.timestamp().atOffset(ZoneOffset.UTC).toLocalDate());
+            if (event.type() == ActivityEventType.IDLE_ON) {
+                assertEquals(0, openIdle);
+                openIdle++;
+            } else if (event.type() == ActivityEventType.IDLE_OFF) {
+                assertEquals(1, openIdle);
+                openIdle--;
+            } else {
+                assertEquals(0, openIdle, "no polls while idle");
+                assertNotNull(event.appId());
+            }
+        }
+        assertTrue(events.stream().map(ActivityEvent::appId).distinct().count() > 3);
+    }
+
+    @Test
+    void sessionsForDay_doNotOverlap() {
+        List<Category> categories = List.of(new Category(1, "Work", null), new Category(2, "Study", 60));
+        List<Session> sessions = new WorkloadGenerator(spec(5, 1)).sessionsForDay(DAY, categories);
+
+        assertEquals(6, sessions.size());
+        for (int i = 1; i < sessions.size(); i++) {
+            assertFalse(sessions.get(i).getStartTime().isBefore(sessions.get(i - 1).getEndTime()));
+        }
+    }
+
+    private static List<String> render(List<ActivityEvent> events) {
+        return events.stream()
+                .map(event -> event.timestamp() + " " + event.type() + " " + event.appId() + " " + event.url())
+                .toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.timetracker.tracking;
+
+import com.timetracker.dao.CategoryDao;
+import com.timetracker.dao.CategoryRuleDao;
+import com.timetracker.db.TempDatabaseExtension;
+import com.timetracker.event.DomainEventBus;
+import com.timetracker.model.Category;
+import com.timetracker.model.CategoryRule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityAggregationJobTest {
+
+    @RegisterExtension
+    final TempDatabaseExtension database = new TempDatabaseExtension();
+
+    private final LocalDate day = LocalDate.of(2025, 3, 1);
+    private final Instant dayStart = day.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    private final Instant dayEnd = day.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    private final ActivityEventDao eventDao = new ActivityEventDao();
+    private final ActivitySessionDao sessionDao = new ActivitySessionDao();
+    private final CategoryRuleDao ruleDao = new CategoryRuleDao();
+
+    @Test
+    void aggregate_persistsCategoryTotalsAndDropsThemWhenRulesNoLongerMatch() {
+        Category work = new CategoryDao().insert("Work", null);
+        CategoryRule rule = ruleDao.insert(work.getId(), CategoryRule.Field.APP, "code", 0);
+        Instant nine = dayStart.plusSeconds(9 * 3600);
+        eventDao.insertAll(List.of(
+                new ActivityEvent(nine, ActivityEventType.FOCUS, "code", "Main.java", null, null),
+                new ActivityEvent(nine.plusSeconds(600), ActivityEventType.FOCUS, "firefox", "News", null, null),
+                new ActivityEvent(nine.plusSeconds(900), ActivityEventType.IDLE_ON, null, null, null, null)));
+        ActivityAggregationJob job = new ActivityAggregationJob(eventDao, sessionDao, new ActivityAggregator(),
+                new ActivityCategorizer(ruleDao), new DomainEventBus());
+        ActivityReportingService reporting = new ActivityReportingService(sessionDao);
+
+        ActivityAggregationResult result = job.aggregate(dayStart, dayEnd, true);
+
+        List<ActivityCategoryTotal> expected = List.of(new ActivityCategoryTotal(day, work.getId(), 600));
+        assertEquals(expected, result.categoryTotals());
+        assertEquals(expected, reporting.getCategoryTotalsForDate(day));
+
+        ruleDao.delete(rule.id());
+        job.aggregate(dayStart, dayEnd, true);
+        assertEquals(List.of(), reporting.getCategoryTotalsForDate(day));
+    }
+
+    @Test
+    void lag_isMeasuredFromNowWhenTheWindowEndsInTheFuture() throws Exception {
+        ActivityAggregationJob job = new ActivityAggregationJob(eventDao, sessionDao, new ActivityAggregator());
+        assertEquals(-1, job.lagMillis());
+
+        Instant now = Instant.now();
+        job.aggregate(now.minusSeconds(3600), now.plusSeconds(86_400), true);
+        Thread.sleep(50);
+
+        long lag = job.lagMillis();
+        assertTrue(lag >= 50 && lag < 60_000, "lag " + lag);
+        job.aggregate(dayStart, dayEnd, false);
+        assertEquals(lag, job.lagMillis(), 1_000, "runs that do not persist leave the lag alone");
+    }
+}
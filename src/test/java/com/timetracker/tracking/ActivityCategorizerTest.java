@@ -0,0 +1,73 @@
+package com.timetracker.tracking;
+
+import com.timetracker.model.CategoryRule;
+import com.timetracker.model.CategoryRule.Field;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityCategorizerTest {
+
+    private final List<CategoryRule> rules = new ArrayList<>(List.of(
+            new CategoryRule(1, 10, Field.APP, "code", 0),
+            new CategoryRule(2, 20, Field.DOMAIN, "youtube.com", 0)));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final ActivityCategorizer categorizer = new ActivityCategorizer(() -> {
+        loads.incrementAndGet();
+        return rules;
+    });
+    private final Instant start = LocalDate.of(2025, 3, 1).atTime(9, 0).atZone(ZoneId.systemDefault()).toInstant();
+
+    @Test
+    void categorize_memoizesPerDistinctActivity() {
+        categorizer.refresh();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(10, categorizer.categorize("code", null, "Main.java"));
+            assertEquals(20, categorizer.categorize("firefox", "https://www.youtube.com/watch", "Video"));
+            assertEquals(CategoryRuleMatcher.NO_CATEGORY, categorizer.categorize("slack", null, "general"));
+        }
+        assertEquals(3, categorizer.memoSize());
+    }
+
+    @Test
+    void refresh_recompilesOnlyWhenTheRulesChanged() {
+        categorizer.refresh();
+        assertEquals(CategoryRuleMatcher.NO_CATEGORY, categorizer.categorize("slack", null, "general"));
+        categorizer.refresh();
+        assertEquals(1, categorizer.memoSize(), "unchanged rules keep the memo");
+
+        rules.add(new CategoryRule(3, 30, Field.APP, "slack", 0));
+        categorizer.refresh();
+        assertEquals(0, categorizer.memoSize());
+        assertEquals(30, categorizer.categorize("slack", null, "general"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void summarize_sumsMatchedAutoSessionsPerDayAndCategory() {
+        categorizer.refresh();
+        List<ActivitySession> sessions = List.of(
+                session(0, 600, "code", null, false, ActivitySessionSource.AUTO),
+                session(600, 900, "firefox", "https://youtube.com/", false, ActivitySessionSource.AUTO),
+                session(900, 1200, "code", null, true, ActivitySessionSource.AUTO),
+                session(1200, 1500, "code", null, false, ActivitySessionSource.MANUAL),
+                session(1500, 1800, "slack", null, false, ActivitySessionSource.AUTO),
+                session(1800, 2000, "code", null, false, ActivitySessionSource.AUTO));
+
+        List<ActivityCategoryTotal> totals = categorizer.summarize(sessions);
+
+        LocalDate day = LocalDate.of(2025, 3, 1);
+        assertEquals(List.of(new ActivityCategoryTotal(day, 10, 800), new ActivityCategoryTotal(day, 20, 300)), totals);
+    }
+
+    private ActivitySession session(int from, int to, String app, String url, boolean idle, ActivitySessionSource source) {
+        return new ActivitySession(start.plusSeconds(from), start.plusSeconds(to), app, "title", url, source, idle);
+    }
+}
@@ -0,0 +1,110 @@
+package com.timetracker.tracking;
+
+import com.timetracker.db.TempDatabaseExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityReportingServiceTest {
+
+    @RegisterExtension
+    final TempDatabaseExtension database = new TempDatabaseExtension();
+
+    private final Instant midnight = Instant.parse("2025-03-01T00:00:00Z");
+    private final ActivityEventDao eventDao = new ActivityEventDao();
+    private final ActivitySessionDao sessionDao = new ActivitySessionDao();
+    private final ActivityReportingService reporting = new ActivityReportingService(sessionDao);
+    private ActivityAggregationJob job;
+
+    @BeforeEach
+    void setUp() {
+        job = new ActivityAggregationJob(eventDao, sessionDao, new ActivityAggregator());
+        // code 09:10:30-10:40, firefox 10:40-11:00, then idle.
+        eventDao.insertAll(List.of(
+                new ActivityEvent(at("09:10:30"), ActivityEventType.FOCUS, "code", "Main.java", null, null),
+                new ActivityEvent(at("10:40:00"), ActivityEventType.FOCUS, "firefox", "News", null, null),
+                new ActivityEvent(at("11:00:00"), ActivityEventType.IDLE_ON, null, null, null, null)));
+        job.aggregate(midnight, midnight.plusSeconds(86_400), true);
+    }
+
+    @Test
+    void aggregate_maintainsHourlyTotals() {
+        assertEquals(List.of(
+                        new ActivityHourlyTotal(at("09:00:00"), "code", 2970),
+                        new ActivityHourlyTotal(at("10:00:00"), "code", 2400),
+                        new ActivityHourlyTotal(at("10:00:00"), "firefox", 1200)),
+                sorted(sessionDao.findHourlyTotals(midnight, midnight.plusSeconds(86_400))));
+    }
+
+    @Test
+    void getTotalsBetween_combinesHoursAndMinutes() {
+        assertEquals(List.of(
+                        new ActivityRangeTotal(at("09:30:00"), at("10:00:00"), "code", 1800),
+                        new ActivityRangeTotal(at("10:00:00"), at("10:50:00"), "code", 2400),
+                        new ActivityRangeTotal(at("10:00:00"), at("10:50:00"), "firefox", 600)),
+                reporting.getTotalsBetween(at("09:30:00"), at("10:50:00"), ActivityGrouping.HOUR, ZoneOffset.UTC));
+
+        Instant weekStart = Instant.parse("2025-02-24T00:00:00Z");
+        assertEquals(List.of(
+                        new ActivityRangeTotal(weekStart, weekStart.plusSeconds(7 * 86_400), "code", 5370),
+                        new ActivityRangeTotal(weekStart, weekStart.plusSeconds(7 * 86_400), "firefox", 1200)),
+                reporting.getTotalsBetween(weekStart, weekStart.plusSeconds(7 * 86_400), ActivityGrouping.WEEK, ZoneOffset.UTC));
+    }
+
+    @Test
+    void getTotalsBetween_handlesHalfHourZones() {
+        // 15:00-16:00 in Kolkata is 09:30-10:30 UTC, straddling two stored hours.
+        ZoneId kolkata = ZoneId.of("Asia/Kolkata");
+        List<ActivityRangeTotal> hours = reporting.getTotalsBetween(midnight, midnight.plusSeconds(86_400),
+                ActivityGrouping.HOUR, kolkata);
+
+        assertTrue(hours.contains(new ActivityRangeTotal(at("09:30:00"), at("10:30:00"), "code", 3600)), hours::toString);
+        assertEquals(5370 + 1200, hours.stream().mapToLong(ActivityRangeTotal::totalSeconds).sum());
+        assertEquals(5370 + 1200, reporting.getTotalsBetween(midnight, midnight.plusSeconds(86_400),
+                ActivityGrouping.DAY, kolkata).stream().mapToLong(ActivityRangeTotal::totalSeconds).sum());
+    }
+
+    @Test
+    void manualSessions_stayOutOfTheRollups() {
+        eventDao.insertAll(List.of(
+                new ActivityEvent(at("12:00:00"), ActivityEventType.MANUAL_START, "Writing", null, null, null),
+                new ActivityEvent(at("12:30:00"), ActivityEventType.MANUAL_STOP, "Writing", null, null, null)));
+        job.aggregate(midnight, midnight.plusSeconds(86_400), true);
+
+        assertEquals(3, sessionDao.findHourlyTotals(midnight, midnight.plusSeconds(86_400)).size());
+        assertTrue(sessionDao.findMinuteOccupancy(midnight.atOffset(ZoneOffset.UTC).toLocalDate(),
+                        midnight.atOffset(ZoneOffset.UTC).toLocalDate()).stream()
+                .noneMatch(day -> day.appId().equals("Writing")));
+    }
+
+    @Test
+    void reaggregation_replacesOnlyItsWindow() {
+        job.aggregate(at("10:00:00"), midnight.plusSeconds(86_400), true);
+
+        assertEquals(List.of(
+                        new ActivityHourlyTotal(at("09:00:00"), "code", 2970),
+                        new ActivityHourlyTotal(at("10:00:00"), "firefox", 1200)),
+                sorted(sessionDao.findHourlyTotals(midnight, midnight.plusSeconds(86_400))));
+        assertEquals(List.of(new ActivityRangeTotal(at("09:00:00"), at("11:00:00"), "code", 2970),
+                        new ActivityRangeTotal(at("09:00:00"), at("11:00:00"), "firefox", 1200)),
+                reporting.getTotalsBetween(at("09:00:00"), at("11:00:00"), ActivityGrouping.DAY, ZoneOffset.UTC));
+    }
+
+    private Instant at(String utcTime) {
+        return Instant.parse("2025-03-01T" + utcTime + "Z");
+    }
+
+    private static List<ActivityHourlyTotal> sorted(List<ActivityHourlyTotal> totals) {
+        return totals.stream()
+                .sorted(Comparator.comparing(ActivityHourlyTotal::hourStart).thenComparing(ActivityHourlyTotal::appId))
+                .toList();
+    }
+}
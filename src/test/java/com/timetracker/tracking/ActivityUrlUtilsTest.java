@@ -0,0 +1,165 @@
+package com.timetracker.tracking;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityUrlUtilsTest {
+
+    private static final List<String> COMMON = List.of(
+            "https://github.com/Blitz00X/TimeTracker/pulls?q=is%3Aopen+is%3Apr",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ&t=42s#comments",
+            "https://docs.oracle.com/en/java/javase/21/docs/api/java.base/java/net/URI.html",
+            "http://localhost:8080/api/v1/sessions?from=2024-01-01&to=2024-01-31",
+            "https://mail.google.com/mail/u/0/#inbox",
+            "chrome://settings/privacy",
+            "HTTPS://Example.COM:443/A/B;v=1?x=[1]#Top",
+            "http://192.168.0.10:3000/?",
+            "http://01.02.03.004/#",
+            "https://a.b-c.example./path/@me:$1,2&3=4+5",
+            "https://example.com",
+            "https://example.com:/x",
+            "https://localhost",
+            "https://3com.example.com/?a=%20b",
+            "https://x.com/search?q=~user*(1)!'#frag/with?marks");
+
+    private static final List<String> EDGE_CASES = List.of(
+            "file:///home/user/Downloads/report.pdf",
+            "https://example.com/search?q=a b c",
+            "https://user:pw@example.com/private?token=1",
+            "http://[::1]:8080/health?x=1",
+            "https://my_host.example.com/?x=1",
+            "https://example.123/?x=1",
+            "https://123/?x=1",
+            "https://1.2.3/?x=1",
+            "https://1.2.3.4.5/?x=1",
+            "https://256.1.1.1/?x=1",
+            "https://1.2.3.4./?x=1",
+            "https://99999999999/?x=1",
+            "https://example.com:99999999999/?x=1",
+            "https://example.com:8o/?x=1",
+            "https://-bad.example.com/?x=1",
+            "https://bad-.example.com/?x=1",
+            "https://a..b.com/?x=1",
+            "https://.example.com/?x=1",
+            "https:///path?x=1",
+            "https://example.com/a%2Fb?x=1#c%20d",
+            "https://example.com/caf%C3%A9?x=1",
+            "https://example.com/café?x=1",
+            "https://example.com/?q=100%",
+            "https://example.com/?q=%zz",
+            "https://example.com/#a#b",
+            "https://example.com/{x}",
+            "mailto:someone@example.com?subject=hi",
+            "about:blank",
+            "data:text/plain,hello",
+            "/relative/path?x=1",
+            "example.com/path?x=1",
+            "1http://example.com/?x=1",
+            "ht!tp://example.com/?x=1",
+            " https://example.com/?x=1",
+            "https://example.com/?x=1 ",
+            "?",
+            "#",
+            ":");
+
+    @Test
+    void commonUrls_takeTheScannerPathAndMatchUri() {
+        for (String url : COMMON) {
+            assertNotNull(UrlScanner.scan(url), url);
+            assertMatchesUri(url);
+        }
+    }
+
+    @Test
+    void edgeCases_matchUri() {
+        for (String url : EDGE_CASES) {
+            assertMatchesUri(url);
+        }
+    }
+
+    @Test
+    void randomUrls_matchUri() {
+        String[] schemes = {"http", "https", "HTTPS", "chrome", "file", "a+b.c-d", "1x", ""};
+        String[] separators = {"://", ":/", ":", "//", ""};
+        String[] hosts = {"example.com", "EXAMPLE.com.", "a-b.c", "a_b.c", "1.2.3.4", "300.2.3.4", "1.2.3", "123",
+                "x.1y", "localhost", "[::1]", "u@h.com", "h.com:80", "h.com:", "h.com:x", "", "%41.com", "ex ample.com"};
+        String[] pieces = {"/", "a", "Z", "9", "-", "_", ".", "~", "*", "'", "(", ")", "!", ":", "@", "&", "=", "+",
+                "$", ",", ";", "?", "#", "[", "]", "%", "%2F", "%zz", " ", "\"", "<", "|", "{", "é", "\t", "^", "`"};
+        SplittableRandom random = new SplittableRandom(2024);
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder url = new StringBuilder()
+                    .append(schemes[random.nextInt(schemes.length)])
+                    .append(separators[random.nextInt(separators.length)])
+                    .append(hosts[random.nextInt(hosts.length)]);
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                url.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertMatchesUri(url.toString());
+        }
+    }
+
+    @Test
+    void cacheHits_returnTheSameResults() {
+        String url = "https://cache.example.com/page?session=abc#part";
+
+        Optional<String> first = ActivityUrlUtils.redactQuery(url, true);
+
+        assertEquals(Optional.of("https://cache.example.com/page#part"), first);
+        assertSame(first, ActivityUrlUtils.redactQuery(url, true));
+        assertSame(ActivityUrlUtils.extractDomain(url), ActivityUrlUtils.extractDomain(url));
+        assertEquals(Optional.of(url), ActivityUrlUtils.redactQuery(url, false));
+        assertEquals(Optional.empty(), ActivityUrlUtils.extractDomain(" "));
+        assertEquals(Optional.empty(), ActivityUrlUtils.redactQuery(null, true));
+    }
+
+    @Test
+    void cacheIsBounded_andEvictedUrlsStillResolve() {
+        for (int i = 0; i < ActivityUrlUtils.CACHE_CAPACITY * 3; i++) {
+            String url = "https://host" + i + ".example.com/p?i=" + i;
+            assertEquals(Optional.of("host" + i + ".example.com"), ActivityUrlUtils.extractDomain(url));
+        }
+        assertEquals(Optional.of("https://host0.example.com/p"), ActivityUrlUtils.redactQuery("https://host0.example.com/p?i=0", true));
+    }
+
+    private static void assertMatchesUri(String url) {
+        assertEquals(referenceDomain(url), ActivityUrlUtils.extractDomain(url), () -> "domain of " + url);
+        assertEquals(referenceRedact(url), ActivityUrlUtils.redactQuery(url, true), () -> "redaction of " + url);
+        ActivityUrlUtils.ParsedUrl uncached = ActivityUrlUtils.scan(url);
+        assertEquals(referenceDomain(url), uncached.domain(), () -> "uncached domain of " + url);
+        assertEquals(referenceRedact(url), uncached.redacted(), () -> "uncached redaction of " + url);
+    }
+
+    /**
+     * The URI-based implementation the scanner replaced.
+     */
+    private static Optional<String> referenceDomain(String url) {
+        if (url == null || url.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(new URI(url).getHost());
+        } catch (URISyntaxException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> referenceRedact(String url) {
+        if (url == null || url.isBlank()) {
+            return Optional.ofNullable(url);
+        }
+        try {
+            URI uri = new URI(url);
+            return Optional.of(new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), null, uri.getFragment()).toString());
+        } catch (URISyntaxException e) {
+            return Optional.of(url);
+        }
+    }
+}
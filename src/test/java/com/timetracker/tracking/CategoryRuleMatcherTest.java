@@ -0,0 +1,92 @@
+package com.timetracker.tracking;
+
+import com.timetracker.model.CategoryRule;
+import com.timetracker.model.CategoryRule.Field;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryRuleMatcherTest {
+
+    @Test
+    void substringRules_matchTheirOwnFieldCaseInsensitively() {
+        CategoryRuleMatcher matcher = CategoryRuleMatcher.compile(List.of(
+                new CategoryRule(1, 10, Field.APP, "jetbrains-idea", 0),
+                new CategoryRule(2, 20, Field.TITLE, "YouTube", 0),
+                new CategoryRule(3, 30, Field.URL, "/pulls", 0)));
+
+        assertEquals(10, matcher.match("JetBrains-IDEA-ce", null, "Main.java"));
+        assertEquals(20, matcher.match("firefox", null, "Lo-fi beats - youtube"));
+        assertEquals(30, matcher.match("firefox", "https://github.com/org/repo/pulls", "Pull requests"));
+        assertEquals(CategoryRuleMatcher.NO_CATEGORY, matcher.match("code", null, "jetbrains-idea notes"),
+                "an app rule does not look at the title");
+        assertEquals(CategoryRuleMatcher.NO_CATEGORY, matcher.match(null, null, null));
+    }
+
+    @Test
+    void overlappingPatterns_areFoundThroughFailureLinks() {
+        CategoryRuleMatcher matcher = CategoryRuleMatcher.compile(List.of(
+                new CategoryRule(1, 1, Field.TITLE, "she", 0),
+                new CategoryRule(2, 2, Field.TITLE, "hers", 5),
+                new CategoryRule(3, 3, Field.TITLE, "his", 0)));
+
+        assertEquals(2, matcher.match(null, null, "ushers"), "the higher priority rule wins");
+        assertEquals(1, matcher.match(null, null, "ushe"));
+        assertEquals(1, matcher.match(null, null, "ahishe"), "equal priority falls back to the older rule");
+        assertEquals(3, matcher.match(null, null, "this"));
+    }
+
+    @Test
+    void domainRules_matchTheDomainAndItsSubdomains() {
+        CategoryRuleMatcher matcher = CategoryRuleMatcher.compile(List.of(
+                new CategoryRule(1, 1, Field.DOMAIN, "github.com", 0),
+                new CategoryRule(2, 2, Field.DOMAIN, "*.docs.github.com", 1)));
+
+        assertEquals(1, matcher.match("firefox", "https://github.com/", null));
+        assertEquals(1, matcher.match("firefox", "https://Gist.GitHub.com/x", null));
+        assertEquals(2, matcher.match("firefox", "https://docs.github.com/en", null));
+        assertEquals(CategoryRuleMatcher.NO_CATEGORY, matcher.match("firefox", "https://notgithub.com/", null));
+        assertEquals(CategoryRuleMatcher.NO_CATEGORY, matcher.match("firefox", "https://github.com.evil.io/", null));
+    }
+
+    @Test
+    void automaton_agreesWithNaiveSearch() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<CategoryRule> rules = new ArrayList<>();
+            int count = 1 + random.nextInt(30);
+            for (int i = 0; i < count; i++) {
+                rules.add(new CategoryRule(i + 1, i + 1, Field.TITLE, randomText(random, 1 + random.nextInt(4)),
+                        random.nextInt(3)));
+            }
+            CategoryRuleMatcher matcher = CategoryRuleMatcher.compile(rules);
+            for (int t = 0; t < 20; t++) {
+                String title = randomText(random, random.nextInt(24));
+                assertEquals(naive(rules, title), matcher.match(null, null, title), () -> rules + " on " + title);
+            }
+        }
+    }
+
+    private static int naive(List<CategoryRule> rules, String title) {
+        CategoryRule best = null;
+        for (CategoryRule rule : rules) {
+            if (title.contains(rule.pattern()) && (best == null || rule.priority() > best.priority()
+                    || (rule.priority() == best.priority() && rule.id() < best.id()))) {
+                best = rule;
+            }
+        }
+        return best == null ? CategoryRuleMatcher.NO_CATEGORY : best.categoryId();
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+}
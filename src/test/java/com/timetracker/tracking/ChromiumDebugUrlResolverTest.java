@@ -0,0 +1,110 @@
+package com.timetracker.tracking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChromiumDebugUrlResolverTest {
+
+    private FakeDevToolsServer server;
+    private ChromiumDebugUrlResolver resolver;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeDevToolsServer();
+        resolver = new ChromiumDebugUrlResolver(server.port(), Duration.ofSeconds(2),
+                Duration.ofMillis(50), Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        resolver.close();
+        server.close();
+    }
+
+    @Test
+    void subscribesToTargetDiscoveryAndCachesPushedUrls() throws Exception {
+        resolver.start();
+        assertEquals("{\"id\":1,\"method\":\"Target.setDiscoverTargets\",\"params\":{\"discover\":true}}",
+                server.nextReceived(5_000));
+
+        server.pushTarget("targetCreated", "A", "Inbox", "https://mail.example.com/inbox");
+        server.pushTarget("targetCreated", "B", "Docs", "https://docs.example.com/");
+        server.push("{\"method\":\"Target.targetCreated\",\"params\":{\"targetInfo\":{\"targetId\":\"W\","
+                + "\"type\":\"service_worker\",\"title\":\"sw\",\"url\":\"https://sw.example.com/\"}}}");
+        awaitUrl("https://docs.example.com/");
+
+        server.pushTarget("targetInfoChanged", "B", "Docs \\u2013 Plan", "https://docs.example.com/plan");
+        awaitUrl("https://docs.example.com/plan");
+        assertEquals(Optional.of("https://mail.example.com/inbox"), resolver.resolveActiveUrl("Inbox - Google Chrome"));
+        assertEquals(Optional.of("https://mail.example.com/inbox"), resolver.resolveActiveUrl());
+        assertEquals(Optional.of("https://docs.example.com/plan"), resolver.resolveActiveUrl("Docs – Plan - Google Chrome"));
+        assertEquals(Optional.of("https://docs.example.com/plan"), resolver.resolveActiveUrl("Settings - Google Chrome"),
+                "no title match keeps the current tab");
+
+        server.push("{\"id\":1,\"result\":{}}");
+        server.push("not json");
+        server.push("{\"method\":\"Target.targetDestroyed\",\"params\":{\"targetId\":\"B\"}}");
+        await(() -> resolver.resolveActiveUrl().isEmpty());
+        assertEquals(Optional.of("https://mail.example.com/inbox"), resolver.resolveActiveUrl("Inbox - Google Chrome"));
+    }
+
+    @Test
+    void reconnectsWithBackoffAfterTheBrowserGoesAway() throws Exception {
+        resolver.start();
+        assertNotNull(server.nextReceived(5_000));
+        server.pushTarget("targetCreated", "A", "Inbox", "https://mail.example.com/inbox");
+        awaitUrl("https://mail.example.com/inbox");
+
+        server.refuseUpgrades(true);
+        server.dropClient();
+        await(() -> !resolver.isConnected());
+        assertEquals(Optional.empty(), resolver.resolveActiveUrl(), "cache is cleared on disconnect");
+
+        Thread.sleep(400);
+        assertEquals(1, server.connections(), "upgrades are refused while the browser is down");
+        server.refuseUpgrades(false);
+        assertNotNull(server.nextReceived(5_000), "resubscribes after reconnecting");
+        assertEquals(2, server.connections());
+        assertTrue(resolver.isConnected());
+
+        server.pushTarget("targetCreated", "A", "Inbox", "https://mail.example.com/inbox?tab=2");
+        awaitUrl("https://mail.example.com/inbox?tab=2");
+    }
+
+    @Test
+    void resolvesNothingWhileNoBrowserListens() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        try (ChromiumDebugUrlResolver offline = new ChromiumDebugUrlResolver(port, Duration.ofMillis(200),
+                Duration.ofMillis(20), Duration.ofMillis(40))) {
+            offline.start();
+            Thread.sleep(150);
+            assertFalse(offline.isConnected());
+            assertEquals(Optional.empty(), offline.resolveActiveUrl("Inbox - Google Chrome"));
+        }
+    }
+
+    private void awaitUrl(String url) throws InterruptedException {
+        await(() -> resolver.resolveActiveUrl().equals(Optional.of(url)));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met within 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.timetracker.tracking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against a private dbus-daemon started for each test; skipped where dbus-daemon or
+ * dbus-send is not installed.
+ */
+class DBusLockStateSourceTest {
+
+    @TempDir
+    Path dir;
+
+    private final BlockingQueue<Boolean> states = new LinkedBlockingQueue<>();
+    private Process daemon;
+    private String address;
+    private Path socket;
+
+    @BeforeEach
+    void startBus() throws Exception {
+        assumeTrue(onPath("dbus-daemon") && onPath("dbus-send"), "dbus-daemon and dbus-send required");
+        socket = dir.resolve("bus");
+        daemon = new ProcessBuilder("dbus-daemon", "--session", "--nofork", "--nopidfile", "--print-address=1",
+                "--address=unix:path=" + socket)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        BufferedReader out = new BufferedReader(new InputStreamReader(daemon.getInputStream(), StandardCharsets.UTF_8));
+        address = out.readLine();
+        assertNotNull(address, "dbus-daemon printed its address");
+    }
+
+    @AfterEach
+    void stopBus() throws Exception {
+        if (daemon != null) {
+            daemon.destroy();
+            daemon.waitFor(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void screensaverActiveChanged_reportsLockAndUnlock() throws Exception {
+        try (DBusLockStateSource source = screensaverSource()) {
+            assertTrue(source.start());
+
+            signal("/org/gnome/ScreenSaver", "org.gnome.ScreenSaver.ActiveChanged", "boolean:true");
+            assertEquals(Boolean.TRUE, states.poll(5, TimeUnit.SECONDS));
+            signal("/org/freedesktop/ScreenSaver", "org.freedesktop.ScreenSaver.ActiveChanged", "boolean:false");
+            assertEquals(Boolean.FALSE, states.poll(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void unmatchedSignalsAreNotDelivered() throws Exception {
+        try (DBusLockStateSource source = screensaverSource()) {
+            assertTrue(source.start());
+
+            signal("/org/example/Other", "org.example.Other.ActiveChanged", "boolean:true");
+            signal("/org/gnome/ScreenSaver", "org.gnome.ScreenSaver.WakeUpScreen");
+            signal("/org/gnome/ScreenSaver", "org.gnome.ScreenSaver.ActiveChanged", "boolean:false");
+
+            assertEquals(Boolean.FALSE, states.poll(5, TimeUnit.SECONDS), "only the matching signal arrives");
+            assertNull(states.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void logindSessionLockAndUnlock() throws Exception {
+        String path = DBusLockStateSource.logindSessionPath("2");
+        String rule = "type='signal',interface='" + DBusLockStateSource.LOGIND_SESSION_INTERFACE + "',path='" + path + "'";
+        try (DBusLockStateSource source = new DBusLockStateSource("system", socket, List.of(rule), states::add)) {
+            assertTrue(source.start());
+
+            signal(DBusLockStateSource.logindSessionPath("3"), "org.freedesktop.login1.Session.Lock");
+            signal(path, "org.freedesktop.login1.Session.Lock");
+            assertEquals(Boolean.TRUE, states.poll(5, TimeUnit.SECONDS));
+            assertNull(states.poll(200, TimeUnit.MILLISECONDS), "other sessions are filtered by the bus");
+            signal(path, "org.freedesktop.login1.Session.Unlock");
+            assertEquals(Boolean.FALSE, states.poll(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void reconnectsWhenTheBusRestarts() throws Exception {
+        try (DBusLockStateSource source = screensaverSource()) {
+            assertTrue(source.start());
+            stopBus();
+            Files.deleteIfExists(socket);
+            startBus();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            Boolean state = null;
+            while (state == null && System.nanoTime() < deadline) {
+                signal("/org/gnome/ScreenSaver", "org.gnome.ScreenSaver.ActiveChanged", "boolean:true");
+                state = states.poll(500, TimeUnit.MILLISECONDS);
+            }
+            assertEquals(Boolean.TRUE, state);
+        }
+    }
+
+    @Test
+    void unreachableBus_failsStart() {
+        try (DBusLockStateSource source = new DBusLockStateSource("session", dir.resolve("missing"),
+                List.of("type='signal'"), states::add)) {
+            assertFalse(source.start());
+        }
+    }
+
+    @Test
+    void parsesAddressesAndSessionPaths() {
+        assertEquals(Path.of("/run/user/1000/bus"), DBusLockStateSource.socketPath("unix:path=/run/user/1000/bus,guid=abc"));
+        assertEquals(Path.of("/tmp/b"), DBusLockStateSource.socketPath("unix:abstract=/tmp/a;unix:path=/tmp/b"));
+        assertNull(DBusLockStateSource.socketPath("unix:abstract=/tmp/dbus-XYZ,guid=1"));
+        assertEquals("/org/freedesktop/login1/session/_32", DBusLockStateSource.logindSessionPath("2"));
+        assertEquals("/org/freedesktop/login1/session/c2", DBusLockStateSource.logindSessionPath("c2"));
+        assertEquals("/org/freedesktop/login1/session/a_2db", DBusLockStateSource.logindSessionPath("a-b"));
+    }
+
+    private DBusLockStateSource screensaverSource() {
+        List<String> rules = DBusLockStateSource.SCREENSAVER_INTERFACES.stream()
+                .map(iface -> "type='signal',interface='" + iface + "',member='ActiveChanged'")
+                .toList();
+        return new DBusLockStateSource("session", socket, rules, states::add);
+    }
+
+    private void signal(String path, String member, String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("dbus-send", "--bus=" + address, "--type=signal", path, member));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        assertTrue(process.waitFor(5, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static boolean onPath(String executable) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String entry : path.split(File.pathSeparator)) {
+            if (Files.isExecutable(Path.of(entry, executable))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
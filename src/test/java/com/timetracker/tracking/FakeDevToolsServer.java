@@ -0,0 +1,197 @@
+package com.timetracker.tracking;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Just enough of a Chromium remote-debugging endpoint for the resolver tests: {@code /json/version}
+ * over HTTP and a browser WebSocket that records what the client sends and pushes text frames.
+ * One client connection at a time.
+ */
+final class FakeDevToolsServer implements AutoCloseable {
+
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final String SOCKET_PATH = "/devtools/browser/fake";
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile Socket client;
+    private volatile boolean refuseUpgrades;
+
+    FakeDevToolsServer() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        acceptor = Thread.ofVirtual().start(this::acceptLoop);
+    }
+
+    int port() {
+        return server.getLocalPort();
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    /**
+     * While set, WebSocket upgrades are answered with 503, like a browser shutting down.
+     */
+    void refuseUpgrades(boolean refuse) {
+        refuseUpgrades = refuse;
+    }
+
+    String nextReceived(long timeoutMillis) throws InterruptedException {
+        return received.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void push(String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = client.getOutputStream();
+        out.write(0x81);
+        if (payload.length < 126) {
+            out.write(payload.length);
+        } else {
+            out.write(126);
+            out.write(payload.length >>> 8);
+            out.write(payload.length & 0xFF);
+        }
+        out.write(payload);
+        out.flush();
+    }
+
+    void pushTarget(String event, String targetId, String title, String url) throws IOException {
+        push("{\"method\":\"Target." + event + "\",\"params\":{\"targetInfo\":{\"targetId\":\"" + targetId
+                + "\",\"type\":\"page\",\"title\":\"" + title + "\",\"url\":\"" + url + "\",\"attached\":false}}}");
+    }
+
+    /**
+     * Drops the current WebSocket without a close frame, as a crashing browser would.
+     */
+    void dropClient() throws IOException {
+        Socket current = client;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        dropClient();
+        acceptor.interrupt();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread.ofVirtual().start(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try {
+            InputStream in = socket.getInputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.ISO_8859_1));
+            String requestLine = reader.readLine();
+            Map<String, String> headers = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+            }
+            if (requestLine == null) {
+                socket.close();
+                return;
+            }
+            if (requestLine.startsWith("GET /json/version ")) {
+                String body = "{\"Browser\":\"Chrome/126.0.0.0\",\"Protocol-Version\":\"1.3\","
+                        + "\"webSocketDebuggerUrl\":\"ws://127.0.0.1:" + port() + SOCKET_PATH + "\"}";
+                respond(socket, "200 OK", body);
+            } else if (requestLine.startsWith("GET " + SOCKET_PATH + " ") && !refuseUpgrades) {
+                upgrade(socket, headers.get("sec-websocket-key"));
+                // The header reader has buffered nothing else: the client sends no frames before the handshake.
+                readFrames(socket, new DataInputStream(in));
+            } else {
+                respond(socket, requestLine.contains(SOCKET_PATH) ? "503 Service Unavailable" : "404 Not Found", "");
+            }
+        } catch (IOException e) {
+            // Client went away.
+        }
+    }
+
+    private void respond(Socket socket, String status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (socket) {
+            OutputStream out = socket.getOutputStream();
+            out.write(("HTTP/1.1 " + status + "\r\nContent-Type: application/json\r\nContent-Length: " + bytes.length
+                    + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.write(bytes);
+            out.flush();
+        }
+    }
+
+    private void upgrade(Socket socket, String key) throws IOException {
+        String accept;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        OutputStream out = socket.getOutputStream();
+        out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        client = socket;
+        connections.incrementAndGet();
+    }
+
+    private void readFrames(Socket socket, DataInputStream in) throws IOException {
+        while (!socket.isClosed()) {
+            int opcode = in.readUnsignedByte() & 0x0F;
+            int second = in.readUnsignedByte();
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+            byte[] mask = new byte[4];
+            if ((second & 0x80) != 0) {
+                in.readFully(mask);
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i % 4];
+            }
+            if (opcode == 0x1) {
+                received.add(new String(payload, StandardCharsets.UTF_8));
+            } else if (opcode == 0x8) {
+                socket.close();
+            }
+        }
+    }
+}
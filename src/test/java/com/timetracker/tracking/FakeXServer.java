@@ -0,0 +1,154 @@
+package com.timetracker.tracking;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Just enough of an X server on a Unix socket for the idle source tests: connection setup (with
+ * the auth data recorded), {@code QueryExtension} and MIT-SCREEN-SAVER {@code QueryInfo}. Each
+ * QueryInfo reply is preceded by an unrelated event, which the client has to skip. One client
+ * connection at a time; little-endian clients only.
+ */
+final class FakeXServer implements AutoCloseable {
+
+    static final int ROOT_WINDOW = 0x1a2;
+    private static final int SCREEN_SAVER_OPCODE = 140;
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+    private final Thread acceptor;
+    private final boolean hasExtension;
+    private final AtomicLong idleMillis = new AtomicLong();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile byte[] lastCookie;
+    private volatile SocketChannel client;
+
+    FakeXServer(Path socket, boolean hasExtension) throws IOException {
+        this.socket = socket;
+        this.hasExtension = hasExtension;
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socket));
+        acceptor = Thread.ofVirtual().start(this::acceptLoop);
+    }
+
+    void idleMillis(long millis) {
+        idleMillis.set(millis);
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    byte[] lastCookie() {
+        return lastCookie;
+    }
+
+    /**
+     * Drops the current client, like a restarted X server.
+     */
+    void disconnectClient() throws IOException {
+        SocketChannel current = client;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (server.isOpen()) {
+            try (SocketChannel channel = server.accept()) {
+                client = channel;
+                connections.incrementAndGet();
+                serve(channel);
+            } catch (IOException e) {
+                // Client gone or server closed.
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) throws IOException {
+        ByteBuffer setup = read(channel, 12);
+        int nameLength = Short.toUnsignedInt(setup.getShort(6));
+        int dataLength = Short.toUnsignedInt(setup.getShort(8));
+        read(channel, pad4(nameLength));
+        ByteBuffer data = read(channel, pad4(dataLength));
+        lastCookie = dataLength == 0 ? null : Arrays.copyOf(data.array(), dataLength);
+
+        byte[] vendor = "Fake".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer body = buffer(32 + pad4(vendor.length) + 8 + 40);
+        body.putShort(16, (short) vendor.length);
+        body.put(20, (byte) 1);
+        body.put(21, (byte) 1);
+        body.put(32, vendor);
+        body.putInt(32 + pad4(vendor.length) + 8, ROOT_WINDOW);
+        ByteBuffer header = buffer(8).put((byte) 1).put((byte) 0).putShort((short) 11).putShort((short) 0)
+                .putShort((short) (body.capacity() / 4));
+        write(channel, header);
+        write(channel, body);
+
+        int sequence = 0;
+        while (true) {
+            ByteBuffer request = read(channel, 4);
+            int opcode = Byte.toUnsignedInt(request.get(0));
+            int minor = Byte.toUnsignedInt(request.get(1));
+            ByteBuffer rest = read(channel, Short.toUnsignedInt(request.getShort(2)) * 4 - 4);
+            sequence++;
+            ByteBuffer reply = buffer(32).put(0, (byte) 1).putShort(2, (short) sequence);
+            if (opcode == 98) {
+                int length = Short.toUnsignedInt(rest.getShort(0));
+                String name = new String(rest.array(), 4, length, StandardCharsets.US_ASCII);
+                boolean present = hasExtension && name.equals("MIT-SCREEN-SAVER");
+                reply.put(8, (byte) (present ? 1 : 0)).put(9, (byte) (present ? SCREEN_SAVER_OPCODE : 0));
+            } else if (opcode == SCREEN_SAVER_OPCODE && minor == 1 && rest.getInt(0) == ROOT_WINDOW) {
+                write(channel, buffer(32).put(0, (byte) 12).putShort(2, (short) sequence));
+                reply.putInt(16, (int) idleMillis.get());
+            } else {
+                reply = buffer(32).put(0, (byte) 0).put(1, (byte) 1).putShort(2, (short) sequence);
+            }
+            write(channel, reply);
+        }
+    }
+
+    private static ByteBuffer read(SocketChannel channel, int length) throws IOException {
+        ByteBuffer buffer = buffer(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Client closed");
+            }
+        }
+        return buffer;
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer buffer(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int pad4(int length) {
+        return (length + 3) & ~3;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        disconnectClient();
+        acceptor.interrupt();
+        Files.deleteIfExists(socket);
+    }
+}
@@ -0,0 +1,112 @@
+package com.timetracker.tracking;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdleDetectionServiceTest {
+
+    private final RecordingEventDao events = new RecordingEventDao();
+    private final FakeIdleSource source = new FakeIdleSource();
+    private final Instant now = Instant.parse("2025-03-01T10:00:00Z");
+
+    @Test
+    void activeUser_nextCheckIsWhenThresholdCouldBeReached() throws IOException {
+        IdleDetectionService service = new IdleDetectionService(events, Duration.ofMinutes(5), source);
+
+        source.idle = Duration.ofSeconds(20);
+        assertEquals(Duration.ofSeconds(280), service.checkOnce(now));
+        source.idle = Duration.ofMillis(4_700);
+        assertEquals(Duration.ofMillis(295_300), service.checkOnce(now), "input in between pushes the check out");
+        source.idle = Duration.ofMillis(299_800);
+        assertEquals(IdleDetectionService.MIN_CHECK_INTERVAL, service.checkOnce(now));
+        assertTrue(events.types.isEmpty());
+    }
+
+    @Test
+    void thresholdCrossings_emitIdleOnAndOff() throws IOException {
+        IdleDetectionService service = new IdleDetectionService(events, Duration.ofMinutes(5), source);
+
+        source.idle = Duration.ofMinutes(5);
+        assertEquals(IdleDetectionService.MIN_CHECK_INTERVAL, service.checkOnce(now));
+        source.idle = Duration.ofMinutes(6);
+        assertEquals(IdleDetectionService.MIN_CHECK_INTERVAL, service.checkOnce(now.plusSeconds(60)),
+                "idle users are checked every second");
+        source.idle = Duration.ofMillis(300);
+        assertEquals(Duration.ofMillis(299_700), service.checkOnce(now.plusSeconds(61)));
+
+        assertEquals(List.of(ActivityEventType.IDLE_ON, ActivityEventType.IDLE_OFF), events.types);
+        assertEquals(List.of(now, now.plusSeconds(61)), events.timestamps);
+    }
+
+    @Test
+    void parkedService_doesNotQueryTheSource() throws InterruptedException {
+        IdleDetectionService service = new IdleDetectionService(events, Duration.ofMillis(100), source);
+        service.park();
+        service.start();
+        Thread.sleep(1_300);
+        assertEquals(0, source.queries.get());
+
+        service.unpark();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (source.queries.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(source.queries.get() > 0);
+        service.close();
+    }
+
+    @Test
+    void close_closesSource() {
+        IdleDetectionService service = new IdleDetectionService(events, Duration.ofMinutes(5), source);
+        service.start();
+        service.close();
+        assertTrue(source.closed);
+    }
+
+    private static final class FakeIdleSource implements IdleSource {
+        private final AtomicInteger queries = new AtomicInteger();
+        private volatile Duration idle = Duration.ZERO;
+        private volatile boolean closed;
+
+        @Override
+        public boolean start() {
+            return true;
+        }
+
+        @Override
+        public Duration idleTime() {
+            queries.incrementAndGet();
+            return idle;
+        }
+
+        @Override
+        public String name() {
+            return "fake";
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final class RecordingEventDao extends ActivityEventDao {
+        private final List<ActivityEventType> types = new ArrayList<>();
+        private final List<Instant> timestamps = new ArrayList<>();
+
+        @Override
+        public void insert(ActivityEvent event) {
+            types.add(event.type());
+            timestamps.add(event.timestamp());
+        }
+    }
+}
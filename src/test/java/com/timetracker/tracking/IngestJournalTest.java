@@ -0,0 +1,166 @@
+package com.timetracker.tracking;
+
+import com.timetracker.db.TempDatabaseExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestJournalTest {
+
+    @RegisterExtension
+    final TempDatabaseExtension database = new TempDatabaseExtension();
+
+    private final ActivityEventDao dao = new ActivityEventDao();
+    private final Instant base = Instant.parse("2025-03-01T10:00:00.123456789Z");
+    private Path journalDir;
+
+    @BeforeEach
+    void setUp() {
+        journalDir = database.directory().resolve("test.db.journal");
+    }
+
+    @Test
+    void drain_roundTripsEveryField() throws Exception {
+        try (IngestJournal journal = new IngestJournal(journalDir, dao)) {
+            journal.open();
+            journal.append(base, ActivityEventType.FOCUS, "firefox", "Résumé — 日本語 🎉", "https://example.com/a", "{\"k\":1}");
+            journal.append(base.plusSeconds(1), ActivityEventType.IDLE_ON, null, null, null, null);
+            journal.append(base.plusSeconds(2), ActivityEventType.FOCUS, "", "broken \uD800 surrogate", null, null);
+            assertTrue(events().isEmpty(), "nothing reaches SQLite before a drain");
+
+            assertEquals(3, journal.drain());
+        }
+
+        List<ActivityEvent> stored = events();
+        assertEquals(3, stored.size());
+        ActivityEvent focus = stored.get(0);
+        assertEquals(base, focus.timestamp());
+        assertEquals("firefox", focus.appId());
+        assertEquals("Résumé — 日本語 🎉", focus.windowTitle());
+        assertEquals("https://example.com/a", focus.url());
+        assertEquals("{\"k\":1}", focus.payloadJson());
+        ActivityEvent idle = stored.get(1);
+        assertEquals(ActivityEventType.IDLE_ON, idle.type());
+        assertNull(idle.appId());
+        assertNull(idle.windowTitle());
+        assertEquals("", stored.get(2).appId());
+        assertEquals("broken ? surrogate", stored.get(2).windowTitle());
+    }
+
+    @Test
+    void pendingRecords_countsWhatHasNotReachedSqlite() throws Exception {
+        try (IngestJournal journal = new IngestJournal(journalDir, dao, 4)) {
+            journal.open();
+            appendFocus(journal, 0, 6);
+            assertEquals(6, journal.pendingRecords());
+
+            journal.drain();
+            assertEquals(0, journal.pendingRecords());
+        }
+    }
+
+    @Test
+    void reopen_replaysUndrainedRecordsExactlyOnce() throws Exception {
+        IngestJournal crashed = new IngestJournal(journalDir, dao, 4);
+        crashed.open();
+        appendFocus(crashed, 0, 3);
+        assertEquals(3, crashed.drain());
+        appendFocus(crashed, 3, 10);
+        // No close: the process died with seven records in three segments.
+
+        try (IngestJournal recovered = new IngestJournal(journalDir, dao, 4)) {
+            assertEquals(7, recovered.open());
+        }
+        try (IngestJournal again = new IngestJournal(journalDir, dao, 4)) {
+            assertEquals(0, again.open());
+        }
+
+        List<ActivityEvent> stored = events();
+        assertEquals(10, stored.size());
+        for (int i = 0; i < stored.size(); i++) {
+            assertEquals("title " + i, stored.get(i).windowTitle());
+        }
+        assertEquals(1, segmentCount(), "drained segments are deleted");
+    }
+
+    @Test
+    void tornRecord_endsItsSegmentOnReplay() throws Exception {
+        IngestJournal crashed = new IngestJournal(journalDir, dao, 8);
+        crashed.open();
+        appendFocus(crashed, 0, 3);
+        try (Stream<Path> files = Files.list(journalDir);
+             FileChannel channel = FileChannel.open(files.findFirst().orElseThrow(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), IngestJournal.RECORD_SIZE + 40);
+        }
+
+        try (IngestJournal recovered = new IngestJournal(journalDir, dao, 8)) {
+            assertEquals(1, recovered.open());
+            appendFocus(recovered, 3, 4);
+            assertEquals(1, recovered.drain(), "the new segment is unaffected");
+        }
+        assertEquals(List.of("title 0", "title 3"), events().stream().map(ActivityEvent::windowTitle).toList());
+    }
+
+    @Test
+    void oversizeEventsAndAppendsAfterClose_goStraightToTheDao() throws Exception {
+        IngestJournal journal = new IngestJournal(journalDir, dao);
+        journal.open();
+        journal.append(base, ActivityEventType.FOCUS, "code", "x".repeat(IngestJournal.RECORD_SIZE), null, null);
+        assertEquals(1, events().size());
+        journal.close();
+        journal.append(base.plusSeconds(1), ActivityEventType.FOCUS, "code", "after close", null, null);
+        assertEquals(2, events().size());
+    }
+
+    @Test
+    void compactor_drainsInTheBackground() throws Exception {
+        try (IngestJournal journal = new IngestJournal(journalDir, dao)) {
+            journal.open();
+            journal.startCompactor(Duration.ofMillis(20));
+            appendFocus(journal, 0, 5);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events().size() < 5 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(5, events().size());
+        }
+    }
+
+    @Test
+    void utf8Length_matchesGetBytes() {
+        for (String value : List.of("", "ascii", "é", "日本", "🎉", "a\uD800b", "\uDC00", "x\uD83C")) {
+            assertEquals(value.getBytes(StandardCharsets.UTF_8).length, IngestJournal.utf8Length(value), value);
+        }
+    }
+
+    private void appendFocus(IngestJournal journal, int from, int to) {
+        for (int i = from; i < to; i++) {
+            journal.append(base.plusSeconds(i), ActivityEventType.FOCUS, "code", "title " + i, null, null);
+        }
+    }
+
+    private List<ActivityEvent> events() {
+        return dao.findBetween(base.minusSeconds(1), base.plusSeconds(3600));
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.timetracker.tracking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinuxActiveAppCollectorTest {
+
+    private static final String ACTIVE = "xprop -root _NET_ACTIVE_WINDOW";
+    private static final String STATE = "xprop -id 0x3a00007 _NET_WM_NAME _NET_WM_PID";
+    private static final String METADATA = "xprop -id 0x3a00007 WM_CLASS _NET_WM_PID";
+
+    @TempDir
+    Path procRoot;
+
+    private final FakeXprop xprop = new FakeXprop();
+
+    @Test
+    void capture_combinesWindowMetadataAndUrl() throws IOException {
+        writeProcess(4242, "chrome");
+        xprop.wmClass = "\"Google-chrome\"";
+        BrowserUrlResolver resolver = () -> Optional.of("https://example.com/");
+
+        ActiveAppSnapshot snapshot = collector(resolver, Duration.ofSeconds(2)).capture().orElseThrow();
+
+        assertEquals("google-chrome", snapshot.appId());
+        assertEquals("Example - Google Chrome", snapshot.windowTitle());
+        assertEquals("https://example.com/", snapshot.url());
+    }
+
+    @Test
+    void slowUrlResolver_yieldsPartialSnapshotWithinDeadline() throws IOException {
+        writeProcess(4242, "chrome");
+        xprop.wmClass = "\"Google-chrome\"";
+        CountDownLatch interrupted = new CountDownLatch(1);
+        BrowserUrlResolver hanging = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Optional.of("https://too-late.example.com");
+        };
+        LinuxActiveAppCollector collector = collector(hanging, Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        Optional<ActiveAppSnapshot> snapshot = collector.capture();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 1_000, "capture took " + elapsedMs + "ms");
+        assertTrue(snapshot.isPresent());
+        assertEquals("google-chrome", snapshot.get().appId());
+        assertEquals("Example - Google Chrome", snapshot.get().windowTitle());
+        assertNull(snapshot.get().url());
+        assertDoesNotThrow(() -> assertTrue(interrupted.await(1, TimeUnit.SECONDS), "resolver was cancelled"));
+    }
+
+    @Test
+    void missingWindowClass_fallsBackToProcessName() throws IOException {
+        writeProcess(4242, "Code");
+
+        ActiveAppSnapshot snapshot = collector(null, Duration.ofSeconds(2)).capture().orElseThrow();
+
+        assertEquals("code", snapshot.appId());
+        assertEquals("Example - Google Chrome", snapshot.windowTitle());
+    }
+
+    @Test
+    void slowMetadataLookup_keepsTitle() {
+        xprop.wmClass = "\"Slack\"";
+        xprop.delays.put(METADATA, Duration.ofSeconds(10));
+
+        ActiveAppSnapshot snapshot = collector(null, Duration.ofMillis(200)).capture().orElseThrow();
+
+        assertNull(snapshot.appId());
+        assertEquals("Example - Google Chrome", snapshot.windowTitle());
+    }
+
+    @Test
+    void noActiveWindow_yieldsNothing() {
+        LinuxActiveAppCollector collector = new LinuxActiveAppCollector(false, null, Duration.ofSeconds(1),
+                command -> null, procRoot);
+
+        assertTrue(collector.capture().isEmpty());
+    }
+
+    @Test
+    void steadyStatePoll_onlyRefreshesTitle() throws IOException {
+        writeProcess(4242, "chrome");
+        xprop.wmClass = "\"Google-chrome\"";
+        LinuxActiveAppCollector collector = collector(() -> Optional.of("https://example.com/"), Duration.ofSeconds(2));
+        collector.capture().orElseThrow();
+
+        xprop.title = "Other tab - Google Chrome";
+        for (int i = 0; i < 5; i++) {
+            ActiveAppSnapshot snapshot = collector.capture().orElseThrow();
+            assertEquals("google-chrome", snapshot.appId());
+            assertEquals("Other tab - Google Chrome", snapshot.windowTitle());
+            assertEquals("https://example.com/", snapshot.url(), "browser flag comes from the cache");
+        }
+
+        assertEquals(1, xprop.count(METADATA));
+        assertEquals(6, xprop.count(STATE));
+        assertEquals(6, xprop.count(ACTIVE));
+    }
+
+    @Test
+    void pidChange_reloadsMetadata() throws IOException {
+        writeProcess(4242, "Code");
+        writeProcess(5151, "Firefox");
+        LinuxActiveAppCollector collector = collector(null, Duration.ofSeconds(2));
+        assertEquals("code", collector.capture().orElseThrow().appId());
+
+        xprop.pid = 5151;
+
+        assertEquals("firefox", collector.capture().orElseThrow().appId());
+        assertEquals(2, xprop.count(METADATA));
+    }
+
+    @Test
+    void destroyedWindow_isInvalidated() throws IOException {
+        writeProcess(4242, "Code");
+        LinuxActiveAppCollector collector = collector(null, Duration.ofSeconds(2));
+        collector.capture().orElseThrow();
+
+        xprop.destroyed = true;
+        assertTrue(collector.capture().isEmpty());
+        xprop.destroyed = false;
+        int before = xprop.count(METADATA);
+        collector.capture().orElseThrow();
+
+        assertEquals(before + 1, xprop.count(METADATA), "a destroyed window's metadata is not reused");
+    }
+
+    @Test
+    void exitedProcess_isInvalidated() throws IOException {
+        writeProcess(4242, "Code");
+        LinuxActiveAppCollector collector = collector(null, Duration.ofSeconds(2));
+        collector.capture().orElseThrow();
+
+        deleteProcess(4242);
+        collector.capture();
+
+        assertEquals(2, xprop.count(METADATA));
+    }
+
+    private LinuxActiveAppCollector collector(BrowserUrlResolver resolver, Duration deadline) {
+        return new LinuxActiveAppCollector(resolver != null, resolver, deadline, xprop, procRoot);
+    }
+
+    private void writeProcess(long pid, String name) throws IOException {
+        Path dir = Files.createDirectories(procRoot.resolve(Long.toString(pid)));
+        Files.writeString(dir.resolve("comm"), name + "\n");
+        Files.write(dir.resolve("cmdline"), ("/usr/bin/" + name + "\0--flag\0").getBytes());
+    }
+
+    private void deleteProcess(long pid) throws IOException {
+        Path dir = procRoot.resolve(Long.toString(pid));
+        for (Path file : List.of(dir.resolve("comm"), dir.resolve("cmdline"), dir)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Fake xprop answering for window 0x3a00007.
+     */
+    private static final class FakeXprop implements LinuxActiveAppCollector.CommandRunner {
+
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        private final Map<String, Duration> delays = new ConcurrentHashMap<>();
+        private volatile String wmClass;
+        private volatile String title = "Example - Google Chrome";
+        private volatile long pid = 4242;
+        private volatile boolean destroyed;
+
+        @Override
+        public String run(String... command) throws InterruptedException {
+            String args = String.join(" ", command);
+            calls.computeIfAbsent(args, key -> new AtomicInteger()).incrementAndGet();
+            Duration delay = delays.get(args);
+            if (delay != null) {
+                Thread.sleep(delay.toMillis());
+            }
+            if (args.equals(ACTIVE)) {
+                return "_NET_ACTIVE_WINDOW(WINDOW): window id # 0x3a00007";
+            }
+            if (destroyed) {
+                return null;
+            }
+            String pidLine = "_NET_WM_PID(CARDINAL) = " + pid;
+            if (args.equals(STATE)) {
+                return "_NET_WM_NAME(UTF8_STRING) = \"" + title + "\"\n" + pidLine;
+            }
+            if (args.equals(METADATA)) {
+                String classLine = wmClass == null ? "WM_CLASS:  not found." : "WM_CLASS(STRING) = " + wmClass + ", \"x\"";
+                return classLine + "\n" + pidLine;
+            }
+            return null;
+        }
+
+        private int count(String args) {
+            AtomicInteger count = calls.get(args);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.timetracker.tracking;
+
+import com.timetracker.db.TempDatabaseExtension;
+import com.timetracker.event.DomainEventBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinuteIndexTest {
+
+    private static final long DAY = 86_400;
+
+    @RegisterExtension
+    final TempDatabaseExtension database = new TempDatabaseExtension();
+
+    private final Instant first = Instant.parse("2025-03-01T00:00:00Z");
+    private final ActivityEventDao eventDao = new ActivityEventDao();
+    private final ActivitySessionDao sessionDao = new ActivitySessionDao();
+    private final ActivityReportingService rollups = new ActivityReportingService(sessionDao);
+    private MinuteIndex index;
+    private ActivityAggregationJob job;
+
+    @BeforeEach
+    void setUp() {
+        index = new MinuteIndex(database.directory().resolve("test.db.minutes"));
+        job = new ActivityAggregationJob(eventDao, sessionDao, new ActivityAggregator(), null, index, new DomainEventBus());
+    }
+
+    @Test
+    void rangeTotals_matchTheRollupTablesForRandomRanges() {
+        Random random = new Random(7);
+        // Day 0, day 1 and day 3 have activity; day 2 has no file at all.
+        for (int day : new int[]{0, 1, 3}) {
+            insertRandomDay(random, first.plusSeconds(day * DAY));
+            job.aggregate(first.plusSeconds(day * DAY), first.plusSeconds((day + 1) * DAY), true);
+        }
+        ActivityReportingService indexed = new ActivityReportingService(sessionDao, index);
+        assertTrue(index.isAvailable());
+
+        for (int i = 0; i < 300; i++) {
+            Instant a = first.plusSeconds(random.nextLong(5 * DAY) - DAY / 2).plusNanos(random.nextInt(1_000_000_000));
+            Instant b = a.plusSeconds(random.nextLong(i % 3 == 0 ? 4 * DAY : 7200));
+            assertEquals(asMap(rollups.getAppTotalsBetween(a, b)), asMap(indexed.getAppTotalsBetween(a, b)), a + " - " + b);
+            assertEquals(asMap(rollups.getAppTotalsBetween(a, b)).getOrDefault("code", 0L),
+                    indexed.getAppTotalBetween("code", a, b));
+        }
+    }
+
+    @Test
+    void reaggregatingAnEarlierDay_shiftsTheLaterDays() {
+        eventDao.insertAll(List.of(
+                new ActivityEvent(first.plusSeconds(3600), ActivityEventType.FOCUS, "code", "a", null, null),
+                new ActivityEvent(first.plusSeconds(7200), ActivityEventType.IDLE_ON, null, null, null, null),
+                new ActivityEvent(first.plusSeconds(2 * DAY + 3600), ActivityEventType.FOCUS, "code", "b", null, null),
+                new ActivityEvent(first.plusSeconds(2 * DAY + 3660), ActivityEventType.IDLE_ON, null, null, null, null)));
+        job.aggregate(first, first.plusSeconds(DAY), true);
+        job.aggregate(first.plusSeconds(2 * DAY), first.plusSeconds(3 * DAY), true);
+        assertEquals(3660, index.totalSeconds("code", first, first.plusSeconds(3 * DAY)));
+
+        // A late event on day 0 adds an app and ten minutes before day 2's running totals.
+        eventDao.insertAll(List.of(
+                new ActivityEvent(first.plusSeconds(7200), ActivityEventType.FOCUS, "firefox", "c", null, null),
+                new ActivityEvent(first.plusSeconds(7800), ActivityEventType.IDLE_ON, null, null, null, null)));
+        job.aggregate(first, first.plusSeconds(DAY), true);
+
+        assertEquals(60, index.totalSeconds("code", first.plusSeconds(DAY), first.plusSeconds(3 * DAY)));
+        assertEquals(3660, index.totalSeconds("code", first, first.plusSeconds(3 * DAY)));
+        assertEquals(600, index.totalSeconds("firefox", first.minusSeconds(DAY), first.plusSeconds(30 * DAY)));
+        assertEquals(0, index.totalSeconds("firefox", first.plusSeconds(DAY), first.plusSeconds(30 * DAY)));
+        assertEquals(0, index.totalSeconds("unknown", first, first.plusSeconds(DAY)));
+    }
+
+    @Test
+    void reopenedIndex_servesStoredDaysAndFullRebuildKeepsThem() throws Exception {
+        insertRandomDay(new Random(1), first);
+        insertRandomDay(new Random(2), first.plusSeconds(DAY));
+        job.aggregate(first, first.plusSeconds(DAY), true);
+        job.aggregate(first.plusSeconds(DAY), first.plusSeconds(2 * DAY), true);
+        Path directory = database.directory().resolve("test.db.minutes");
+        assertTrue(Files.exists(directory.resolve(MinuteIndex.dayName(LocalDate.of(2025, 3, 2).toEpochDay()))));
+
+        Map<Path, Object> fileKeys = dayFileKeys(directory);
+        assertEquals(2, fileKeys.size());
+        MinuteIndex reopened = new MinuteIndex(directory);
+        assertTrue(reopened.isAvailable(), "the files of the previous run are loaded");
+        assertEquals(index.totals(first, first.plusSeconds(2 * DAY)), reopened.totals(first, first.plusSeconds(2 * DAY)));
+
+        reopened.refresh(LocalDate.EPOCH, sessionDao);
+
+        assertTrue(reopened.isAvailable());
+        assertEquals(fileKeys, dayFileKeys(directory), "unchanged days are not replaced");
+        assertEquals(index.totals(first, first.plusSeconds(2 * DAY)), reopened.totals(first, first.plusSeconds(2 * DAY)));
+    }
+
+    @Test
+    void scheduledRefreshes_runOnTheExecutorAndMergeWhileQueued() {
+        List<Runnable> queued = new ArrayList<>();
+        MinuteIndex deferred = new MinuteIndex(database.directory().resolve("deferred.minutes"), queued::add);
+        ActivityAggregationJob deferredJob = new ActivityAggregationJob(eventDao, sessionDao, new ActivityAggregator(),
+                null, deferred, new DomainEventBus());
+        insertRandomDay(new Random(4), first);
+        insertRandomDay(new Random(5), first.plusSeconds(DAY));
+
+        deferredJob.aggregate(first.plusSeconds(DAY), first.plusSeconds(2 * DAY), true);
+        deferredJob.aggregate(first, first.plusSeconds(DAY), true);
+
+        assertFalse(deferred.isAvailable(), "aggregate does not refresh on the calling thread");
+        assertEquals(1, queued.size());
+        queued.remove(0).run();
+        assertTrue(deferred.isAvailable());
+        assertEquals(asMap(rollups.getAppTotalsBetween(first, first.plusSeconds(2 * DAY))),
+                deferred.totals(first, first.plusSeconds(2 * DAY)));
+
+        deferredJob.aggregate(first, first.plusSeconds(DAY), true);
+        assertEquals(1, queued.size(), "a request after the run queues a new one");
+    }
+
+    @Test
+    void unreadableFiles_leaveTheIndexUnavailableUntilRefreshed() throws Exception {
+        insertRandomDay(new Random(3), first);
+        job.aggregate(first, first.plusSeconds(DAY), true);
+        Map<String, Long> expected = index.totals(first, first.plusSeconds(DAY));
+        Path directory = database.directory().resolve("test.db.minutes");
+        Path day = directory.resolve(MinuteIndex.dayName(LocalDate.of(2025, 3, 1).toEpochDay()));
+        // Replace rather than truncate: the first index still maps the old file.
+        Files.delete(day);
+        Files.write(day, new byte[16]);
+
+        MinuteIndex reopened = new MinuteIndex(directory);
+        assertFalse(reopened.isAvailable());
+
+        reopened.refresh(LocalDate.of(2025, 3, 1), sessionDao);
+        assertEquals(expected, reopened.totals(first, first.plusSeconds(DAY)));
+    }
+
+    private void insertRandomDay(Random random, Instant dayStart) {
+        String[] apps = {"code", "firefox", "slack", "terminal"};
+        List<ActivityEvent> events = new ArrayList<>();
+        long offset = random.nextInt(3600);
+        while (offset < DAY - 60) {
+            Instant at = dayStart.plusSeconds(offset);
+            events.add(random.nextInt(6) == 0
+                    ? new ActivityEvent(at, ActivityEventType.IDLE_ON, null, null, null, null)
+                    : new ActivityEvent(at, ActivityEventType.FOCUS, apps[random.nextInt(apps.length)], "t", null, null));
+            offset += 1 + random.nextInt(1800);
+        }
+        eventDao.insertAll(events);
+    }
+
+    private static Map<Path, Object> dayFileKeys(Path directory) throws IOException {
+        Map<Path, Object> keys = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".min")).toList()) {
+                keys.put(file, Files.readAttributes(file, BasicFileAttributes.class).fileKey());
+            }
+        }
+        return keys;
+    }
+
+    private static Map<String, Long> asMap(List<ActivityRangeTotal> totals) {
+        return totals.stream().collect(Collectors.toMap(ActivityRangeTotal::appId, ActivityRangeTotal::totalSeconds));
+    }
+}
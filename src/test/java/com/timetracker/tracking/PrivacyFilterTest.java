@@ -0,0 +1,143 @@
+package com.timetracker.tracking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrivacyFilterTest {
+
+    private static final byte[] KEY = new byte[PrivacyFilter.KEY_BYTES];
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appAndDomainRules_rewriteTheirTargets() {
+        PrivacyFilter filter = compile("mask title app:keepass", "hash url domain:bank.example", "drop url app:signal");
+
+        PrivacyFilter.Redacted masked = filter.apply("KeePassXC", "Database - secrets.kdbx", null);
+        assertEquals(PrivacyFilter.MASKED_TITLE, masked.windowTitle());
+        assertTrue(masked.changed());
+
+        PrivacyFilter.Redacted hashed = filter.apply("firefox", "Accounts", "https://my.bank.example/accounts/42");
+        assertEquals("Accounts", hashed.windowTitle());
+        assertTrue(hashed.url().matches("https://my\\.bank\\.example/#[0-9a-f]{16}"), hashed.url());
+        assertEquals(hashed.url(), filter.apply("firefox", "x", "https://my.bank.example/accounts/42").url(),
+                "hashes are stable");
+
+        assertNull(filter.apply("signal-desktop", "Chat", "https://signal.org/").url());
+
+        PrivacyFilter.Redacted untouched = filter.apply("code", "Main.java", "https://example.com/");
+        assertEquals(new PrivacyFilter.Redacted("Main.java", "https://example.com/", false), untouched);
+    }
+
+    @Test
+    void hashes_dependOnTheInstallKey() throws Exception {
+        Path keyFile = tempDir.resolve("timetracker.db.privacy-key");
+        byte[] key = PrivacyFilter.loadOrCreateKey(keyFile);
+        assertArrayEquals(key, PrivacyFilter.loadOrCreateKey(keyFile), "the key is created once");
+        assertEquals(PrivacyFilter.KEY_BYTES, key.length);
+
+        List<PrivacyRule> rules = List.of(PrivacyRule.parse("hash title app:firefox"));
+        String title = PrivacyFilter.compile(rules, key).apply("firefox", "Inbox", null).windowTitle();
+        assertEquals(title, PrivacyFilter.compile(rules, key.clone()).apply("firefox", "Inbox", null).windowTitle());
+        assertNotEquals(title, PrivacyFilter.compile(rules, KEY).apply("firefox", "Inbox", null).windowTitle());
+        assertThrows(IllegalArgumentException.class, () -> PrivacyFilter.compile(rules, new byte[8]));
+    }
+
+    @Test
+    void strongestActionWinsAndEventsCanBeDropped() {
+        PrivacyFilter filter = compile("mask title app:firefox", "drop title domain:mail.example", "drop event app:banking");
+
+        assertNull(filter.apply("firefox", "Inbox (3)", "https://mail.example/inbox").windowTitle());
+        assertEquals(PrivacyFilter.MASKED_TITLE, filter.apply("firefox", "News", "https://news.example/").windowTitle());
+        assertNull(filter.apply("my-banking-app", "Balance", null), "the whole snapshot is dropped");
+    }
+
+    @Test
+    void maskedUrl_keepsOnlySchemeAndHost() {
+        PrivacyFilter filter = compile("mask url domain:intranet.example");
+
+        assertEquals("https://wiki.intranet.example/",
+                filter.apply("firefox", "t", "https://user:pw@wiki.intranet.example:8443/page?q=1").url());
+    }
+
+    @Test
+    void thousandRules_stillMatchExactly() {
+        List<PrivacyRule> rules = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rules.add(new PrivacyRule(PrivacyRule.Action.MASK, PrivacyRule.Target.TITLE, PrivacyRule.Scope.APP, "tool-" + i + "-"));
+            rules.add(new PrivacyRule(PrivacyRule.Action.HASH, PrivacyRule.Target.URL, PrivacyRule.Scope.DOMAIN, "site" + i + ".example"));
+        }
+        PrivacyFilter filter = PrivacyFilter.compile(rules, KEY);
+
+        assertEquals(2000, filter.size());
+        assertEquals(PrivacyFilter.MASKED_TITLE, filter.apply("tool-999-beta", "t", null).windowTitle());
+        assertEquals("t", filter.apply("tool-1000-beta", "t", null).windowTitle());
+        assertFalse(filter.apply("x", "t", "https://a.site500.example/p").url().contains("/p"));
+        assertEquals("https://site5000.example/p", filter.apply("x", "t", "https://site5000.example/p").url());
+    }
+
+    @Test
+    void load_skipsCommentsAndReportsTheBadLine() throws Exception {
+        Path file = tempDir.resolve("privacy.rules");
+        Files.writeString(file, "# secrets\n\nmask title app:keepass\n");
+        assertEquals(1, PrivacyFilter.load(file, KEY).size());
+
+        Files.writeString(file, "mask title app:keepass\nhash event app:x\n");
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> PrivacyFilter.load(file, KEY));
+        assertTrue(error.getMessage().contains(":2:"), error.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PrivacyRule.parse("mask title keepass"));
+        assertThrows(IllegalArgumentException.class, () -> PrivacyRule.parse("blur title app:x"));
+    }
+
+    @Test
+    void trackingService_recordsOnlyFilteredSnapshots() throws Exception {
+        List<ActivityEvent> recorded = new CopyOnWriteArrayList<>();
+        ActivityEventSink sink = (timestamp, type, appId, windowTitle, url, payloadJson) ->
+                recorded.add(new ActivityEvent(timestamp, type, appId, windowTitle, url, payloadJson));
+        Instant start = Instant.parse("2024-06-03T09:00:00Z");
+        List<ActiveAppSnapshot> snapshots = List.of(
+                new ActiveAppSnapshot("keepassxc", "secrets.kdbx", null, start),
+                new ActiveAppSnapshot("signal", "Chat with Bob", null, start.plusSeconds(10)),
+                new ActiveAppSnapshot("code", "Main.java", null, start.plusSeconds(20)));
+        int[] next = {0};
+        ActiveAppCollector collector = () -> Optional.of(snapshots.get(Math.min(next[0]++, snapshots.size() - 1)));
+        ActivityTrackingConfig config = new ActivityTrackingConfig(Duration.ofMillis(10), Duration.ofMinutes(5), false, true);
+        ActivityTrackingService service = new ActivityTrackingService(collector, sink, config,
+                compile("mask title app:keepass", "drop event app:signal"));
+
+        service.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (recorded.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        service.close();
+
+        List<ActivityEvent> first = recorded.subList(0, 3);
+        assertEquals(List.of("FOCUS keepassxc:[masked]", "PRIVATE null:null", "FOCUS code:Main.java"),
+                first.stream().map(e -> e.type() + " " + e.appId() + ":" + e.windowTitle()).toList());
+
+        List<ActivitySession> sessions = new ActivityAggregator().buildSessions(first, start.plusSeconds(30));
+        assertEquals(2, sessions.size());
+        assertEquals("keepassxc", sessions.get(0).appId());
+        assertEquals(start.plusSeconds(10), sessions.get(0).end(), "the dropped capture ends the previous session");
+        assertEquals("code", sessions.get(1).appId());
+        assertEquals(start.plusSeconds(20), sessions.get(1).start());
+    }
+
+    private static PrivacyFilter compile(String... lines) {
+        return PrivacyFilter.compile(List.of(lines).stream().map(PrivacyRule::parse).toList(), KEY);
+    }
+}
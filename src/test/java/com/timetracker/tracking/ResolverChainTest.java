@@ -0,0 +1,139 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.MetricsRegistry;
+import com.timetracker.metrics.MetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolverChainTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    @Test
+    void unavailableResolver_isSkippedUntilExponentialReprobe() {
+        AtomicBoolean available = new AtomicBoolean(false);
+        AtomicInteger probes = new AtomicInteger();
+        BrowserUrlResolver devtools = new BrowserUrlResolver() {
+            @Override
+            public Optional<String> resolveActiveUrl() {
+                return Optional.of("https://devtools.example.com/");
+            }
+
+            @Override
+            public boolean isAvailable() {
+                probes.incrementAndGet();
+                return available.get();
+            }
+        };
+        ResolverChain chain = chain()
+                .add("devtools", devtools, Duration.ofMillis(20))
+                .add("window_title", new WindowTitleUrlResolver(), Duration.ofMillis(20))
+                .build();
+
+        assertEquals(Optional.of("https://github.com"), chain.resolveActiveUrl("github.com - Google Chrome"));
+        assertTrue(chain.isCircuitOpen("devtools"));
+        for (int i = 0; i < 100; i++) {
+            chain.resolveActiveUrl("github.com - Google Chrome");
+        }
+        assertEquals(1, probes.get(), "an open breaker does not even ask the resolver");
+
+        advance(Duration.ofSeconds(1));
+        chain.resolveActiveUrl("github.com - Google Chrome");
+        assertEquals(2, probes.get());
+        advance(Duration.ofMillis(1_999));
+        chain.resolveActiveUrl("github.com - Google Chrome");
+        assertEquals(2, probes.get(), "re-probe interval doubled after the failed probe");
+
+        available.set(true);
+        advance(Duration.ofMillis(1));
+        assertEquals(Optional.of("https://devtools.example.com/"), chain.resolveActiveUrl("github.com - Google Chrome"));
+        assertFalse(chain.isCircuitOpen("devtools"));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.counters().get("resolver.devtools.failures"));
+        assertEquals(101, snapshot.counters().get("resolver.devtools.skipped"));
+        assertEquals(1, snapshot.counters().get("resolver.devtools.hits"));
+        assertEquals(0, snapshot.gauges().get("resolver.devtools.circuit_open"));
+        assertEquals(103, snapshot.counters().get("resolver.window_title.hits"));
+    }
+
+    @Test
+    void failingResolver_opensAfterThresholdAndMissesDoNotCount() {
+        AtomicInteger calls = new AtomicInteger();
+        BrowserUrlResolver flaky = () -> {
+            if (calls.incrementAndGet() <= 2) {
+                return Optional.empty();
+            }
+            throw new IllegalStateException("boom");
+        };
+        ResolverChain chain = chain().add("flaky", flaky, Duration.ofMillis(20)).build();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Optional.empty(), chain.resolveActiveUrl("title"));
+            assertFalse(chain.isCircuitOpen("flaky"), "two misses and two failures stay closed");
+        }
+        chain.resolveActiveUrl("title");
+        assertTrue(chain.isCircuitOpen("flaky"));
+        chain.resolveActiveUrl("title");
+        assertEquals(5, calls.get());
+        assertEquals(3, metrics.snapshot().counters().get("resolver.flaky.failures"));
+        assertEquals(2, metrics.snapshot().counters().get("resolver.flaky.misses"));
+    }
+
+    @Test
+    void inlineCallOverBudget_countsAsFailureButKeepsItsResult() {
+        BrowserUrlResolver slow = () -> {
+            advance(Duration.ofMillis(50));
+            return Optional.of("https://slow.example.com/");
+        };
+        ResolverChain chain = chain().failureThreshold(1).add("slow", slow, Duration.ofMillis(20)).build();
+
+        assertEquals(Optional.of("https://slow.example.com/"), chain.resolveActiveUrl("title"));
+        assertTrue(chain.isCircuitOpen("slow"));
+        assertEquals(Optional.empty(), chain.resolveActiveUrl("title"));
+        assertEquals(1, metrics.snapshot().counters().get("resolver.slow.timeouts"));
+        assertEquals(1, metrics.snapshot().histograms().get("resolver.slow.latency").count());
+    }
+
+    @Test
+    void blockingResolver_isAbandonedAtItsBudget() {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        BrowserUrlResolver hanging = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return Optional.of("https://never.example.com/");
+        };
+        ResolverChain chain = ResolverChain.builder()
+                .metrics(metrics)
+                .addBlocking("hanging", hanging, Duration.ofMillis(50))
+                .add("window_title", new WindowTitleUrlResolver(), Duration.ofMillis(50))
+                .build();
+
+        long start = System.nanoTime();
+        Optional<String> url = chain.resolveActiveUrl("docs.example.org - Chromium");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(Optional.of("https://docs.example.org"), url);
+        assertTrue(elapsedMillis < 2_000, "waited " + elapsedMillis + " ms");
+        assertEquals(1, metrics.snapshot().counters().get("resolver.hanging.timeouts"));
+    }
+
+    private ResolverChain.Builder chain() {
+        return ResolverChain.builder().metrics(metrics).nanoClock(now::get);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,95 @@
+package com.timetracker.tracking;
+
+import com.timetracker.metrics.MetricsRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScreenLockServiceTest {
+
+    private final List<String> log = new ArrayList<>();
+    private final ActivityEventDao eventDao = new ActivityEventDao() {
+        @Override
+        public void insert(ActivityEvent event) {
+            log.add(event.type().name());
+        }
+    };
+    private final Clock clock = Clock.fixed(Instant.parse("2025-03-01T10:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void lockParksAfterEventAndUnlockUnparksAfterEvent() {
+        ScreenLockService service = new ScreenLockService(eventDao, List.of(parkable("capture"), parkable("idle")), clock);
+
+        service.lockStateChanged(true);
+        assertTrue(service.isLocked());
+        service.lockStateChanged(false);
+
+        assertEquals(List.of("LOCK", "park capture", "park idle", "UNLOCK", "unpark capture", "unpark idle"), log);
+        assertFalse(service.isLocked());
+    }
+
+    @Test
+    void lockGauge_followsTheServiceItWasRegisteredFor() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        ScreenLockService service = new ScreenLockService(eventDao, List.of(), clock);
+        service.registerGauges(metrics);
+        ScreenLockService other = new ScreenLockService(eventDao, List.of(), clock);
+
+        service.lockStateChanged(true);
+        other.lockStateChanged(false);
+
+        assertEquals(1L, metrics.snapshot().gauges().get("lock.locked"));
+    }
+
+    @Test
+    void repeatedSignalsFromSeveralSourcesCountOnce() {
+        ScreenLockService service = new ScreenLockService(eventDao, List.of(parkable("capture")), clock);
+
+        service.lockStateChanged(false);
+        service.lockStateChanged(true);
+        service.lockStateChanged(true);
+        service.lockStateChanged(false);
+        service.lockStateChanged(false);
+
+        assertEquals(List.of("LOCK", "park capture", "UNLOCK", "unpark capture"), log);
+    }
+
+    @Test
+    void failingParkableDoesNotStopTheOthers() {
+        Parkable broken = new Parkable() {
+            @Override
+            public void park() {
+                throw new IllegalStateException("executor shut down");
+            }
+
+            @Override
+            public void unpark() {
+            }
+        };
+        ScreenLockService service = new ScreenLockService(eventDao, List.of(broken, parkable("idle")), clock);
+
+        service.lockStateChanged(true);
+
+        assertEquals(List.of("LOCK", "park idle"), log);
+    }
+
+    private Parkable parkable(String name) {
+        return new Parkable() {
+            @Override
+            public void park() {
+                log.add("park " + name);
+            }
+
+            @Override
+            public void unpark() {
+                log.add("unpark " + name);
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.timetracker.tracking;
+
+import com.timetracker.tracking.WindowMetadataCache.WindowMetadata;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowMetadataCacheTest {
+
+    @TempDir
+    Path procRoot;
+
+    @Test
+    void entryIsDroppedWhenProcessExits() throws IOException {
+        Path process = Files.createDirectories(procRoot.resolve("100"));
+        WindowMetadataCache cache = new WindowMetadataCache(procRoot);
+        cache.put(metadata("0x1", 100));
+
+        assertNotNull(cache.get("0x1"));
+        Files.delete(process);
+        assertNull(cache.get("0x1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void capacityIsBoundedLeastRecentlyUsedFirst() {
+        WindowMetadataCache cache = new WindowMetadataCache(procRoot);
+        for (int i = 0; i <= WindowMetadataCache.CAPACITY; i++) {
+            cache.put(metadata("0x" + Integer.toHexString(i), -1));
+            if (i == 0) {
+                continue;
+            }
+            cache.get("0x0");
+        }
+
+        assertEquals(WindowMetadataCache.CAPACITY, cache.size());
+        assertNotNull(cache.get("0x0"), "recently read entry survives");
+        assertNull(cache.get("0x1"));
+    }
+
+    @Test
+    void browserClassificationUsesClassOrExecutable() {
+        assertTrue(WindowMetadataCache.isBrowser("google-chrome", null));
+        assertTrue(WindowMetadataCache.isBrowser("Navigator", "/opt/brave.com/brave/brave"));
+        assertTrue(WindowMetadataCache.isBrowser(null, "/usr/bin/chromium"));
+        assertFalse(WindowMetadataCache.isBrowser("code", "/usr/share/code/code"));
+        assertFalse(WindowMetadataCache.isBrowser(null, null));
+    }
+
+    private static WindowMetadata metadata(String windowId, long pid) {
+        return new WindowMetadata(windowId, pid, "app", null, List.of(), false);
+    }
+}
@@ -0,0 +1,164 @@
+package com.timetracker.tracking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class X11ScreenSaverIdleSourceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void queriesIdleTimeWithCookieFromXauthority() throws IOException {
+        Path xauthority = dir.resolve("Xauthority");
+        byte[] cookie = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+        Files.write(xauthority, xauthEntries(entry("7", "OTHER-AUTH", new byte[]{9}),
+                entry("3", "MIT-MAGIC-COOKIE-1", new byte[]{42}),
+                entry("7", "MIT-MAGIC-COOKIE-1", cookie)));
+
+        try (FakeXServer server = new FakeXServer(dir.resolve("X7"), true);
+             X11ScreenSaverIdleSource source = new X11ScreenSaverIdleSource(dir.resolve("X7"), "7", xauthority)) {
+            assertTrue(source.start());
+            assertArrayEquals(cookie, server.lastCookie());
+
+            server.idleMillis(1234);
+            assertEquals(Duration.ofMillis(1234), source.idleTime());
+            server.idleMillis(3_000_000_000L);
+            assertEquals(Duration.ofMillis(3_000_000_000L), source.idleTime(), "CARD32 is unsigned");
+            assertEquals(1, server.connections());
+        }
+    }
+
+    @Test
+    void missingExtensionOrServer_failsStart() throws IOException {
+        try (FakeXServer ignored = new FakeXServer(dir.resolve("X1"), false);
+             X11ScreenSaverIdleSource source = new X11ScreenSaverIdleSource(dir.resolve("X1"), "1", null)) {
+            assertFalse(source.start());
+        }
+        try (X11ScreenSaverIdleSource source = new X11ScreenSaverIdleSource(dir.resolve("X2"), "2", null)) {
+            assertFalse(source.start());
+        }
+        try (X11ScreenSaverIdleSource source = new X11ScreenSaverIdleSource("remote.example.com:0", null)) {
+            assertFalse(source.start());
+        }
+    }
+
+    @Test
+    void reconnectsAfterServerDropsConnection() throws Exception {
+        try (FakeXServer server = new FakeXServer(dir.resolve("X3"), true);
+             X11ScreenSaverIdleSource source = new X11ScreenSaverIdleSource(dir.resolve("X3"), "3", null)) {
+            assertTrue(source.start());
+            server.disconnectClient();
+
+            assertThrows(IOException.class, source::idleTime);
+            server.idleMillis(50);
+            assertEquals(Duration.ofMillis(50), source.idleTime());
+            assertEquals(2, server.connections());
+        }
+    }
+
+    @Test
+    void parsesLocalDisplayNames() {
+        assertEquals("0", X11ScreenSaverIdleSource.displayNumber(":0"));
+        assertEquals("1", X11ScreenSaverIdleSource.displayNumber(":1.0"));
+        assertEquals("10", X11ScreenSaverIdleSource.displayNumber("unix:10"));
+        assertNull(X11ScreenSaverIdleSource.displayNumber("host:0"));
+        assertNull(X11ScreenSaverIdleSource.displayNumber(""));
+        assertNull(X11ScreenSaverIdleSource.displayNumber(null));
+    }
+
+    /**
+     * End to end against a real X server: runs only where Xvfb and xdotool are installed.
+     */
+    @Test
+    void xvfb_idleTimeGrowsAndResetsOnSyntheticInput() throws Exception {
+        assumeTrue(onPath("Xvfb") && onPath("xdotool"), "Xvfb and xdotool required");
+        String display = ":" + ThreadLocalRandom.current().nextInt(100, 400);
+        Process xvfb = new ProcessBuilder("Xvfb", display, "-nolisten", "tcp")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            Path socket = Path.of("/tmp/.X11-unix", "X" + display.substring(1));
+            for (int i = 0; i < 50 && !Files.exists(socket); i++) {
+                Thread.sleep(100);
+            }
+            try (X11ScreenSaverIdleSource source = new X11ScreenSaverIdleSource(display, null)) {
+                assertTrue(source.start());
+                xdotool(display, "mousemove", "10", "10");
+                Thread.sleep(1_500);
+                assertTrue(source.idleTime().toMillis() >= 1_000, "idle time grows without input");
+
+                xdotool(display, "mousemove", "200", "150");
+                assertTrue(source.idleTime().toMillis() < 500, "synthetic input resets idle time");
+                Thread.sleep(600);
+                xdotool(display, "key", "shift");
+                assertTrue(source.idleTime().toMillis() < 500, "key press resets idle time");
+            }
+        } finally {
+            xvfb.destroy();
+            xvfb.waitFor(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void xdotool(String display, String... args) throws Exception {
+        String[] command = new String[args.length + 1];
+        command[0] = "xdotool";
+        System.arraycopy(args, 0, command, 1, args.length);
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().put("DISPLAY", display);
+        assertEquals(0, builder.start().waitFor());
+    }
+
+    private static boolean onPath(String executable) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String entry : path.split(File.pathSeparator)) {
+            if (Files.isExecutable(Path.of(entry, executable))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] entry(String display, String name, byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(256);
+        writeCounted(out, "host".getBytes(StandardCharsets.US_ASCII));
+        writeCounted(out, display.getBytes(StandardCharsets.US_ASCII));
+        writeCounted(out, name.getBytes(StandardCharsets.US_ASCII));
+        writeCounted(out, data);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] xauthEntries(byte[]... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (byte[] entry : entries) {
+            bytes.write(entry);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeCounted(DataOutputStream out, byte[] value) throws IOException {
+        out.writeShort(value.length);
+        out.write(value);
+    }
+}